@@ -27,6 +27,7 @@
 import java.util.concurrent.CompletableFuture;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * Save and access store events.
@@ -173,4 +174,22 @@ default List<EventStatus> getEventStatuses(Collection<Event> events, Collection<
     {
         return List.of();
     }
+
+    /**
+     * Get all the entities associated with the passed event in a single call, instead of searching for each
+     * entity/event pair.
+     *
+     * @param eventId the unique identifier of the event
+     * @param mail {@code true} for the entities associated through a mail entity event, {@code false} for the entities
+     *            associated through a status
+     * @return the ids of the entities associated with the event, or empty if the store does not support this kind of
+     *         lookup
+     * @throws EventStreamException when failing to get the entities
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    default Optional<Set<String>> getEntityIds(String eventId, boolean mail) throws EventStreamException
+    {
+        return Optional.empty();
+    }
 }
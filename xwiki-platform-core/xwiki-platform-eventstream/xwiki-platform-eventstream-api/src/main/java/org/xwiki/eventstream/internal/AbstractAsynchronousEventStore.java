@@ -23,12 +23,15 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
@@ -127,6 +130,11 @@ public abstract class AbstractAsynchronousEventStore implements EventStore, Init
 
         private final Map<String, Serializable> context;
 
+        /**
+         * The date (in nanoseconds) when the task was queued.
+         */
+        private final long queued = System.nanoTime();
+
         private O output;
 
         protected EventStoreTask(I input, EventStoreTaskType type, Map<String, Serializable> contextStore)
@@ -155,6 +163,38 @@ public EventStoreTaskType getType()
         }
     }
 
+    /**
+     * Keep the latest latencies of a type of task to compute percentiles.
+     * 
+     * @version $Id$
+     */
+    private static final class LatencyStatistics
+    {
+        private static final int SIZE = 1024;
+
+        private final long[] latencies = new long[SIZE];
+
+        private long count;
+
+        synchronized void add(long latency)
+        {
+            this.latencies[(int) (this.count++ % SIZE)] = latency;
+        }
+
+        synchronized long getPercentile(double percentile)
+        {
+            int size = (int) Math.min(this.count, SIZE);
+            if (size == 0) {
+                return 0;
+            }
+
+            long[] sorted = Arrays.copyOf(this.latencies, size);
+            Arrays.sort(sorted);
+
+            return sorted[Math.min(size - 1, (int) Math.ceil(percentile / 100 * size) - 1)];
+        }
+    }
+
     private static class DeleteStatusesData
     {
         private final String entityId;
@@ -187,8 +227,20 @@ public EventStoreTaskType getType()
 
     private int queueCapacity;
 
+    /**
+     * The time (in milliseconds) to wait for more tasks before ending a batch.
+     */
+    private long batchWindow;
+
     private BlockingQueue<EventStoreTask<?, ?>> queue;
 
+    /**
+     * The task being executed by the store thread.
+     */
+    private EventStoreTask<?, ?> currentTask;
+
+    private final Map<EventStoreTaskType, LatencyStatistics> latencies = new EnumMap<>(EventStoreTaskType.class);
+
     private boolean notifyEach;
 
     private boolean notifyAll;
@@ -223,6 +275,21 @@ public int getQueueSize()
         return size;
     }
 
+    /**
+     * @param percentile the percentile to compute (between 0 and 100)
+     * @return the passed percentile of the time (in milliseconds) between the queuing and the completion of the latest
+     *         tasks, for each type of task
+     * @since 16.7.0RC1
+     */
+    public Map<String, Long> getLatencyPercentiles(double percentile)
+    {
+        Map<String, Long> percentiles = new LinkedHashMap<>();
+        this.latencies.forEach((type, statistics) -> percentiles.put(type.name(),
+            TimeUnit.NANOSECONDS.toMillis(statistics.getPercentile(percentile))));
+
+        return percentiles;
+    }
+
     private <O, I> CompletableFuture<O> addTask(I input, EventStoreTaskType type)
     {
         // Remember a few standard things from the context
@@ -331,14 +398,16 @@ private void processTasks(EventStoreTask<?, ?> firstTask)
 
         // Make sure to not treat more than the queue capacity in a single batch
         List<EventStoreTask<?, ?>> tasks = new ArrayList<>(this.queueCapacity);
+        long batchEnd = System.currentTimeMillis() + this.batchWindow;
         try {
-            for (EventStoreTask<?, ?> task = firstTask; task != null; task = this.queue.poll()) {
+            for (EventStoreTask<?, ?> task = firstTask; task != null; task = nextTask(batchEnd)) {
                 if (task == EventStoreTask.STOP) {
                     break;
                 }
 
                 try {
                     // Execute the task
+                    this.currentTask = task;
                     processTask(task);
 
                     // Add a successful task to the batch
@@ -351,8 +420,15 @@ private void processTasks(EventStoreTask<?, ?> firstTask)
                 } catch (Exception e) {
                     // Indicate that the task failed
                     task.future.completeExceptionally(e);
+                } finally {
+                    this.currentTask = null;
                 }
             }
+        } catch (InterruptedException e) {
+            this.logger.warn("The thread handling asynchronous storage for event store [{}] has been interrupted",
+                this.descriptor.getRoleHint(), e);
+
+            Thread.currentThread().interrupt();
         } finally {
             // Give a chance to the extended class to do something before the tasks are declared complete
             afterTasks(tasks);
@@ -361,6 +437,26 @@ private void processTasks(EventStoreTask<?, ?> firstTask)
         }
     }
 
+    /**
+     * @param batchEnd the date until which to wait for more tasks
+     * @return the next task of the batch or {@code null} if the batch is over
+     * @throws InterruptedException when interrupted while waiting for a task
+     */
+    private EventStoreTask<?, ?> nextTask(long batchEnd) throws InterruptedException
+    {
+        EventStoreTask<?, ?> task = this.queue.poll();
+
+        if (task == null && this.batchWindow > 0) {
+            // Give a chance to other tasks to join the batch so that they end up in the same commit
+            long remaining = batchEnd - System.currentTimeMillis();
+            if (remaining > 0) {
+                task = this.queue.poll(remaining, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        return task;
+    }
+
     private boolean processTask(EventStoreTask<?, ?> task) throws EventStreamException
     {
         switch (task.type) {
@@ -435,6 +531,8 @@ private <O, I> void complete(EventStoreTask<O, I> task, O output)
             }
         }
 
+        this.latencies.get(task.type).add(System.nanoTime() - task.queued);
+
         // Notify Future listeners.
         // We do so before the call to event listeners because callers do not need to wait for them before continuing,
         // and instead should continue as soon as the output value is available.
@@ -545,19 +643,64 @@ protected void afterTasks(List<EventStoreTask<?, ?>> tasks)
     {
         if (this.notifyAll) {
             for (EventStoreTask task : tasks) {
-                complete(task, task.output);
+                // Skip the tasks which failed after being executed
+                if (!task.future.isDone()) {
+                    complete(task, task.output);
+                }
             }
         }
     }
 
+    /**
+     * @return the task currently executed by the store thread, {@code null} when called outside of the execution of a
+     *         task
+     * @since 16.7.0RC1
+     */
+    protected EventStoreTask<?, ?> getCurrentTask()
+    {
+        return this.currentTask;
+    }
+
+    /**
+     * Indicate that a task which was successfully executed failed afterward, for example because the changes it
+     * produced could not be written at the end of the batch. Should be called before {@link #afterTasks(List)}
+     * completes the tasks of the batch.
+     * 
+     * @param task the task which failed
+     * @param cause the reason of the failure
+     * @since 16.7.0RC1
+     */
+    protected void failTask(EventStoreTask<?, ?> task, Throwable cause)
+    {
+        task.future.completeExceptionally(cause);
+    }
+
     protected void initialize(int queueCapacity, boolean notifyEach, boolean notifyAll)
+    {
+        initialize(queueCapacity, notifyEach, notifyAll, 0);
+    }
+
+    /**
+     * @param queueCapacity the maximum number of waiting tasks, also the maximum number of tasks in a batch
+     * @param notifyEach {@code true} to complete each task as soon as it's been executed
+     * @param notifyAll {@code true} to complete the tasks of a batch after {@link #afterTasks(List)}
+     * @param batchWindow the time (in milliseconds) to wait for more tasks before ending a batch, so that bursts of
+     *            tasks are grouped in the same batch (and written/committed together) instead of one batch per task
+     * @since 16.7.0RC1
+     */
+    protected void initialize(int queueCapacity, boolean notifyEach, boolean notifyAll, long batchWindow)
     {
         this.notifyEach = notifyEach;
         this.notifyAll = !notifyEach && notifyAll;
 
         this.queueCapacity = queueCapacity;
+        this.batchWindow = batchWindow;
         this.queue = new LinkedBlockingQueue<>(this.queueCapacity);
 
+        for (EventStoreTaskType type : EventStoreTaskType.values()) {
+            this.latencies.put(type, new LatencyStatistics());
+        }
+
         this.thread = new Thread(this::run);
         this.thread.setName("Asynchronous handler for event store [" + descriptor.getRoleHint() + "]");
         this.thread.setPriority(Thread.NORM_PRIORITY - 1);
@@ -452,4 +452,18 @@ public List<EventStatus> getEventStatuses(Collection<Event> events, Collection<S
 
         return List.of();
     }
+
+    @Override
+    public Optional<Set<String>> getEntityIds(String eventId, boolean mail) throws EventStreamException
+    {
+        if (this.store != null) {
+            return this.store.getEntityIds(eventId, mail);
+        }
+
+        if (this.legacyStore != null) {
+            return this.legacyStore.getEntityIds(eventId, mail);
+        }
+
+        return Optional.empty();
+    }
 }
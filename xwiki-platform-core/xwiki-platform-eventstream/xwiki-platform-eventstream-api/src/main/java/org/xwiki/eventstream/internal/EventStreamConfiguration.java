@@ -64,4 +64,14 @@ public boolean isEventStoreEnabled()
     {
         return this.configuration.getProperty("eventstream.store.enabled", true);
     }
+
+    /**
+     * @return the time (in milliseconds) the asynchronous store waits for more operations before writing and committing
+     *         the ones it received
+     * @since 16.7.0RC1
+     */
+    public long getStoreBatchWindow()
+    {
+        return this.configuration.getProperty("eventstream.store.batchWindow", 0L);
+    }
 }
@@ -27,6 +27,7 @@
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -269,12 +270,34 @@ protected Optional<Event> syncDeleteEvent(Event event) throws EventStreamExcepti
         }
     }
 
+    public static class TestBatchedEventStore extends TestAbstractAsynchronousEventStore
+    {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void initialize() throws InitializationException
+        {
+            initialize(10, false, true, 1000);
+        }
+
+        @Override
+        protected void afterTasks(List<EventStoreTask<?, ?>> tasks)
+        {
+            this.batchSizes.add(tasks.size());
+
+            super.afterTasks(tasks);
+        }
+    }
+
     @InjectComponentManager
     private MockitoComponentManager componentManager;
 
     @InjectMockComponents
     private TestAbstractAsynchronousEventStore store;
 
+    @InjectMockComponents
+    private TestBatchedEventStore batchedStore;
+
     @MockComponent
     private ObservationManager observation;
 
@@ -467,6 +490,35 @@ void prefilter() throws InterruptedException, ExecutionException, EventStreamExc
         assertFalse(this.store.getEvent(event2.getId()).get().isPrefiltered());
     }
 
+    @Test
+    void getLatencyPercentiles() throws InterruptedException, ExecutionException
+    {
+        assertEquals(0, this.store.getLatencyPercentiles(50).get("SAVE_EVENT"));
+
+        this.store.saveEvent(event("id1"));
+        this.store.saveEvent(event("id2")).get();
+
+        Map<String, Long> percentiles = this.store.getLatencyPercentiles(99);
+        assertEquals(AbstractAsynchronousEventStore.EventStoreTaskType.values().length, percentiles.size());
+        assertTrue(percentiles.get("SAVE_EVENT") >= 0);
+        assertEquals(0, percentiles.get("DELETE_EVENT"));
+    }
+
+    @Test
+    void batchWindow() throws InterruptedException, ExecutionException
+    {
+        CompletableFuture<Event> future1 = this.batchedStore.saveEvent(event("id1"));
+        // Queued after the first task is taken, but before the end of the batch window
+        Thread.sleep(100);
+        CompletableFuture<Event> future2 = this.batchedStore.saveEvent(event("id2"));
+
+        future2.get();
+        assertTrue(future1.isDone());
+
+        // Both tasks ended up in the same batch
+        assertEquals(List.of(2), this.batchedStore.batchSizes);
+    }
+
     /**
      * Observe for a call to notify on {@link #observation} for a given event and type. Complete the returned
      * {@link CompletableFuture} as soon as notify is called. This allows for tests to wait for notify to be called even
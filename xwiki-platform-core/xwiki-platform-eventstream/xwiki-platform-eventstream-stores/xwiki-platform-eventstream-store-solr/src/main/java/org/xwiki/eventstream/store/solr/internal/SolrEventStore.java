@@ -28,7 +28,10 @@
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -50,6 +53,7 @@
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrInputDocument;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
 import org.xwiki.component.phase.InitializationException;
 import org.xwiki.eventstream.EntityEvent;
 import org.xwiki.eventstream.Event;
@@ -62,6 +66,7 @@
 import org.xwiki.eventstream.internal.AbstractAsynchronousEventStore;
 import org.xwiki.eventstream.internal.DefaultEvent;
 import org.xwiki.eventstream.internal.DefaultEventStatus;
+import org.xwiki.eventstream.internal.EventStreamConfiguration;
 import org.xwiki.eventstream.internal.StreamEventSearchResult;
 import org.xwiki.eventstream.query.AbstractPropertyQueryCondition;
 import org.xwiki.eventstream.query.CompareQueryCondition;
@@ -76,6 +81,8 @@
 import org.xwiki.eventstream.query.SortableEventQuery.SortClause;
 import org.xwiki.eventstream.query.SortableEventQuery.SortClause.Order;
 import org.xwiki.eventstream.query.StatusQueryCondition;
+import org.xwiki.eventstream.store.solr.internal.jmx.JMXEventStore;
+import org.xwiki.management.JMXBeanRegistration;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.EntityReferenceSerializer;
@@ -121,6 +128,34 @@ public class SolrEventStore extends AbstractAsynchronousEventStore
         }
     }
 
+    private static final String MBEAN_NAME = "type=EventStore,name=solr";
+
+    /**
+     * The atomic updates of an event waiting to be sent to Solr.
+     * 
+     * @version $Id$
+     */
+    private static final class PendingUpdate
+    {
+        /**
+         * For each listeners field, the entities to add ({@code true}) or remove ({@code false}). Only the last
+         * operation for a given entity matters.
+         */
+        private final Map<String, Map<String, Boolean>> listeners = new LinkedHashMap<>();
+
+        /**
+         * The tasks which produced the updates and which fail if they cannot be sent.
+         */
+        private final Set<EventStoreTask<?, ?>> tasks = new LinkedHashSet<>();
+
+        private boolean prefiltered;
+
+        void setListener(String fieldName, String entityId, boolean add)
+        {
+            this.listeners.computeIfAbsent(fieldName, k -> new LinkedHashMap<>()).put(entityId, add);
+        }
+    }
+
     static {
         SEARCH_FIELD_MAPPING.put(Event.FIELD_DOCUMENT,
             new SearchFieldMapping(EventsSolrCoreInitializer.FIELD_DOCUMENT_INDEX));
@@ -134,6 +169,12 @@ public class SolrEventStore extends AbstractAsynchronousEventStore
     @Inject
     private Solr solr;
 
+    @Inject
+    private EventStreamConfiguration configuration;
+
+    @Inject
+    private JMXBeanRegistration jmxRegistration;
+
     @Inject
     private SolrUtils utils;
 
@@ -150,33 +191,138 @@ public class SolrEventStore extends AbstractAsynchronousEventStore
 
     private SolrClient client;
 
+    /**
+     * The atomic updates waiting to be sent to Solr, indexed by event id. Only manipulated by the store thread.
+     */
+    private final Map<String, PendingUpdate> pendingUpdates = new LinkedHashMap<>();
+
+    /**
+     * The tasks of the current batch whose updates could not be sent. Only manipulated by the store thread.
+     */
+    private final Map<EventStoreTask<?, ?>, EventStreamException> failedTasks = new LinkedHashMap<>();
+
     @Override
     public void initialize() throws InitializationException
     {
-        initialize(100, false, true);
-
         try {
             this.client = this.solr.getClient(EventsSolrCoreInitializer.NAME);
         } catch (SolrException e) {
             throw new InitializationException("Failed to get the events Solr core", e);
         }
+
+        initialize(100, false, true, this.configuration.getStoreBatchWindow());
+
+        this.jmxRegistration.registerMBean(new JMXEventStore(this), MBEAN_NAME);
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.jmxRegistration.unregisterMBean(MBEAN_NAME);
+
+        super.dispose();
     }
 
     @Override
     protected void afterTasks(List<EventStoreTask<?, ?>> tasks)
     {
+        try {
+            flushUpdates();
+        } catch (EventStreamException e) {
+            this.logger.error("Failed to send the events updates", e);
+        }
+
         try {
             commit();
         } catch (EventStreamException e) {
             this.logger.error("Failed to commit", e);
         }
 
+        // The tasks whose updates were lost should not be reported as successful
+        this.failedTasks.forEach(this::failTask);
+        this.failedTasks.clear();
+
         super.afterTasks(tasks);
     }
 
+    private PendingUpdate getPendingUpdate(String eventId)
+    {
+        PendingUpdate update = this.pendingUpdates.computeIfAbsent(eventId, k -> new PendingUpdate());
+
+        EventStoreTask<?, ?> task = getCurrentTask();
+        if (task != null) {
+            update.tasks.add(task);
+        }
+
+        return update;
+    }
+
+    /**
+     * Send all the waiting atomic updates to Solr, with one document per event and one request for all the events.
+     */
+    private void flushUpdates() throws EventStreamException
+    {
+        if (this.pendingUpdates.isEmpty()) {
+            return;
+        }
+
+        List<SolrInputDocument> documents = new ArrayList<>(this.pendingUpdates.size());
+        for (Map.Entry<String, PendingUpdate> entry : this.pendingUpdates.entrySet()) {
+            SolrInputDocument document = new SolrInputDocument();
+
+            this.utils.set(EventsSolrCoreInitializer.SOLR_FIELD_ID, entry.getKey(), document);
+
+            PendingUpdate update = entry.getValue();
+            if (update.prefiltered) {
+                this.utils.setAtomic(SolrUtils.ATOMIC_UPDATE_MODIFIER_SET, Event.FIELD_PREFILTERED, true, document);
+            }
+            update.listeners.forEach((fieldName, entities) -> setListeners(fieldName, entities, document));
+
+            documents.add(document);
+        }
+
+        List<PendingUpdate> updates = new ArrayList<>(this.pendingUpdates.values());
+
+        // Forget the updates even if sending them fails to not fail all the following batches
+        this.pendingUpdates.clear();
+
+        try {
+            this.client.add(documents);
+        } catch (Exception e) {
+            EventStreamException exception = new EventStreamException(
+                String.format("Failed to update the statuses of [%s] events", documents.size()), e);
+
+            // Fail the tasks which produced the lost updates
+            updates.forEach(update -> update.tasks.forEach(task -> this.failedTasks.putIfAbsent(task, exception)));
+
+            throw exception;
+        }
+    }
+
+    private void setListeners(String fieldName, Map<String, Boolean> entities, SolrInputDocument document)
+    {
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        entities.forEach((entityId, add) -> (add ? added : removed).add(entityId));
+
+        // Each entity is either added or removed, so the order in which Solr applies the modifiers does not matter
+        Map<String, Object> modifiers = new LinkedHashMap<>();
+        if (!added.isEmpty()) {
+            modifiers.put(SolrUtils.ATOMIC_UPDATE_MODIFIER_ADD_DISTINCT, added);
+        }
+        if (!removed.isEmpty()) {
+            modifiers.put(SolrUtils.ATOMIC_UPDATE_MODIFIER_REMOVE, removed);
+        }
+
+        document.setField(fieldName, modifiers);
+    }
+
     @Override
     protected Event syncSaveEvent(Event event) throws EventStreamException
     {
+        // Make sure the updates of the event queued before are not applied after the new version
+        flushUpdates();
+
         try {
             this.client.add(toSolrInputDocument(event));
         } catch (Exception e) {
@@ -213,6 +359,8 @@ protected Optional<EventStatus> syncDeleteEventStatus(EventStatus status) throws
     @Override
     protected Void syncDeleteEventStatuses(String entityId, Date date) throws EventStreamException
     {
+        flushUpdates();
+
         SimpleEventQuery query = new SimpleEventQuery();
         query.withStatus(entityId);
         if (date != null) {
@@ -240,18 +388,8 @@ protected Optional<EntityEvent> syncDeleteMailEntityEvent(EntityEvent event) thr
     @Override
     protected Event syncPrefilterEvent(Event event) throws EventStreamException
     {
-        SolrInputDocument document = new SolrInputDocument();
-
-        this.utils.set(EventsSolrCoreInitializer.SOLR_FIELD_ID, event.getId(), document);
-
-        this.utils.setAtomic(SolrUtils.ATOMIC_UPDATE_MODIFIER_SET, Event.FIELD_PREFILTERED, true, document);
-
-        try {
-            this.client.add(document);
-        } catch (Exception e) {
-            throw new EventStreamException(
-                String.format("Failed to to set the event [%s] as prefiltered", event.getId()), e);
-        }
+        // Merged with the other updates of the event (usually its statuses) and sent at the end of the batch
+        getPendingUpdate(event.getId()).prefiltered = true;
 
         // Update the event so that we return something with the right value
         if (event instanceof DefaultEvent) {
@@ -262,44 +400,17 @@ protected Event syncPrefilterEvent(Event event) throws EventStreamException
     }
 
     private void saveEventStatus(String eventId, String entityId, boolean read, boolean unread)
-        throws EventStreamException
     {
-        SolrInputDocument document = new SolrInputDocument();
-
-        this.utils.set(EventsSolrCoreInitializer.SOLR_FIELD_ID, eventId, document);
-
-        this.utils.setAtomic(
-            read ? SolrUtils.ATOMIC_UPDATE_MODIFIER_ADD_DISTINCT : SolrUtils.ATOMIC_UPDATE_MODIFIER_REMOVE,
-            EventsSolrCoreInitializer.SOLR_FIELD_READLISTENERS, entityId, document);
-        this.utils.setAtomic(
-            unread ? SolrUtils.ATOMIC_UPDATE_MODIFIER_ADD_DISTINCT : SolrUtils.ATOMIC_UPDATE_MODIFIER_REMOVE,
-            EventsSolrCoreInitializer.SOLR_FIELD_UNREADLISTENERS, entityId, document);
-
-        try {
-            this.client.add(document);
-        } catch (Exception e) {
-            throw new EventStreamException(
-                String.format("Failed to update the event status for event [%s] and entity id [%s]", eventId, entityId),
-                e);
-        }
+        // Merged with the other updates of the event and sent at the end of the batch
+        PendingUpdate update = getPendingUpdate(eventId);
+        update.setListener(EventsSolrCoreInitializer.SOLR_FIELD_READLISTENERS, entityId, read);
+        update.setListener(EventsSolrCoreInitializer.SOLR_FIELD_UNREADLISTENERS, entityId, unread);
     }
 
-    private void saveMailEntityEvent(String eventId, String entityId, boolean add) throws EventStreamException
+    private void saveMailEntityEvent(String eventId, String entityId, boolean add)
     {
-        SolrInputDocument document = new SolrInputDocument();
-
-        this.utils.set(EventsSolrCoreInitializer.SOLR_FIELD_ID, eventId, document);
-
-        this.utils.setAtomic(
-            add ? SolrUtils.ATOMIC_UPDATE_MODIFIER_ADD_DISTINCT : SolrUtils.ATOMIC_UPDATE_MODIFIER_REMOVE,
-            EventsSolrCoreInitializer.SOLR_FIELD_MAILLISTENERS, entityId, document);
-
-        try {
-            this.client.add(document);
-        } catch (Exception e) {
-            throw new EventStreamException(String.format(
-                "Failed to update the event mail status for event [%s] and entity id [%s]", eventId, entityId), e);
-        }
+        // Merged with the other updates of the event and sent at the end of the batch
+        getPendingUpdate(eventId).setListener(EventsSolrCoreInitializer.SOLR_FIELD_MAILLISTENERS, entityId, add);
     }
 
     private SolrInputDocument toSolrInputDocument(Event event)
@@ -356,6 +467,9 @@ private SolrInputDocument toSolrInputDocument(Event event)
     @Override
     protected Optional<Event> syncDeleteEvent(String eventId) throws EventStreamException
     {
+        // Make sure the updates of the event queued before are not applied after its deletion
+        flushUpdates();
+
         Optional<Event> event = getEvent(eventId);
 
         if (event.isPresent()) {
@@ -407,6 +521,37 @@ public Optional<Event> getEvent(String eventId) throws EventStreamException
         return Optional.ofNullable(toEvent(document));
     }
 
+    @Override
+    public Optional<Set<String>> getEntityIds(String eventId, boolean mail) throws EventStreamException
+    {
+        SolrDocument document;
+        try {
+            document = getEventDocument(eventId);
+        } catch (Exception e) {
+            throw new EventStreamException("Failed to get Solr document with id [" + eventId + "]", e);
+        }
+
+        Set<String> entityIds = new HashSet<>();
+        if (document != null) {
+            if (mail) {
+                addAll(EventsSolrCoreInitializer.SOLR_FIELD_MAILLISTENERS, document, entityIds);
+            } else {
+                addAll(EventsSolrCoreInitializer.SOLR_FIELD_READLISTENERS, document, entityIds);
+                addAll(EventsSolrCoreInitializer.SOLR_FIELD_UNREADLISTENERS, document, entityIds);
+            }
+        }
+
+        return Optional.of(entityIds);
+    }
+
+    private void addAll(String fieldName, SolrDocument document, Set<String> entityIds)
+    {
+        Set<String> values = this.utils.getSet(fieldName, document);
+        if (values != null) {
+            entityIds.addAll(values);
+        }
+    }
+
     @Override
     public List<EventStatus> getEventStatuses(Collection<Event> events, Collection<String> entityIds) throws Exception
     {
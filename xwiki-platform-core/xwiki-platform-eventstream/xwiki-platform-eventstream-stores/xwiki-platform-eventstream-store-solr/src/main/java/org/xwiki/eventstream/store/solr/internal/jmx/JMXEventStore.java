@@ -0,0 +1,67 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.eventstream.store.solr.internal.jmx;
+
+import java.util.Map;
+
+import org.xwiki.eventstream.internal.AbstractAsynchronousEventStore;
+
+/**
+ * Expose the state of an asynchronous event store as a JMX MBean.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+public class JMXEventStore implements JMXEventStoreMBean
+{
+    private final AbstractAsynchronousEventStore store;
+
+    /**
+     * @param store the store to expose
+     */
+    public JMXEventStore(AbstractAsynchronousEventStore store)
+    {
+        this.store = store;
+    }
+
+    @Override
+    public int getQueueSize()
+    {
+        return this.store.getQueueSize();
+    }
+
+    @Override
+    public Map<String, Long> getMedianLatencies()
+    {
+        return this.store.getLatencyPercentiles(50);
+    }
+
+    @Override
+    public Map<String, Long> get95thPercentileLatencies()
+    {
+        return this.store.getLatencyPercentiles(95);
+    }
+
+    @Override
+    public Map<String, Long> get99thPercentileLatencies()
+    {
+        return this.store.getLatencyPercentiles(99);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.eventstream.store.solr.internal.jmx;
+
+import java.util.Map;
+
+/**
+ * Interface of the {@link JMXEventStore} MBean.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+public interface JMXEventStoreMBean
+{
+    /**
+     * @return an estimation of the number of events waiting to be added to the store
+     */
+    int getQueueSize();
+
+    /**
+     * @return the median time (in milliseconds) between the queuing and the completion of the latest tasks, for each
+     *         type of task
+     */
+    Map<String, Long> getMedianLatencies();
+
+    /**
+     * @return the 95th percentile of the time (in milliseconds) between the queuing and the completion of the latest
+     *         tasks, for each type of task
+     */
+    Map<String, Long> get95thPercentileLatencies();
+
+    /**
+     * @return the 99th percentile of the time (in milliseconds) between the queuing and the completion of the latest
+     *         tasks, for each type of task
+     */
+    Map<String, Long> get99thPercentileLatencies();
+}
@@ -716,6 +716,16 @@ private void searchStatus()
         assertSearch(Arrays.asList(EVENT1), new SimpleEventQuery().withStatus("entity1", true));
 
         assertSearch(Arrays.asList(EVENT2), new SimpleEventQuery().withStatus("entity1", false));
+
+        assertEquals(Optional.of(Set.of("entity1", "entity2")), this.eventStore.getEntityIds(EVENT1.getId(), false));
+        assertEquals(Optional.of(Set.of("entity1", "entity3")), this.eventStore.getEntityIds(EVENT2.getId(), false));
+
+        // Only the last operation of a given entity matters, whether or not the operations are merged
+        DefaultEventStatus status14 = eventstatus(EVENT1, "entity4", false);
+        this.eventStore.saveEventStatus(status14);
+        this.eventStore.deleteEventStatus(status14).get();
+
+        assertEquals(Optional.of(Set.of("entity1", "entity2")), this.eventStore.getEntityIds(EVENT1.getId(), false));
     }
 
     private void searchMail()
@@ -744,6 +754,9 @@ private void searchMail()
         assertSearch(Arrays.asList(EVENT1), new SimpleEventQuery().withMail("entity2"));
 
         assertSearch(Arrays.asList(EVENT2), new SimpleEventQuery().withMail("entity3"));
+
+        assertEquals(Optional.of(Set.of("entity1", "entity2")), this.eventStore.getEntityIds(EVENT1.getId(), true));
+        assertEquals(Optional.of(Set.of("entity1", "entity3")), this.eventStore.getEntityIds(EVENT2.getId(), true));
     }
 
     private void searchFields() throws EventStreamException
@@ -0,0 +1,100 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.eventstream.store.solr.internal;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.xwiki.eventstream.EventStreamException;
+import org.xwiki.eventstream.internal.DefaultEvent;
+import org.xwiki.eventstream.internal.DefaultEventStatus;
+import org.xwiki.search.solr.Solr;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the failure handling of {@link SolrEventStore}, with a mocked Solr client.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class SolrEventStoreTest
+{
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @MockComponent
+    private Solr solr;
+
+    @InjectMockComponents
+    private SolrEventStore eventStore;
+
+    private SolrClient client = mock(SolrClient.class);
+
+    @BeforeComponent
+    void beforeComponent() throws Exception
+    {
+        when(this.solr.getClient(EventsSolrCoreInitializer.NAME)).thenReturn(this.client);
+    }
+
+    private DefaultEvent event(String id)
+    {
+        DefaultEvent event = new DefaultEvent();
+        event.setId(id);
+
+        return event;
+    }
+
+    @Test
+    void failedUpdatesFailTheirTasks() throws Exception
+    {
+        when(this.client.add(anyCollection())).thenThrow(new IOException("failed"));
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+            () -> this.eventStore.saveEventStatus(new DefaultEventStatus(event("id1"), "entity", true)).get());
+
+        assertEquals(EventStreamException.class, exception.getCause().getClass());
+        assertEquals("Failed to update the statuses of [1] events", exception.getCause().getMessage());
+        assertEquals("Failed to send the events updates", this.logCapture.getMessage(0));
+
+        // The lost updates are not sent again with the following batch
+        doReturn(null).when(this.client).add(anyCollection());
+
+        this.eventStore.prefilterEvent(event("id2")).get();
+
+        verify(this.client, times(2)).add(anyCollection());
+    }
+}
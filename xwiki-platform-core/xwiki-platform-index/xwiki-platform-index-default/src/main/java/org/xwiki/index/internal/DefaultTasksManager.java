@@ -19,6 +19,7 @@
  */
 package org.xwiki.index.internal;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashSet;
@@ -26,11 +27,14 @@
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
@@ -60,6 +64,10 @@
 
 /**
  * Initialize a {@link PriorityBlockingQueue} with the tasks stored in database.
+ * <p>
+ * The tasks are distributed among several queues (see {@link TasksConfiguration#getConsumerThreads()}), each of them
+ * being consumed by its own thread. The tasks targeting the same document always go to the same queue, so they are
+ * never executed concurrently.
  *
  * @version $Id$
  * @since 14.1RC1
@@ -70,7 +78,7 @@ public class DefaultTasksManager implements TaskManager, Initializable, Disposab
 {
     private static final String MBEAN_NAME = "name=index";
 
-    private PriorityBlockingQueue<TaskData> queue;
+    private List<PriorityBlockingQueue<TaskData>> queues;
 
     /**
      * Stores the latest timestamp for the tasks. If a task is queued with an outdated timestamp, it will be skipped and
@@ -93,6 +101,9 @@ public class DefaultTasksManager implements TaskManager, Initializable, Disposab
     @Inject
     private TaskExecutor taskExecutor;
 
+    @Inject
+    private TasksConfiguration configuration;
+
     @Inject
     private ExecutionContextManager executionContextManager;
 
@@ -100,9 +111,11 @@ public class DefaultTasksManager implements TaskManager, Initializable, Disposab
     private Logger logger;
 
     /**
-     * When {@code true}, indicates that the {@link #run()} method should stop.
+     * The number of tasks executed since the consumer threads were started, per type of task.
      */
-    private boolean halt;
+    private final Map<String, LongAdder> executedTasks = new ConcurrentHashMap<>();
+
+    private long startTime;
 
     /**
      * Lock used to ensure that no thread is in a state where a task has been added to the database but not to the
@@ -145,7 +158,7 @@ public CompletableFuture<TaskData> addTask(String wikiId, long docId, String ver
 
             TaskData taskData = convert(wikiId, xWikiTask);
             this.latestTimestampTasksMap.put(taskData, taskData.getTimestamp());
-            this.queue.add(taskData);
+            getQueue(taskData).add(taskData);
             return taskData.getFuture();
         } finally {
             this.readLock.unlock();
@@ -156,9 +169,14 @@ public CompletableFuture<TaskData> addTask(String wikiId, long docId, String ver
     public void initialize()
     {
         this.jmxRegistration.registerMBean(new JMXTasks(this::getQueueSize,
-                () -> this.queue.stream().collect(Collectors.groupingBy(TaskData::getType, Collectors.counting()))),
+                () -> getTasks().collect(Collectors.groupingBy(TaskData::getType, Collectors.counting())),
+                this::getExecutedTasksPerType, this::getThroughputPerType),
             MBEAN_NAME);
-        this.queue = new PriorityBlockingQueue<>(11, Comparator.comparingLong(TaskData::getTimestamp));
+        int consumerThreads = Math.max(1, this.configuration.getConsumerThreads());
+        this.queues = new ArrayList<>(consumerThreads);
+        for (int i = 0; i < consumerThreads; ++i) {
+            this.queues.add(new PriorityBlockingQueue<>(11, Comparator.comparingLong(TaskData::getTimestamp)));
+        }
         this.latestTimestampTasksMap = new ConcurrentHashMap<>();
     }
 
@@ -166,69 +184,143 @@ public void initialize()
     public void dispose()
     {
         this.jmxRegistration.unregisterMBean(MBEAN_NAME);
-        this.queue.add(TaskData.STOP);
+        this.queues.forEach(queue -> queue.add(TaskData.STOP));
     }
 
     /**
-     * Start the consumer thread.
+     * Start the consumer threads.
      */
     public void startThread()
     {
-        Thread thread = new Thread(this);
-        thread.setName("task-manager-consumer");
-        thread.setPriority(NORM_PRIORITY - 1);
-        thread.start();
+        this.startTime = System.currentTimeMillis();
+
+        for (int i = 0; i < this.queues.size(); ++i) {
+            int index = i;
+            // The first thread is also in charge of loading the tasks stored in database
+            Thread thread = new Thread(index == 0 ? this : () -> runConsumer(index));
+            thread.setName(index == 0 ? "task-manager-consumer" : "task-manager-consumer-" + index);
+            thread.setPriority(NORM_PRIORITY - 1);
+            thread.start();
+        }
     }
 
     @Override
     public long getQueueSize()
     {
-        return this.queue.size();
+        return this.queues.stream().mapToLong(PriorityBlockingQueue::size).sum();
     }
 
     @Override
     public long getQueueSize(String type)
     {
-        return this.queue.stream().filter(taskData -> Objects.equals(taskData.getType(), type)).count();
+        return getTasks().filter(taskData -> Objects.equals(taskData.getType(), type)).count();
     }
 
     @Override
     public Map<String, Long> getQueueSizePerType(String wikiId)
     {
-        return this.queue.stream()
+        return getTasks()
             .filter(taskData -> Objects.equals(taskData.getWikiId(), wikiId))
             .collect(Collectors.groupingBy(TaskData::getType, Collectors.counting()));
     }
 
+    /**
+     * @return the number of tasks executed since the consumer threads were started, per type of task
+     * @since 16.7.0RC1
+     */
+    public Map<String, Long> getExecutedTasksPerType()
+    {
+        Map<String, Long> result = new TreeMap<>();
+        this.executedTasks.forEach((type, count) -> result.put(type, count.sum()));
+
+        return result;
+    }
+
+    /**
+     * @return the average number of tasks executed per second since the consumer threads were started, per type of
+     *     task
+     * @since 16.7.0RC1
+     */
+    public Map<String, Double> getThroughputPerType()
+    {
+        double elapsedSeconds = Math.max(1, System.currentTimeMillis() - this.startTime) / 1000.0;
+
+        Map<String, Double> result = new TreeMap<>();
+        this.executedTasks.forEach((type, count) -> result.put(type, count.sum() / elapsedSeconds));
+
+        return result;
+    }
+
+    private Stream<TaskData> getTasks()
+    {
+        return this.queues.stream().flatMap(PriorityBlockingQueue::stream);
+    }
+
+    private PriorityBlockingQueue<TaskData> getQueue(TaskData task)
+    {
+        return this.queues.get(Math.floorMod(Objects.hash(task.getWikiId(), task.getDocId()), this.queues.size()));
+    }
+
     @Override
     public void run()
     {
         try {
             initQueue();
-            while (!this.halt) {
-                consume();
-            }
+            consumeQueue(this.queues.get(0));
         } catch (InitializationException e) {
             this.logger.error("Failed to initialize the tasks consumer thread.", e);
         }
     }
 
-    private void consume()
+    private void runConsumer(int index)
+    {
+        try {
+            this.executionContextManager.initialize(new ExecutionContext());
+            consumeQueue(this.queues.get(index));
+        } catch (ExecutionContextException e) {
+            this.logger.error("Failed to initialize the tasks consumer thread.", e);
+        }
+    }
+
+    private void consumeQueue(PriorityBlockingQueue<TaskData> queue)
+    {
+        // The consumed tasks which are not yet removed from the store
+        List<TaskData> consumedTasks = new ArrayList<>();
+
+        while (consume(queue, consumedTasks)) {
+            if (consumedTasks.size() >= this.configuration.getStoreBatchSize()) {
+                deleteTasks(consumedTasks);
+            }
+        }
+
+        deleteTasks(consumedTasks);
+    }
+
+    /**
+     * @return {@code false} if the consumer thread should stop
+     */
+    private boolean consume(PriorityBlockingQueue<TaskData> queue, List<TaskData> consumedTasks)
     {
         TaskData task = null;
         try {
-            task = this.queue.take();
+            task = queue.poll();
+            if (task == null) {
+                // Make sure the progress is persisted before waiting for new tasks
+                deleteTasks(consumedTasks);
+                task = queue.take();
+            }
             task.increaseAttempts();
             if (task.isStop()) {
-                this.halt = true;
+                return false;
             } else {
                 if (isTimestampValid(task)) {
                     this.taskExecutor.execute(task);
+                    this.executedTasks.computeIfAbsent(task.getType(), type -> new LongAdder()).increment();
                     task.getFuture().complete(task);
                 } else {
                     task.getFuture().cancel(false);
                 }
-                deleteTask(task);
+                consumedTasks.add(task);
             }
         } catch (InterruptedException e) {
             this.logger.warn("The task manager consumer thread was interrupted while processing task [{}] for "
@@ -245,16 +337,18 @@ private void consume()
                     long newTimestamp = System.currentTimeMillis();
                     this.latestTimestampTasksMap.put(task, newTimestamp);
                     task.setTimestamp(newTimestamp);
-                    this.queue.put(task);
+                    queue.put(task);
                 } else {
                     this.logger.error("[{}] abandoned because it has failed too many times.", task, e);
-                    deleteTask(task);
+                    consumedTasks.add(task);
                     task.getFuture().cancel(false);
                 }
             } else if (task != null) {
                 task.getFuture().cancel(false);
             }
-        } 
+        }
+
+        return true;
     }
 
     private void initQueue() throws InitializationException
@@ -289,7 +383,7 @@ private void loadWiki(String wikiId) throws InitializationException
             // Make sure no task is in the DB but not in the queue.
             this.writeLock.lock();
             try {
-                existingTasks = new HashSet<>(this.queue);
+                existingTasks = getTasks().collect(Collectors.toCollection(HashSet::new));
             } finally {
                 this.writeLock.unlock();
             }
@@ -298,7 +392,7 @@ private void loadWiki(String wikiId) throws InitializationException
                 TaskData taskData = convert(wikiId, task);
                 if (!existingTasks.contains(taskData)) {
                     this.latestTimestampTasksMap.computeIfAbsent(taskData, TaskData::getTimestamp);
-                    this.queue.put(taskData);
+                    getQueue(taskData).put(taskData);
                 }
             }
         } catch (XWikiException e) {
@@ -338,23 +432,42 @@ private boolean isTimestampValid(TaskData task)
         return task.getTimestamp() == this.latestTimestampTasksMap.getOrDefault(task, 0L);
     }
 
-    private void deleteTask(TaskData task)
+    private void deleteTasks(List<TaskData> tasks)
     {
+        if (tasks.isEmpty()) {
+            return;
+        }
+
         this.writeLock.lock();
         try {
-            if (isTimestampValid(task)) {
-                try {
-                    this.tasksStore.get()
-                        .deleteTask(task.getWikiId(), task.getDocId(), task.getVersion(), task.getType());
-                } catch (XWikiException e) {
-                    this.logger.error("Failed to delete task [{}] from the queue. It will be reloaded on restart.",
-                        task, e);
-                }
-                this.latestTimestampTasksMap.remove(task);
+            Map<String, List<TaskData>> validTasks = tasks.stream()
+                .filter(this::isTimestampValid)
+                .collect(Collectors.groupingBy(TaskData::getWikiId));
+
+            for (Map.Entry<String, List<TaskData>> entry : validTasks.entrySet()) {
+                deleteTasks(entry.getKey(), entry.getValue());
+                entry.getValue().forEach(this.latestTimestampTasksMap::remove);
             }
         } finally {
             this.writeLock.unlock();
         }
+
+        tasks.clear();
+    }
+
+    private void deleteTasks(String wikiId, List<TaskData> tasks)
+    {
+        try {
+            if (tasks.size() == 1) {
+                TaskData task = tasks.get(0);
+                this.tasksStore.get().deleteTask(wikiId, task.getDocId(), task.getVersion(), task.getType());
+            } else {
+                this.tasksStore.get().deleteTasks(wikiId, tasks);
+            }
+        } catch (XWikiException e) {
+            this.logger.error("Failed to delete tasks [{}] from the queue. They will be reloaded on restart.", tasks,
+                e);
+        }
     }
 
     private DocumentReference getTaskDocumentReferenceForLogging(TaskData taskData)
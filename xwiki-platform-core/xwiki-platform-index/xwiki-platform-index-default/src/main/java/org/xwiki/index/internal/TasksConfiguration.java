@@ -0,0 +1,61 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.index.internal;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.configuration.ConfigurationSource;
+
+/**
+ * Configuration of the {@link DefaultTasksManager}.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+@Component(roles = TasksConfiguration.class)
+@Singleton
+public class TasksConfiguration
+{
+    private static final String PREFIX = "index.tasks.";
+
+    @Inject
+    @Named("xwikiproperties")
+    private ConfigurationSource configurationSource;
+
+    /**
+     * @return the number of threads consuming the tasks, the tasks targeting the same document always being consumed
+     *     by the same thread
+     */
+    public int getConsumerThreads()
+    {
+        return this.configurationSource.getProperty(PREFIX + "consumerThreads", 1);
+    }
+
+    /**
+     * @return the maximum number of consumed tasks to remove from the store at once
+     */
+    public int getStoreBatchSize()
+    {
+        return this.configurationSource.getProperty(PREFIX + "storeBatchSize", 1);
+    }
+}
@@ -35,16 +35,26 @@ public class JMXTasks implements JMXTasksMBean
 
     private final Supplier<Map<String, Long>> queueSizePerType;
 
+    private final Supplier<Map<String, Long>> executedTasksPerType;
+
+    private final Supplier<Map<String, Double>> throughputPerType;
+
     /**
      * Default constructor, let the method initializing the MBean provide the suppliers for the MBean operations.
      *
      * @param queueSize the queue size supplier
      * @param queueSizePerType the queue size per type supplier
+     * @param executedTasksPerType the number of executed tasks per type supplier
+     * @param throughputPerType the throughput per type supplier
+     * @since 16.7.0RC1
      */
-    public JMXTasks(LongSupplier queueSize, Supplier<Map<String, Long>> queueSizePerType)
+    public JMXTasks(LongSupplier queueSize, Supplier<Map<String, Long>> queueSizePerType,
+        Supplier<Map<String, Long>> executedTasksPerType, Supplier<Map<String, Double>> throughputPerType)
     {
         this.queueSize = queueSize;
         this.queueSizePerType = queueSizePerType;
+        this.executedTasksPerType = executedTasksPerType;
+        this.throughputPerType = throughputPerType;
     }
 
     @Override
@@ -58,4 +68,16 @@ public Map<String, Long> getQueueSizePerType()
     {
         return this.queueSizePerType.get();
     }
+
+    @Override
+    public Map<String, Long> getExecutedTasksPerType()
+    {
+        return this.executedTasksPerType.get();
+    }
+
+    @Override
+    public Map<String, Double> getThroughputPerType()
+    {
+        return this.throughputPerType.get();
+    }
 }
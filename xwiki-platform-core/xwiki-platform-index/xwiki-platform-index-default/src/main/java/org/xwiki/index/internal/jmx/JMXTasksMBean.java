@@ -39,4 +39,17 @@
      * @return the total number of tasks in the queue, grouped per type of tasks
      */
     Map<String, Long> getQueueSizePerType();
+
+    /**
+     * @return the number of tasks executed since the consumer threads were started, grouped per type of tasks
+     * @since 16.7.0RC1
+     */
+    Map<String, Long> getExecutedTasksPerType();
+
+    /**
+     * @return the average number of tasks executed per second since the consumer threads were started, grouped per
+     *     type of tasks
+     * @since 16.7.0RC1
+     */
+    Map<String, Double> getThroughputPerType();
 }
@@ -54,10 +54,13 @@
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -98,6 +101,9 @@
     @MockComponent
     private TaskExecutor taskExecutor;
 
+    @MockComponent
+    private TasksConfiguration configuration;
+
     @Mock
     private TasksStore tasksStore;
 
@@ -295,4 +301,29 @@ void getQueueSizePerType()
         assertEquals(Map.of("typeA", 2L), this.tasksManager.getQueueSizePerType("wikiB"));
         assertEquals(Map.of(), this.tasksManager.getQueueSizePerType("wikiC"));
     }
+
+    @Test
+    void consumeWithSeveralThreadsAndStoreBatches() throws Exception
+    {
+        when(this.configuration.getConsumerThreads()).thenReturn(2);
+        when(this.configuration.getStoreBatchSize()).thenReturn(10);
+        this.tasksManager.initialize();
+
+        CompletableFuture<TaskData> future0 = this.tasksManager.addTask("wikiId", 42, "1.1", "testtask");
+        CompletableFuture<TaskData> future1 = this.tasksManager.addTask("wikiId", 42, "1.2", "testtask");
+        CompletableFuture<TaskData> future2 = this.tasksManager.addTask("wikiId", 42, "1.3", "testtask");
+        CompletableFuture<TaskData> future3 = this.tasksManager.addTask("wikiId", 43, "1.1", "othertask");
+
+        this.tasksManager.startThread();
+
+        assertNotNull(future0.get());
+        assertNotNull(future1.get());
+        assertNotNull(future2.get());
+        assertNotNull(future3.get());
+
+        // The tasks of the same document are consumed by the same thread and removed from the store at once.
+        verify(this.tasksStore, timeout(1000)).deleteTasks(eq("wikiId"), argThat(tasks -> tasks.size() == 3
+            && tasks.stream().allMatch(task -> task.getDocId() == 42)));
+        assertEquals(Map.of("testtask", 3L, "othertask", 1L), this.tasksManager.getExecutedTasksPerType());
+    }
 }
@@ -56,4 +56,14 @@ public boolean isGenerateInlineSourceMaps()
     {
         return configurationSource.getProperty(CONFIGURATION_PREFIX + "generateInlineSourceMaps", false);
     }
+
+    /**
+     * @return whether the main LESS file of the skin should be compiled in the background for all the color themes,
+     *         at startup and when a skin or a color theme is modified
+     * @since 16.7.0RC1
+     */
+    public boolean isWarmUpEnabled()
+    {
+        return configurationSource.getProperty(CONFIGURATION_PREFIX + "warmUp", false);
+    }
 }
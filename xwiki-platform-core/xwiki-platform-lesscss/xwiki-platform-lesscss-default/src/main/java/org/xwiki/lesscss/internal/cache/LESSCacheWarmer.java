@@ -0,0 +1,200 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.lesscss.internal.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.lesscss.compiler.LESSCompiler;
+import org.xwiki.lesscss.internal.LESSConfiguration;
+import org.xwiki.lesscss.resources.LESSResourceReferenceFactory;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.web.XWikiServletRequestStub;
+
+/**
+ * Compile the main LESS file of the skin for the color themes of a wiki in the background, so that the first visitors
+ * after a restart or after the modification of a skin or a color theme don't have to wait for the compilation (while
+ * the other requests wait for the same result).
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+@Component(roles = LESSCacheWarmer.class)
+@Singleton
+public class LESSCacheWarmer implements Initializable, Disposable
+{
+    /**
+     * The main LESS file of the skin, compiled by the {@code style.css} skin file.
+     */
+    private static final String SKIN_FILE = "style.less.vm";
+
+    private static final String COLOR_THEME_PARAMETER = "colorTheme";
+
+    private static final List<String> COLOR_THEME_CLASSES =
+        Arrays.asList("FlamingoThemesCode.ThemeClass", "ColorThemes.ColorThemeClass");
+
+    @Inject
+    private LESSConfiguration configuration;
+
+    @Inject
+    private LESSCompiler lessCompiler;
+
+    @Inject
+    private LESSResourceReferenceFactory lessResourceReferenceFactory;
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    @Inject
+    private ExecutionContextManager executionContextManager;
+
+    @Inject
+    private Execution execution;
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    @Inject
+    private Logger logger;
+
+    private ExecutorService executor;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        if (this.configuration.isWarmUpEnabled()) {
+            // The compiler already limits the number of simultaneous compilations, there is no point in having more
+            // threads than that
+            this.executor = Executors.newFixedThreadPool(
+                Math.max(1, this.configuration.getMaximumSimultaneousCompilations()),
+                new BasicThreadFactory.Builder().namingPattern("LESS warm-up %d").daemon(true)
+                    .priority(Thread.NORM_PRIORITY - 1).build());
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Compile, in the background, the main LESS file of the skin of the passed wiki for each of its color themes.
+     *
+     * @param wiki the identifier of the wiki
+     */
+    public void warmUp(String wiki)
+    {
+        if (this.executor != null) {
+            try {
+                for (String colorTheme : getColorThemes(wiki)) {
+                    this.executor.execute(() -> compile(wiki, colorTheme));
+                }
+            } catch (QueryException e) {
+                this.logger.warn("Failed to list the color themes of wiki [{}]: {}", wiki,
+                    ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+    }
+
+    /**
+     * Compile, in the background, the main LESS file of the skin for the passed color theme.
+     *
+     * @param colorThemeReference the reference of the color theme document
+     */
+    public void warmUp(DocumentReference colorThemeReference)
+    {
+        if (this.executor != null) {
+            String wiki = colorThemeReference.getWikiReference().getName();
+            String colorTheme = this.entityReferenceSerializer.serialize(colorThemeReference);
+            this.executor.execute(() -> compile(wiki, colorTheme));
+        }
+    }
+
+    private List<String> getColorThemes(String wiki) throws QueryException
+    {
+        Set<String> colorThemes = new LinkedHashSet<>();
+        for (String colorThemeClass : COLOR_THEME_CLASSES) {
+            colorThemes.addAll(this.queryManager.createQuery(
+                String.format("select distinct doc.fullName from Document doc, doc.object(%s) obj", colorThemeClass),
+                Query.XWQL).setWiki(wiki).<String>execute());
+        }
+
+        return new ArrayList<>(colorThemes);
+    }
+
+    private void compile(String wiki, String colorTheme)
+    {
+        try {
+            this.executionContextManager.initialize(new ExecutionContext());
+
+            XWikiContext xcontext = this.xcontextProvider.get();
+            xcontext.setWikiId(wiki);
+
+            // The color theme is taken from the request, like when the skin file is requested by a browser
+            XWikiServletRequestStub request = xcontext.getRequest() != null
+                ? new XWikiServletRequestStub(xcontext.getRequest()) : new XWikiServletRequestStub();
+            request.put(COLOR_THEME_PARAMETER, colorTheme);
+            xcontext.setRequest(request);
+
+            // The result is put in the cache of the compiler (nothing is done if it's already there)
+            this.lessCompiler.compile(this.lessResourceReferenceFactory.createReferenceForSkinFile(SKIN_FILE), false,
+                true, xcontext.getWiki().getSkin(xcontext), false);
+
+            this.logger.debug("LESS cache warmed up for the color theme [{}] of wiki [{}].", colorTheme, wiki);
+        } catch (Exception e) {
+            this.logger.warn("Failed to warm up the LESS cache for the color theme [{}] of wiki [{}]: {}", colorTheme,
+                wiki, ExceptionUtils.getRootCauseMessage(e));
+        } finally {
+            this.execution.removeContext();
+        }
+    }
+}
@@ -31,6 +31,7 @@
 import org.xwiki.bridge.event.DocumentUpdatedEvent;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.lesscss.internal.cache.ColorThemeCache;
+import org.xwiki.lesscss.internal.cache.LESSCacheWarmer;
 import org.xwiki.lesscss.internal.cache.LESSResourcesCache;
 import org.xwiki.lesscss.internal.colortheme.ColorThemeReference;
 import org.xwiki.lesscss.internal.colortheme.ColorThemeReferenceFactory;
@@ -67,6 +68,9 @@ public class ColorThemeListener implements EventListener
     @Inject
     private ColorThemeReferenceFactory colorThemeReferenceFactory;
 
+    @Inject
+    private LESSCacheWarmer lessCacheWarmer;
+
     @Override
     public String getName()
     {
@@ -89,22 +93,26 @@ public void onEvent(Event event, Object source, Object data)
 
         List<BaseObject> flamingoThemeObjects = document.getXObjects(FLAMINGO_THEME_CLASS);
         if (flamingoThemeObjects != null && !flamingoThemeObjects.isEmpty()) {
-            clearCacheFromColorTheme(document);
+            clearCacheFromColorTheme(event, document);
             return;
         }
 
         List<BaseObject> colorThemeObjects = document.getXObjects(COLOR_THEME_CLASS);
         if (colorThemeObjects != null && !colorThemeObjects.isEmpty()) {
-            clearCacheFromColorTheme(document);
+            clearCacheFromColorTheme(event, document);
             return;
         }
     }
 
-    private void clearCacheFromColorTheme(XWikiDocument document)
+    private void clearCacheFromColorTheme(Event event, XWikiDocument document)
     {
         ColorThemeReference colorThemeReference = 
                 colorThemeReferenceFactory.createReference(document.getDocumentReference());
         lessResourcesCache.clearFromColorTheme(colorThemeReference);
         colorThemeCache.clearFromColorTheme(colorThemeReference);
+
+        if (!(event instanceof DocumentDeletedEvent)) {
+            lessCacheWarmer.warmUp(document.getDocumentReference());
+        }
     }
 }
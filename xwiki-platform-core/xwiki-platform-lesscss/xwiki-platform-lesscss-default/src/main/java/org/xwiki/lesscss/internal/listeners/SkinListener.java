@@ -32,6 +32,7 @@
 import org.xwiki.bridge.event.DocumentUpdatedEvent;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.lesscss.internal.cache.ColorThemeCache;
+import org.xwiki.lesscss.internal.cache.LESSCacheWarmer;
 import org.xwiki.lesscss.internal.cache.LESSResourcesCache;
 import org.xwiki.lesscss.internal.skin.SkinReference;
 import org.xwiki.lesscss.internal.skin.SkinReferenceFactory;
@@ -66,6 +67,9 @@ public class SkinListener implements EventListener
     @Inject
     private SkinReferenceFactory skinReferenceFactory;
 
+    @Inject
+    private LESSCacheWarmer lessCacheWarmer;
+
     @Override
     public String getName()
     {
@@ -98,5 +102,8 @@ private void clearCacheFromSkin(XWikiDocument document)
         SkinReference skinReference = skinReferenceFactory.createReference(document.getDocumentReference());
         lessResourcesCache.clearFromSkin(skinReference);
         colorThemeCache.clearFromSkin(skinReference);
+
+        // The compiled skin file is needed again by the next request anyway
+        lessCacheWarmer.warmUp(document.getDocumentReference().getWikiReference().getName());
     }
 }
@@ -0,0 +1,159 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.lesscss.internal.cache;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.lesscss.compiler.LESSCompiler;
+import org.xwiki.lesscss.internal.LESSConfiguration;
+import org.xwiki.lesscss.resources.LESSResourceReference;
+import org.xwiki.lesscss.resources.LESSResourceReferenceFactory;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.web.XWikiRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link LESSCacheWarmer}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class LESSCacheWarmerTest
+{
+    @InjectMockComponents
+    private LESSCacheWarmer warmer;
+
+    @MockComponent
+    private LESSConfiguration configuration;
+
+    @MockComponent
+    private LESSCompiler lessCompiler;
+
+    @MockComponent
+    private LESSResourceReferenceFactory lessResourceReferenceFactory;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    @MockComponent
+    private ExecutionContextManager executionContextManager;
+
+    @MockComponent
+    private Execution execution;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    private XWikiContext xcontext;
+
+    private LESSResourceReference styleReference;
+
+    @BeforeComponent
+    void beforeComponent()
+    {
+        when(this.configuration.isWarmUpEnabled()).thenReturn(true);
+        when(this.configuration.getMaximumSimultaneousCompilations()).thenReturn(1);
+    }
+
+    @BeforeEach
+    void setUp()
+    {
+        this.xcontext = mock(XWikiContext.class);
+        when(this.xcontextProvider.get()).thenReturn(this.xcontext);
+        XWiki xwiki = mock(XWiki.class);
+        when(this.xcontext.getWiki()).thenReturn(xwiki);
+        when(xwiki.getSkin(this.xcontext)).thenReturn("flamingo");
+
+        this.styleReference = mock(LESSResourceReference.class);
+        when(this.lessResourceReferenceFactory.createReferenceForSkinFile("style.less.vm"))
+            .thenReturn(this.styleReference);
+    }
+
+    @Test
+    void warmUpWiki() throws Exception
+    {
+        Query flamingoThemesQuery = mock(Query.class);
+        when(this.queryManager.createQuery(
+            "select distinct doc.fullName from Document doc, doc.object(FlamingoThemesCode.ThemeClass) obj",
+            Query.XWQL)).thenReturn(flamingoThemesQuery);
+        when(flamingoThemesQuery.setWiki("wiki")).thenReturn(flamingoThemesQuery);
+        when(flamingoThemesQuery.execute()).thenReturn(Arrays.asList("FlamingoThemes.Charcoal"));
+
+        Query colorThemesQuery = mock(Query.class);
+        when(this.queryManager.createQuery(
+            "select distinct doc.fullName from Document doc, doc.object(ColorThemes.ColorThemeClass) obj",
+            Query.XWQL)).thenReturn(colorThemesQuery);
+        when(colorThemesQuery.setWiki("wiki")).thenReturn(colorThemesQuery);
+        when(colorThemesQuery.execute()).thenReturn(Collections.emptyList());
+
+        this.warmer.warmUp("wiki");
+
+        verify(this.lessCompiler, timeout(5000)).compile(this.styleReference, false, true, "flamingo", false);
+        verify(this.execution, timeout(5000)).removeContext();
+        verify(this.xcontext).setWikiId("wiki");
+
+        ArgumentCaptor<XWikiRequest> requestCaptor = ArgumentCaptor.forClass(XWikiRequest.class);
+        verify(this.xcontext).setRequest(requestCaptor.capture());
+        assertEquals("FlamingoThemes.Charcoal", requestCaptor.getValue().getParameter("colorTheme"));
+    }
+
+    @Test
+    void warmUpColorTheme() throws Exception
+    {
+        DocumentReference colorThemeReference = new DocumentReference("wiki", "FlamingoThemes", "Iceberg");
+        when(this.entityReferenceSerializer.serialize(colorThemeReference)).thenReturn("wiki:FlamingoThemes.Iceberg");
+
+        this.warmer.warmUp(colorThemeReference);
+
+        verify(this.lessCompiler, timeout(5000)).compile(this.styleReference, false, true, "flamingo", false);
+        verify(this.execution, timeout(5000)).removeContext();
+        verify(this.xcontext).setWikiId("wiki");
+        verify(this.queryManager, times(0)).createQuery(anyString(), any());
+    }
+}
@@ -30,6 +30,7 @@
 import org.xwiki.bridge.event.DocumentDeletedEvent;
 import org.xwiki.bridge.event.DocumentUpdatedEvent;
 import org.xwiki.lesscss.internal.cache.ColorThemeCache;
+import org.xwiki.lesscss.internal.cache.LESSCacheWarmer;
 import org.xwiki.lesscss.internal.cache.LESSResourcesCache;
 import org.xwiki.lesscss.internal.skin.DocumentSkinReference;
 import org.xwiki.lesscss.internal.skin.SkinReferenceFactory;
@@ -117,6 +118,7 @@ public void onEventWhenSkinIsChanged() throws Exception
         // Verify
         verify(lessResourcesCache).clearFromSkin(skinReference);
         verify(colorThemeCache).clearFromSkin(skinReference);
+        verify(mocker.getInstance(LESSCacheWarmer.class)).warmUp("wiki");
     }
 
     @Test
@@ -87,4 +87,15 @@ default String getEmailGroupingStrategyHint()
     {
         return "default";
     }
+
+    /**
+     * @return the number of threads to use to pre-filter the events (associate them with the users listening to
+     *         them), 1 or less means the events are pre-filtered one by one
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    default int getPrefilteringPoolSize()
+    {
+        return 1;
+    }
 }
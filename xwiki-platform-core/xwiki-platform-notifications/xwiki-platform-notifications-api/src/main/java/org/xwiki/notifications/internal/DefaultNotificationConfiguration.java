@@ -84,4 +84,10 @@ public String getEmailGroupingStrategyHint()
     {
         return configurationSource.getProperty(CONFIGURATION_PREFIX + "emailGroupingStrategyHint", "default");
     }
+
+    @Override
+    public int getPrefilteringPoolSize()
+    {
+        return configurationSource.getProperty(CONFIGURATION_PREFIX + "prefiltering.poolSize", 1);
+    }
 }
@@ -20,9 +20,14 @@
 package org.xwiki.notifications.notifiers.internal;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
@@ -31,9 +36,15 @@
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.context.Execution;
 import org.xwiki.context.ExecutionContext;
 import org.xwiki.context.ExecutionContextException;
 import org.xwiki.context.ExecutionContextManager;
@@ -47,6 +58,7 @@
 import org.xwiki.eventstream.internal.DefaultEventStatus;
 import org.xwiki.eventstream.query.SimpleEventQuery;
 import org.xwiki.eventstream.query.SortableEventQuery.SortClause.Order;
+import org.xwiki.management.JMXBeanRegistration;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
 import org.xwiki.model.reference.EntityReferenceSerializer;
@@ -54,6 +66,7 @@
 import org.xwiki.notifications.NotificationConfiguration;
 import org.xwiki.notifications.NotificationFormat;
 import org.xwiki.notifications.filters.internal.DeletedDocumentCleanUpFilterProcessingQueue;
+import org.xwiki.notifications.notifiers.internal.jmx.JMXUserEventDispatcher;
 import org.xwiki.observation.remote.RemoteObservationManagerConfiguration;
 import org.xwiki.user.UserException;
 import org.xwiki.user.UserManager;
@@ -72,10 +85,59 @@
  */
 @Component(roles = UserEventDispatcher.class)
 @Singleton
-public class UserEventDispatcher
+public class UserEventDispatcher implements Initializable, Disposable
 {
     private static final long BATCH_SIZE = 100;
 
+    private static final String MBEAN_NAME = "name=notificationsprefiltering";
+
+    /**
+     * The entities already associated with an event, loaded once for all the users to which the event is dispatched
+     * instead of asking the store for each user.
+     * 
+     * @version $Id$
+     */
+    private final class PrefilteredEntities
+    {
+        private final Event event;
+
+        /**
+         * The entities associated through a status, {@code null} if the store cannot provide them in one call.
+         */
+        private final Set<String> statusEntities;
+
+        /**
+         * The entities associated through a mail entity event, {@code null} if the store cannot provide them in one
+         * call.
+         */
+        private final Set<String> mailEntities;
+
+        PrefilteredEntities(Event event, boolean mailEnabled)
+        {
+            this.event = event;
+            this.statusEntities = getEntityIds(event, false);
+            this.mailEntities = mailEnabled ? getEntityIds(event, true) : null;
+        }
+
+        boolean isStatusPrefiltered(String entityId)
+        {
+            if (this.statusEntities != null) {
+                return this.statusEntities.contains(entityId);
+            }
+
+            return isPrefiltered(this.event, entityId, false);
+        }
+
+        boolean isMailPrefiltered(String entityId)
+        {
+            if (this.mailEntities != null) {
+                return this.mailEntities.contains(entityId);
+            }
+
+            return isPrefiltered(this.event, entityId, true);
+        }
+    }
+
     @Inject
     private UsersCache userCache;
 
@@ -119,9 +181,61 @@
     @Inject
     private DeletedDocumentCleanUpFilterProcessingQueue cleanUpFilterProcessingQueue;
 
+    @Inject
+    private Execution execution;
+
+    @Inject
+    private JMXBeanRegistration jmxRegistration;
+
     @Inject
     private Logger logger;
 
+    /**
+     * The threads used to pre-filter the events in parallel, {@code null} if the events are pre-filtered one by one.
+     */
+    private ExecutorService workers;
+
+    private int workerCount;
+
+    private final LongAdder prefilteredCount = new LongAdder();
+
+    private final LongAdder failedCount = new LongAdder();
+
+    /**
+     * The date when the current (or last) pre-filtering run started, 0 if none was started yet.
+     */
+    private volatile long runStart;
+
+    /**
+     * The date when the last pre-filtering run ended, 0 if a run is in progress.
+     */
+    private volatile long runEnd;
+
+    private final LongAdder runPrefilteredCount = new LongAdder();
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.workerCount = Math.max(1, this.notificationConfiguration.getPrefilteringPoolSize());
+        if (this.workerCount > 1) {
+            this.workers = Executors.newFixedThreadPool(this.workerCount,
+                new BasicThreadFactory.Builder().namingPattern("User event dispatcher worker %d").daemon(true)
+                    .priority(Thread.NORM_PRIORITY - 1).build());
+        }
+
+        this.jmxRegistration.registerMBean(new JMXUserEventDispatcher(this), MBEAN_NAME);
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.jmxRegistration.unregisterMBean(MBEAN_NAME);
+
+        if (this.workers != null) {
+            this.workers.shutdownNow();
+        }
+    }
+
     private Set<String> getSupportedEventTypes() throws EventStreamException
     {
         List<RecordableEventDescriptor> descriptorList =
@@ -157,32 +271,171 @@ public void flush() throws Exception
         query.setLimit(BATCH_SIZE);
 
         // Events to ignore
-        List<String> failedEvents = new ArrayList<>();
+        List<String> failedEvents = Collections.synchronizedList(new ArrayList<>());
         query.not().in(Event.FIELD_ID, failedEvents);
 
+        this.runStart = System.currentTimeMillis();
+        this.runEnd = 0;
+        this.runPrefilteredCount.reset();
+
         // Keep getting the BATCH_SIZE oldest not pre-filtered events (except the handled ones) until we cannot find any
         // left
-        do {
-            try (EventSearchResult result = this.events.search(query)) {
-                if (result.getSize() == 0) {
-                    break;
-                }
+        try {
+            do {
+                try (EventSearchResult result = this.events.search(query)) {
+                    if (result.getSize() == 0) {
+                        break;
+                    }
 
-                // Pre-filter all the found events
-                Iterable<Event> it = () -> result.stream().iterator();
-                for (Event event : it) {
-                    try {
-                        CompletableFuture<?> completableFuture = prefilterEvent(event, types);
-                        completableFuture.join();
-                    } catch (Exception e) {
-                        this.logger.warn("Failed to pre filter event with id [{}]: {}", event.getId(),
-                            ExceptionUtils.getRootCauseMessage(e));
-                        // Remember the failed event to not query it again
-                        failedEvents.add(event.getId());
+                    // Pre-filter all the found events
+                    List<Event> batch = result.stream().collect(Collectors.toList());
+                    if (this.workers != null) {
+                        prefilterEventsInParallel(batch, types, failedEvents);
+                    } else {
+                        prefilterEvents(batch, types, failedEvents);
                     }
                 }
+            } while (true);
+        } finally {
+            this.runEnd = System.currentTimeMillis();
+        }
+    }
+
+    private void prefilterEventsInParallel(List<Event> batch, Set<String> types, List<String> failedEvents)
+        throws InterruptedException
+    {
+        // Partition the events according to the document they target so that the events of a given document are
+        // always pre-filtered in the order they were produced (deleting a document triggers a clean up of the filters
+        // for example)
+        List<List<Event>> partitions = new ArrayList<>(this.workerCount);
+        for (int i = 0; i < this.workerCount; ++i) {
+            partitions.add(new ArrayList<>());
+        }
+        for (Event event : batch) {
+            Object key = event.getDocument() != null ? event.getDocument() : event.getId();
+            partitions.get(Math.floorMod(key.hashCode(), this.workerCount)).add(event);
+        }
+
+        List<Future<?>> futures = new ArrayList<>(this.workerCount);
+        for (List<Event> partition : partitions) {
+            if (!partition.isEmpty()) {
+                futures.add(this.workers.submit(() -> prefilterEventsInWorker(partition, types, failedEvents)));
+            }
+        }
+
+        // Wait for the whole batch to be pre-filtered before searching for the next one
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                futures.forEach(f -> f.cancel(true));
+
+                throw e;
+            } catch (Exception e) {
+                this.logger.error("Failed to pre-filter a partition of events", e);
+            }
+        }
+    }
+
+    private void prefilterEventsInWorker(List<Event> events, Set<String> types, List<String> failedEvents)
+    {
+        try {
+            // Initialize a new context for the worker
+            this.ecm.initialize(new ExecutionContext());
+
+            prefilterEvents(events, types, failedEvents);
+        } catch (ExecutionContextException e) {
+            this.logger.error("Failed to initialize the execution context of the pre-filtering worker", e);
+        } finally {
+            // Remove any remaining context
+            this.execution.removeContext();
+        }
+    }
+
+    private void prefilterEvents(List<Event> events, Set<String> types, List<String> failedEvents)
+    {
+        for (Event event : events) {
+            try {
+                CompletableFuture<?> completableFuture = prefilterEvent(event, types);
+                completableFuture.join();
+
+                this.prefilteredCount.increment();
+                this.runPrefilteredCount.increment();
+            } catch (Exception e) {
+                this.logger.warn("Failed to pre filter event with id [{}]: {}", event.getId(),
+                    ExceptionUtils.getRootCauseMessage(e));
+                // Remember the failed event to not query it again
+                failedEvents.add(event.getId());
+
+                this.failedCount.increment();
             }
-        } while (true);
+        }
+    }
+
+    /**
+     * @return the number of events produced by this instance which are waiting to be pre-filtered
+     * @throws EventStreamException when failing to count the events
+     * @since 16.7.0RC1
+     */
+    public long getBacklogSize() throws EventStreamException
+    {
+        SimpleEventQuery query = new SimpleEventQuery(0, 0);
+        query.eq(Event.FIELD_PREFILTERED, false);
+        query.open();
+        query.eq(Event.FIELD_REMOTE_OBSERVATION_ID, this.remoteObservation.getId());
+        query.or();
+        query.eq(Event.FIELD_REMOTE_OBSERVATION_ID, null);
+        query.close();
+
+        try (EventSearchResult result = this.events.search(query)) {
+            return result.getTotalHits();
+        } catch (Exception e) {
+            throw new EventStreamException("Failed to count the events waiting to be pre-filtered", e);
+        }
+    }
+
+    /**
+     * @return the number of threads used to pre-filter the events
+     * @since 16.7.0RC1
+     */
+    public int getWorkerCount()
+    {
+        return this.workerCount;
+    }
+
+    /**
+     * @return the number of events pre-filtered since the component was initialized
+     * @since 16.7.0RC1
+     */
+    public long getPrefilteredCount()
+    {
+        return this.prefilteredCount.sum();
+    }
+
+    /**
+     * @return the number of events which failed to be pre-filtered since the component was initialized
+     * @since 16.7.0RC1
+     */
+    public long getFailedCount()
+    {
+        return this.failedCount.sum();
+    }
+
+    /**
+     * @return the average number of events pre-filtered per second during the current (or last) run
+     * @since 16.7.0RC1
+     */
+    public double getDrainRate()
+    {
+        long start = this.runStart;
+        if (start == 0) {
+            return 0;
+        }
+
+        long end = this.runEnd;
+        long duration = (end != 0 ? end : System.currentTimeMillis()) - start;
+
+        return duration > 0 ? this.runPrefilteredCount.sum() * 1000D / duration : 0;
     }
 
     private CompletableFuture<?> prefilterEvent(Event event, Set<String> types) throws EventStreamException
@@ -229,17 +482,18 @@ private CompletableFuture<?> dispatchInContext(Event event)
             // The event explicitly indicate with which entities the event is associated with
 
             boolean mailEnabled = this.notificationConfiguration.areEmailsEnabled();
+            PrefilteredEntities prefiltered = new PrefilteredEntities(event, mailEnabled);
             for (String entity : event.getTarget()) {
                 DocumentReference entityReference = this.resolver.resolve(entity, event.getWiki());
                 UserReference userReference = this.documentReferenceUserReferenceResolver.resolve(entityReference);
 
                 try {
                     if (this.userManager.exists(userReference)) {
-                        dispatch(event, entityReference, mailEnabled);
+                        dispatch(event, entityReference, mailEnabled, prefiltered);
                     } else {
                         // Also recursively associate the members of the entity if it's a group
-                        this.groupManager.getMembers(entityReference, true)
-                            .forEach(userDocumentReference -> dispatch(event, userDocumentReference, mailEnabled));
+                        this.groupManager.getMembers(entityReference, true).forEach(
+                            userDocumentReference -> dispatch(event, userDocumentReference, mailEnabled, prefiltered));
                     }
                 } catch (UserException e) {
                     this.logger.warn("Failed to verify if user [{}] exists. Cause: [{}]", userReference,
@@ -268,7 +522,8 @@ private CompletableFuture<?> dispatchInContext(Event event)
         return result;
     }
 
-    private CompletableFuture<?> dispatch(Event event, DocumentReference user, boolean mailEnabled)
+    private CompletableFuture<?> dispatch(Event event, DocumentReference user, boolean mailEnabled,
+        PrefilteredEntities prefiltered)
     {
         // Get the entity id
         String entityId = this.entityReferenceSerializer.serialize(user);
@@ -276,7 +531,7 @@ private CompletableFuture<?> dispatch(Event event, DocumentReference user, boole
 
         // Make sure the event is not already pre filtered
         // Make sure the user asked to be alerted about this event
-        if (!isStatusPrefiltered(event, entityId)
+        if (!prefiltered.isStatusPrefiltered(entityId)
             && this.userEventManager.isListening(event, user, NotificationFormat.ALERT)) {
             // Associate the event with the user
             result = saveEventStatus(event, entityId);
@@ -285,7 +540,7 @@ private CompletableFuture<?> dispatch(Event event, DocumentReference user, boole
         // Make sure the notification module is allowed to send mails
         // Make sure the event is not already pre filtered
         // Make sure the user asked to receive mails about this event
-        if (mailEnabled && !isMailPrefiltered(event, entityId)
+        if (mailEnabled && !prefiltered.isMailPrefiltered(entityId)
             && this.userEventManager.isListening(event, user, NotificationFormat.EMAIL)) {
             // Associate the event with the user
             result = saveMailEntityEvent(event, entityId);
@@ -299,14 +554,16 @@ private CompletableFuture<?> dispatch(Event event, DocumentReference user, boole
         return result;
     }
 
-    private boolean isStatusPrefiltered(Event event, String entityId)
+    private Set<String> getEntityIds(Event event, boolean mail)
     {
-        return isPrefiltered(event, entityId, false);
-    }
+        try {
+            return this.events.getEntityIds(event.getId(), mail).orElse(null);
+        } catch (Exception e) {
+            this.logger.warn("Failed to get the entities associated with event [{}], falling back on per entity checks:"
+                + " {}", event.getId(), ExceptionUtils.getRootCauseMessage(e));
 
-    private boolean isMailPrefiltered(Event event, String entityId)
-    {
-        return isPrefiltered(event, entityId, true);
+            return null;
+        }
     }
 
     private boolean isPrefiltered(Event event, String entityId, boolean mail)
@@ -333,9 +590,10 @@ private boolean isPrefiltered(Event event, String entityId, boolean mail)
     private CompletableFuture<?> dispatch(Event event, List<DocumentReference> users)
     {
         boolean mailEnabled = this.notificationConfiguration.areEmailsEnabled();
+        PrefilteredEntities prefiltered = new PrefilteredEntities(event, mailEnabled);
 
         for (DocumentReference user : users) {
-            dispatch(event, user, mailEnabled);
+            dispatch(event, user, mailEnabled, prefiltered);
         }
 
         // Remember we are done pre filtering this event
@@ -0,0 +1,72 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.notifiers.internal.jmx;
+
+import org.xwiki.eventstream.EventStreamException;
+import org.xwiki.notifications.notifiers.internal.UserEventDispatcher;
+
+/**
+ * Expose the state of the events pre-filtering as a JMX MBean.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+public class JMXUserEventDispatcher implements JMXUserEventDispatcherMBean
+{
+    private final UserEventDispatcher dispatcher;
+
+    /**
+     * @param dispatcher the dispatcher to expose
+     */
+    public JMXUserEventDispatcher(UserEventDispatcher dispatcher)
+    {
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public long getBacklogSize() throws EventStreamException
+    {
+        return this.dispatcher.getBacklogSize();
+    }
+
+    @Override
+    public int getWorkerCount()
+    {
+        return this.dispatcher.getWorkerCount();
+    }
+
+    @Override
+    public long getPrefilteredCount()
+    {
+        return this.dispatcher.getPrefilteredCount();
+    }
+
+    @Override
+    public long getFailedCount()
+    {
+        return this.dispatcher.getFailedCount();
+    }
+
+    @Override
+    public double getDrainRate()
+    {
+        return this.dispatcher.getDrainRate();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.notifiers.internal.jmx;
+
+import org.xwiki.eventstream.EventStreamException;
+
+/**
+ * Interface of the {@link JMXUserEventDispatcher} MBean.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+public interface JMXUserEventDispatcherMBean
+{
+    /**
+     * @return the number of events produced by this instance which are waiting to be pre-filtered
+     * @throws EventStreamException when failing to count the events
+     */
+    long getBacklogSize() throws EventStreamException;
+
+    /**
+     * @return the number of threads used to pre-filter the events
+     */
+    int getWorkerCount();
+
+    /**
+     * @return the number of events pre-filtered since the instance was started
+     */
+    long getPrefilteredCount();
+
+    /**
+     * @return the number of events which failed to be pre-filtered since the instance was started
+     */
+    long getFailedCount();
+
+    /**
+     * @return the average number of events pre-filtered per second during the current (or last) run
+     */
+    double getDrainRate();
+}
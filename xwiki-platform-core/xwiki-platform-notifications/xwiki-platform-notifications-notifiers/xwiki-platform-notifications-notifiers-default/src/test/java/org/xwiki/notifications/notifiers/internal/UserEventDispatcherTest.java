@@ -21,6 +21,7 @@
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
@@ -57,9 +58,11 @@
 import org.xwiki.user.internal.group.UsersCache;
 import org.xwiki.wiki.descriptor.WikiDescriptorManager;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -379,4 +382,101 @@ void flush() throws Exception
         verify(this.ecm, times(3)).popContext();
 
     }
+
+    @Test
+    void flushInParallel() throws Exception
+    {
+        when(this.notificationConfiguration.getPrefilteringPoolSize()).thenReturn(2);
+        this.dispatcher.initialize();
+
+        EventSearchResult result1 = mock(EventSearchResult.class, "result1");
+        EventSearchResult result2 = mock(EventSearchResult.class, "result2");
+        when(this.events.search(query))
+            .thenReturn(result1)
+            .thenReturn(result2);
+
+        List<Event> batch = new ArrayList<>();
+        for (int i = 0; i < 10; ++i) {
+            Event event = mock(Event.class, "event" + i);
+            when(event.getId()).thenReturn("event" + i);
+            when(event.getType()).thenReturn("unsupported");
+            when(this.events.prefilterEvent(event)).thenReturn(CompletableFuture.completedFuture(event));
+            batch.add(event);
+        }
+
+        when(result1.stream()).thenReturn(batch.stream());
+        when(result1.getSize()).thenReturn(10L);
+        when(result2.getSize()).thenReturn(0L);
+
+        this.dispatcher.flush();
+
+        for (Event event : batch) {
+            verify(this.events).prefilterEvent(event);
+        }
+        assertEquals(2, this.dispatcher.getWorkerCount());
+        assertEquals(10, this.dispatcher.getPrefilteredCount());
+        assertEquals(0, this.dispatcher.getFailedCount());
+        // Each worker runs in its own execution context
+        verify(this.ecm, atLeastOnce()).initialize(any());
+
+        this.dispatcher.dispose();
+    }
+
+    @Test
+    void flushWithBulkEntityIds() throws Exception
+    {
+        EventSearchResult result1 = mock(EventSearchResult.class, "result1");
+        EventSearchResult result2 = mock(EventSearchResult.class, "result2");
+        when(this.events.search(query))
+            .thenReturn(result1)
+            .thenReturn(result2);
+
+        String eventId = "event";
+        Event event = mock(Event.class, eventId);
+        when(event.getId()).thenReturn(eventId);
+        when(event.getType()).thenReturn(SUPPORTED_TYPE1);
+        WikiReference mainWiki = new WikiReference("xwiki");
+        when(event.getWiki()).thenReturn(mainWiki);
+        when(this.wikiManager.isMainWiki(mainWiki.getName())).thenReturn(true);
+
+        when(result1.stream()).thenReturn(Stream.of(event));
+        when(result1.getSize()).thenReturn(1L);
+        when(result2.getSize()).thenReturn(0L);
+
+        DocumentReference mainUserFoo = mock(DocumentReference.class, "mainUserFoo");
+        DocumentReference mainUserBar = mock(DocumentReference.class, "mainUserBar");
+        when(this.userCache.getUsers(mainWiki, true)).thenReturn(List.of(mainUserFoo, mainUserBar));
+        String mainUserFooStr = "mainUserFoo";
+        String mainUserBarStr = "mainUserBar";
+        when(this.entityReferenceSerializer.serialize(mainUserFoo)).thenReturn(mainUserFooStr);
+        when(this.entityReferenceSerializer.serialize(mainUserBar)).thenReturn(mainUserBarStr);
+
+        when(this.notificationConfiguration.areEmailsEnabled()).thenReturn(true);
+
+        // The existing associations are loaded once for all the users
+        when(this.events.getEntityIds(eventId, false)).thenReturn(Optional.of(Set.of(mainUserBarStr)));
+        when(this.events.getEntityIds(eventId, true)).thenReturn(Optional.of(Set.of()));
+
+        when(this.userEventManager.isListening(event, mainUserFoo, NotificationFormat.ALERT)).thenReturn(true);
+        when(this.userEventManager.isListening(event, mainUserFoo, NotificationFormat.EMAIL)).thenReturn(false);
+        when(this.userEventManager.isListening(event, mainUserBar, NotificationFormat.EMAIL)).thenReturn(true);
+
+        CompletableFuture future = mock(CompletableFuture.class, "future");
+        when(this.events.prefilterEvent(event)).thenReturn(future);
+
+        this.dispatcher.flush();
+
+        verify(this.events).getEntityIds(eventId, false);
+        verify(this.events).getEntityIds(eventId, true);
+        // No per user search
+        verify(this.events, times(2)).search(any());
+
+        verify(this.events).saveEventStatus(new DefaultEventStatus(event, mainUserFooStr, false));
+        verify(this.events, never()).saveMailEntityEvent(new DefaultEntityEvent(event, mainUserFooStr));
+        verify(this.userEventManager, never()).isListening(event, mainUserBar, NotificationFormat.ALERT);
+        verify(this.events, never()).saveEventStatus(new DefaultEventStatus(event, mainUserBarStr, false));
+        verify(this.events).saveMailEntityEvent(new DefaultEntityEvent(event, mainUserBarStr));
+        verify(this.events).prefilterEvent(event);
+        verify(future).join();
+    }
 }
\ No newline at end of file
@@ -22,6 +22,7 @@
 import java.util.List;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * Provide configuration for remote observation manager.
@@ -56,4 +57,26 @@ default String getId()
     {
         return null;
     }
+
+    /**
+     * @return {@code true} if the events supported by a {@link org.xwiki.observation.remote.codec.RemoteEventDataCodec}
+     *     should be sent in a compact binary format instead of relying on Java serialization
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    default boolean isCompactEncodingEnabled()
+    {
+        return false;
+    }
+
+    /**
+     * @return the time (in milliseconds) during which the events to send are accumulated in order to send them in a
+     *     single network message, 0 to send each event as soon as possible
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    default long getBatchWindow()
+    {
+        return 0;
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Encode and decode {@link RemoteEventData} in a compact binary format which does not rely on Java serialization.
+ * <p>
+ * The role hint of the implementation is written in front of each encoded event so that the receiving instance knows
+ * which codec to use to decode it. Events which are not supported by any codec are sent using Java serialization.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+@Role
+@Unstable
+public interface RemoteEventDataCodec
+{
+    /**
+     * @param remoteEvent the remote event to encode
+     * @param output the output where to write the encoded event
+     * @return {@code true} if the event was encoded, {@code false} if it's not supported by this codec (in which case
+     *     nothing should have been written to the output)
+     * @throws IOException when failing to write the event
+     */
+    boolean encode(RemoteEventData remoteEvent, DataOutput output) throws IOException;
+
+    /**
+     * @param input the input from where to read an event previously written by {@link #encode(RemoteEventData,
+     *     DataOutput)}
+     * @return the decoded remote event
+     * @throws IOException when failing to read the event
+     */
+    RemoteEventData decode(DataInput input) throws IOException;
+}
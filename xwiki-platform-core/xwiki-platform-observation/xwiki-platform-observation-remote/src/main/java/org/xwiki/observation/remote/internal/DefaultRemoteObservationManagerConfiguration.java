@@ -83,6 +83,18 @@ public String getNetworkAdapter()
         return this.configurationSource.getProperty("observation.remote.networkadapter", "jgroups");
     }
 
+    @Override
+    public boolean isCompactEncodingEnabled()
+    {
+        return this.configurationSource.getProperty("observation.remote.compactEncoding", false);
+    }
+
+    @Override
+    public long getBatchWindow()
+    {
+        return this.configurationSource.getProperty("observation.remote.batchWindow", 0L);
+    }
+
     @Override
     public String getId()
     {
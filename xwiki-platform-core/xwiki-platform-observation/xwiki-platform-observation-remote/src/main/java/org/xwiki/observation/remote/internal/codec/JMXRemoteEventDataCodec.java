@@ -0,0 +1,77 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.codec;
+
+import java.util.Map;
+
+/**
+ * Implementation of {@link JMXRemoteEventDataCodecMBean} based on {@link RemoteEventDataCodecStatistics}.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+public class JMXRemoteEventDataCodec implements JMXRemoteEventDataCodecMBean
+{
+    private final RemoteEventDataCodecStatistics statistics;
+
+    /**
+     * @param statistics the statistics to expose
+     */
+    public JMXRemoteEventDataCodec(RemoteEventDataCodecStatistics statistics)
+    {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Map<String, Long> getEncodedCounts()
+    {
+        return this.statistics.getEncodedCounts();
+    }
+
+    @Override
+    public Map<String, Long> getDecodedCounts()
+    {
+        return this.statistics.getDecodedCounts();
+    }
+
+    @Override
+    public Map<String, Long> getAverageEncodedSizes()
+    {
+        return this.statistics.getAverageEncodedSizes();
+    }
+
+    @Override
+    public Map<String, Long> getAverageDecodedSizes()
+    {
+        return this.statistics.getAverageDecodedSizes();
+    }
+
+    @Override
+    public Map<String, Long> getAverageEncodeTimes()
+    {
+        return this.statistics.getAverageEncodeTimes();
+    }
+
+    @Override
+    public Map<String, Long> getAverageDecodeTimes()
+    {
+        return this.statistics.getAverageDecodeTimes();
+    }
+}
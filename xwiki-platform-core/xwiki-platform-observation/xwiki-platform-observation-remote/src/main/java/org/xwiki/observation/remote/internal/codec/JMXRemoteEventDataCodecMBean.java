@@ -0,0 +1,62 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.codec;
+
+import java.util.Map;
+
+/**
+ * MBean exposing the statistics of the wire formats used to send and receive remote events. The
+ * {@value RemoteEventDataSerializer#FORMAT_SERIALIZATION} entry is about the events sent using Java serialization.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+public interface JMXRemoteEventDataCodecMBean
+{
+    /**
+     * @return the number of events sent for each wire format
+     */
+    Map<String, Long> getEncodedCounts();
+
+    /**
+     * @return the number of events received for each wire format
+     */
+    Map<String, Long> getDecodedCounts();
+
+    /**
+     * @return the average size (in bytes) of the events sent for each wire format
+     */
+    Map<String, Long> getAverageEncodedSizes();
+
+    /**
+     * @return the average size (in bytes) of the events received for each wire format
+     */
+    Map<String, Long> getAverageDecodedSizes();
+
+    /**
+     * @return the average time (in nanoseconds) it took to encode an event for each wire format
+     */
+    Map<String, Long> getAverageEncodeTimes();
+
+    /**
+     * @return the average time (in nanoseconds) it took to decode an event for each wire format
+     */
+    Map<String, Long> getAverageDecodeTimes();
+}
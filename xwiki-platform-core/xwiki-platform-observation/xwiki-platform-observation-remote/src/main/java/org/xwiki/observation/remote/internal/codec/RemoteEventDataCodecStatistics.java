@@ -0,0 +1,146 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.codec;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keep track of the number, size and encoding/decoding time of the remote events for each wire format.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+public class RemoteEventDataCodecStatistics
+{
+    private static final class Counters
+    {
+        private final LongAdder encoded = new LongAdder();
+
+        private final LongAdder encodedBytes = new LongAdder();
+
+        private final LongAdder encodeTime = new LongAdder();
+
+        private final LongAdder decoded = new LongAdder();
+
+        private final LongAdder decodedBytes = new LongAdder();
+
+        private final LongAdder decodeTime = new LongAdder();
+    }
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    /**
+     * @param format the wire format used to encode the event
+     * @param size the size of the encoded event, in bytes
+     * @param time the time it took to encode the event, in nanoseconds
+     */
+    public void recordEncode(String format, int size, long time)
+    {
+        Counters formatCounters = getCounters(format);
+        formatCounters.encoded.increment();
+        formatCounters.encodedBytes.add(size);
+        formatCounters.encodeTime.add(time);
+    }
+
+    /**
+     * @param format the wire format used to decode the event
+     * @param size the size of the encoded event, in bytes
+     * @param time the time it took to decode the event, in nanoseconds
+     */
+    public void recordDecode(String format, int size, long time)
+    {
+        Counters formatCounters = getCounters(format);
+        formatCounters.decoded.increment();
+        formatCounters.decodedBytes.add(size);
+        formatCounters.decodeTime.add(time);
+    }
+
+    private Counters getCounters(String format)
+    {
+        return this.counters.computeIfAbsent(format, k -> new Counters());
+    }
+
+    /**
+     * @return the number of events sent for each wire format
+     */
+    public Map<String, Long> getEncodedCounts()
+    {
+        return collect(c -> c.encoded.sum());
+    }
+
+    /**
+     * @return the number of events received for each wire format
+     */
+    public Map<String, Long> getDecodedCounts()
+    {
+        return collect(c -> c.decoded.sum());
+    }
+
+    /**
+     * @return the average size (in bytes) of the events sent for each wire format
+     */
+    public Map<String, Long> getAverageEncodedSizes()
+    {
+        return collect(c -> average(c.encodedBytes, c.encoded));
+    }
+
+    /**
+     * @return the average size (in bytes) of the events received for each wire format
+     */
+    public Map<String, Long> getAverageDecodedSizes()
+    {
+        return collect(c -> average(c.decodedBytes, c.decoded));
+    }
+
+    /**
+     * @return the average time (in nanoseconds) it took to encode an event for each wire format
+     */
+    public Map<String, Long> getAverageEncodeTimes()
+    {
+        return collect(c -> average(c.encodeTime, c.encoded));
+    }
+
+    /**
+     * @return the average time (in nanoseconds) it took to decode an event for each wire format
+     */
+    public Map<String, Long> getAverageDecodeTimes()
+    {
+        return collect(c -> average(c.decodeTime, c.decoded));
+    }
+
+    private Map<String, Long> collect(ToLongFunction<Counters> value)
+    {
+        Map<String, Long> result = new TreeMap<>();
+        this.counters.forEach((format, formatCounters) -> result.put(format, value.applyAsLong(formatCounters)));
+
+        return result;
+    }
+
+    private static long average(LongAdder total, LongAdder count)
+    {
+        long countValue = count.sum();
+
+        return countValue > 0 ? total.sum() / countValue : 0;
+    }
+}
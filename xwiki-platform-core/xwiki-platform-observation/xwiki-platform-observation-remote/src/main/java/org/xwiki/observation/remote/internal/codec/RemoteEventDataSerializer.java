@@ -0,0 +1,288 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.observation.remote.codec.RemoteEventDataCodec;
+
+/**
+ * Encode and decode remote events using the available {@link RemoteEventDataCodec} components.
+ * <p>
+ * An encoded event starts with a magic number (which cannot be mistaken for the first byte of an object serialized by
+ * JGroups), the version of the wire format and the hint of the codec used to encode the event. A batch of events starts
+ * with a different magic number followed by the version of the wire format and the list of the events, each of them
+ * being encoded independently.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+@Component(roles = RemoteEventDataSerializer.class)
+@Singleton
+public class RemoteEventDataSerializer implements Initializable, Disposable
+{
+    /**
+     * The name of the wire format relying on Java serialization, used in the statistics.
+     */
+    public static final String FORMAT_SERIALIZATION = "serialization";
+
+    /**
+     * The name used in the statistics for the messages containing a batch of events.
+     */
+    public static final String FORMAT_BATCH = "batch";
+
+    private static final byte[] MAGIC = {(byte) 0xC0, (byte) 0xDE};
+
+    private static final byte[] BATCH_MAGIC = {(byte) 0xC0, (byte) 0xDB};
+
+    private static final byte VERSION = 1;
+
+    private static final String MBEAN_NAME = "org.xwiki:type=RemoteObservation,name=codec";
+
+    @Inject
+    private ComponentManager componentManager;
+
+    @Inject
+    private Logger logger;
+
+    private final RemoteEventDataCodecStatistics statistics = new RemoteEventDataCodecStatistics();
+
+    private Map<String, RemoteEventDataCodec> codecs;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            mbs.registerMBean(new JMXRemoteEventDataCodec(this.statistics), new ObjectName(MBEAN_NAME));
+        } catch (Exception e) {
+            this.logger.warn("Failed to register the remote events codec statistics against the JMX Server", e);
+        }
+    }
+
+    @Override
+    public void dispose()
+    {
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            mbs.unregisterMBean(new ObjectName(MBEAN_NAME));
+        } catch (Exception e) {
+            this.logger.debug("Failed to unregister the remote events codec statistics from the JMX Server", e);
+        }
+    }
+
+    /**
+     * @return the statistics of the encoded and decoded events
+     */
+    public RemoteEventDataCodecStatistics getStatistics()
+    {
+        return this.statistics;
+    }
+
+    private Map<String, RemoteEventDataCodec> getCodecs()
+    {
+        if (this.codecs == null) {
+            try {
+                this.codecs = this.componentManager.getInstanceMap(RemoteEventDataCodec.class);
+            } catch (ComponentLookupException e) {
+                this.logger.error("Failed to lookup the remote events codecs.", e);
+
+                return Map.of();
+            }
+        }
+
+        return this.codecs;
+    }
+
+    /**
+     * @param remoteEvent the remote event to encode
+     * @return the encoded event or {@code null} if no codec supports this event
+     */
+    public byte[] serialize(RemoteEventData remoteEvent)
+    {
+        long start = System.nanoTime();
+
+        for (Map.Entry<String, RemoteEventDataCodec> entry : getCodecs().entrySet()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream output = new DataOutputStream(bytes)) {
+                output.write(MAGIC);
+                output.writeByte(VERSION);
+                output.writeUTF(entry.getKey());
+
+                if (entry.getValue().encode(remoteEvent, output)) {
+                    output.flush();
+                    byte[] result = bytes.toByteArray();
+
+                    this.statistics.recordEncode(entry.getKey(), result.length, System.nanoTime() - start);
+
+                    return result;
+                }
+            } catch (Exception e) {
+                this.logger.warn("Failed to encode remote event [{}] with codec [{}]: {}", remoteEvent,
+                    entry.getKey(), e.getMessage());
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param events the encoded events to put in the batch
+     * @return the encoded batch
+     * @throws IOException when failing to write the batch
+     */
+    public byte[] serializeBatch(List<byte[]> events) throws IOException
+    {
+        long start = System.nanoTime();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.write(BATCH_MAGIC);
+            output.writeByte(VERSION);
+            output.writeInt(events.size());
+            for (byte[] event : events) {
+                output.writeInt(event.length);
+                output.write(event);
+            }
+        }
+
+        byte[] result = bytes.toByteArray();
+
+        this.statistics.recordEncode(FORMAT_BATCH, result.length, System.nanoTime() - start);
+
+        return result;
+    }
+
+    /**
+     * @param bytes the buffer containing the encoded batch
+     * @param offset the offset of the encoded batch in the buffer
+     * @param length the length of the encoded batch
+     * @return the encoded events contained in the batch, in the order they were added to it, or {@code null} if the
+     *     buffer does not contain a batch encoded by {@link #serializeBatch(List)}
+     * @throws IOException when failing to read the batch
+     */
+    public List<byte[]> unserializeBatch(byte[] bytes, int offset, int length) throws IOException
+    {
+        if (!startsWith(bytes, offset, length, BATCH_MAGIC)) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+
+        DataInputStream input = new DataInputStream(
+            new ByteArrayInputStream(bytes, offset + BATCH_MAGIC.length, length - BATCH_MAGIC.length));
+
+        checkVersion(input.readByte());
+
+        // Each event is prefixed by its length, so a valid batch cannot contain more events than a quarter of the
+        // remaining bytes
+        int size = input.readInt();
+        if (size < 0 || size > input.available() / Integer.BYTES) {
+            throw new IOException(String.format("Invalid number of events [%s] in a batch of [%s] bytes", size,
+                length));
+        }
+
+        List<byte[]> events = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            int eventLength = input.readInt();
+            if (eventLength < 0 || eventLength > input.available()) {
+                throw new IOException(String.format("Invalid length [%s] for the event [%s] of the batch", eventLength,
+                    i));
+            }
+
+            byte[] event = new byte[eventLength];
+            input.readFully(event);
+            events.add(event);
+        }
+
+        this.statistics.recordDecode(FORMAT_BATCH, length, System.nanoTime() - start);
+
+        return events;
+    }
+
+    /**
+     * @param bytes the buffer containing the encoded event
+     * @param offset the offset of the encoded event in the buffer
+     * @param length the length of the encoded event
+     * @return the decoded event or {@code null} if the buffer does not contain an event encoded by
+     *     {@link #serialize(RemoteEventData)}
+     * @throws IOException when failing to decode the event
+     */
+    public RemoteEventData unserialize(byte[] bytes, int offset, int length) throws IOException
+    {
+        if (!startsWith(bytes, offset, length, MAGIC)) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+
+        DataInputStream input = new DataInputStream(
+            new ByteArrayInputStream(bytes, offset + MAGIC.length, length - MAGIC.length));
+
+        checkVersion(input.readByte());
+
+        String hint = input.readUTF();
+        RemoteEventDataCodec codec;
+        try {
+            codec = this.componentManager.getInstance(RemoteEventDataCodec.class, hint);
+        } catch (ComponentLookupException e) {
+            throw new IOException(String.format("Unknown remote event codec [%s]", hint), e);
+        }
+
+        RemoteEventData remoteEvent = codec.decode(input);
+
+        this.statistics.recordDecode(hint, length, System.nanoTime() - start);
+
+        return remoteEvent;
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, int length, byte[] magic)
+    {
+        return length > magic.length && bytes[offset] == magic[0] && bytes[offset + 1] == magic[1];
+    }
+
+    private static void checkVersion(byte version) throws IOException
+    {
+        if (version != VERSION) {
+            throw new IOException(String.format("Unsupported remote event format version [%s]", version));
+        }
+    }
+}
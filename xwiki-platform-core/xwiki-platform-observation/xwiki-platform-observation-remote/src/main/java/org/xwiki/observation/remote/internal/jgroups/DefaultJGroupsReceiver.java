@@ -19,12 +19,16 @@
  */
 package org.xwiki.observation.remote.internal.jgroups;
 
+import java.io.IOException;
+import java.util.List;
+
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.jgroups.BytesMessage;
 import org.jgroups.Message;
 import org.jgroups.blocks.cs.ReceiverAdapter;
+import org.jgroups.util.Util;
 import org.slf4j.Logger;
 import org.xwiki.classloader.ClassLoaderManager;
 import org.xwiki.component.annotation.Component;
@@ -32,6 +36,7 @@
 import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.observation.remote.RemoteEventData;
 import org.xwiki.observation.remote.RemoteObservationManager;
+import org.xwiki.observation.remote.internal.codec.RemoteEventDataSerializer;
 import org.xwiki.observation.remote.jgroups.JGroupsReceiver;
 
 /**
@@ -59,6 +64,9 @@ public class DefaultJGroupsReceiver extends ReceiverAdapter implements JGroupsRe
     @Inject
     private ClassLoaderManager classLoaderManager;
 
+    @Inject
+    private RemoteEventDataSerializer serializer;
+
     /**
      * The logger to log.
      */
@@ -85,12 +93,51 @@ public RemoteObservationManager getRemoteObservationManager()
     public void receive(Message msg)
     {
         if (msg instanceof BytesMessage) {
-            RemoteEventData remoteEvent = (RemoteEventData) ((BytesMessage) msg)
-                .getObject(this.classLoaderManager.getURLClassLoader(null, false));
+            BytesMessage bytesMessage = (BytesMessage) msg;
+
+            List<byte[]> batch;
+            try {
+                batch = this.serializer.unserializeBatch(bytesMessage.getArray(), bytesMessage.getOffset(),
+                    bytesMessage.getLength());
+            } catch (IOException e) {
+                this.logger.error("Failed to decode JGroups remote events batch", e);
+
+                return;
+            }
+
+            if (batch != null) {
+                // Unpack the events in the order they were sent
+                for (byte[] event : batch) {
+                    receive(event, 0, event.length);
+                }
+            } else {
+                receive(bytesMessage.getArray(), bytesMessage.getOffset(), bytesMessage.getLength());
+            }
+        }
+    }
+
+    private void receive(byte[] bytes, int offset, int length)
+    {
+        RemoteEventData remoteEvent;
+        try {
+            remoteEvent = this.serializer.unserialize(bytes, offset, length);
 
-            this.logger.debug("Received JGroups remote event [{}]", remoteEvent);
+            if (remoteEvent == null) {
+                // Not a compact message, fallback on Java serialization
+                long start = System.nanoTime();
+                remoteEvent = Util.objectFromByteBuffer(bytes, offset, length,
+                    this.classLoaderManager.getURLClassLoader(null, false));
+                this.serializer.getStatistics().recordDecode(RemoteEventDataSerializer.FORMAT_SERIALIZATION, length,
+                    System.nanoTime() - start);
+            }
+        } catch (Exception e) {
+            this.logger.error("Failed to decode JGroups remote event", e);
 
-            getRemoteObservationManager().notify(remoteEvent);
+            return;
         }
+
+        this.logger.debug("Received JGroups remote event [{}]", remoteEvent);
+
+        getRemoteObservationManager().notify(remoteEvent);
     }
 }
@@ -23,8 +23,17 @@
 import java.io.InputStream;
 import java.lang.management.ManagementFactory;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -39,6 +48,7 @@
 import org.jgroups.conf.ProtocolStackConfigurator;
 import org.jgroups.conf.XmlConfigurator;
 import org.jgroups.jmx.JmxConfigurator;
+import org.jgroups.util.Util;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.manager.ComponentLookupException;
@@ -47,6 +57,8 @@
 import org.xwiki.observation.remote.NetworkAdapter;
 import org.xwiki.observation.remote.RemoteEventData;
 import org.xwiki.observation.remote.RemoteEventException;
+import org.xwiki.observation.remote.RemoteObservationManagerConfiguration;
+import org.xwiki.observation.remote.internal.codec.RemoteEventDataSerializer;
 import org.xwiki.observation.remote.jgroups.JGroupsReceiver;
 
 /**
@@ -65,12 +77,23 @@ public class JGroupsNetworkAdapter implements NetworkAdapter
      */
     public static final String CONFIGURATION_PATH = "observation/remote/jgroups/";
 
+    /**
+     * The maximum number of events to send in a single message.
+     */
+    private static final int BATCH_MAX_SIZE = 1000;
+
     /**
      * Used to lookup the receiver corresponding to the channel identifier.
      */
     @Inject
     private ComponentManager componentManager;
 
+    @Inject
+    private RemoteObservationManagerConfiguration configuration;
+
+    @Inject
+    private RemoteEventDataSerializer serializer;
+
     /**
      * The logger to log.
      */
@@ -82,23 +105,160 @@ public class JGroupsNetworkAdapter implements NetworkAdapter
      */
     private Map<String, JChannel> channels = new ConcurrentHashMap<>();
 
+    /**
+     * The events waiting to be sent in the next batch.
+     */
+    private final List<RemoteEventData> pendingEvents = new ArrayList<>();
+
+    /**
+     * Make sure the batches are sent in the right order.
+     */
+    private final Object flushLock = new Object();
+
+    private ScheduledExecutorService batchExecutor;
+
+    private boolean flushScheduled;
+
     @Override
     public void send(RemoteEventData remoteEvent)
     {
         this.logger.debug("Send JGroups remote event [{}]", remoteEvent.toString());
 
-        // Send the message to the whole group
-        Message message = new BytesMessage(null,  remoteEvent);
+        long batchWindow = this.configuration.getBatchWindow();
+
+        if (batchWindow > 0) {
+            synchronized (this.pendingEvents) {
+                this.pendingEvents.add(remoteEvent);
+
+                if (!this.flushScheduled) {
+                    this.flushScheduled = true;
+                    getBatchExecutor().schedule(this::flush, batchWindow, TimeUnit.MILLISECONDS);
+                }
+            }
+        } else {
+            // Send the message to the whole group
+            send(createMessage(remoteEvent), remoteEvent);
+        }
+    }
 
+    private void send(Message message, Object content)
+    {
         // Send message to JGroups channels
         for (Map.Entry<String, JChannel> entry : this.channels.entrySet()) {
             try {
                 entry.getValue().send(message);
             } catch (Exception e) {
-                this.logger.error("Failed to send message [{}] to the channel [{}]", remoteEvent.toString(),
-                    entry.getKey(), e);
+                this.logger.error("Failed to send message [{}] to the channel [{}]", content, entry.getKey(), e);
+            }
+        }
+    }
+
+    private ScheduledExecutorService getBatchExecutor()
+    {
+        if (this.batchExecutor == null) {
+            this.batchExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "XWiki remote events batch thread");
+                thread.setDaemon(true);
+
+                return thread;
+            });
+        }
+
+        return this.batchExecutor;
+    }
+
+    /**
+     * Send the pending events.
+     */
+    private void flush()
+    {
+        synchronized (this.flushLock) {
+            List<RemoteEventData> events;
+            synchronized (this.pendingEvents) {
+                events = removeDuplicates(this.pendingEvents);
+                this.pendingEvents.clear();
+                this.flushScheduled = false;
+            }
+
+            for (int i = 0; i < events.size(); i += BATCH_MAX_SIZE) {
+                List<RemoteEventData> batch = events.subList(i, Math.min(events.size(), i + BATCH_MAX_SIZE));
+
+                if (batch.size() == 1) {
+                    send(createMessage(batch.get(0)), batch.get(0));
+                } else {
+                    try {
+                        send(createBatchMessage(batch), batch);
+                    } catch (Exception e) {
+                        this.logger.error("Failed to create message for the batch of remote events [{}]", batch, e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Only keep the last occurrence of events which are sent several times in the same batch (typically the
+     * invalidation of the same document).
+     * <p>
+     * Dropping an occurrence means the events sent between two identical events are notified before it instead of
+     * after it. Keeping the last occurrence is what makes this safe: the receiving instance ends up in the state
+     * produced by the last event sent (for example the cache entry invalidated after the last modification of the
+     * document), which keeping the first occurrence would not guarantee. Since all the events of a batch are notified
+     * together, the earlier occurrence is never observable on its own anyway.
+     */
+    private List<RemoteEventData> removeDuplicates(List<RemoteEventData> events)
+    {
+        Set<List<Object>> keys = new HashSet<>();
+        List<RemoteEventData> result = new ArrayList<>(events.size());
+        for (int i = events.size() - 1; i >= 0; --i) {
+            RemoteEventData event = events.get(i);
+            if (keys.add(Arrays.asList(event.getEvent(), event.getSource(), event.getData()))) {
+                result.add(event);
+            }
+        }
+        Collections.reverse(result);
+
+        return result;
+    }
+
+    private Message createBatchMessage(List<RemoteEventData> remoteEvents) throws Exception
+    {
+        List<byte[]> events = new ArrayList<>(remoteEvents.size());
+        for (RemoteEventData remoteEvent : remoteEvents) {
+            byte[] bytes = this.configuration.isCompactEncodingEnabled() ? this.serializer.serialize(remoteEvent)
+                : null;
+
+            if (bytes == null) {
+                // Fallback on Java serialization
+                long start = System.nanoTime();
+                bytes = Util.objectToByteBuffer(remoteEvent);
+                this.serializer.getStatistics().recordEncode(RemoteEventDataSerializer.FORMAT_SERIALIZATION,
+                    bytes.length, System.nanoTime() - start);
+            }
+
+            events.add(bytes);
+        }
+
+        return new BytesMessage(null, this.serializer.serializeBatch(events));
+    }
+
+    private Message createMessage(RemoteEventData remoteEvent)
+    {
+        if (this.configuration.isCompactEncodingEnabled()) {
+            byte[] bytes = this.serializer.serialize(remoteEvent);
+
+            if (bytes != null) {
+                return new BytesMessage(null, bytes);
             }
         }
+
+        // Fallback on Java serialization
+        long start = System.nanoTime();
+        Message message = new BytesMessage(null, remoteEvent);
+        this.serializer.getStatistics().recordEncode(RemoteEventDataSerializer.FORMAT_SERIALIZATION,
+            message.getLength(), System.nanoTime() - start);
+
+        return message;
     }
 
     @Override
@@ -226,6 +386,33 @@ private InputStream getChannelConfiguration(String channelId) throws IOException
     @Override
     public void stopAllChannels() throws RemoteEventException
     {
+        // Stop the batch thread first, otherwise the events it flushes after the final flush below would be lost
+        ScheduledExecutorService executor;
+        synchronized (this.pendingEvents) {
+            executor = this.batchExecutor;
+            this.batchExecutor = null;
+            this.flushScheduled = false;
+        }
+        if (executor != null) {
+            // Don't interrupt a batch being sent, and let the already scheduled flush run at the end of its window
+            executor.shutdown();
+            try {
+                executor.awaitTermination(this.configuration.getBatchWindow() + 1000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                this.logger.warn("Interrupted while waiting for the remote events batch thread to stop");
+
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Make sure the pending events are sent before closing the channels. Hold the pending events lock (after the
+        // flush lock, like the flush itself) so that no event is added in the meantime.
+        synchronized (this.flushLock) {
+            synchronized (this.pendingEvents) {
+                flush();
+            }
+        }
+
         for (Map.Entry<String, JChannel> channelEntry : this.channels.entrySet()) {
             channelEntry.getValue().close();
         }
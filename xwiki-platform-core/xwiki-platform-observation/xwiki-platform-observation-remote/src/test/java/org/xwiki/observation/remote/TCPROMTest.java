@@ -23,15 +23,19 @@
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.xwiki.logging.event.LogEvent;
 import org.xwiki.observation.EventListener;
 import org.xwiki.observation.remote.test.AbstractROMTestCase;
 import org.xwiki.observation.remote.test.TestEvent;
 import org.xwiki.test.annotation.AllComponents;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -92,4 +96,34 @@ void serializableEvent() throws InterruptedException
         verify(localListener).onEvent(same(event), same(unserializable), same(unserializable));
         verify(remoteListener).onEvent(eq(event), eq("some source"), eq("some data"));
     }
+
+    /**
+     * Validate that events are sent in order and without duplicates when a batch window is configured.
+     */
+    @Test
+    void batchedEvents() throws InterruptedException
+    {
+        getConfigurationSource1().setProperty("observation.remote.batchWindow", 100L);
+
+        EventListener remoteListener = mock(EventListener.class, "remote");
+
+        TestEvent event = new TestEvent();
+
+        when(remoteListener.getName()).thenReturn("mylistener");
+        when(remoteListener.getEvents()).thenReturn(Arrays.asList(event));
+
+        getObservationManager2().addListener(remoteListener);
+
+        getObservationManager1().notify(event, "source1", "data");
+        getObservationManager1().notify(event, "source2", "data");
+        getObservationManager1().notify(event, "source1", "data");
+
+        // Make sure JGroups has enough time to send the message
+        Thread.sleep(1000);
+
+        InOrder inOrder = inOrder(remoteListener);
+        inOrder.verify(remoteListener).onEvent(eq(event), eq("source2"), eq("data"));
+        inOrder.verify(remoteListener).onEvent(eq(event), eq("source1"), eq("data"));
+        verify(remoteListener, times(2)).onEvent(any(), any(), any());
+    }
 }
@@ -0,0 +1,170 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.observation.remote.codec.RemoteEventDataCodec;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectComponentManager;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Validate {@link RemoteEventDataSerializer}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class RemoteEventDataSerializerTest
+{
+    private static final class StringCodec implements RemoteEventDataCodec
+    {
+        @Override
+        public boolean encode(RemoteEventData remoteEvent, DataOutput output) throws IOException
+        {
+            if (remoteEvent.getEvent() instanceof String) {
+                output.writeUTF((String) remoteEvent.getEvent());
+
+                return true;
+            }
+
+            return false;
+        }
+
+        @Override
+        public RemoteEventData decode(DataInput input) throws IOException
+        {
+            return new RemoteEventData(input.readUTF(), null, null);
+        }
+    }
+
+    @InjectComponentManager
+    private MockitoComponentManager componentManager;
+
+    @InjectMockComponents
+    private RemoteEventDataSerializer serializer;
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        this.componentManager.registerComponent(RemoteEventDataCodec.class, "string", new StringCodec());
+    }
+
+    @Test
+    void serializeAndUnserialize() throws IOException
+    {
+        byte[] bytes = this.serializer.serialize(new RemoteEventData("event", null, null));
+
+        RemoteEventData remoteEvent = this.serializer.unserialize(bytes, 0, bytes.length);
+
+        assertEquals("event", remoteEvent.getEvent());
+        assertNull(remoteEvent.getSource());
+        assertNull(remoteEvent.getData());
+
+        assertEquals(Map.of("string", 1L), this.serializer.getStatistics().getEncodedCounts());
+        assertEquals(Map.of("string", 1L), this.serializer.getStatistics().getDecodedCounts());
+        assertEquals(Map.of("string", (long) bytes.length),
+            this.serializer.getStatistics().getAverageEncodedSizes());
+    }
+
+    @Test
+    void serializeUnsupportedEvent()
+    {
+        assertNull(this.serializer.serialize(new RemoteEventData(1, null, null)));
+    }
+
+    @Test
+    void unserializeNotEncodedMessage() throws IOException
+    {
+        assertNull(this.serializer.unserialize(new byte[] {2, 0, 0, 0}, 0, 4));
+    }
+
+    @Test
+    void unserializeUnknownCodec() throws Exception
+    {
+        byte[] bytes = this.serializer.serialize(new RemoteEventData("event", null, null));
+
+        this.componentManager.unregisterComponent(RemoteEventDataCodec.class, "string");
+
+        assertThrows(IOException.class, () -> this.serializer.unserialize(bytes, 0, bytes.length));
+    }
+
+    @Test
+    void serializeAndUnserializeBatch() throws IOException
+    {
+        byte[] event1 = this.serializer.serialize(new RemoteEventData("event1", null, null));
+        byte[] event2 = new byte[] {2, 1};
+
+        byte[] bytes = this.serializer.serializeBatch(List.of(event1, event2));
+
+        assertNull(this.serializer.unserialize(bytes, 0, bytes.length));
+
+        List<byte[]> batch = this.serializer.unserializeBatch(bytes, 0, bytes.length);
+
+        assertEquals(2, batch.size());
+        assertArrayEquals(event1, batch.get(0));
+        assertArrayEquals(event2, batch.get(1));
+
+        assertNull(this.serializer.unserializeBatch(event1, 0, event1.length));
+    }
+
+    @Test
+    void unserializeInvalidBatch() throws IOException
+    {
+        byte[] bytes = this.serializer.serializeBatch(List.of(new byte[] {1, 2, 3}));
+
+        // Number of events larger than the message
+        byte[] invalidSize = bytes.clone();
+        invalidSize[3] = 0x7F;
+        IOException exception = assertThrows(IOException.class,
+            () -> this.serializer.unserializeBatch(invalidSize, 0, invalidSize.length));
+        assertEquals("Invalid number of events [2130706433] in a batch of [14] bytes", exception.getMessage());
+
+        // Event length larger than the message
+        byte[] invalidLength = bytes.clone();
+        invalidLength[7] = 0x7F;
+        exception = assertThrows(IOException.class,
+            () -> this.serializer.unserializeBatch(invalidLength, 0, invalidLength.length));
+        assertEquals("Invalid length [2130706435] for the event [0] of the batch", exception.getMessage());
+
+        // Negative event length
+        byte[] negativeLength = bytes.clone();
+        negativeLength[7] = (byte) 0xFF;
+        negativeLength[8] = (byte) 0xFF;
+        negativeLength[9] = (byte) 0xFF;
+        negativeLength[10] = (byte) 0xFF;
+        exception = assertThrows(IOException.class,
+            () -> this.serializer.unserializeBatch(negativeLength, 0, negativeLength.length));
+        assertEquals("Invalid length [-1] for the event [0] of the batch", exception.getMessage());
+    }
+}
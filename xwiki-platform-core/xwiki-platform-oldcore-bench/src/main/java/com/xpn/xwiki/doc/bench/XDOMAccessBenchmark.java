@@ -0,0 +1,93 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.doc.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.LinkBlock;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.block.match.BlockMatcher;
+import org.xwiki.rendering.block.match.ClassBlockMatcher;
+
+/**
+ * Compare the modifiable copy returned by {@code XWikiDocument#getXDOM()} with the shared XDOM returned by
+ * {@code XWikiDocument#getReadOnlyXDOM()}, alone and followed by the kind of traversal done by the read-only callers
+ * (e.g. the link extraction). Run with {@code -prof gc} to compare the allocations too.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class XDOMAccessBenchmark
+{
+    private static final BlockMatcher LINK_MATCHER = new ClassBlockMatcher(LinkBlock.class);
+
+    /**
+     * @param state the benchmark state
+     * @return a copy of the cached XDOM
+     */
+    @Benchmark
+    public XDOM getXDOM(XDOMBenchmarkState state)
+    {
+        return state.getDocument().getXDOM();
+    }
+
+    /**
+     * @param state the benchmark state
+     * @return the cached XDOM
+     */
+    @Benchmark
+    public XDOM getReadOnlyXDOM(XDOMBenchmarkState state)
+    {
+        return state.getDocument().getReadOnlyXDOM();
+    }
+
+    /**
+     * @param state the benchmark state
+     * @return the number of links found in a copy of the cached XDOM
+     */
+    @Benchmark
+    public int getLinksFromXDOM(XDOMBenchmarkState state)
+    {
+        return state.getDocument().getXDOM().getBlocks(LINK_MATCHER, Block.Axes.DESCENDANT).size();
+    }
+
+    /**
+     * @param state the benchmark state
+     * @return the number of links found in the cached XDOM
+     */
+    @Benchmark
+    public int getLinksFromReadOnlyXDOM(XDOMBenchmarkState state)
+    {
+        return state.getDocument().getReadOnlyXDOM().getBlocks(LINK_MATCHER, Block.Axes.DESCENDANT).size();
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.doc.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.FormatBlock;
+import org.xwiki.rendering.block.HeaderBlock;
+import org.xwiki.rendering.block.LinkBlock;
+import org.xwiki.rendering.block.MacroBlock;
+import org.xwiki.rendering.block.ParagraphBlock;
+import org.xwiki.rendering.block.SectionBlock;
+import org.xwiki.rendering.block.SpaceBlock;
+import org.xwiki.rendering.block.TableBlock;
+import org.xwiki.rendering.block.TableCellBlock;
+import org.xwiki.rendering.block.TableRowBlock;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.listener.Format;
+import org.xwiki.rendering.listener.HeaderLevel;
+import org.xwiki.rendering.listener.reference.DocumentResourceReference;
+import org.xwiki.rendering.parser.ContentParser;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.web.Utils;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Shared state of the XDOM benchmarks: a document whose content is a large XDOM, already parsed and cached by the
+ * document. The parser is replaced by a mock returning a synthetic XDOM so that only the access to the cached XDOM is
+ * measured.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+@State(Scope.Benchmark)
+public class XDOMBenchmarkState
+{
+    private static final int PARAGRAPHS_PER_SECTION = 3;
+
+    private static final int WORDS_PER_PARAGRAPH = 20;
+
+    private static final int TABLE_SIZE = 3;
+
+    /**
+     * The number of sections of the document content, each section containing a few paragraphs with formatting and
+     * links, a macro and a small table.
+     */
+    @Param({ "10", "100", "1000" })
+    private int sectionCount;
+
+    private MockitoComponentManager componentManager;
+
+    private XWikiDocument document;
+
+    /**
+     * Create the document and cache its XDOM.
+     *
+     * @throws Exception when failing to register the components
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        XDOM xdom = createXDOM();
+
+        this.componentManager = new MockitoComponentManager();
+        ContentParser parser = this.componentManager.registerMockComponent(ContentParser.class);
+        when(parser.parse(anyString(), any(Syntax.class), any(EntityReference.class))).thenReturn(xdom);
+        Utils.setComponentManager(this.componentManager);
+
+        this.document = new XWikiDocument(new DocumentReference("xwiki", "Space", "LargePage"));
+        this.document.setSyntax(Syntax.XWIKI_2_1);
+        this.document.setContent("content");
+
+        // Parse and cache the content
+        this.document.getReadOnlyXDOM();
+    }
+
+    /**
+     * Dispose the components.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        Utils.setComponentManager(null);
+        this.componentManager.dispose();
+    }
+
+    /**
+     * @return the document with the large content
+     */
+    public XWikiDocument getDocument()
+    {
+        return this.document;
+    }
+
+    private XDOM createXDOM()
+    {
+        List<Block> sections = new ArrayList<>(this.sectionCount);
+        for (int i = 0; i < this.sectionCount; i++) {
+            List<Block> sectionBlocks = new ArrayList<>();
+            sectionBlocks.add(new HeaderBlock(createWords("Section " + i, 1), HeaderLevel.LEVEL1));
+            for (int j = 0; j < PARAGRAPHS_PER_SECTION; j++) {
+                sectionBlocks.add(createParagraph(i * PARAGRAPHS_PER_SECTION + j));
+            }
+            sectionBlocks.add(new MacroBlock("info", Collections.singletonMap("title", "Note " + i),
+                "Some content of the macro " + i, false));
+            sectionBlocks.add(createTable(i));
+            sections.add(new SectionBlock(sectionBlocks));
+        }
+
+        return new XDOM(sections);
+    }
+
+    private Block createParagraph(int index)
+    {
+        List<Block> blocks = createWords("word", WORDS_PER_PARAGRAPH);
+        blocks.add(new SpaceBlock());
+        blocks.add(new FormatBlock(createWords("bold", 2), Format.BOLD));
+        blocks.add(new SpaceBlock());
+        blocks.add(new LinkBlock(createWords("link", 2), new DocumentResourceReference("Space.Page" + index), false));
+
+        return new ParagraphBlock(blocks);
+    }
+
+    private Block createTable(int index)
+    {
+        List<Block> rows = new ArrayList<>(TABLE_SIZE);
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            List<Block> cells = new ArrayList<>(TABLE_SIZE);
+            for (int j = 0; j < TABLE_SIZE; j++) {
+                cells.add(new TableCellBlock(createWords("cell" + index, 1)));
+            }
+            rows.add(new TableRowBlock(cells));
+        }
+
+        return new TableBlock(rows);
+    }
+
+    private List<Block> createWords(String word, int count)
+    {
+        List<Block> blocks = new ArrayList<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                blocks.add(new SpaceBlock());
+            }
+            blocks.add(new WordBlock(word));
+        }
+
+        return blocks;
+    }
+}
@@ -41,6 +41,7 @@
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
@@ -55,8 +56,13 @@
 import java.util.TimeZone;
 import java.util.Vector;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipOutputStream;
 
+import javax.annotation.Priority;
 import javax.inject.Provider;
 import javax.mail.Message;
 import javax.mail.Session;
@@ -78,6 +84,7 @@
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.commons.lang3.reflect.FieldUtils;
@@ -102,6 +109,7 @@
 import org.xwiki.bridge.event.WikiDeletedEvent;
 import org.xwiki.cache.Cache;
 import org.xwiki.classloader.ClassLoaderManager;
+import org.xwiki.component.descriptor.ComponentDescriptor;
 import org.xwiki.component.event.ComponentDescriptorAddedEvent;
 import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.component.manager.ComponentManager;
@@ -110,6 +118,9 @@
 import org.xwiki.configuration.ConfigurationSource;
 import org.xwiki.container.servlet.HttpServletUtils;
 import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextException;
+import org.xwiki.context.ExecutionContextManager;
 import org.xwiki.edit.EditConfiguration;
 import org.xwiki.extension.job.internal.InstallJob;
 import org.xwiki.extension.job.internal.UninstallJob;
@@ -215,6 +226,7 @@
 import com.xpn.xwiki.internal.event.XObjectPropertyDeletedEvent;
 import com.xpn.xwiki.internal.event.XObjectPropertyEvent;
 import com.xpn.xwiki.internal.event.XObjectPropertyUpdatedEvent;
+import com.xpn.xwiki.internal.mandatory.MandatoryDocumentsFingerprints;
 import com.xpn.xwiki.internal.mandatory.XWikiPreferencesDocumentInitializer;
 import com.xpn.xwiki.internal.render.OldRendering;
 import com.xpn.xwiki.internal.render.groovy.ParseGroovyFromString;
@@ -1416,21 +1428,183 @@ public void initializeMandatoryDocuments(XWikiContext context)
 
             getObservationManager().notify(MandatoryDocumentsInitializingEvent.EVENT, null);
 
-            getProgress().pushLevelProgress(initializers.size(), this);
+            if (getConfiguration().getProperty("xwiki.mandatoryDocuments.skipUnchanged", false)) {
+                MandatoryDocumentsFingerprints fingerprints =
+                    Utils.getComponent(MandatoryDocumentsFingerprints.class);
+                String wiki = context.getWikiId();
+                String fingerprint = computeMandatoryDocumentsFingerprint(fingerprints, initializers, context);
+                if (fingerprint != null && fingerprint.equals(fingerprints.get(wiki))) {
+                    LOGGER.debug("Skipped the initialization of the mandatory documents of wiki [{}]: nothing changed"
+                        + " since the last one.", wiki);
+                } else if (initializeMandatoryDocuments(initializers, context)) {
+                    // Remember the state of the wiki after the initialization
+                    fingerprints.set(wiki, computeMandatoryDocumentsFingerprint(fingerprints, initializers, context));
+                }
+            } else {
+                initializeMandatoryDocuments(initializers, context);
+            }
+
+            getObservationManager().notify(MandatoryDocumentsInitializedEvent.EVENT, null);
+        }
+    }
+
+    private String computeMandatoryDocumentsFingerprint(MandatoryDocumentsFingerprints fingerprints,
+        List<MandatoryDocumentInitializer> initializers, XWikiContext context)
+    {
+        try {
+            return fingerprints.compute(initializers, context);
+        } catch (QueryException e) {
+            LOGGER.warn("Failed to compute the fingerprint of the mandatory documents of wiki [{}]: {}",
+                context.getWikiId(), ExceptionUtils.getRootCauseMessage(e));
+
+            return null;
+        }
+    }
+
+    private boolean initializeMandatoryDocuments(List<MandatoryDocumentInitializer> initializers,
+        XWikiContext context)
+    {
+        int threads = getConfiguration().getProperty("xwiki.mandatoryDocuments.threads", 1);
+        if (threads > 1) {
+            return initializeMandatoryDocumentsInParallel(initializers, threads, context);
+        }
+
+        boolean success = true;
+
+        getProgress().pushLevelProgress(initializers.size(), this);
+
+        try {
+            for (MandatoryDocumentInitializer initializer : initializers) {
+                getProgress().startStep(this);
+
+                if (!initializeMandatoryDocument(initializer, context)) {
+                    success = false;
+                }
+
+                getProgress().endStep(this);
+            }
+        } finally {
+            getProgress().popLevelProgress(this);
+        }
+
+        return success;
+    }
+
+    private boolean initializeMandatoryDocumentsInParallel(List<MandatoryDocumentInitializer> initializers,
+        int threads, XWikiContext context)
+    {
+        // The initializers are sorted by priority and an initializer can rely on the documents initialized by the ones
+        // with a higher priority (e.g. the document holding the class of the object it adds), so only the initializers
+        // with the same priority are executed in parallel. The initializers of a same document are executed
+        // sequentially by the same thread.
+        List<Map<DocumentReference, List<MandatoryDocumentInitializer>>> levels = new ArrayList<>();
+        Map<DocumentReference, List<MandatoryDocumentInitializer>> initializersByDocument = null;
+        int levelPriority = 0;
+        int steps = 0;
+        for (MandatoryDocumentInitializer initializer : initializers) {
+            int priority = getPriority(initializer);
+            if (initializersByDocument == null || priority != levelPriority) {
+                initializersByDocument = new LinkedHashMap<>();
+                levels.add(initializersByDocument);
+                levelPriority = priority;
+            }
+
+            List<MandatoryDocumentInitializer> documentInitializers = initializersByDocument.computeIfAbsent(
+                getCurrentReferenceDocumentReferenceResolver().resolve(initializer.getDocumentReference()),
+                key -> new ArrayList<>());
+            if (documentInitializers.isEmpty()) {
+                steps++;
+            }
+            documentInitializers.add(initializer);
+        }
+
+        String wiki = context.getWikiId();
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+            new BasicThreadFactory.Builder().namingPattern("Mandatory documents initializer %d").daemon(true).build());
+
+        boolean success = true;
+
+        getProgress().pushLevelProgress(steps, this);
+
+        try {
+            for (Map<DocumentReference, List<MandatoryDocumentInitializer>> level : levels) {
+                // Wait for the whole level to be initialized before moving to the next one
+                if (!initializeMandatoryDocumentsLevel(level.values(), executor, wiki)) {
+                    success = false;
+                }
+            }
+        } catch (InterruptedException e) {
+            LOGGER.warn("The initialization of the mandatory documents of wiki [{}] was interrupted", wiki);
+
+            Thread.currentThread().interrupt();
+
+            success = false;
+        } finally {
+            executor.shutdownNow();
+
+            getProgress().popLevelProgress(this);
+        }
+
+        return success;
+    }
+
+    private boolean initializeMandatoryDocumentsLevel(Collection<List<MandatoryDocumentInitializer>> level,
+        ExecutorService executor, String wiki) throws InterruptedException
+    {
+        boolean success = true;
+
+        List<Future<Boolean>> futures = new ArrayList<>(level.size());
+        for (List<MandatoryDocumentInitializer> documentInitializers : level) {
+            futures.add(executor.submit(() -> initializeMandatoryDocuments(wiki, documentInitializers)));
+        }
+
+        for (Future<Boolean> future : futures) {
+            getProgress().startStep(this);
 
             try {
-                for (MandatoryDocumentInitializer initializer : initializers) {
-                    getProgress().startStep(this);
+                if (!future.get()) {
+                    success = false;
+                }
+            } catch (ExecutionException e) {
+                LOGGER.error("Failed to initialize mandatory documents of wiki [{}]", wiki, e.getCause());
+
+                success = false;
+            }
+
+            getProgress().endStep(this);
+        }
+
+        return success;
+    }
+
+    private int getPriority(MandatoryDocumentInitializer initializer)
+    {
+        // Same priority as the one used by the component manager to sort the initializers
+        Priority priority = initializer.getClass().getAnnotation(Priority.class);
+
+        return priority != null ? priority.value() : ComponentDescriptor.DEFAULT_PRIORITY;
+    }
+
+    private boolean initializeMandatoryDocuments(String wiki, List<MandatoryDocumentInitializer> initializers)
+        throws ExecutionContextException
+    {
+        // Each thread needs its own execution context (and thus its own XWiki context and store session)
+        Utils.getComponent(ExecutionContextManager.class).initialize(new ExecutionContext());
 
-                    initializeMandatoryDocument(initializer, context);
+        try {
+            XWikiContext xcontext = getXWikiContext();
+            xcontext.setWikiId(wiki);
 
-                    getProgress().endStep(this);
+            boolean success = true;
+            for (MandatoryDocumentInitializer initializer : initializers) {
+                if (!initializeMandatoryDocument(initializer, xcontext)) {
+                    success = false;
                 }
-            } finally {
-                getProgress().popLevelProgress(this);
             }
 
-            getObservationManager().notify(MandatoryDocumentsInitializedEvent.EVENT, null);
+            return success;
+        } finally {
+            Utils.getComponent(Execution.class).removeContext();
         }
     }
 
@@ -1448,7 +1622,7 @@ private void initializeMandatoryDocument(String wiki, MandatoryDocumentInitializ
         }
     }
 
-    private void initializeMandatoryDocument(MandatoryDocumentInitializer initializer, XWikiContext context)
+    private boolean initializeMandatoryDocument(MandatoryDocumentInitializer initializer, XWikiContext context)
     {
         try {
             DocumentReference documentReference =
@@ -1462,8 +1636,12 @@ private void initializeMandatoryDocument(MandatoryDocumentInitializer initialize
                         localizePlainOrKey("core.model.xclass.mandatoryUpdateProperty.versionSummary"), context);
                 }
             }
+
+            return true;
         } catch (XWikiException e) {
             LOGGER.error("Failed to initialize mandatory document [{}]", initializer.getDocumentReference(), e);
+
+            return false;
         }
     }
 
@@ -2257,6 +2435,33 @@ public XWikiDocument getDocument(DocumentReference reference, XWikiContext conte
         return getDocument(doc, context);
     }
 
+    /**
+     * Load several documents at once, using as few round trips to the database as possible for the ones which are not
+     * already in the cache.
+     *
+     * @param references the references of the documents, including the locale for translations
+     * @param context see {@link XWikiContext}
+     * @return the documents, in the same order as the passed references
+     * @throws XWikiException when failing to load the documents
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    public List<XWikiDocument> getDocuments(Collection<DocumentReference> references, XWikiContext context)
+        throws XWikiException
+    {
+        try {
+            // Indicate to the async context the manipulated documents
+            for (DocumentReference reference : references) {
+                getAsyncContext().useEntity(reference);
+            }
+        } catch (Exception e) {
+            // If the AsyncContext component does not work then we are not in an asynchronous context anyway
+            LOGGER.debug("Failed to register the documents in the asynchronous context", e);
+        }
+
+        return getStore().loadXWikiDocs(references, context);
+    }
+
     /**
      * @param reference the reference of the page
      * @param context see {@link XWikiContext}
@@ -1368,33 +1368,27 @@ private String display(Syntax targetSyntax, boolean executionContextIsolated, bo
             getProgress().startStep(getDocumentReference(), "document.progress.render.cache",
                 "Try to get content from the cache");
 
-            String renderedContent = getRenderingCache().getRenderedContent(tdoc.getDocumentReferenceWithLocale(),
-                translatedContent, xcontext);
-
-            if (renderedContent == null) {
-                getProgress().startStep(getDocumentReference(), "document.progress.render.execute", "Execute content");
-
-                // Configure display
-                DocumentDisplayerParameters parameters = new DocumentDisplayerParameters();
-                parameters.setExecutionContextIsolated(executionContextIsolated);
-                parameters.setTransformationContextIsolated(transformationContextIsolated);
-                // Don't consider isRestricted() here as this could invoke a sheet.
-                parameters.setTransformationContextRestricted(transformationContextRestricted);
-                // Render the translated content (matching the current language) using this document's syntax.
-                parameters.setContentTranslated(tdoc != this);
-                parameters.setTargetSyntax(targetSyntax);
-
-                // Execute display
-                XDOM contentXDOM = getDocumentDisplayer().display(this, parameters);
-
-                // Render the result
-                renderedContent = renderXDOM(contentXDOM, targetSyntax);
-
-                getRenderingCache().setRenderedContent(getDocumentReference(), translatedContent, renderedContent,
-                    xcontext);
-            }
-
-            return renderedContent;
+            return getRenderingCache().getRenderedContent(tdoc.getDocumentReferenceWithLocale(), translatedContent,
+                xcontext, () -> {
+                    getProgress().startStep(getDocumentReference(), "document.progress.render.execute",
+                        "Execute content");
+
+                    // Configure display
+                    DocumentDisplayerParameters parameters = new DocumentDisplayerParameters();
+                    parameters.setExecutionContextIsolated(executionContextIsolated);
+                    parameters.setTransformationContextIsolated(transformationContextIsolated);
+                    // Don't consider isRestricted() here as this could invoke a sheet.
+                    parameters.setTransformationContextRestricted(transformationContextRestricted);
+                    // Render the translated content (matching the current language) using this document's syntax.
+                    parameters.setContentTranslated(tdoc != this);
+                    parameters.setTargetSyntax(targetSyntax);
+
+                    // Execute display
+                    XDOM contentXDOM = getDocumentDisplayer().display(this, parameters);
+
+                    // Render the result
+                    return renderXDOM(contentXDOM, targetSyntax);
+                });
         } finally {
             getProgress().popLevelProgress(getDocumentReference());
             getProgress().endStep(this);
@@ -2740,7 +2734,7 @@ public List<String> getRevisions(RevisionCriteria criteria, XWikiContext context
 
     public XWikiRCSNodeInfo getRevisionInfo(String version, XWikiContext context) throws XWikiException
     {
-        return getDocumentArchive(context).getNode(new Version(version));
+        return getVersioningStore(context).getXWikiDocRevisionInfo(this, new Version(version), context);
     }
 
     /**
@@ -5740,7 +5734,7 @@ private Set<EntityReference> getUniqueLinkedEntityReferences(XWikiContext contex
                 references = new LinkedHashSet<>();
 
                 // Document content
-                XDOM dom = getXDOM();
+                XDOM dom = getReadOnlyXDOM();
                 getUniqueLinkedEntityReferences(dom, entityTypes, references);
 
                 // XObjects
@@ -6095,7 +6089,7 @@ private List<String> getIncludedPagesInternal(XWikiContext context)
             return getIncludedPagesForXWiki10Syntax(getContent(), context);
         } else {
             // Find all include macros listed on the page
-            XDOM dom = getXDOM();
+            XDOM dom = getReadOnlyXDOM();
 
             List<String> result = new ArrayList<String>();
             List<MacroBlock> macroBlocks =
@@ -7489,7 +7483,7 @@ private String getDefaultEditModeInternal(XWikiContext context) throws XWikiExce
             // Find all include macros and extract the document names
             // TODO: Is there a good way not to hardcode the macro name? The macro itself shouldn't know
             // its own name since it's a deployment time concern.
-            for (Block macroBlock : getXDOM().getBlocks(new MacroBlockMatcher("include"), Axes.CHILD)) {
+            for (Block macroBlock : getReadOnlyXDOM().getBlocks(new MacroBlockMatcher("include"), Axes.CHILD)) {
                 // Find the document reference to include by checking the macro's "reference" parameter.
                 // For backward-compatibility we also check for a "document" parameter since this is the parameter name
                 // that was used prior to XWiki 3.4M1 when the "reference" one was introduced and thus when the
@@ -8969,11 +8963,28 @@ private XDOM parseContentNoException()
     @Override
     public XDOM getXDOM()
     {
-        if (this.xdomCache == null) {
-            this.xdomCache = parseContentNoException();
+        return getReadOnlyXDOM().clone();
+    }
+
+    /**
+     * Same as {@link #getXDOM()} but without the copy: the returned XDOM is the one cached by the document and shared
+     * with all the threads accessing this document instance. It's meant for code which only traverses the content
+     * (link extraction, indexing, etc.) and must not be modified in any way, including adding the returned blocks to
+     * another block or passing them to a transformation. Use {@link #getXDOM()} to get a copy which can be modified.
+     *
+     * @return the XDOM corresponding to the document's string content, which must not be modified
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    public XDOM getReadOnlyXDOM()
+    {
+        XDOM xdom = this.xdomCache;
+        if (xdom == null) {
+            xdom = parseContentNoException();
+            this.xdomCache = xdom;
         }
 
-        return this.xdomCache.clone();
+        return xdom;
     }
 
     @Override
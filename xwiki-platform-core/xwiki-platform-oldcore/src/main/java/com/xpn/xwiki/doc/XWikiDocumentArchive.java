@@ -50,6 +50,9 @@
  */
 public class XWikiDocumentArchive
 {
+    /** Default number of nodes between two full versions. */
+    private static final int DEFAULT_NODES_PER_FULL = 5;
+
     private final WikiReference wikiReference;
 
     /** =docId. */
@@ -154,10 +157,10 @@ protected XWikiRCSNodeContent makePatch(XWikiRCSNodeInfo newnode, XWikiDocument
         newnode.setContent(result);
         XWikiRCSNodeInfo latestNode = getLatestNode();
         if (latestNode != null) {
-            int nodesCount = getNodes().size();
-            int nodesPerFull = context.getWiki() == null ? 5
-                : Integer.parseInt(context.getWiki().getConfig().getProperty("xwiki.store.rcs.nodesPerFull", "5"));
-            if (nodesPerFull <= 0 || (nodesCount % nodesPerFull) != 0) {
+            int nodesPerFull = getNodesPerFull(context);
+            // Keep the previous full version if it's too far from the previous checkpoint (counting in diffs and not
+            // in number of nodes so that removed or imported versions don't break the periodicity)
+            if (nodesPerFull <= 0 || countPreviousDiffs(latestNode.getVersion(), nodesPerFull) < nodesPerFull - 1) {
                 XWikiRCSNodeContent latestContent = latestNode.getContent(context);
                 latestContent.getPatch().setDiffVersion(latestContent.getPatch().getContent(), doc, context);
                 latestNode.setContent(latestContent);
@@ -168,6 +171,78 @@ protected XWikiRCSNodeContent makePatch(XWikiRCSNodeInfo newnode, XWikiDocument
         return result;
     }
 
+    /**
+     * @param context used to access the configuration
+     * @return the maximum number of nodes between two full versions, 0 or less if only the latest version is full
+     */
+    private int getNodesPerFull(XWikiContext context)
+    {
+        return context.getWiki() == null ? DEFAULT_NODES_PER_FULL : Integer.parseInt(context.getWiki().getConfig()
+            .getProperty("xwiki.store.rcs.nodesPerFull", String.valueOf(DEFAULT_NODES_PER_FULL)));
+    }
+
+    /**
+     * @param version the version from which to count
+     * @param limit the number after which to stop counting
+     * @return the number of consecutive diff nodes located right before the passed version
+     */
+    private int countPreviousDiffs(Version version, int limit)
+    {
+        int count = 0;
+
+        // tailMap is inclusive and ordered from the most recent to the oldest version
+        Iterator<XWikiRCSNodeInfo> it = this.versionToNode.tailMap(version).values().iterator();
+        it.next();
+        while (count < limit && it.hasNext() && it.next().isDiff()) {
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Store the full content of the versions located too far from the next full version (see
+     * {@code xwiki.store.rcs.nodesPerFull}), so that any version can be restored by applying a bounded number of
+     * patches. This is mostly useful for archives which were imported or created before this limit was enforced. The
+     * modified nodes are added to {@link #getUpdatedNodeContents()} and still need to be saved.
+     *
+     * @param context used for loading the nodes content and accessing the configuration
+     * @return {@code true} if the archive was modified
+     * @throws XWikiException if any error
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    public boolean addCheckpoints(XWikiContext context) throws XWikiException
+    {
+        int nodesPerFull = getNodesPerFull(context);
+        if (nodesPerFull <= 0) {
+            return false;
+        }
+
+        boolean modified = false;
+
+        // Rebuild each version from the most recent one, keeping only the content of the current version in memory
+        List<String> text = new ArrayList<>();
+        int diffs = 0;
+        for (XWikiRCSNodeInfo node : getNodes()) {
+            XWikiRCSNodeContent content = node.getContent(context);
+            content.getPatch().patch(text);
+
+            if (!node.isDiff()) {
+                diffs = 0;
+            } else if (++diffs >= nodesPerFull) {
+                content.getPatch().setFullVersion(ToString.arrayToString(text.toArray()));
+                node.setContent(content);
+                updateNode(node);
+                getUpdatedNodeContents().add(content);
+                diffs = 0;
+                modified = true;
+            }
+        }
+
+        return modified;
+    }
+
     /**
      * @return the wikiReference the wiki of the document
      * @since 13.10.7
@@ -21,8 +21,9 @@
 
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.inject.Inject;
 
@@ -33,6 +34,10 @@
 import org.xwiki.cache.CacheException;
 import org.xwiki.cache.CacheManager;
 import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.cache.event.CacheEntryEvent;
+import org.xwiki.cache.event.CacheEntryListener;
+import org.xwiki.cache.eviction.EntryEvictionConfiguration;
+import org.xwiki.cache.eviction.LRUEvictionConfiguration;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.annotation.InstantiationStrategy;
 import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
@@ -45,9 +50,8 @@
 import com.xpn.xwiki.doc.XWikiDocument;
 
 /**
- * Specialized cache component related to documents. It automatically clean the cache when the document is related.
- * <p>
- * TODO: add support for dependencies
+ * Specialized cache component related to documents. It automatically clean the cache when the document, or one of the
+ * documents the cached data depends on, is modified.
  *
  * @param <C> the type of the data stored in the cache
  * @version $Id$
@@ -63,6 +67,12 @@
     private static final List<Event> EVENTS = Arrays.<Event>asList(new DocumentCreatedEvent(),
         new DocumentUpdatedEvent(), new DocumentDeletedEvent());
 
+    /**
+     * The number of document mappings allowed for each cache entry. A cached entry usually depends on several
+     * documents, so the mapping cache needs to be larger than the entry cache.
+     */
+    private static final int MAPPING_CAPACITY_RATIO = 10;
+
     /**
      * Used to listen to document modification events.
      *
@@ -90,6 +100,39 @@ public void onEvent(Event event, Object source, Object data)
         }
     }
 
+    /**
+     * Remove the cache entries associated to a mapping which is evicted or expires, since nothing would invalidate them
+     * anymore when the corresponding document is modified.
+     *
+     * @version $Id$
+     */
+    private class MappingListener implements CacheEntryListener<Collection<String>>
+    {
+        @Override
+        public void cacheEntryAdded(CacheEntryEvent<Collection<String>> event)
+        {
+            // Nothing to do
+        }
+
+        @Override
+        public void cacheEntryRemoved(CacheEntryEvent<Collection<String>> event)
+        {
+            Collection<String> keys = event.getEntry().getValue();
+
+            if (keys != null) {
+                for (String key : keys) {
+                    DefaultDocumentCache.this.cache.remove(key);
+                }
+            }
+        }
+
+        @Override
+        public void cacheEntryModified(CacheEntryEvent<Collection<String>> event)
+        {
+            // Nothing to do
+        }
+    }
+
     /**
      * The listener used to listen to document modification events.
      */
@@ -123,6 +166,11 @@ public void onEvent(Event event, Object source, Object data)
      */
     private Cache<Collection<String>> mappingCache;
 
+    /**
+     * Used to update the mappings atomically.
+     */
+    private final Object mappingLock = new Object();
+
     /**
      * The identifier of the cache and event listener.
      */
@@ -135,12 +183,36 @@ public void create(CacheConfiguration cacheConfiguration) throws CacheException
 
         this.cache = this.cacheManager.createNewCache(cacheConfiguration);
 
+        this.mappingCache = this.cacheManager.createNewCache(createMappingCacheConfiguration(cacheConfiguration));
+        this.mappingCache.addCacheEntryListener(new MappingListener());
+
+        this.observationManager.addListener(this.listener, EventListener.CACHE_INVALIDATION_DEFAULT_PRIORITY);
+    }
+
+    /**
+     * @param cacheConfiguration the configuration of the entry cache
+     * @return the configuration of the cache used to follow the entries related to each document
+     */
+    private CacheConfiguration createMappingCacheConfiguration(CacheConfiguration cacheConfiguration)
+    {
         CacheConfiguration mappingCacheConfiguration = (CacheConfiguration) cacheConfiguration.clone();
         mappingCacheConfiguration.setConfigurationId(cacheConfiguration.getConfigurationId() + ".mapping");
 
-        this.mappingCache = this.cacheManager.createNewCache(mappingCacheConfiguration);
+        // The clone is shallow so the eviction configuration must be replaced instead of modified. A mapping is not
+        // accessed when the entry is read so it should not expire because of inactivity.
+        Object eviction = cacheConfiguration.get(EntryEvictionConfiguration.CONFIGURATIONID);
+        if (eviction instanceof LRUEvictionConfiguration) {
+            LRUEvictionConfiguration lru = (LRUEvictionConfiguration) eviction;
+            LRUEvictionConfiguration mappingLRU = new LRUEvictionConfiguration();
+            if (lru.getMaxEntries() > 0) {
+                mappingLRU.setMaxEntries(
+                    (int) Math.min(Integer.MAX_VALUE, (long) lru.getMaxEntries() * MAPPING_CAPACITY_RATIO));
+            }
+            mappingLRU.setLifespan(lru.getLifespan());
+            mappingCacheConfiguration.put(EntryEvictionConfiguration.CONFIGURATIONID, mappingLRU);
+        }
 
-        this.observationManager.addListener(this.listener, EventListener.CACHE_INVALIDATION_DEFAULT_PRIORITY);
+        return mappingCacheConfiguration;
     }
 
     // cache
@@ -153,20 +225,45 @@ public C get(DocumentReference documentReference, Object... extensions)
 
     @Override
     public void set(C data, DocumentReference documentReference, Object... extensions)
+    {
+        set(data, Collections.emptyList(), documentReference, extensions);
+    }
+
+    @Override
+    public void set(C data, Collection<DocumentReference> dependencies, DocumentReference documentReference,
+        Object... extensions)
     {
         String key = getKey(documentReference, extensions);
         this.cache.set(key, data);
 
+        addMapping(documentReference, key);
+        for (DocumentReference dependency : dependencies) {
+            addMapping(dependency, key);
+        }
+    }
+
+    /**
+     * Remember that the provided cache entry has to be removed when the provided document is modified.
+     *
+     * @param documentReference the reference of the document
+     * @param key the key of the cache entry
+     */
+    private void addMapping(DocumentReference documentReference, String key)
+    {
         String documentReferenceString = this.serializer.serialize(documentReference);
 
-        Collection<String> keys = this.mappingCache.get(documentReferenceString);
+        // The same document can be a dependency of entries set concurrently, and the mapping can be removed at the same
+        // time by a modification of the document
+        synchronized (this.mappingLock) {
+            Collection<String> keys = this.mappingCache.get(documentReferenceString);
 
-        if (keys == null) {
-            keys = new HashSet<String>();
-            this.mappingCache.set(documentReferenceString, keys);
-        }
+            if (keys == null) {
+                keys = ConcurrentHashMap.newKeySet();
+                this.mappingCache.set(documentReferenceString, keys);
+            }
 
-        keys.add(key);
+            keys.add(key);
+        }
     }
 
     /**
@@ -235,14 +332,16 @@ public void removeAll(DocumentReference documentReference)
     {
         String documentReferenceString = this.serializer.serialize(documentReference);
 
-        Collection<String> keys = this.mappingCache.get(documentReferenceString);
+        synchronized (this.mappingLock) {
+            Collection<String> keys = this.mappingCache.get(documentReferenceString);
 
-        if (keys != null) {
-            for (String key : keys) {
-                this.cache.remove(key);
-            }
+            if (keys != null) {
+                for (String key : keys) {
+                    this.cache.remove(key);
+                }
 
-            this.mappingCache.remove(documentReferenceString);
+                this.mappingCache.remove(documentReferenceString);
+            }
         }
     }
 
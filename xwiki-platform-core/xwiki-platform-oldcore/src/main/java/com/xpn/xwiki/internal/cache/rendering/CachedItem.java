@@ -19,10 +19,13 @@
  */
 package com.xpn.xwiki.internal.cache.rendering;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
+import org.xwiki.model.reference.DocumentReference;
+
 /**
  * Cached item including any extensions.
  *
@@ -42,6 +45,13 @@
     public Map<RenderingCacheAware, UsedExtension> extensions = new HashMap<RenderingCacheAware,
         CachedItem.UsedExtension>();
 
+    /**
+     * The references of the documents manipulated during the rendering.
+     *
+     * @since 16.7.0RC1
+     */
+    public Set<DocumentReference> dependencies = Collections.emptySet();
+
     /**
      * Extension used in cached item.
      *
@@ -20,10 +20,16 @@
 package com.xpn.xwiki.internal.cache.rendering;
 
 import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Type;
 import java.net.URLEncoder;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
@@ -31,13 +37,23 @@
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.function.FailableSupplier;
+import org.slf4j.Logger;
 import org.xwiki.cache.CacheException;
 import org.xwiki.cache.config.CacheConfiguration;
 import org.xwiki.cache.eviction.LRUEvictionConfiguration;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.component.descriptor.ComponentRole;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
+import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.rendering.async.AsyncContext;
+import org.xwiki.rendering.async.internal.DefaultAsyncContext;
+import org.xwiki.rendering.async.internal.DefaultAsyncContext.ContextUse;
+import org.xwiki.rendering.async.internal.DefaultAsyncContext.RightEntry;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.internal.cache.DocumentCache;
@@ -47,6 +63,9 @@
 
 /**
  * Default implementation of {@link RenderingCache}.
+ * <p>
+ * The cache entries are identified by a hash of the rendered source, and are removed when one of the documents
+ * manipulated during the rendering (as reported to {@link AsyncContext#useEntity(EntityReference)}) is modified.
  *
  * @version $Id$
  * @since 2.4M1
@@ -93,6 +112,15 @@ public class DefaultRenderingCache implements RenderingCache, Initializable
     @Inject
     private DocumentCache<CachedItem> cache;
 
+    /**
+     * Used to collect the documents manipulated during the rendering.
+     */
+    @Inject
+    private AsyncContext asyncContext;
+
+    @Inject
+    private Logger logger;
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -124,7 +152,7 @@ public String getRenderedContent(DocumentReference documentReference, String sou
 
             if (!"1".equals(refresh)) {
                 CachedItem cachedItem =
-                    this.cache.get(documentReference, source, getAction(context), context.getLanguage(),
+                    this.cache.get(documentReference, getSourceKey(source), getAction(context), context.getLanguage(),
                         getRequestParameters(context));
                 if (cachedItem != null) {
                     renderedContent = restoreCachedItem(context, cachedItem);
@@ -138,13 +166,123 @@ public String getRenderedContent(DocumentReference documentReference, String sou
     @Override
     public void setRenderedContent(DocumentReference documentReference, String source, String renderedContent,
         XWikiContext context)
+    {
+        setRenderedContent(documentReference, source, renderedContent, Collections.emptySet(), context);
+    }
+
+    @Override
+    public <E extends Exception> String getRenderedContent(DocumentReference documentReference, String source,
+        XWikiContext context, FailableSupplier<String, E> renderer) throws E
+    {
+        if (!this.configuration.isCached(documentReference)) {
+            return renderer.get();
+        }
+
+        String renderedContent = getRenderedContent(documentReference, source, context);
+
+        if (renderedContent == null) {
+            ContextUse contextUse = null;
+            if (this.asyncContext instanceof DefaultAsyncContext) {
+                ((DefaultAsyncContext) this.asyncContext).pushContextUse();
+            }
+            try {
+                renderedContent = renderer.get();
+            } finally {
+                if (this.asyncContext instanceof DefaultAsyncContext) {
+                    contextUse = ((DefaultAsyncContext) this.asyncContext).popContextUse();
+                }
+            }
+
+            if (contextUse != null) {
+                // The enclosing execution (rendering cache, async renderer, etc.) depends on the same things
+                propagateContextUse(contextUse);
+
+                if (renderedContent != null) {
+                    setRenderedContent(documentReference, source, renderedContent, getDependencies(contextUse),
+                        context);
+                }
+            }
+        }
+
+        return renderedContent;
+    }
+
+    private void setRenderedContent(DocumentReference documentReference, String source, String renderedContent,
+        Set<DocumentReference> dependencies, XWikiContext context)
     {
         if (this.configuration.isCached(documentReference)) {
-            this.cache.set(buildCachedItem(context, renderedContent), documentReference, source, getAction(context),
+            int maxEntrySize = this.configuration.getMaxEntrySize();
+            if (maxEntrySize >= 0 && renderedContent.length() > maxEntrySize) {
+                this.logger.debug("Rendering result of document [{}] is too large to be cached ([{}] characters)",
+                    documentReference, renderedContent.length());
+
+                return;
+            }
+
+            CachedItem cachedItem = buildCachedItem(context, renderedContent);
+            cachedItem.dependencies = dependencies;
+
+            this.cache.set(cachedItem, dependencies, documentReference, getSourceKey(source), getAction(context),
                 context.getLanguage(), getRequestParameters(context));
         }
     }
 
+    /**
+     * @param source the source to render
+     * @return the part of the cache key identifying the source
+     */
+    private String getSourceKey(String source)
+    {
+        // Avoid keeping the whole source in memory, in the key of each entry
+        return source != null ? DigestUtils.sha256Hex(source) : null;
+    }
+
+    /**
+     * @param contextUse what was manipulated during the rendering
+     * @return the references of the documents manipulated during the rendering
+     */
+    private Set<DocumentReference> getDependencies(ContextUse contextUse)
+    {
+        Set<DocumentReference> dependencies = new HashSet<>();
+
+        for (EntityReference reference : contextUse.getReferences()) {
+            // Objects, properties and attachments are modified with their document
+            EntityReference documentReference = reference.extractReference(EntityType.DOCUMENT);
+            if (documentReference != null) {
+                dependencies.add(new DocumentReference(documentReference, (Locale) null));
+            }
+        }
+
+        return dependencies;
+    }
+
+    /**
+     * Report to the enclosing execution what was manipulated during the rendering.
+     *
+     * @param contextUse what was manipulated during the rendering
+     */
+    private void propagateContextUse(ContextUse contextUse)
+    {
+        for (EntityReference reference : contextUse.getReferences()) {
+            this.asyncContext.useEntity(reference);
+        }
+        for (Type roleType : contextUse.getRoleTypes()) {
+            this.asyncContext.useComponent(roleType);
+        }
+        for (ComponentRole<?> role : contextUse.getRoles()) {
+            this.asyncContext.useComponent(role.getRoleType(), role.getRoleHint());
+        }
+        for (RightEntry right : contextUse.getRights()) {
+            this.asyncContext.useRight(right.getRight(), right.getUserReference(), right.getEntityReference(),
+                right.isAllowed());
+        }
+        for (Map.Entry<String, Collection<Object>> use : contextUse.getUses().entrySet()) {
+            for (Object value : use.getValue()) {
+                this.asyncContext.use(use.getKey(), value);
+            }
+        }
+    }
+
     /**
      * Create cached item with all dependencies.
      *
@@ -194,6 +332,11 @@ private String restoreCachedItem(XWikiContext context, CachedItem cachedItem)
             item.getKey().restoreCacheResources(context, item.getValue());
         }
 
+        // The enclosing execution depends on the same documents as the cached rendering
+        for (DocumentReference dependency : cachedItem.dependencies) {
+            this.asyncContext.useEntity(dependency);
+        }
+
         return cachedItem.rendered;
     }
 
@@ -78,6 +78,16 @@ public class DefaultRenderingCacheConfiguration implements RenderingCacheConfigu
      */
     private static final int PROPVALUE_SIZE = 100;
 
+    /**
+     * Name of the property indicating the maximum length of a cached rendering result.
+     */
+    private static final String PROPNAME_MAXENTRYSIZE = PREFIX + "maxentrysize";
+
+    /**
+     * The default maximum length of a cached rendering result.
+     */
+    private static final int PROPVALUE_MAXENTRYSIZE = 1000000;
+
     /**
      * xwiki.properties file configurations.
      */
@@ -150,6 +160,12 @@ public int getSize()
         return this.farmConfiguration.getProperty(PROPNAME_SIZE, PROPVALUE_SIZE);
     }
 
+    @Override
+    public int getMaxEntrySize()
+    {
+        return this.farmConfiguration.getProperty(PROPNAME_MAXENTRYSIZE, PROPVALUE_MAXENTRYSIZE);
+    }
+
     @Override
     public boolean isCached(DocumentReference documentReference)
     {
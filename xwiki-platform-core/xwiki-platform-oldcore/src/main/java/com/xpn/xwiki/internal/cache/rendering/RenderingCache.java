@@ -19,6 +19,7 @@
  */
 package com.xpn.xwiki.internal.cache.rendering;
 
+import org.apache.commons.lang3.function.FailableSupplier;
 import org.xwiki.component.annotation.Role;
 import org.xwiki.model.reference.DocumentReference;
 
@@ -54,6 +55,36 @@
     void setRenderedContent(DocumentReference documentReference, String source, String renderedContent,
         XWikiContext context);
 
+    /**
+     * Return the stored result of the rendering of the provided source, or execute the rendering and store its result
+     * if the cache is enabled for the provided document. The stored result is also removed from the cache when one of
+     * the documents manipulated during the rendering (included documents, sheets, etc.) is modified.
+     *
+     * @param <E> the type of exception thrown by the renderer
+     * @param documentReference the reference of the document being rendered
+     * @param source the source to render
+     * @param context the XWiki context
+     * @param renderer execute the rendering of the source when the result is not cached
+     * @return the rendering result
+     * @throws E when failing to execute the rendering
+     * @since 16.7.0RC1
+     */
+    default <E extends Exception> String getRenderedContent(DocumentReference documentReference, String source,
+        XWikiContext context, FailableSupplier<String, E> renderer) throws E
+    {
+        String renderedContent = getRenderedContent(documentReference, source, context);
+
+        if (renderedContent == null) {
+            renderedContent = renderer.get();
+
+            if (renderedContent != null) {
+                setRenderedContent(documentReference, source, renderedContent, context);
+            }
+        }
+
+        return renderedContent;
+    }
+
     /**
      * Flushes rendering cache (all cached variants) for specified document.
      *
@@ -46,6 +46,15 @@
      */
     int getSize();
 
+    /**
+     * @return the maximum length of a rendering result to cache, negative for no limit
+     * @since 16.7.0RC1
+     */
+    default int getMaxEntrySize()
+    {
+        return -1;
+    }
+
     /**
      * Indicate if the provided document's rendering result should be cached.
      *
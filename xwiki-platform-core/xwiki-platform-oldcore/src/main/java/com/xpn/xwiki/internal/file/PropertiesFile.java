@@ -0,0 +1,128 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Properties stored in a file, loaded the first time they are needed and written entirely after each modification. The
+ * file is replaced atomically so that a crash while writing it does not lose the previous content.
+ * <p>
+ * Failing to read or write the file is only logged: the properties stored this way are expected to be an optimization
+ * which can be safely lost.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+public class PropertiesFile
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(PropertiesFile.class);
+
+    private final File file;
+
+    private final String description;
+
+    private Properties properties;
+
+    /**
+     * @param file the file in which the properties are stored
+     * @param description the description of the properties, used in the file header and in the logs
+     */
+    public PropertiesFile(File file, String description)
+    {
+        this.file = file;
+        this.description = description;
+    }
+
+    private Properties getProperties()
+    {
+        if (this.properties == null) {
+            this.properties = new Properties();
+
+            if (this.file.exists()) {
+                try (InputStream stream = Files.newInputStream(this.file.toPath())) {
+                    this.properties.load(stream);
+                } catch (IOException e) {
+                    LOGGER.warn("Failed to read the {} from [{}]: {}", this.description, this.file, e.getMessage());
+                }
+            }
+        }
+
+        return this.properties;
+    }
+
+    /**
+     * @param key the key of the property
+     * @return the value of the property, or {@code null} if unknown
+     */
+    public synchronized String get(String key)
+    {
+        return getProperties().getProperty(key);
+    }
+
+    /**
+     * @param key the key of the property
+     * @param value the new value of the property, {@code null} to remove it
+     */
+    public synchronized void set(String key, String value)
+    {
+        if (value != null) {
+            getProperties().setProperty(key, value);
+        } else {
+            getProperties().remove(key);
+        }
+
+        store();
+    }
+
+    /**
+     * Remove all the properties.
+     */
+    public synchronized void clear()
+    {
+        getProperties().clear();
+
+        store();
+    }
+
+    private void store()
+    {
+        try {
+            this.file.getParentFile().mkdirs();
+            File temporaryFile = new File(this.file.getPath() + ".tmp");
+            try (OutputStream stream = Files.newOutputStream(temporaryFile.toPath())) {
+                getProperties().store(stream, this.description);
+            }
+            Files.move(temporaryFile.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write the {} to [{}]: {}", this.description, this.file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.mandatory;
+
+import java.io.File;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.environment.Environment;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.MandatoryDocumentInitializer;
+import com.xpn.xwiki.internal.file.PropertiesFile;
+
+/**
+ * Store, for each wiki, a fingerprint of the mandatory document initializers, of the current version of the mandatory
+ * documents and of the configuration, computed after they were all successfully initialized. When the fingerprint did
+ * not change since then (no initializer was added, removed or upgraded, no mandatory document was modified or deleted
+ * and the configuration files were not modified) the initialization of the wiki can be skipped.
+ * <p>
+ * Some initializers depend on the configuration (e.g. {@code xwiki.preferences.redirect}), and there is no way to
+ * know which properties, so any modification of {@code xwiki.cfg} or {@code xwiki.properties} invalidates the
+ * fingerprints. The wiki level configuration is stored in mandatory documents and is thus already taken into account.
+ * An initializer which depends on anything else (e.g. a non mandatory document) won't be executed again until the
+ * fingerprint changes.
+ * <p>
+ * The fingerprints are stored in the permanent directory. Removing the file is safe: it only means that the mandatory
+ * documents of all the wikis will be checked again.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+@Component(roles = MandatoryDocumentsFingerprints.class)
+@Singleton
+public class MandatoryDocumentsFingerprints
+{
+    private static final String SEPARATOR = "|";
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    @Named("current")
+    private DocumentReferenceResolver<EntityReference> resolver;
+
+    @Inject
+    @Named("local")
+    private EntityReferenceSerializer<String> localSerializer;
+
+    @Inject
+    @Named("xwikicfg")
+    private ConfigurationSource xwikicfg;
+
+    @Inject
+    @Named("xwikiproperties")
+    private ConfigurationSource xwikiproperties;
+
+    private PropertiesFile fingerprints;
+
+    /**
+     * @param initializers the mandatory document initializers
+     * @param xcontext the XWiki context, targeting the wiki to compute the fingerprint of
+     * @return the fingerprint of the passed initializers and of the current version of the mandatory documents they
+     *         are responsible for in the current wiki
+     * @throws QueryException when failing to get the current version of the mandatory documents
+     */
+    public String compute(Collection<MandatoryDocumentInitializer> initializers, XWikiContext xcontext)
+        throws QueryException
+    {
+        String wiki = xcontext.getWikiId();
+
+        List<String> lines = new ArrayList<>();
+        List<String> fullNames = new ArrayList<>();
+        for (MandatoryDocumentInitializer initializer : initializers) {
+            DocumentReference documentReference = this.resolver.resolve(initializer.getDocumentReference());
+            if (documentReference.getWikiReference().getName().equals(wiki)) {
+                String fullName = this.localSerializer.serialize(documentReference);
+                fullNames.add(fullName);
+                lines.add(fullName + SEPARATOR + initializer.getClass().getName() + SEPARATOR
+                    + getVersion(initializer.getClass()));
+            }
+        }
+
+        if (!fullNames.isEmpty()) {
+            List<Object[]> documents = this.queryManager
+                .createQuery("select doc.fullName, doc.language, doc.version from XWikiDocument doc"
+                    + " where doc.fullName in (:fullNames)", Query.HQL)
+                .bindValue("fullNames", fullNames).setWiki(wiki).execute();
+            for (Object[] document : documents) {
+                // Oracle returns null for the empty string.
+                lines.add(document[0] + SEPARATOR + Objects.toString(document[1], "") + SEPARATOR + document[2]);
+            }
+        }
+
+        // The initializers can depend on the configuration
+        lines.add("xwiki.cfg" + SEPARATOR + getFingerprint(this.xwikicfg));
+        lines.add("xwiki.properties" + SEPARATOR + getFingerprint(this.xwikiproperties));
+
+        Collections.sort(lines);
+
+        return DigestUtils.sha256Hex(String.join("\n", lines));
+    }
+
+    private String getFingerprint(ConfigurationSource configuration)
+    {
+        List<String> properties = new ArrayList<>();
+        for (String key : configuration.getKeys()) {
+            properties.add(key + '=' + configuration.getProperty(key));
+        }
+
+        Collections.sort(properties);
+
+        return DigestUtils.sha256Hex(String.join("\n", properties));
+    }
+
+    private String getVersion(Class<?> initializerClass)
+    {
+        Package initializerPackage = initializerClass.getPackage();
+        if (initializerPackage != null && initializerPackage.getImplementationVersion() != null) {
+            return initializerPackage.getImplementationVersion();
+        }
+
+        // Fallback on the location of the class, which usually contains the version of the JAR
+        CodeSource codeSource = initializerClass.getProtectionDomain().getCodeSource();
+
+        return codeSource != null && codeSource.getLocation() != null ? codeSource.getLocation().toString() : "";
+    }
+
+    private PropertiesFile getFingerprints()
+    {
+        if (this.fingerprints == null) {
+            File file = new File(this.environment.getPermanentDirectory(), "cache/mandatory/fingerprints.properties");
+            this.fingerprints = new PropertiesFile(file, "mandatory documents fingerprints");
+        }
+
+        return this.fingerprints;
+    }
+
+    /**
+     * @param wiki the identifier of the wiki
+     * @return the fingerprint stored after the last successful initialization of the mandatory documents of the wiki,
+     *         or {@code null} if unknown
+     */
+    public synchronized String get(String wiki)
+    {
+        return getFingerprints().get(wiki);
+    }
+
+    /**
+     * @param wiki the identifier of the wiki
+     * @param fingerprint the fingerprint computed after a successful initialization of the mandatory documents of the
+     *            wiki, {@code null} to forget it
+     */
+    public synchronized void set(String wiki, String fingerprint)
+    {
+        getFingerprints().set(wiki, fingerprint);
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.observation.remote.converter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.bridge.event.AbstractActionExecutionEvent;
+import org.xwiki.bridge.event.AbstractDocumentEvent;
+import org.xwiki.bridge.event.AbstractWikiEvent;
+import org.xwiki.bridge.event.ActionExecutedEvent;
+import org.xwiki.bridge.event.ActionExecutingEvent;
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.bridge.event.DocumentVersionRangeDeletedEvent;
+import org.xwiki.bridge.event.WikiCreatedEvent;
+import org.xwiki.bridge.event.WikiDeletedEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.localization.LocaleUtils;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.observation.event.CancelableEvent;
+import org.xwiki.observation.event.Event;
+import org.xwiki.observation.event.filter.AlwaysMatchingEventFilter;
+import org.xwiki.observation.event.filter.FixedNameEventFilter;
+import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.observation.remote.codec.RemoteEventDataCodec;
+
+/**
+ * Compact encoding of the remote events produced by {@link DocumentEventConverter}, {@link WikiEventConverter} and
+ * {@link ActionExecutionEventConverter}.
+ * <p>
+ * The event type and the keys of the source and data maps are written as indexes in fixed tables so the tables can
+ * only be extended at the end, and {@link #SCHEMA_VERSION} must be incremented for any other change.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+@Component
+@Singleton
+@Named("xwiki")
+public class XWikiEventDataCodec implements RemoteEventDataCodec
+{
+    private static final byte SCHEMA_VERSION = 1;
+
+    private static final List<Class<? extends Event>> EVENTS = List.of(DocumentCreatedEvent.class,
+        DocumentUpdatedEvent.class, DocumentDeletedEvent.class, DocumentVersionRangeDeletedEvent.class,
+        WikiCreatedEvent.class, WikiDeletedEvent.class, ActionExecutedEvent.class, ActionExecutingEvent.class);
+
+    private static final List<String> KEYS = List.of(AbstractXWikiEventConverter.CONTEXT_WIKI,
+        AbstractXWikiEventConverter.CONTEXT_USER, AbstractXWikiEventConverter.DOC_NAME,
+        AbstractXWikiEventConverter.DOC_VERSION, AbstractXWikiEventConverter.DOC_LANGUAGE,
+        AbstractXWikiEventConverter.ORIGDOC_VERSION, AbstractXWikiEventConverter.ORIGDOC_LANGUAGE);
+
+    private static final byte TYPE_NULL = 0;
+
+    private static final byte TYPE_STRING = 1;
+
+    private static final byte TYPE_DOCUMENT_REFERENCE = 2;
+
+    private static final byte TYPE_MAP = 3;
+
+    @Override
+    public boolean encode(RemoteEventData remoteEvent, DataOutput output) throws IOException
+    {
+        if (!isSupportedEvent(remoteEvent.getEvent()) || !isSupportedValue(remoteEvent.getSource())
+            || !isSupportedValue(remoteEvent.getData())) {
+            return false;
+        }
+
+        output.writeByte(SCHEMA_VERSION);
+        writeEvent(remoteEvent.getEvent(), output);
+        writeValue(remoteEvent.getSource(), output);
+        writeValue(remoteEvent.getData(), output);
+
+        return true;
+    }
+
+    @Override
+    public RemoteEventData decode(DataInput input) throws IOException
+    {
+        byte version = input.readByte();
+        if (version != SCHEMA_VERSION) {
+            throw new IOException(String.format("Unsupported XWiki event schema version [%s]", version));
+        }
+
+        return new RemoteEventData(readEvent(input), readValue(input), readValue(input));
+    }
+
+    private boolean isSupportedEvent(Serializable event)
+    {
+        if (event == null || !EVENTS.contains(event.getClass())) {
+            return false;
+        }
+
+        // The cancel state is not part of the schema
+        if (event instanceof CancelableEvent && ((CancelableEvent) event).isCanceled()) {
+            return false;
+        }
+
+        if (event instanceof AbstractDocumentEvent) {
+            AbstractDocumentEvent documentEvent = (AbstractDocumentEvent) event;
+
+            return documentEvent.getDocumentReference() != null
+                || documentEvent.getEventFilter() instanceof AlwaysMatchingEventFilter;
+        } else if (event instanceof AbstractWikiEvent) {
+            AbstractWikiEvent wikiEvent = (AbstractWikiEvent) event;
+
+            return wikiEvent.getEventFilter() instanceof FixedNameEventFilter
+                || wikiEvent.getEventFilter() instanceof AlwaysMatchingEventFilter;
+        }
+
+        return true;
+    }
+
+    private boolean isSupportedValue(Serializable value)
+    {
+        if (value == null || value instanceof String) {
+            return true;
+        }
+
+        if (value instanceof DocumentReference) {
+            return value.getClass() == DocumentReference.class;
+        }
+
+        if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!KEYS.contains(entry.getKey()) || !(entry.getValue() == null || entry.getValue() instanceof String
+                    || entry.getValue() instanceof DocumentReference)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    private void writeEvent(Serializable event, DataOutput output) throws IOException
+    {
+        output.writeByte(EVENTS.indexOf(event.getClass()));
+
+        if (event instanceof AbstractDocumentEvent) {
+            writeDocumentReference(((AbstractDocumentEvent) event).getDocumentReference(), output);
+
+            if (event instanceof DocumentVersionRangeDeletedEvent) {
+                writeString(((DocumentVersionRangeDeletedEvent) event).getFrom(), output);
+                writeString(((DocumentVersionRangeDeletedEvent) event).getTo(), output);
+            }
+        } else if (event instanceof AbstractWikiEvent) {
+            AbstractWikiEvent wikiEvent = (AbstractWikiEvent) event;
+
+            writeString(wikiEvent.getEventFilter() instanceof FixedNameEventFilter ? wikiEvent.getWikiId() : null,
+                output);
+        } else {
+            writeString(((AbstractActionExecutionEvent) event).getActionName(), output);
+        }
+    }
+
+    private Event readEvent(DataInput input) throws IOException
+    {
+        int index = input.readUnsignedByte();
+        if (index >= EVENTS.size()) {
+            throw new IOException(String.format("Unknown XWiki event type [%s]", index));
+        }
+
+        Class<? extends Event> eventClass = EVENTS.get(index);
+
+        if (AbstractDocumentEvent.class.isAssignableFrom(eventClass)) {
+            return readDocumentEvent(eventClass, readDocumentReference(input), input);
+        } else if (AbstractWikiEvent.class.isAssignableFrom(eventClass)) {
+            String wikiId = readString(input);
+
+            if (eventClass == WikiCreatedEvent.class) {
+                return wikiId != null ? new WikiCreatedEvent(wikiId) : new WikiCreatedEvent();
+            }
+
+            return wikiId != null ? new WikiDeletedEvent(wikiId) : new WikiDeletedEvent();
+        }
+
+        String actionName = readString(input);
+
+        if (eventClass == ActionExecutedEvent.class) {
+            return actionName != null ? new ActionExecutedEvent(actionName) : new ActionExecutedEvent();
+        }
+
+        return actionName != null ? new ActionExecutingEvent(actionName) : new ActionExecutingEvent();
+    }
+
+    private Event readDocumentEvent(Class<? extends Event> eventClass, DocumentReference reference, DataInput input)
+        throws IOException
+    {
+        if (eventClass == DocumentVersionRangeDeletedEvent.class) {
+            String from = readString(input);
+            String to = readString(input);
+
+            return reference != null ? new DocumentVersionRangeDeletedEvent(reference, from, to)
+                : new DocumentVersionRangeDeletedEvent();
+        } else if (eventClass == DocumentCreatedEvent.class) {
+            return reference != null ? new DocumentCreatedEvent(reference) : new DocumentCreatedEvent();
+        } else if (eventClass == DocumentUpdatedEvent.class) {
+            return reference != null ? new DocumentUpdatedEvent(reference) : new DocumentUpdatedEvent();
+        }
+
+        return reference != null ? new DocumentDeletedEvent(reference) : new DocumentDeletedEvent();
+    }
+
+    private void writeValue(Object value, DataOutput output) throws IOException
+    {
+        if (value == null) {
+            output.writeByte(TYPE_NULL);
+        } else if (value instanceof String) {
+            output.writeByte(TYPE_STRING);
+            output.writeUTF((String) value);
+        } else if (value instanceof DocumentReference) {
+            output.writeByte(TYPE_DOCUMENT_REFERENCE);
+            writeDocumentReference((DocumentReference) value, output);
+        } else {
+            Map<?, ?> map = (Map<?, ?>) value;
+
+            output.writeByte(TYPE_MAP);
+            output.writeByte(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                output.writeByte(KEYS.indexOf(entry.getKey()));
+                writeValue(entry.getValue(), output);
+            }
+        }
+    }
+
+    private Serializable readValue(DataInput input) throws IOException
+    {
+        byte type = input.readByte();
+
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return input.readUTF();
+            case TYPE_DOCUMENT_REFERENCE:
+                return readDocumentReference(input);
+            case TYPE_MAP:
+                int size = input.readUnsignedByte();
+                HashMap<String, Serializable> map = new HashMap<>(size);
+                for (int i = 0; i < size; ++i) {
+                    int index = input.readUnsignedByte();
+                    if (index >= KEYS.size()) {
+                        throw new IOException(String.format("Unknown XWiki event key [%s]", index));
+                    }
+                    map.put(KEYS.get(index), readValue(input));
+                }
+                return map;
+            default:
+                throw new IOException(String.format("Unknown XWiki event value type [%s]", type));
+        }
+    }
+
+    private void writeDocumentReference(DocumentReference reference, DataOutput output) throws IOException
+    {
+        output.writeBoolean(reference != null);
+
+        if (reference != null) {
+            output.writeUTF(reference.getWikiReference().getName());
+            List<SpaceReference> spaces = reference.getSpaceReferences();
+            output.writeShort(spaces.size());
+            for (SpaceReference space : spaces) {
+                output.writeUTF(space.getName());
+            }
+            output.writeUTF(reference.getName());
+            writeString(reference.getLocale() != null ? reference.getLocale().toString() : null, output);
+        }
+    }
+
+    private DocumentReference readDocumentReference(DataInput input) throws IOException
+    {
+        if (!input.readBoolean()) {
+            return null;
+        }
+
+        String wiki = input.readUTF();
+        int spaceCount = input.readUnsignedShort();
+        List<String> spaces = new ArrayList<>(spaceCount);
+        for (int i = 0; i < spaceCount; ++i) {
+            spaces.add(input.readUTF());
+        }
+        String name = input.readUTF();
+        Locale locale = LocaleUtils.toLocale(readString(input));
+
+        return new DocumentReference(wiki, spaces, name, locale);
+    }
+
+    private void writeString(String value, DataOutput output) throws IOException
+    {
+        output.writeBoolean(value != null);
+
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+
+    private String readString(DataInput input) throws IOException
+    {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+}
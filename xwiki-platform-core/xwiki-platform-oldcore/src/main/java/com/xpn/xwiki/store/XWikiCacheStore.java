@@ -19,8 +19,20 @@
  */
 package com.xpn.xwiki.store;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -61,6 +73,11 @@
 /**
  * A proxy store implementation that caches Documents when they are first fetched and subsequently return them from a
  * cache. It delegates all write and search operations to an underlying store without doing any caching on them.
+ * <p>
+ * Concurrent loads of the same document which is not in the cache are coalesced: only one thread loads it from the
+ * underlying store while the others wait for its result (for a limited time). When
+ * {@code xwiki.store.cache.stalewhilerevalidate} is enabled, a document invalidated by a remote event is kept aside, and
+ * is returned to the threads asking for it while another thread is reloading it, instead of making them wait.
  *
  * @version $Id$
  */
@@ -73,6 +90,24 @@ public class XWikiCacheStore extends AbstractXWikiStore
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(XWikiCacheStore.class);
 
+    /**
+     * A load from the underlying store, which remembers the thread in charge of it.
+     *
+     * @version $Id$
+     */
+    private static final class DocumentLoad extends CompletableFuture<XWikiDocument>
+    {
+        private final Thread owner = Thread.currentThread();
+
+        /**
+         * @return {@code true} if the document is being loaded by the current thread
+         */
+        boolean isOwnedByCurrentThread()
+        {
+            return this.owner == Thread.currentThread();
+        }
+    }
+
     /**
      * Used to know if a received event is a local or remote one.
      */
@@ -102,6 +137,30 @@ public class XWikiCacheStore extends AbstractXWikiStore
 
     private Cache<Boolean> pageExistCache;
 
+    /**
+     * The previous version of documents invalidated by a remote event, {@code null} when stale documents should never
+     * be returned.
+     */
+    private Cache<XWikiDocument> staleCache;
+
+    /**
+     * The loads from the underlying store currently in progress, used to coalesce the concurrent loads of a document.
+     */
+    private final ConcurrentMap<String, DocumentLoad> loads = new ConcurrentHashMap<>();
+
+    /**
+     * The maximum time (in milliseconds) to wait for the concurrent load of a document before loading it directly.
+     */
+    private long loadTimeout;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder coalescedCount = new LongAdder();
+
+    private final LongAdder staleCount = new LongAdder();
+
     /**
      * Used to cache the values asked by {@link #getLimitSize(XWikiContext, Class, String)}.
      */
@@ -173,6 +232,14 @@ private void initCache() throws CacheException
         this.pageExistCache = this.cacheManager
             .createNewCache(new LRUCacheConfiguration("xwiki.store.pageexistcache", pageExistCacheCapacity));
 
+        if (this.configuration.getProperty("xwiki.store.cache.stalewhilerevalidate", false)) {
+            int staleCacheCapacity = this.configuration.getProperty("xwiki.store.cache.stalecapacity", 100);
+            this.staleCache = this.cacheManager
+                .createNewCache(new LRUCacheConfiguration("xwiki.store.stalepagecache", staleCacheCapacity));
+        }
+
+        this.loadTimeout = this.configuration.getProperty("xwiki.store.cache.loadtimeout", 30000L);
+
         // There won't be many values in this cache, but they will be accessed a lot.
         int limitSizePropertyCacheCapacity = 10;
         this.limitSizePropertyCache = this.cacheManager.createNewCache(
@@ -226,8 +293,7 @@ public void renameXWikiDoc(XWikiDocument doc, DocumentReference newReference, XW
         } finally {
             // Flushing the cache for old document
             String key = getKey(doc, context);
-            getCache().remove(key);
-            getPageExistCache().remove(key);
+            removeFromCache(key);
 
             WikiReference originalWikiReference = doc.getDocumentReference().getWikiReference();
             // Flushing the cache for new document
@@ -236,8 +302,7 @@ public void renameXWikiDoc(XWikiDocument doc, DocumentReference newReference, XW
             }
             XWikiDocument newDoc = new XWikiDocument(newReference, newReference.getLocale());
             key = getKey(newDoc, context);
-            getCache().remove(key);
-            getPageExistCache().remove(key);
+            removeFromCache(key);
             context.setWikiReference(originalWikiReference);
 
             // Restore the previous XWikiContext
@@ -258,8 +323,7 @@ public void saveXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext, boolean
         } finally {
             // Flushing the cache
             String key = getKey(doc, context);
-            getCache().remove(key);
-            getPageExistCache().remove(key);
+            removeFromCache(key);
 
             /*
              * We do not want to save the document in the cache at this time. If we did, this would introduce the
@@ -274,9 +338,24 @@ public void saveXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext, boolean
     @Override
     public void flushCache()
     {
+        this.loads.clear();
         getCache().removeAll();
         getPageExistCache().removeAll();
         getLimitSizePropertyCache().removeAll();
+        if (this.staleCache != null) {
+            this.staleCache.removeAll();
+        }
+    }
+
+    private void removeFromCache(String key)
+    {
+        // Make sure a load started before the modification is not reused nor cached
+        this.loads.remove(key);
+        getCache().remove(key);
+        getPageExistCache().remove(key);
+        if (this.staleCache != null) {
+            this.staleCache.remove(key);
+        }
     }
 
     @Override
@@ -300,7 +379,18 @@ public void invalidate(XWikiDocument document)
     {
         String key = document.getKey();
 
+        // Make sure a load started before the modification is not reused nor cached
+        this.loads.remove(key);
+
         if (getCache() != null) {
+            if (this.staleCache != null) {
+                // Keep the previous version to return it while the document is being reloaded
+                XWikiDocument staleDocument = getCache().get(key);
+                if (staleDocument != null) {
+                    this.staleCache.set(key, staleDocument);
+                }
+            }
+
             getCache().remove(key);
         }
 
@@ -377,6 +467,8 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
             }
 
             if (cachedoc != null) {
+                this.hitCount.increment();
+
                 cachedoc.setFromCache(true);
 
                 LOGGER.debug("Document [{}] was retrieved from cache", key);
@@ -384,44 +476,273 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
                 Boolean result = getPageExistCache().get(key);
 
                 if (result == Boolean.FALSE) {
-                    LOGGER.debug("Document [{}] doesn't exist in cache, returning an empty one", key);
+                    this.hitCount.increment();
 
-                    cachedoc = doc;
-                    cachedoc.setNew(true);
+                    LOGGER.debug("Document [{}] doesn't exist in cache, returning an empty one", key);
 
-                    // Make sure to always return a document with an original version, even for one that does not exist.
-                    // Allow writing more generic code.
-                    cachedoc
-                        .setOriginalDocument(new XWikiDocument(cachedoc.getDocumentReference(), cachedoc.getLocale()));
+                    cachedoc = toNewDocument(doc);
                 } else {
-                    LOGGER.debug("Trying to get Document [{}] from persistent storage", key);
+                    cachedoc = loadXWikiDoc(key, doc, context);
+                }
+            }
 
-                    cachedoc = this.store.loadXWikiDoc(doc, context);
+            cachedoc.setStore(this);
+            LOGGER.debug("Ending checking for Document [{}] in cache", key);
 
-                    LOGGER.debug("Document [{}] was retrieved from persistent storage", key);
+            return cachedoc;
+        } finally {
+            restoreExecutionXContext();
+        }
+    }
 
-                    if (cachedoc.isNew()) {
-                        getPageExistCache().set(key, Boolean.FALSE);
-                    } else {
-                        getCache().set(key, cachedoc);
+    private XWikiDocument toNewDocument(XWikiDocument doc)
+    {
+        doc.setNew(true);
 
-                        // Also update exist cache
-                        getPageExistCache().set(key, Boolean.TRUE);
-                    }
+        // Make sure to always return a document with an original version, even for one that does not exist.
+        // Allow writing more generic code.
+        doc.setOriginalDocument(new XWikiDocument(doc.getDocumentReference(), doc.getLocale()));
+
+        return doc;
+    }
+
+    /**
+     * Load a document which is not in the cache from the underlying store, or wait for the result of another thread
+     * already loading it.
+     */
+    private XWikiDocument loadXWikiDoc(String key, XWikiDocument doc, XWikiContext context) throws XWikiException
+    {
+        DocumentLoad load = new DocumentLoad();
+        DocumentLoad currentLoad = this.loads.putIfAbsent(key, load);
+
+        if (currentLoad != null) {
+            return joinLoad(key, doc, currentLoad, context);
+        }
+
+        this.missCount.increment();
+
+        XWikiDocument loadedDocument = null;
+        try {
+            LOGGER.debug("Trying to get Document [{}] from persistent storage", key);
+
+            loadedDocument = this.store.loadXWikiDoc(doc, context);
+
+            LOGGER.debug("Document [{}] was retrieved from persistent storage", key);
+
+            cacheLoadedDocument(key, loadedDocument, load);
+
+            return loadedDocument;
+        } finally {
+            endLoad(key, loadedDocument, load);
+        }
+    }
+
+    /**
+     * Get a document which is already being loaded, either by waiting for the result of the load or by returning its
+     * previous version. The document is loaded from the underlying store, without touching the cache, when the load
+     * cannot be waited for.
+     */
+    private XWikiDocument joinLoad(String key, XWikiDocument doc, DocumentLoad currentLoad, XWikiContext context)
+        throws XWikiException
+    {
+        if (currentLoad.isOwnedByCurrentThread()) {
+            // Loading the document requires loading the document itself (e.g. to resolve the class it defines): the
+            // load would wait for itself.
+            LOGGER.debug("Document [{}] is already being loaded by the current thread, loading it directly", key);
+        } else {
+            XWikiDocument staleDocument = this.staleCache != null ? this.staleCache.get(key) : null;
+            if (staleDocument != null) {
+                this.staleCount.increment();
+
+                LOGGER.debug("Document [{}] is being reloaded, returning the previous version", key);
+
+                staleDocument.setFromCache(true);
+
+                return staleDocument;
+            }
+
+            XWikiDocument loadedDocument = waitForLoad(key, currentLoad);
+            if (loadedDocument != null) {
+                this.coalescedCount.increment();
+
+                LOGGER.debug("Document [{}] was retrieved from a concurrent load", key);
+
+                // The document returned for a missing document is the one provided by the loading thread
+                return loadedDocument.isNew() ? toNewDocument(doc) : loadedDocument;
+            }
+        }
 
-                    LOGGER.debug("Document [{}] was put in cache", key);
+        // The other load failed, was invalidated or takes too long: load the document without touching the cache.
+        this.missCount.increment();
+
+        return this.store.loadXWikiDoc(doc, context);
+    }
+
+    private void cacheLoadedDocument(String key, XWikiDocument loadedDocument, DocumentLoad load)
+    {
+        // Don't cache a document which was modified while it was being loaded
+        if (this.loads.get(key) == load) {
+            if (loadedDocument.isNew()) {
+                getPageExistCache().set(key, Boolean.FALSE);
+            } else {
+                getCache().set(key, loadedDocument);
+
+                // Also update exist cache
+                getPageExistCache().set(key, Boolean.TRUE);
+            }
+
+            LOGGER.debug("Document [{}] was put in cache", key);
+        }
+    }
+
+    private void endLoad(String key, XWikiDocument loadedDocument, DocumentLoad load)
+    {
+        // Waiting threads load the document themselves if it failed
+        load.complete(loadedDocument);
+        this.loads.remove(key, load);
+        if (this.staleCache != null) {
+            this.staleCache.remove(key);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The documents which are not in the cache are loaded from the underlying store in a single call and put in the
+     * cache. The documents which are already being loaded by another thread are only waited for once this load is
+     * finished, so that overlapping bulk loads don't wait for each other.
+     */
+    @Override
+    public List<XWikiDocument> loadXWikiDocs(Collection<DocumentReference> references, XWikiContext inputxcontext)
+        throws XWikiException
+    {
+        // Make sure to use the right XWikiContext instance to avoid issues
+        XWikiContext context = getExecutionXContext(inputxcontext, false);
+
+        String currentWiki = context.getWikiId();
+        try {
+            List<XWikiDocument> documents = new ArrayList<>(references.size());
+            List<String> keys = new ArrayList<>(references.size());
+            // The documents to load from the underlying store
+            Map<String, DocumentReference> missingReferences = new LinkedHashMap<>();
+            Map<String, DocumentLoad> missingLoads = new HashMap<>();
+            // The documents already being loaded by other loads
+            Map<String, XWikiDocument> concurrentDocuments = new LinkedHashMap<>();
+            Map<String, DocumentLoad> concurrentLoads = new HashMap<>();
+
+            for (DocumentReference reference : references) {
+                // The cache key depends on the current wiki
+                context.setWikiId(reference.getWikiReference().getName());
+
+                XWikiDocument doc = new XWikiDocument(reference, reference.getLocale());
+                String key = getKey(doc, context);
+                keys.add(key);
+
+                XWikiDocument cachedoc = getCache().get(key);
+                if (cachedoc != null) {
+                    this.hitCount.increment();
+
+                    cachedoc.setFromCache(true);
+                } else if (getPageExistCache().get(key) == Boolean.FALSE) {
+                    this.hitCount.increment();
+
+                    cachedoc = toNewDocument(doc);
+                } else if (!missingReferences.containsKey(key) && !concurrentLoads.containsKey(key)) {
+                    DocumentLoad load = new DocumentLoad();
+                    DocumentLoad currentLoad = this.loads.putIfAbsent(key, load);
+                    if (currentLoad == null) {
+                        missingReferences.put(key, reference);
+                        missingLoads.put(key, load);
+                    } else {
+                        // Another load is in progress. Don't wait for it before the loads registered by this thread
+                        // are finished, since the other load might be waiting for them.
+                        concurrentDocuments.put(key, doc);
+                        concurrentLoads.put(key, currentLoad);
+                    }
                 }
+
+                documents.add(cachedoc);
             }
 
-            cachedoc.setStore(this);
-            LOGGER.debug("Ending checking for Document [{}] in cache", key);
+            context.setWikiId(currentWiki);
 
-            return cachedoc;
+            Map<String, XWikiDocument> loadedDocuments = loadMissingXWikiDocs(missingReferences, missingLoads, context);
+
+            for (Map.Entry<String, XWikiDocument> entry : concurrentDocuments.entrySet()) {
+                XWikiDocument doc = entry.getValue();
+                context.setWikiId(doc.getDocumentReference().getWikiReference().getName());
+                loadedDocuments.put(entry.getKey(), joinLoad(entry.getKey(), doc, concurrentLoads.get(entry.getKey()),
+                    context));
+            }
+
+            context.setWikiId(currentWiki);
+
+            for (int i = 0; i < documents.size(); ++i) {
+                XWikiDocument document = documents.get(i);
+                if (document == null) {
+                    document = loadedDocuments.get(keys.get(i));
+                    documents.set(i, document);
+                }
+
+                document.setStore(this);
+            }
+
+            return documents;
         } finally {
+            context.setWikiId(currentWiki);
+
             restoreExecutionXContext();
         }
     }
 
+    private Map<String, XWikiDocument> loadMissingXWikiDocs(Map<String, DocumentReference> missingReferences,
+        Map<String, DocumentLoad> missingLoads, XWikiContext context) throws XWikiException
+    {
+        Map<String, XWikiDocument> loadedDocuments = new HashMap<>(missingReferences.size());
+
+        if (!missingReferences.isEmpty()) {
+            this.missCount.add(missingReferences.size());
+
+            try {
+                LOGGER.debug("Trying to get Documents [{}] from persistent storage", missingReferences.keySet());
+
+                List<XWikiDocument> storeDocuments = this.store.loadXWikiDocs(missingReferences.values(), context);
+
+                int index = 0;
+                for (String key : missingReferences.keySet()) {
+                    XWikiDocument loadedDocument = storeDocuments.get(index++);
+                    loadedDocuments.put(key, loadedDocument);
+
+                    cacheLoadedDocument(key, loadedDocument, missingLoads.get(key));
+                }
+            } finally {
+                for (Map.Entry<String, DocumentLoad> entry : missingLoads.entrySet()) {
+                    endLoad(entry.getKey(), loadedDocuments.get(entry.getKey()), entry.getValue());
+                }
+            }
+        }
+
+        return loadedDocuments;
+    }
+
+    private XWikiDocument waitForLoad(String key, DocumentLoad load)
+    {
+        try {
+            return load.get(this.loadTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            LOGGER.warn("Interrupted while waiting for the concurrent load of document [{}]", key);
+        } catch (ExecutionException e) {
+            LOGGER.debug("The concurrent load of document [{}] failed", key, e);
+        } catch (TimeoutException e) {
+            LOGGER.warn("The concurrent load of document [{}] did not finish after [{}] ms, loading it directly", key,
+                this.loadTimeout);
+        }
+
+        return null;
+    }
+
     @Override
     public void deleteXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext) throws XWikiException
     {
@@ -434,8 +755,7 @@ public void deleteXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext) throws
 
             this.store.deleteXWikiDoc(doc, context);
 
-            getCache().remove(key);
-            getPageExistCache().remove(key);
+            removeFromCache(key);
             getPageExistCache().set(key, Boolean.FALSE);
         } finally {
             restoreExecutionXContext();
@@ -801,6 +1121,46 @@ public void setPageExistCache(Cache<Boolean> pageExistCache)
         this.pageExistCache = pageExistCache;
     }
 
+    /**
+     * @return the number of documents found in the cache (including the documents known to not exist)
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    public long getHitCount()
+    {
+        return this.hitCount.sum();
+    }
+
+    /**
+     * @return the number of documents loaded from the underlying store
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    public long getMissCount()
+    {
+        return this.missCount.sum();
+    }
+
+    /**
+     * @return the number of documents obtained by waiting for the load of the same document by another thread
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    public long getCoalescedCount()
+    {
+        return this.coalescedCount.sum();
+    }
+
+    /**
+     * @return the number of times the previous version of a document was returned while it was being reloaded
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    public long getStaleCount()
+    {
+        return this.staleCount.sum();
+    }
+
     /**
      * @return the cache that handle the limit size properties.
      * @since 11.4RC1
@@ -31,6 +31,7 @@
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
@@ -48,9 +49,11 @@
 import javax.inject.Singleton;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.collections4.map.ReferenceMap;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.hibernate.FlushMode;
 import org.hibernate.HibernateException;
 import org.hibernate.ObjectNotFoundException;
@@ -106,9 +109,16 @@
 import com.xpn.xwiki.objects.BaseObject;
 import com.xpn.xwiki.objects.BaseProperty;
 import com.xpn.xwiki.objects.BaseStringProperty;
+import com.xpn.xwiki.objects.DBStringListProperty;
+import com.xpn.xwiki.objects.DateProperty;
+import com.xpn.xwiki.objects.DoubleProperty;
+import com.xpn.xwiki.objects.FloatProperty;
+import com.xpn.xwiki.objects.IntegerProperty;
 import com.xpn.xwiki.objects.LargeStringProperty;
 import com.xpn.xwiki.objects.ListProperty;
+import com.xpn.xwiki.objects.LongProperty;
 import com.xpn.xwiki.objects.PropertyInterface;
+import com.xpn.xwiki.objects.StringListProperty;
 import com.xpn.xwiki.objects.StringProperty;
 import com.xpn.xwiki.objects.classes.BaseClass;
 import com.xpn.xwiki.objects.classes.PropertyClass;
@@ -127,6 +137,25 @@
 @Singleton
 public class XWikiHibernateStore extends XWikiHibernateBaseStore implements XWikiStoreInterface, Initializable
 {
+    /**
+     * The maximum number of documents, objects or properties to load with a single query in
+     * {@link #loadXWikiDocs(Collection, XWikiContext)}, to stay below the limits of the databases on the size of the
+     * {@code IN} clauses.
+     */
+    private static final int BULK_LOAD_SIZE = 500;
+
+    /**
+     * The types of properties for which the values are loaded in bulk, one query per type, by
+     * {@link #loadXWikiDocs(Collection, XWikiContext)}. The other properties are loaded one by one.
+     */
+    private static final Set<String> BULK_LOADED_PROPERTY_TYPES = Set.of(IntegerProperty.class.getName(),
+        LongProperty.class.getName(), FloatProperty.class.getName(), DoubleProperty.class.getName(),
+        StringProperty.class.getName(), DateProperty.class.getName(), LargeStringProperty.class.getName(),
+        StringListProperty.class.getName(), DBStringListProperty.class.getName());
+
+    private static final EntityReference GROUPS_CLASS_REFERENCE =
+        new EntityReference("XWikiGroups", EntityType.DOCUMENT, new EntityReference("XWiki", EntityType.SPACE));
+
     @Inject
     private Logger logger;
 
@@ -1055,83 +1084,31 @@ public XWikiDocument loadXWikiDoc(XWikiDocument defaultDocument, XWikiContext in
                         return defaultDocument;
                     }
 
-                    doc.setStore(this);
-                    doc.setNew(false);
-                    doc.setMostRecent(true);
-                    // Fix for XWIKI-1651
-                    doc.setDate(new Date(doc.getDate().getTime()));
-                    doc.setCreationDate(new Date(doc.getCreationDate().getTime()));
-                    doc.setContentUpdateDate(new Date(doc.getContentUpdateDate().getTime()));
+                    BaseClass bclass = initializeLoadedDocument(doc, context);
 
                     // Loading the attachment list
                     if (doc.hasElement(XWikiDocument.HAS_ATTACHMENTS)) {
                         loadAttachmentList(doc, context, false);
                     }
 
-                    // TODO: handle the case where there are no xWikiClass and xWikiObject in the Database
-                    BaseClass bclass = new BaseClass();
-                    String cxml = doc.getXClassXML();
-                    if (cxml != null) {
-                        bclass.fromXML(cxml);
-                        doc.setXClass(bclass);
-                        bclass.setDirty(false);
-                    }
-
-                    // Store this XWikiClass in the context so that we can use it in case of recursive usage
-                    // of classes
-                    context.addBaseClass(bclass);
-
                     if (doc.hasElement(XWikiDocument.HAS_OBJECTS)) {
                         Query<BaseObject> query = session.createQuery(
                             "from BaseObject as bobject where bobject.name = :name order by bobject.number",
                             BaseObject.class);
                         query.setParameter("name", doc.getFullName());
 
-                        Iterator<BaseObject> it = query.list().iterator();
-
-                        EntityReference localGroupEntityReference = new EntityReference("XWikiGroups",
-                            EntityType.DOCUMENT, new EntityReference("XWiki", EntityType.SPACE));
-                        DocumentReference groupsDocumentReference = new DocumentReference(context.getWikiId(),
-                            localGroupEntityReference.getParent().getName(), localGroupEntityReference.getName());
-
                         boolean hasGroups = false;
-                        while (it.hasNext()) {
-                            BaseObject object = it.next();
-                            DocumentReference classReference = object.getXClassReference();
-
-                            if (classReference == null) {
-                                continue;
-                            }
-
-                            // It seems to search before is case insensitive. And this would break the loading if we get
-                            // an
-                            // object which doesn't really belong to this document
-                            if (!object.getDocumentReference().equals(doc.getDocumentReference())) {
-                                continue;
-                            }
-
-                            BaseObject newobject;
-                            if (classReference.equals(doc.getDocumentReference())) {
-                                newobject = bclass.newCustomClassInstance(true);
-                            } else {
-                                newobject = BaseClass.newCustomClassInstance(classReference, true, context);
-                            }
-                            if (newobject != null) {
-                                newobject.setId(object.getId());
-                                newobject.setXClassReference(object.getRelativeXClassReference());
-                                newobject.setDocumentReference(object.getDocumentReference());
-                                newobject.setNumber(object.getNumber());
-                                newobject.setGuid(object.getGuid());
-                                object = newobject;
-                            }
-
-                            if (classReference.equals(groupsDocumentReference)) {
-                                // Groups objects are handled differently.
-                                hasGroups = true;
-                            } else {
-                                loadXWikiCollectionInternal(object, doc, context, false, true);
+                        for (BaseObject object : query.list()) {
+                            BaseObject loadedObject = toLoadedObject(object, doc, bclass, context);
+                            if (loadedObject != null) {
+                                if (isGroupsObject(object, context)) {
+                                    // Groups objects are handled differently.
+                                    hasGroups = true;
+                                } else {
+                                    loadXWikiCollectionInternal(loadedObject, doc, context, false, true);
+                                }
+                                doc.setXObject(loadedObject.getNumber(), loadedObject);
                             }
-                            doc.setXObject(object.getNumber(), object);
                         }
 
                         // AFAICT this was added as an emergency patch because loading of objects has proven
@@ -1146,27 +1123,13 @@ public XWikiDocument loadXWikiDoc(XWikiDocument defaultDocument, XWikiContext in
                                 Object[].class);
                             query2.setParameter("name", doc.getFullName());
 
-                            Iterator<Object[]> it2 = query2.list().iterator();
-                            while (it2.hasNext()) {
-                                Object[] result = it2.next();
-                                Integer number = (Integer) result[0];
-                                String member = (String) result[1];
-                                BaseObject obj =
-                                    BaseClass.newCustomClassInstance(groupsDocumentReference, true, context);
-                                obj.setDocumentReference(doc.getDocumentReference());
-                                obj.setXClassReference(localGroupEntityReference);
-                                obj.setNumber(number.intValue());
-                                obj.setStringValue("member", member);
-                                doc.setXObject(obj.getNumber(), obj);
+                            for (Object[] result : query2.list()) {
+                                addGroupsObject(doc, (Integer) result[0], (String) result[1], context);
                             }
                         }
                     }
 
-                    doc.setContentDirty(false);
-                    doc.setMetaDataDirty(false);
-
-                    // We need to ensure that the loaded document becomes the original document
-                    doc.setOriginalDocument(doc.clone());
+                    finalizeLoadedDocument(doc);
 
                     if (bTransaction) {
                         endTransaction(context, false);
@@ -1199,6 +1162,358 @@ public XWikiDocument loadXWikiDoc(XWikiDocument defaultDocument, XWikiContext in
         }
     }
 
+    @Override
+    public List<XWikiDocument> loadXWikiDocs(Collection<DocumentReference> references, XWikiContext inputxcontext)
+        throws XWikiException
+    {
+        XWikiContext context = getExecutionXContext(inputxcontext, false);
+
+        try {
+            // Dynamically injected custom mappings can require a dedicated session factory for each document
+            if (context.getWiki().hasDynamicCustomMappings()) {
+                return XWikiStoreInterface.super.loadXWikiDocs(references, context);
+            }
+
+            // Each wiki has its own database
+            Map<String, Set<DocumentReference>> wikis = new LinkedHashMap<>();
+            for (DocumentReference reference : references) {
+                wikis.computeIfAbsent(reference.getWikiReference().getName(), k -> new LinkedHashSet<>())
+                    .add(reference);
+            }
+
+            Map<DocumentReference, XWikiDocument> documents = new HashMap<>(references.size());
+            String currentWiki = context.getWikiId();
+            try {
+                for (Map.Entry<String, Set<DocumentReference>> entry : wikis.entrySet()) {
+                    context.setWikiId(entry.getKey());
+
+                    for (List<DocumentReference> batch : ListUtils.partition(new ArrayList<>(entry.getValue()),
+                        BULK_LOAD_SIZE)) {
+                        loadXWikiDocsInternal(batch, documents, context);
+                    }
+                }
+            } finally {
+                context.setWikiId(currentWiki);
+            }
+
+            List<XWikiDocument> result = new ArrayList<>(references.size());
+            for (DocumentReference reference : references) {
+                result.add(documents.get(reference));
+            }
+
+            return result;
+        } finally {
+            restoreExecutionXContext();
+        }
+    }
+
+    private void loadXWikiDocsInternal(List<DocumentReference> references,
+        Map<DocumentReference, XWikiDocument> documents, XWikiContext context) throws XWikiException
+    {
+        MonitorPlugin monitor = Util.getMonitorPlugin(context);
+        try {
+            // Start monitoring timer
+            if (monitor != null) {
+                monitor.startTimer(HINT);
+            }
+            checkHibernate(context);
+
+            boolean bTransaction = beginTransaction(context);
+            try {
+                Session session = getSession(context);
+                session.setHibernateFlushMode(FlushMode.MANUAL);
+
+                Map<Long, DocumentReference> ids = new HashMap<>(references.size());
+                for (DocumentReference reference : references) {
+                    XWikiDocument defaultDocument = new XWikiDocument(reference, reference.getLocale());
+                    ids.put(defaultDocument.getId(), reference);
+
+                    // Returned as is if the document does not exist
+                    defaultDocument.setNew(true);
+                    defaultDocument.setOriginalDocument(
+                        new XWikiDocument(defaultDocument.getDocumentReference(), defaultDocument.getLocale()));
+                    documents.put(reference, defaultDocument);
+                }
+
+                Query<XWikiDocument> query =
+                    session.createQuery("from XWikiDocument as doc where doc.id in (:ids)", XWikiDocument.class);
+                query.setParameterList("ids", ids.keySet());
+
+                Map<Long, XWikiDocument> loadedDocuments = new LinkedHashMap<>();
+                Map<Long, BaseClass> loadedClasses = new HashMap<>();
+                for (XWikiDocument doc : query.list()) {
+                    loadedClasses.put(doc.getId(), initializeLoadedDocument(doc, context));
+                    loadedDocuments.put(doc.getId(), doc);
+                }
+
+                loadAttachmentLists(loadedDocuments.values(), session);
+                loadObjects(loadedDocuments.values(), loadedClasses, session, context);
+
+                for (XWikiDocument doc : loadedDocuments.values()) {
+                    finalizeLoadedDocument(doc);
+
+                    documents.put(ids.get(doc.getId()), doc);
+
+                    this.logger.debug("Loaded XWikiDocument: [{}]", doc.getDocumentReferenceWithLocale());
+                }
+
+                if (bTransaction) {
+                    endTransaction(context, false);
+                }
+            } finally {
+                if (bTransaction) {
+                    try {
+                        endTransaction(context, false);
+                    } catch (Exception e) {
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Object[] args = {references};
+            throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
+                XWikiException.ERROR_XWIKI_STORE_HIBERNATE_READING_DOC, "Exception while reading documents {0}", e,
+                args);
+        } finally {
+            // End monitoring timer
+            if (monitor != null) {
+                monitor.endTimer(HINT);
+            }
+        }
+    }
+
+    private void loadAttachmentLists(Collection<XWikiDocument> documents, Session session)
+    {
+        Map<Long, XWikiDocument> documentsWithAttachments = new HashMap<>();
+        for (XWikiDocument doc : documents) {
+            if (doc.hasElement(XWikiDocument.HAS_ATTACHMENTS)) {
+                documentsWithAttachments.put(doc.getId(), doc);
+            }
+        }
+
+        if (!documentsWithAttachments.isEmpty()) {
+            Query<XWikiAttachment> query = session
+                .createQuery("from XWikiAttachment as attach where attach.docId in (:docids)", XWikiAttachment.class);
+            query.setParameterList("docids", documentsWithAttachments.keySet());
+
+            for (XWikiAttachment attachment : query.list()) {
+                XWikiDocument doc = documentsWithAttachments.get(attachment.getDocId());
+                if (doc != null) {
+                    doc.setAttachment(attachment);
+                }
+            }
+        }
+    }
+
+    private void loadObjects(Collection<XWikiDocument> documents, Map<Long, BaseClass> classes, Session session,
+        XWikiContext context) throws XWikiException
+    {
+        Map<String, List<XWikiDocument>> documentsWithObjects = new HashMap<>();
+        for (XWikiDocument doc : documents) {
+            if (doc.hasElement(XWikiDocument.HAS_OBJECTS)) {
+                documentsWithObjects.computeIfAbsent(doc.getFullName(), k -> new ArrayList<>()).add(doc);
+            }
+        }
+
+        if (documentsWithObjects.isEmpty()) {
+            return;
+        }
+
+        Query<BaseObject> query = session.createQuery(
+            "from BaseObject as bobject where bobject.name in (:names) order by bobject.number", BaseObject.class);
+        query.setParameterList("names", documentsWithObjects.keySet());
+
+        List<Pair<XWikiDocument, BaseObject>> loadedObjects = new ArrayList<>();
+        Set<String> documentsWithGroups = new HashSet<>();
+        for (BaseObject object : query.list()) {
+            for (XWikiDocument doc : documentsWithObjects.getOrDefault(object.getName(),
+                Collections.emptyList())) {
+                BaseObject loadedObject = toLoadedObject(object, doc, classes.get(doc.getId()), context);
+                if (loadedObject != null) {
+                    if (isGroupsObject(object, context)) {
+                        // Groups objects are handled differently.
+                        documentsWithGroups.add(doc.getFullName());
+                    } else {
+                        loadedObjects.add(Pair.of(doc, loadedObject));
+                    }
+                    doc.setXObject(loadedObject.getNumber(), loadedObject);
+                }
+            }
+        }
+
+        // Load the properties of all the objects at once instead of one query per property
+        LoadedProperties loadedProperties = loadProperties(loadedObjects, session);
+        for (Pair<XWikiDocument, BaseObject> loadedObject : loadedObjects) {
+            loadXWikiCollectionInternal(loadedObject.getRight(), loadedObject.getLeft(), context, false, true,
+                loadedProperties);
+        }
+
+        if (!documentsWithGroups.isEmpty()) {
+            Query<Object[]> query2 = session.createQuery(
+                "select bobject.name, bobject.number, prop.value from StringProperty as prop,"
+                    + "BaseObject as bobject where bobject.name in (:names) and bobject.className='XWiki.XWikiGroups' "
+                    + "and bobject.id=prop.id.id and prop.id.name='member' order by bobject.number",
+                Object[].class);
+            query2.setParameterList("names", documentsWithGroups);
+
+            for (Object[] result : query2.list()) {
+                for (XWikiDocument doc : documentsWithObjects.getOrDefault(result[0], Collections.emptyList())) {
+                    addGroupsObject(doc, (Integer) result[1], (String) result[2], context);
+                }
+            }
+        }
+    }
+
+    private LoadedProperties loadProperties(List<Pair<XWikiDocument, BaseObject>> objects, Session session)
+    {
+        LoadedProperties loadedProperties = new LoadedProperties();
+
+        Set<Long> objectIds = new LinkedHashSet<>();
+        for (Pair<XWikiDocument, BaseObject> object : objects) {
+            objectIds.add(object.getRight().getId());
+        }
+
+        Map<String, Set<Long>> objectIdsByType = new HashMap<>();
+        for (List<Long> ids : ListUtils.partition(new ArrayList<>(objectIds), BULK_LOAD_SIZE)) {
+            Query<Object[]> query = session.createQuery(
+                "select prop.id.id, prop.name, prop.classType from BaseProperty as prop where prop.id.id in (:ids)",
+                Object[].class);
+            query.setParameterList("ids", ids);
+            for (Object[] result : query.list()) {
+                Long id = (Long) result[0];
+                String classType = (String) result[2];
+                loadedProperties.types.computeIfAbsent(id, k -> new ArrayList<>())
+                    .add(new Object[] {result[1], classType});
+                if (BULK_LOADED_PROPERTY_TYPES.contains(classType)) {
+                    objectIdsByType.computeIfAbsent(classType, k -> new LinkedHashSet<>()).add(id);
+                }
+            }
+        }
+
+        // Properties which cannot be found here (unknown type, value stored in the table of another type, etc.) are
+        // loaded one by one later
+        for (Map.Entry<String, Set<Long>> entry : objectIdsByType.entrySet()) {
+            for (List<Long> ids : ListUtils.partition(new ArrayList<>(entry.getValue()), BULK_LOAD_SIZE)) {
+                Query<BaseProperty> query = session.createQuery("select prop from " + entry.getKey()
+                    + " as prop where prop.id.id in (:ids) and prop.classType = :classType", BaseProperty.class);
+                query.setParameterList("ids", ids);
+                query.setParameter("classType", entry.getKey());
+                for (BaseProperty property : query.list()) {
+                    // In Oracle, empty string are converted to NULL. Since an undefined property is not found at all,
+                    // it is safe to assume that a retrieved NULL value should actually be an empty string.
+                    if (property instanceof BaseStringProperty && ((BaseStringProperty) property).getValue() == null) {
+                        ((BaseStringProperty) property).setValue("");
+                    }
+                    property.setValueDirty(false);
+                    if (property instanceof ListProperty) {
+                        ((ListProperty) property).getList();
+                    }
+
+                    loadedProperties.values.computeIfAbsent(property.getId(), k -> new HashMap<>())
+                        .put(property.getName(), property);
+                }
+            }
+        }
+
+        return loadedProperties;
+    }
+
+    /**
+     * Initialize a document freshly loaded from the database.
+     *
+     * @return the class defined in the document
+     */
+    private BaseClass initializeLoadedDocument(XWikiDocument doc, XWikiContext context) throws XWikiException
+    {
+        doc.setStore(this);
+        doc.setNew(false);
+        doc.setMostRecent(true);
+        // Fix for XWIKI-1651
+        doc.setDate(new Date(doc.getDate().getTime()));
+        doc.setCreationDate(new Date(doc.getCreationDate().getTime()));
+        doc.setContentUpdateDate(new Date(doc.getContentUpdateDate().getTime()));
+
+        // TODO: handle the case where there are no xWikiClass and xWikiObject in the Database
+        BaseClass bclass = new BaseClass();
+        String cxml = doc.getXClassXML();
+        if (cxml != null) {
+            bclass.fromXML(cxml);
+            doc.setXClass(bclass);
+            bclass.setDirty(false);
+        }
+
+        // Store this XWikiClass in the context so that we can use it in case of recursive usage
+        // of classes
+        context.addBaseClass(bclass);
+
+        return bclass;
+    }
+
+    /**
+     * @return the object to add to the document, or {@code null} if the loaded object should be skipped
+     */
+    private BaseObject toLoadedObject(BaseObject object, XWikiDocument doc, BaseClass bclass, XWikiContext context)
+        throws XWikiException
+    {
+        DocumentReference classReference = object.getXClassReference();
+
+        if (classReference == null) {
+            return null;
+        }
+
+        // It seems to search before is case insensitive. And this would break the loading if we get
+        // an object which doesn't really belong to this document
+        if (!object.getDocumentReference().equals(doc.getDocumentReference())) {
+            return null;
+        }
+
+        BaseObject newobject;
+        if (classReference.equals(doc.getDocumentReference())) {
+            newobject = bclass.newCustomClassInstance(true);
+        } else {
+            newobject = BaseClass.newCustomClassInstance(classReference, true, context);
+        }
+        if (newobject != null) {
+            newobject.setId(object.getId());
+            newobject.setXClassReference(object.getRelativeXClassReference());
+            newobject.setDocumentReference(object.getDocumentReference());
+            newobject.setNumber(object.getNumber());
+            newobject.setGuid(object.getGuid());
+
+            return newobject;
+        }
+
+        return object;
+    }
+
+    private boolean isGroupsObject(BaseObject object, XWikiContext context)
+    {
+        return new DocumentReference(GROUPS_CLASS_REFERENCE, new WikiReference(context.getWikiId()))
+            .equals(object.getXClassReference());
+    }
+
+    private void addGroupsObject(XWikiDocument doc, int number, String member, XWikiContext context)
+        throws XWikiException
+    {
+        DocumentReference groupsDocumentReference =
+            new DocumentReference(GROUPS_CLASS_REFERENCE, new WikiReference(context.getWikiId()));
+
+        BaseObject obj = BaseClass.newCustomClassInstance(groupsDocumentReference, true, context);
+        obj.setDocumentReference(doc.getDocumentReference());
+        obj.setXClassReference(GROUPS_CLASS_REFERENCE);
+        obj.setNumber(number);
+        obj.setStringValue("member", member);
+        doc.setXObject(obj.getNumber(), obj);
+    }
+
+    private void finalizeLoadedDocument(XWikiDocument doc)
+    {
+        doc.setContentDirty(false);
+        doc.setMetaDataDirty(false);
+
+        // We need to ensure that the loaded document becomes the original document
+        doc.setOriginalDocument(doc.clone());
+    }
+
     @Override
     public void deleteXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext) throws XWikiException
     {
@@ -1506,6 +1821,12 @@ private void loadXWikiCollectionInternal(BaseCollection object, XWikiContext con
 
     private void loadXWikiCollectionInternal(BaseCollection object1, XWikiDocument doc, XWikiContext inputxcontext,
         boolean bTransaction, boolean alreadyLoaded) throws XWikiException
+    {
+        loadXWikiCollectionInternal(object1, doc, inputxcontext, bTransaction, alreadyLoaded, null);
+    }
+
+    private void loadXWikiCollectionInternal(BaseCollection object1, XWikiDocument doc, XWikiContext inputxcontext,
+        boolean bTransaction, boolean alreadyLoaded, LoadedProperties loadedProperties) throws XWikiException
     {
         XWikiContext context = getExecutionXContext(inputxcontext, true);
 
@@ -1567,11 +1888,17 @@ private void loadXWikiCollectionInternal(BaseCollection object1, XWikiDocument d
 
                     // Load strings, integers, dates all at once
 
-                    Query<Object[]> query = session.createQuery(
-                        "select prop.name, prop.classType from BaseProperty as prop where prop.id.id = :id",
-                        Object[].class);
-                    query.setParameter("id", object.getId());
-                    for (Object[] result : query.list()) {
+                    List<Object[]> results;
+                    if (loadedProperties != null) {
+                        results = loadedProperties.types.getOrDefault(object.getId(), Collections.emptyList());
+                    } else {
+                        Query<Object[]> query = session.createQuery(
+                            "select prop.name, prop.classType from BaseProperty as prop where prop.id.id = :id",
+                            Object[].class);
+                        query.setParameter("id", object.getId());
+                        results = query.list();
+                    }
+                    for (Object[] result : results) {
                         String name = (String) result[0];
                         // No need to load fields already loaded from
                         // custom mapping
@@ -1582,10 +1909,15 @@ private void loadXWikiCollectionInternal(BaseCollection object1, XWikiDocument d
                         BaseProperty property = null;
 
                         try {
-                            property = (BaseProperty) Class.forName(classType).newInstance();
-                            property.setObject(object);
-                            property.setName(name);
-                            loadXWikiProperty(property, context, false);
+                            property = loadedProperties != null ? loadedProperties.get(object.getId(), name) : null;
+                            if (property != null) {
+                                property.setObject(object);
+                            } else {
+                                property = (BaseProperty) Class.forName(classType).newInstance();
+                                property.setObject(object);
+                                property.setName(name);
+                                loadXWikiProperty(property, context, false);
+                            }
                         } catch (Exception e) {
                             // WORKAROUND IN CASE OF MIXMATCH BETWEEN STRING AND LARGESTRING
                             try {
@@ -3332,4 +3664,24 @@ private long countLinks(long docId, XWikiContext inputxcontext, boolean bTransac
             }
         });
     }
+
+    /**
+     * The properties of several objects, loaded with a few queries.
+     */
+    private static final class LoadedProperties
+    {
+        /**
+         * The name and type of the properties of each object.
+         */
+        private final Map<Long, List<Object[]>> types = new HashMap<>();
+
+        private final Map<Long, Map<String, BaseProperty>> values = new HashMap<>();
+
+        BaseProperty get(long objectId, String name)
+        {
+            Map<String, BaseProperty> properties = this.values.get(objectId);
+
+            return properties != null ? properties.get(name) : null;
+        }
+    }
 }
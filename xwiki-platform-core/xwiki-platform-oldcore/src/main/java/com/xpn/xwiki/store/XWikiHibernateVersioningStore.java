@@ -19,6 +19,7 @@
  */
 package com.xpn.xwiki.store;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.LinkedList;
@@ -27,6 +28,8 @@
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.mutable.MutableBoolean;
+import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.suigeneris.jrcs.rcs.Version;
@@ -62,6 +65,9 @@ public class XWikiHibernateVersioningStore extends XWikiHibernateBaseStore imple
     /** Logger. */
     private static final Logger LOGGER = LoggerFactory.getLogger(XWikiHibernateVersioningStore.class);
 
+    /** Number of nodes loaded at once when searching the closest full version of a given version. */
+    private static final int NODES_PAGE_SIZE = 20;
+
     /**
      * This allows to initialize our storage engine. The hibernate config file path is taken from xwiki.cfg or directly
      * in the WEB-INF directory.
@@ -246,10 +252,16 @@ public XWikiDocument loadXWikiDoc(XWikiDocument basedoc, String sversion, XWikiC
         XWikiContext context = getExecutionXContext(inputxcontext, true);
 
         try {
-            XWikiDocumentArchive archive = getXWikiDocumentArchive(basedoc, context);
             Version version = new Version(sversion);
 
-            XWikiDocument doc = archive.loadDocument(version, context);
+            XWikiDocument doc;
+            XWikiDocumentArchive archive = basedoc.getDocumentArchive();
+            if (archive != null) {
+                doc = archive.loadDocument(version, context);
+            } else {
+                // Only load the part of the history needed to rebuild that version
+                doc = loadXWikiDocFromDatabase(basedoc, version, context);
+            }
             if (doc == null) {
                 Object[] args = { basedoc.getDocumentReferenceWithLocale(), version.toString() };
                 throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
@@ -280,6 +292,65 @@ public XWikiDocument loadXWikiDoc(XWikiDocument basedoc, String sversion, XWikiC
         }
     }
 
+    private XWikiDocument loadXWikiDocFromDatabase(XWikiDocument basedoc, Version version, XWikiContext context)
+        throws XWikiException
+    {
+        String db = context.getWikiId();
+        try {
+            if (basedoc.getDatabase() != null) {
+                context.setWikiId(basedoc.getDatabase());
+            }
+
+            // Load the nodes from the requested version to the next full version, which are enough to rebuild it
+            MutableBoolean mostRecent = new MutableBoolean();
+            List<XWikiRCSNodeInfo> nodes =
+                loadRCSNodeInfoUntilFullVersion(context, basedoc.getId(), version, mostRecent);
+            if (nodes.isEmpty()) {
+                return null;
+            }
+
+            XWikiDocumentArchive archive =
+                new XWikiDocumentArchive(basedoc.getDocumentReference().getWikiReference(), basedoc.getId());
+            archive.setNodes(nodes);
+
+            XWikiDocument doc = archive.loadDocument(version, context);
+            // The partial archive does not know the most recent version
+            doc.setMostRecent(mostRecent.booleanValue());
+
+            return doc;
+        } finally {
+            context.setWikiId(db);
+        }
+    }
+
+    @Override
+    public XWikiRCSNodeInfo getXWikiDocRevisionInfo(XWikiDocument doc, Version version, XWikiContext inputxcontext)
+        throws XWikiException
+    {
+        XWikiDocumentArchive archive = doc.getDocumentArchive();
+        if (archive != null) {
+            return archive.getNode(version);
+        }
+
+        XWikiContext context = getExecutionXContext(inputxcontext, true);
+
+        String db = context.getWikiId();
+        try {
+            if (doc.getDatabase() != null) {
+                context.setWikiId(doc.getDatabase());
+            }
+
+            List<XWikiRCSNodeInfo> nodes = executeRead(context, session -> loadRCSNodeInfo(session, context,
+                doc.getId(), version, true, 1));
+
+            return !nodes.isEmpty() && nodes.get(0).getVersion().equals(version) ? nodes.get(0) : null;
+        } finally {
+            context.setWikiId(db);
+
+            restoreExecutionXContext();
+        }
+    }
+
     @Override
     public void resetRCSArchive(final XWikiDocument doc, boolean bTransaction, final XWikiContext inputxcontext)
         throws XWikiException
@@ -369,6 +440,77 @@ private List<XWikiRCSNodeInfo> loadRCSNodeInfo(XWikiContext context, final long
         });
     }
 
+    /**
+     * Loads the RCS nodes present in the archive of a given document from the passed version to the next full version,
+     * which are enough to rebuild the passed version. The nodes are loaded page by page in the same transaction, each
+     * page starting after the last version of the previous one.
+     *
+     * @param context the XWiki context
+     * @param id {@link XWikiRCSNodeContent#getId()}
+     * @param version the oldest version to load
+     * @param mostRecent set to {@code true} if the passed version is the most recent version of the document
+     * @return loaded RCS nodes, or an empty list if the passed version does not exist
+     * @throws XWikiException if any error
+     */
+    private List<XWikiRCSNodeInfo> loadRCSNodeInfoUntilFullVersion(XWikiContext context, final long id,
+        Version version, MutableBoolean mostRecent) throws XWikiException
+    {
+        return executeRead(context, session -> {
+            List<XWikiRCSNodeInfo> nodes = new ArrayList<>();
+
+            List<XWikiRCSNodeInfo> page = loadRCSNodeInfo(session, context, id, version, true, NODES_PAGE_SIZE);
+            if (page.isEmpty() || !page.get(0).getVersion().equals(version)) {
+                return nodes;
+            }
+            mostRecent.setValue(page.size() == 1);
+
+            while (!addUntilFullVersion(page, nodes) && page.size() == NODES_PAGE_SIZE) {
+                page = loadRCSNodeInfo(session, context, id, page.get(page.size() - 1).getVersion(), false,
+                    NODES_PAGE_SIZE);
+            }
+
+            return nodes;
+        });
+    }
+
+    private boolean addUntilFullVersion(List<XWikiRCSNodeInfo> page, List<XWikiRCSNodeInfo> nodes)
+    {
+        for (XWikiRCSNodeInfo node : page) {
+            nodes.add(node);
+
+            if (!node.isDiff()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Loads a page of the RCS nodes present in the archive of a given document, from the oldest to the most recent.
+     *
+     * @param session the hibernate session
+     * @param context the XWiki context
+     * @param id {@link XWikiRCSNodeContent#getId()}
+     * @param version the oldest version to load
+     * @param inclusive {@code true} if the passed version should be loaded, {@code false} to load only the more recent
+     *            versions
+     * @param size the maximum number of nodes to load
+     * @return loaded RCS nodes
+     */
+    private List<XWikiRCSNodeInfo> loadRCSNodeInfo(Session session, XWikiContext context, final long id,
+        Version version, boolean inclusive, int size)
+    {
+        List<XWikiRCSNodeInfo> nodes =
+            VersioningStoreQueryFactory.getRCSNodeInfoFromVersionQuery(session, id, version, inclusive, size)
+                .getResultList();
+
+        // Remember the wiki where the nodes are from
+        nodes.forEach(n -> n.getId().setWikiReference(context.getWikiReference()));
+
+        return nodes;
+    }
+
     @Override
     public XWikiRCSNodeContent loadRCSNodeContent(final XWikiRCSNodeId id, boolean bTransaction, XWikiContext context)
         throws XWikiException
@@ -19,12 +19,15 @@
  */
 package com.xpn.xwiki.store;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.xwiki.component.annotation.Role;
 import org.xwiki.model.reference.AttachmentReference;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.query.QueryManager;
+import org.xwiki.stability.Unstable;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
@@ -59,6 +62,37 @@ default void renameXWikiDoc(XWikiDocument doc, DocumentReference newReference, X
 
     XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext context) throws XWikiException;
 
+    /**
+     * Load several documents at once. Implementations are encouraged to use as few round trips to the storage as
+     * possible.
+     *
+     * @param references the references of the documents to load, including the locale for translations
+     * @param context the XWiki context
+     * @return the documents, in the same order as the passed references, a document which does not exist being
+     *         returned as a new document
+     * @throws XWikiException when failing to load the documents
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    default List<XWikiDocument> loadXWikiDocs(Collection<DocumentReference> references, XWikiContext context)
+        throws XWikiException
+    {
+        List<XWikiDocument> documents = new ArrayList<>(references.size());
+        String currentWiki = context.getWikiId();
+        try {
+            for (DocumentReference reference : references) {
+                // The store works on the database of the current wiki
+                context.setWikiId(reference.getWikiReference().getName());
+
+                documents.add(loadXWikiDoc(new XWikiDocument(reference, reference.getLocale()), context));
+            }
+        } finally {
+            context.setWikiId(currentWiki);
+        }
+
+        return documents;
+    }
+
     void deleteXWikiDoc(XWikiDocument doc, XWikiContext context) throws XWikiException;
 
     List<String> getClassList(XWikiContext context) throws XWikiException;
@@ -139,6 +139,24 @@ default long getXWikiDocVersionsCount(XWikiDocument doc, RevisionCriteria criter
         return filterVersions(getXWikiDocumentArchive(doc, context), criteria).size();
     }
 
+    /**
+     * Gets the information (author, date, comment, etc.) about a given version of a document, without necessarily
+     * loading the whole history of the document.
+     *
+     * @param doc the document
+     * @param version the version
+     * @param context the XWiki context
+     * @return the information about the version, or {@code null} if the version does not exist
+     * @throws XWikiException if any error
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    default XWikiRCSNodeInfo getXWikiDocRevisionInfo(XWikiDocument doc, Version version, XWikiContext context)
+        throws XWikiException
+    {
+        return getXWikiDocumentArchive(doc, context).getNode(version);
+    }
+
     XWikiDocument loadXWikiDoc(XWikiDocument doc, String version, XWikiContext context) throws XWikiException;
 
     void resetRCSArchive(XWikiDocument doc, boolean bTransaction, XWikiContext context) throws XWikiException;
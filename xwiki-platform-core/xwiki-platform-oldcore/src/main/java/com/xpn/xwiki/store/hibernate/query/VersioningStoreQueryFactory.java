@@ -25,12 +25,14 @@
 
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Subquery;
 
 import org.hibernate.Session;
 import org.hibernate.query.Query;
+import org.suigeneris.jrcs.rcs.Version;
 import org.xwiki.stability.Unstable;
 
 import com.xpn.xwiki.criteria.impl.Range;
@@ -81,6 +83,11 @@ private VersioningStoreQueryFactory(Class<T> clazz, Session session)
     }
 
     private void applyCriteria(final long id, RevisionCriteria criteria)
+    {
+        this.criteriaQuery.where(getPredicates(id, criteria).toArray(new Predicate[0]));
+    }
+
+    private List<Predicate> getPredicates(final long id, RevisionCriteria criteria)
     {
         List<Predicate> predicates = new ArrayList<>();
 
@@ -119,7 +126,7 @@ private void applyCriteria(final long id, RevisionCriteria criteria)
             }
         }
 
-        this.criteriaQuery.where(predicates.toArray(new Predicate[0]));
+        return predicates;
     }
 
     private void applyRange(Range range)
@@ -208,4 +215,44 @@ public static Query<XWikiRCSNodeInfo> getRCSNodeInfoQuery(Session session, final
         return session.createQuery(queryBuilder.criteriaQuery);
     }
 
+    /**
+     * Returns a query to fetch a page of the RCS nodes present in the archive of a given document, starting from a
+     * given version and ordered from the oldest to the most recent version. The next page is fetched by passing the
+     * last version of the previous page as non inclusive start version.
+     *
+     * @param session the hibernate session
+     * @param id the id of the document
+     * @param version the oldest version to return
+     * @param inclusive {@code true} if the passed version should be returned, {@code false} to return only the more
+     *            recent versions
+     * @param size the maximum number of nodes to return
+     * @return the created query
+     * @since 16.7.0RC1
+     */
+    public static Query<XWikiRCSNodeInfo> getRCSNodeInfoFromVersionQuery(Session session, final long id,
+        Version version, boolean inclusive, int size)
+    {
+        VersioningStoreQueryFactory<XWikiRCSNodeInfo> queryBuilder =
+            new VersioningStoreQueryFactory<>(XWikiRCSNodeInfo.class, session);
+
+        queryBuilder.criteriaQuery.select(queryBuilder.root);
+
+        CriteriaBuilder builder = queryBuilder.builder;
+        Path<Integer> version1 = queryBuilder.root.get(FIELD_ID).get(FIELD_VERSION1);
+        Path<Integer> version2 = queryBuilder.root.get(FIELD_ID).get(FIELD_VERSION2);
+
+        List<Predicate> predicates = queryBuilder.getPredicates(id, null);
+        predicates.add(builder.or(builder.greaterThan(version1, version.at(0)),
+            builder.and(builder.equal(version1, version.at(0)),
+                inclusive ? builder.greaterThanOrEqualTo(version2, version.at(1))
+                    : builder.greaterThan(version2, version.at(1)))));
+        queryBuilder.criteriaQuery.where(predicates.toArray(new Predicate[0]));
+
+        queryBuilder.criteriaQuery.orderBy(builder.asc(version1), builder.asc(version2));
+
+        Query<XWikiRCSNodeInfo> query = session.createQuery(queryBuilder.criteriaQuery);
+        query.setMaxResults(size);
+
+        return query;
+    }
 }
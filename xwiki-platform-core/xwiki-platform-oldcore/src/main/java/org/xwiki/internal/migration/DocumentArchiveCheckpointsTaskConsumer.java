@@ -0,0 +1,84 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.internal.migration;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.index.IndexException;
+import org.xwiki.index.TaskConsumer;
+import org.xwiki.model.reference.DocumentReference;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.doc.XWikiDocumentArchive;
+
+/**
+ * Add full version checkpoints to the history of the documents queued by
+ * {@link R160700000DocumentArchiveCheckpointsDataMigration}, so that old versions can be loaded without applying
+ * a long chain of patches.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+@Component
+@Singleton
+@Named(DocumentArchiveCheckpointsTaskConsumer.HINT)
+public class DocumentArchiveCheckpointsTaskConsumer implements TaskConsumer
+{
+    /**
+     * This task consumer hint.
+     */
+    public static final String HINT = "document-archive-checkpoints";
+
+    @Inject
+    private Logger logger;
+
+    @Inject
+    private Provider<XWikiContext> contextProvider;
+
+    @Override
+    public void consume(DocumentReference documentReference, String version) throws IndexException
+    {
+        XWikiContext context = this.contextProvider.get();
+
+        try {
+            XWikiDocument document = context.getWiki().getDocument(documentReference, context);
+            if (document.isNew()) {
+                return;
+            }
+
+            XWikiDocumentArchive archive = document.getDocumentArchive(context);
+            if (archive != null && archive.addCheckpoints(context)) {
+                context.getWiki().getVersioningStore().saveXWikiDocArchive(archive, true, context);
+
+                this.logger.debug("Added checkpoints to the history of document [{}]", documentReference);
+            }
+        } catch (XWikiException e) {
+            throw new IndexException(
+                String.format("Failed to add checkpoints to the history of document [%s]", documentReference), e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.internal.migration;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.store.migration.DataMigrationException;
+import com.xpn.xwiki.store.migration.XWikiDBVersion;
+
+/**
+ * Queue the documents having a history long enough to contain too many consecutive patches (typically imported
+ * histories, which only store the full content of the latest version) so that {@link
+ * DocumentArchiveCheckpointsTaskConsumer} adds full version checkpoints to them in the background.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+@Component
+@Named("R160700000DocumentArchiveCheckpoints")
+@Singleton
+public class R160700000DocumentArchiveCheckpointsDataMigration extends AbstractDocumentsMigration
+{
+    /**
+     * Histories smaller than that cannot contain too many consecutive patches with the default configuration.
+     */
+    private static final long MIN_VERSIONS = 5;
+
+    @Override
+    public String getDescription()
+    {
+        return "Add full version checkpoints to the existing documents history.";
+    }
+
+    @Override
+    public XWikiDBVersion getVersion()
+    {
+        return new XWikiDBVersion(160700000);
+    }
+
+    @Override
+    protected String getTaskType()
+    {
+        return DocumentArchiveCheckpointsTaskConsumer.HINT;
+    }
+
+    @Override
+    protected void logBeforeQueuingTask(DocumentReference documentReference)
+    {
+        // Potentially a lot of documents are queued, only log them in debug
+        this.logger.debug("document [{}] queued to task [{}]", documentReference, getTaskType());
+    }
+
+    @Override
+    protected List<DocumentReference> selectDocuments() throws DataMigrationException
+    {
+        XWiki wiki = getXWikiContext().getWiki();
+        try {
+            return wiki.getStore().getQueryManager()
+                .createQuery("select doc.fullName, doc.language from XWikiDocument doc where doc.id in"
+                    + " (select rcs.id.docId from XWikiRCSNodeInfo rcs group by rcs.id.docId having count(*) > :min)",
+                    Query.HQL)
+                .bindValue("min", MIN_VERSIONS)
+                .<Object[]>execute()
+                .stream()
+                .flatMap(array -> {
+                    // Oracle returns null for the empty string. Therefore, we need to convert back the null value
+                    // to the empty string.
+                    String locale = Objects.toString(array[1], "");
+                    return resolveDocumentReference(String.valueOf(array[0]), locale).stream();
+                })
+                .collect(Collectors.toList());
+        } catch (QueryException e) {
+            throw new DataMigrationException(
+                String.format("Failed to retrieve the documents with a long history for wiki [%s].", wiki.getName()),
+                e);
+        }
+    }
+}
@@ -21,14 +21,21 @@
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.Priority;
 import javax.inject.Named;
+import javax.inject.Provider;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -41,14 +48,18 @@
 import org.xwiki.bridge.event.DocumentRollingBackEvent;
 import org.xwiki.bridge.event.DocumentUpdatedEvent;
 import org.xwiki.bridge.event.DocumentUpdatingEvent;
+import org.xwiki.component.descriptor.DefaultComponentDescriptor;
 import org.xwiki.configuration.ConfigurationSource;
 import org.xwiki.context.Execution;
 import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextManager;
 import org.xwiki.context.internal.DefaultExecution;
 import org.xwiki.environment.Environment;
+import org.xwiki.job.event.status.JobProgressManager;
 import org.xwiki.localization.ContextualLocalizationManager;
 import org.xwiki.model.reference.AttachmentReference;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.ObjectReference;
 import org.xwiki.model.reference.PageObjectReference;
 import org.xwiki.model.reference.PageReference;
@@ -70,6 +81,7 @@
 import org.xwiki.wiki.manager.WikiManagerException;
 
 import com.xpn.xwiki.doc.DocumentRevisionProvider;
+import com.xpn.xwiki.doc.MandatoryDocumentInitializer;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.internal.ReadOnlyXWikiContextProvider;
 import com.xpn.xwiki.internal.debug.DebugConfiguration;
@@ -96,6 +108,7 @@
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -112,6 +125,42 @@
 @ReferenceComponentList
 public class XWikiMockitoTest
 {
+    private static class TestDocumentInitializer implements MandatoryDocumentInitializer
+    {
+        private final DocumentReference documentReference;
+
+        private final Runnable update;
+
+        TestDocumentInitializer(DocumentReference documentReference, Runnable update)
+        {
+            this.documentReference = documentReference;
+            this.update = update;
+        }
+
+        @Override
+        public EntityReference getDocumentReference()
+        {
+            return this.documentReference;
+        }
+
+        @Override
+        public boolean updateDocument(XWikiDocument document)
+        {
+            this.update.run();
+
+            return false;
+        }
+    }
+
+    @Priority(2000)
+    private static class LowPriorityTestDocumentInitializer extends TestDocumentInitializer
+    {
+        LowPriorityTestDocumentInitializer(DocumentReference documentReference, Runnable update)
+        {
+            super(documentReference, update);
+        }
+    }
+
     @MockComponent
     private DocumentRevisionProvider documentRevisionProvider;
 
@@ -665,4 +714,73 @@ void getSkinFileWithMinification() throws Exception
         when(currentSkin.getResource("test.min.png")).thenReturn(pngMinified);
         assertNull(this.xwiki.getSkinFile("test.png", this.context));
     }
+
+    private void registerMandatoryDocumentInitializer(String hint, int priority,
+        MandatoryDocumentInitializer initializer) throws Exception
+    {
+        DefaultComponentDescriptor<MandatoryDocumentInitializer> descriptor = new DefaultComponentDescriptor<>();
+        descriptor.setRoleType(MandatoryDocumentInitializer.class);
+        descriptor.setRoleHint(hint);
+        descriptor.setRoleHintPriority(priority);
+        descriptor.setImplementation(initializer.getClass());
+        this.componentManager.registerComponent(descriptor, initializer);
+    }
+
+    @Test
+    void initializeMandatoryDocumentsInParallel() throws Exception
+    {
+        when(this.xwikiCfgConfigurationSource.getProperty("xwiki.mandatoryDocuments.skipUnchanged", false))
+            .thenReturn(false);
+        when(this.xwikiCfgConfigurationSource.getProperty("xwiki.mandatoryDocuments.threads", 1)).thenReturn(4);
+        this.componentManager.registerMockComponent(JobProgressManager.class);
+
+        // Each worker gets its own execution context and XWiki context
+        Execution execution = this.componentManager.getInstance(Execution.class);
+        ExecutionContextManager executionContextManager =
+            this.componentManager.registerMockComponent(ExecutionContextManager.class);
+        doAnswer(invocation -> {
+            XWikiContext xcontext = new XWikiContext();
+            xcontext.setWiki(this.xwiki);
+            ExecutionContext executionContext = invocation.getArgument(0);
+            executionContext.setProperty(XWikiContext.EXECUTIONCONTEXT_KEY, xcontext);
+            execution.setContext(executionContext);
+            return null;
+        }).when(executionContextManager).initialize(any(ExecutionContext.class));
+        Provider<XWikiContext> xcontextProvider =
+            this.componentManager.registerMockComponent(XWikiContext.TYPE_PROVIDER);
+        when(xcontextProvider.get()).thenAnswer(
+            invocation -> execution.getContext().getProperty(XWikiContext.EXECUTIONCONTEXT_KEY));
+
+        // The two initializers with the default priority wait for each other, which is possible only in parallel
+        CountDownLatch latch = new CountDownLatch(2);
+        List<String> initialized = Collections.synchronizedList(new ArrayList<>());
+        List<Boolean> parallel = Collections.synchronizedList(new ArrayList<>());
+        Runnable defaultPriorityUpdate = () -> {
+            latch.countDown();
+            try {
+                parallel.add(latch.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            initialized.add(Thread.currentThread().getName());
+        };
+        List<String> initializedBeforeLowPriority = new ArrayList<>();
+
+        // The initializer with a lower priority relies on the others being finished
+        registerMandatoryDocumentInitializer("low", 2000,
+            new LowPriorityTestDocumentInitializer(new DocumentReference("wiki", "Space", "Low"),
+                () -> initializedBeforeLowPriority.addAll(initialized)));
+        registerMandatoryDocumentInitializer("first", 1000,
+            new TestDocumentInitializer(new DocumentReference("wiki", "Space", "First"), defaultPriorityUpdate));
+        registerMandatoryDocumentInitializer("second", 1000,
+            new TestDocumentInitializer(new DocumentReference("wiki", "Space", "Second"), defaultPriorityUpdate));
+
+        this.context.setWikiId("wiki");
+        this.xwiki.initializeMandatoryDocuments(this.context);
+
+        assertEquals(Arrays.asList(true, true), parallel);
+        assertEquals(2, initializedBeforeLowPriority.size());
+        assertTrue(initializedBeforeLowPriority.get(0).startsWith("Mandatory documents initializer"));
+        assertTrue(initializedBeforeLowPriority.get(1).startsWith("Mandatory documents initializer"));
+    }
 }
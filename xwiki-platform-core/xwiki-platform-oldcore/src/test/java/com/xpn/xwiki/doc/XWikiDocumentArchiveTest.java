@@ -413,6 +413,41 @@ void verifyDiffAndFullRevisionAlgorithm() throws Exception
         assertFalse(archive.getNode(new Version(6, 1)).isDiff());
     }
 
+    @Test
+    void addCheckpoints() throws Exception
+    {
+        XWikiDocument doc = new XWikiDocument(new DocumentReference("Test", "Test", "Test"));
+        XWikiDocumentArchive archive = new XWikiDocumentArchive(doc.getId());
+        doc.setDocumentArchive(archive);
+        for (int i = 1; i <= 12; ++i) {
+            addRevisionToHistory(archive, doc, "content " + i + ".1", "XWiki.author", i + ".1");
+        }
+
+        // A JRCS archive (as found in imported documents) only contains the full content of the latest version
+        XWikiDocumentArchive importedArchive = new XWikiDocumentArchive(doc.getId());
+        importedArchive.setArchive(archive.getArchive(this.context));
+        importedArchive.getUpdatedNodeContents().clear();
+        assertEquals(new Version(12, 1), importedArchive.getNextFullVersion(new Version(1, 1)));
+
+        assertTrue(importedArchive.addCheckpoints(this.context));
+
+        // Never more than 4 consecutive diffs
+        assertFalse(importedArchive.getNode(new Version(12, 1)).isDiff());
+        assertFalse(importedArchive.getNode(new Version(7, 1)).isDiff());
+        assertFalse(importedArchive.getNode(new Version(2, 1)).isDiff());
+        assertTrue(importedArchive.getNode(new Version(1, 1)).isDiff());
+        assertTrue(importedArchive.getNode(new Version(6, 1)).isDiff());
+        assertEquals(2, importedArchive.getUpdatedNodeContents().size());
+        for (int i = 1; i <= 12; ++i) {
+            Version version = new Version(i, 1);
+            assertEquals(archive.getVersionXml(version, this.context),
+                importedArchive.getVersionXml(version, this.context));
+        }
+
+        // Nothing left to do
+        assertFalse(importedArchive.addCheckpoints(this.context));
+    }
+
     private void addRevisionToHistory(XWikiDocumentArchive archive, XWikiDocument document, String content,
         String author, String comment) throws XWikiException
     {
@@ -20,6 +20,7 @@
 package com.xpn.xwiki.doc;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 
@@ -29,6 +30,7 @@
 import org.xwiki.configuration.ConfigurationSource;
 import org.xwiki.display.internal.DisplayConfiguration;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.syntax.Syntax;
 import org.xwiki.rendering.transformation.RenderingContext;
 import org.xwiki.security.authorization.Right;
@@ -51,6 +53,8 @@
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
@@ -483,4 +487,24 @@ public void getRenderedContentTextRights() throws Exception
         assertEquals("<p>callerwiki:XWiki.calleruser Space.Page authorwiki:XWiki.contentauthor</p>",
             apiDocument.getRenderedContent(content, Syntax.XWIKI_2_1.toIdString(), Syntax.XHTML_1_0.toIdString()));
     }
+
+    @Test
+    void getReadOnlyXDOM()
+    {
+        this.document.setContent("**bold**");
+
+        XDOM xdom = this.document.getReadOnlyXDOM();
+        assertSame(xdom, this.document.getReadOnlyXDOM());
+        assertEquals(1, xdom.getChildren().size());
+
+        // The modifiable copy does not share anything with the cached XDOM
+        XDOM copy = this.document.getXDOM();
+        assertNotSame(xdom, copy);
+        copy.setChildren(Collections.emptyList());
+        assertEquals(1, this.document.getReadOnlyXDOM().getChildren().size());
+
+        // The cached XDOM is reset when the content is modified
+        this.document.setContent("//italic//");
+        assertNotSame(xdom, this.document.getReadOnlyXDOM());
+    }
 }
@@ -19,6 +19,13 @@
  */
 package com.xpn.xwiki.internal.cache;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Assert;
 
 import org.jmock.Expectations;
@@ -102,4 +109,77 @@ public void testEventBasedCleanup() throws Exception
         Assert.assertNull(this.cache.get(this.document.getDocumentReference()));
         Assert.assertNull(this.cache.get(this.document.getDocumentReference(), "ext1", "ext2"));
     }
+
+    @Test
+    public void testDependencyBasedCleanup() throws Exception
+    {
+        XWikiDocument dependency = new XWikiDocument(new DocumentReference("wiki", "space", "dependency"));
+
+        this.cache.set("data", Collections.singleton(dependency.getDocumentReference()),
+            this.document.getDocumentReference(), "ext1");
+        this.cache.set("data2", this.document.getDocumentReference(), "ext2");
+
+        ObservationManager observationManager = getComponentManager().getInstance(ObservationManager.class);
+        observationManager.notify(new DocumentUpdatedEvent(dependency.getDocumentReference()), dependency,
+            getContext());
+
+        Assert.assertNull(this.cache.get(this.document.getDocumentReference(), "ext1"));
+        Assert.assertEquals("data2", this.cache.get(this.document.getDocumentReference(), "ext2"));
+    }
+
+    @Test
+    public void testConcurrentDependencyMapping() throws Exception
+    {
+        DocumentReference dependency = new DocumentReference("wiki", "space", "dependency");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; ++i) {
+                String extension = "ext" + i;
+                futures.add(executor.submit(() -> this.cache.set(extension, Collections.singleton(dependency),
+                    this.document.getDocumentReference(), extension)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        this.cache.removeAll(dependency);
+
+        // None of the dependency mappings was lost
+        for (int i = 0; i < 100; ++i) {
+            Assert.assertNull(this.cache.get(this.document.getDocumentReference(), "ext" + i));
+        }
+    }
+
+    @Test
+    public void testEvictedMappingRemovesEntries() throws Exception
+    {
+        DefaultDocumentCache<String> smallCache =
+            (DefaultDocumentCache<String>) getComponentManager().getInstance(DocumentCache.class);
+
+        CacheConfiguration cacheConfiguration = new CacheConfiguration();
+        cacheConfiguration.setConfigurationId("documentcachetest.small");
+        LRUEvictionConfiguration lru = new LRUEvictionConfiguration();
+        lru.setMaxEntries(1);
+        cacheConfiguration.put(LRUEvictionConfiguration.CONFIGURATIONID, lru);
+        smallCache.create(cacheConfiguration);
+
+        try {
+            // More dependencies than the mapping cache can hold
+            List<DocumentReference> dependencies = new ArrayList<>();
+            for (int i = 0; i < 50; ++i) {
+                dependencies.add(new DocumentReference("wiki", "space", "dependency" + i));
+            }
+            smallCache.set("data", dependencies, this.document.getDocumentReference());
+
+            // The entry cannot be invalidated anymore by all its dependencies so it's removed
+            Assert.assertNull(smallCache.get(this.document.getDocumentReference()));
+        } finally {
+            smallCache.dispose();
+        }
+    }
 }
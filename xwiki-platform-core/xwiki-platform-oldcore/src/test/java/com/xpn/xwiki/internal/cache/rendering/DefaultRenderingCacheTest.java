@@ -30,7 +30,9 @@
 import org.junit.Test;
 import org.xwiki.bridge.event.DocumentUpdatedEvent;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.ObjectReference;
 import org.xwiki.observation.ObservationManager;
+import org.xwiki.rendering.async.AsyncContext;
 import org.xwiki.test.internal.MockConfigurationSource;
 
 import com.xpn.xwiki.XWiki;
@@ -137,6 +139,53 @@ public void testGetSetRenderedContent() throws Exception
             getContext()));
     }
 
+    @Test
+    public void testGetRenderedContentWithDependencies() throws Exception
+    {
+        getConfigurationSource().setProperty("core.renderingcache.documents",
+            Collections.singletonList(this.document.getPrefixedFullName()));
+
+        AsyncContext asyncContext = getComponentManager().getInstance(AsyncContext.class);
+        XWikiDocument includedDocument = new XWikiDocument(new DocumentReference("wiki", "space", "included"));
+
+        Assert.assertEquals("renderedContent", this.renderingCache
+            .getRenderedContent(this.document.getDocumentReference(), "source", getContext(), () -> {
+                asyncContext.useEntity(new ObjectReference("Space.Class[0]", includedDocument.getDocumentReference()));
+
+                return "renderedContent";
+            }));
+
+        Assert.assertEquals("renderedContent", this.renderingCache
+            .getRenderedContent(this.document.getDocumentReference(), "source", getContext(), () -> "other"));
+
+        ObservationManager observationManager = getComponentManager().getInstance(ObservationManager.class);
+        observationManager.notify(new DocumentUpdatedEvent(includedDocument.getDocumentReference()),
+            includedDocument, getContext());
+
+        Assert.assertNull(this.renderingCache.getRenderedContent(this.document.getDocumentReference(), "source",
+            getContext()));
+    }
+
+    @Test
+    public void testSetRenderedContentTooLarge() throws Exception
+    {
+        getConfigurationSource().setProperty("core.renderingcache.documents",
+            Collections.singletonList(this.document.getPrefixedFullName()));
+        getConfigurationSource().setProperty("core.renderingcache.maxentrysize", 5);
+
+        this.renderingCache.setRenderedContent(this.document.getDocumentReference(), "source", "renderedContent",
+            getContext());
+
+        Assert.assertNull(this.renderingCache.getRenderedContent(this.document.getDocumentReference(), "source",
+            getContext()));
+
+        this.renderingCache.setRenderedContent(this.document.getDocumentReference(), "source", "small",
+            getContext());
+
+        Assert.assertEquals("small",
+            this.renderingCache.getRenderedContent(this.document.getDocumentReference(), "source", getContext()));
+    }
+
 
     private static class TestRenderingCacheAware extends XWikiDefaultPlugin implements RenderingCacheAware {
         public TestRenderingCacheAware(String name, String className, XWikiContext context) {
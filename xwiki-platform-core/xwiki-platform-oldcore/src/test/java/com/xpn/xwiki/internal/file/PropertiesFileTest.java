@@ -0,0 +1,110 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.file;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link PropertiesFile}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class PropertiesFileTest
+{
+    @XWikiTempDir
+    private File directory;
+
+    private File file;
+
+    private PropertiesFile properties;
+
+    @BeforeEach
+    void beforeEach()
+    {
+        this.file = new File(this.directory, "cache/test.properties");
+        this.properties = new PropertiesFile(this.file, "test properties");
+    }
+
+    private Properties load() throws Exception
+    {
+        Properties stored = new Properties();
+        try (InputStream stream = Files.newInputStream(this.file.toPath())) {
+            stored.load(stream);
+        }
+
+        return stored;
+    }
+
+    @Test
+    void setAndGet() throws Exception
+    {
+        assertNull(this.properties.get("key"));
+
+        this.properties.set("key", "value");
+        this.properties.set("other", "other value");
+
+        assertEquals("value", this.properties.get("key"));
+
+        Properties stored = load();
+        assertEquals("value", stored.getProperty("key"));
+        assertEquals("other value", stored.getProperty("other"));
+        assertFalse(new File(this.file.getPath() + ".tmp").exists());
+
+        this.properties.set("key", null);
+
+        assertNull(this.properties.get("key"));
+        assertNull(load().getProperty("key"));
+    }
+
+    @Test
+    void getExisting() throws Exception
+    {
+        FileUtils.write(this.file, "key=value\n", ISO_8859_1);
+
+        assertEquals("value", this.properties.get("key"));
+    }
+
+    @Test
+    void clear() throws Exception
+    {
+        FileUtils.write(this.file, "key=value\nother=other value\n", ISO_8859_1);
+
+        this.properties.clear();
+
+        assertNull(this.properties.get("key"));
+        assertTrue(load().isEmpty());
+    }
+}
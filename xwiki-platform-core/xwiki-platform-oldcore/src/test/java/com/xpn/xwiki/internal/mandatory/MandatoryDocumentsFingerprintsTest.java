@@ -0,0 +1,205 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.mandatory;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import javax.inject.Named;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.environment.Environment;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.MandatoryDocumentInitializer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link MandatoryDocumentsFingerprints}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class MandatoryDocumentsFingerprintsTest
+{
+    private static final DocumentReference DOCUMENT_REFERENCE =
+        new DocumentReference("wiki", "XWiki", "XWikiPreferences");
+
+    @XWikiTempDir
+    private File permanentDirectory;
+
+    @InjectMockComponents
+    private MandatoryDocumentsFingerprints fingerprints;
+
+    @MockComponent
+    private Environment environment;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    @Named("current")
+    private DocumentReferenceResolver<EntityReference> resolver;
+
+    @MockComponent
+    @Named("local")
+    private EntityReferenceSerializer<String> localSerializer;
+
+    @MockComponent
+    @Named("xwikicfg")
+    private ConfigurationSource xwikicfg;
+
+    @MockComponent
+    @Named("xwikiproperties")
+    private ConfigurationSource xwikiproperties;
+
+    private XWikiContext xcontext = mock(XWikiContext.class);
+
+    private Query query = mock(Query.class, RETURNS_SELF);
+
+    private MandatoryDocumentInitializer initializer = mock(MandatoryDocumentInitializer.class);
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        when(this.environment.getPermanentDirectory()).thenReturn(this.permanentDirectory);
+        when(this.xcontext.getWikiId()).thenReturn("wiki");
+
+        LocalDocumentReference localReference = new LocalDocumentReference(DOCUMENT_REFERENCE);
+        when(this.initializer.getDocumentReference()).thenReturn(localReference);
+        when(this.resolver.resolve(localReference)).thenReturn(DOCUMENT_REFERENCE);
+        when(this.localSerializer.serialize(DOCUMENT_REFERENCE)).thenReturn("XWiki.XWikiPreferences");
+
+        when(this.queryManager.createQuery(anyString(), any())).thenReturn(this.query);
+    }
+
+    @Test
+    void compute() throws Exception
+    {
+        List<MandatoryDocumentInitializer> initializers = Collections.singletonList(this.initializer);
+
+        when(this.query.execute()).thenReturn(
+            Collections.singletonList(new Object[] {"XWiki.XWikiPreferences", "", "1.1"}),
+            Collections.singletonList(new Object[] {"XWiki.XWikiPreferences", null, "1.1"}),
+            Collections.singletonList(new Object[] {"XWiki.XWikiPreferences", "", "2.1"}),
+            Collections.emptyList());
+
+        String fingerprint = this.fingerprints.compute(initializers, this.xcontext);
+
+        // Oracle returns null instead of the empty string
+        assertEquals(fingerprint, this.fingerprints.compute(initializers, this.xcontext));
+
+        // The document was modified
+        assertNotEquals(fingerprint, this.fingerprints.compute(initializers, this.xcontext));
+
+        // The document was deleted
+        assertNotEquals(fingerprint, this.fingerprints.compute(initializers, this.xcontext));
+    }
+
+    @Test
+    void computeWhenInitializersChange() throws Exception
+    {
+        when(this.query.execute())
+            .thenReturn(Collections.singletonList(new Object[] {"XWiki.XWikiPreferences", "", "1.1"}));
+
+        String fingerprint = this.fingerprints.compute(Collections.singletonList(this.initializer), this.xcontext);
+
+        // A mandatory document of another wiki is ignored
+        MandatoryDocumentInitializer otherInitializer = mock(MandatoryDocumentInitializer.class);
+        DocumentReference otherReference = new DocumentReference("otherwiki", "XWiki", "XWikiPreferences");
+        when(otherInitializer.getDocumentReference()).thenReturn(otherReference);
+        when(this.resolver.resolve(otherReference)).thenReturn(otherReference);
+
+        assertEquals(fingerprint,
+            this.fingerprints.compute(List.of(this.initializer, otherInitializer), this.xcontext));
+
+        // A new mandatory document
+        MandatoryDocumentInitializer newInitializer = mock(MandatoryDocumentInitializer.class);
+        DocumentReference newReference = new DocumentReference("wiki", "XWiki", "XWikiUsers");
+        when(newInitializer.getDocumentReference()).thenReturn(newReference);
+        when(this.resolver.resolve(newReference)).thenReturn(newReference);
+        when(this.localSerializer.serialize(newReference)).thenReturn("XWiki.XWikiUsers");
+
+        assertNotEquals(fingerprint,
+            this.fingerprints.compute(List.of(this.initializer, newInitializer), this.xcontext));
+    }
+
+    @Test
+    void computeWhenConfigurationChanges() throws Exception
+    {
+        List<MandatoryDocumentInitializer> initializers = Collections.singletonList(this.initializer);
+
+        when(this.query.execute())
+            .thenReturn(Collections.singletonList(new Object[] {"XWiki.XWikiPreferences", "", "1.1"}));
+        when(this.xwikicfg.getKeys()).thenReturn(List.of("xwiki.preferences.redirect"));
+        when(this.xwikicfg.getProperty("xwiki.preferences.redirect")).thenReturn("0", "0", "1");
+
+        String fingerprint = this.fingerprints.compute(initializers, this.xcontext);
+        assertEquals(fingerprint, this.fingerprints.compute(initializers, this.xcontext));
+
+        // A property of xwiki.cfg was modified
+        String modifiedFingerprint = this.fingerprints.compute(initializers, this.xcontext);
+        assertNotEquals(fingerprint, modifiedFingerprint);
+
+        // A property was added to xwiki.properties
+        when(this.xwikiproperties.getKeys()).thenReturn(List.of("extension.repositories"));
+        when(this.xwikiproperties.getProperty("extension.repositories")).thenReturn("local:maven:file://repository");
+
+        assertNotEquals(modifiedFingerprint, this.fingerprints.compute(initializers, this.xcontext));
+    }
+
+    @Test
+    void setAndGet()
+    {
+        assertNull(this.fingerprints.get("wiki"));
+
+        this.fingerprints.set("wiki", "fingerprint");
+
+        assertEquals("fingerprint", this.fingerprints.get("wiki"));
+        assertTrue(new File(this.permanentDirectory, "cache/mandatory/fingerprints.properties").exists());
+
+        this.fingerprints.set("wiki", null);
+
+        assertNull(this.fingerprints.get("wiki"));
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.observation.remote.converter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.bridge.event.ActionExecutedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.bridge.event.DocumentVersionRangeDeletedEvent;
+import org.xwiki.bridge.event.WikiDeletedEvent;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.observation.event.filter.RegexEventFilter;
+import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validate {@link XWikiEventDataCodec}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class XWikiEventDataCodecTest
+{
+    private static final DocumentReference DOCUMENT_REFERENCE =
+        new DocumentReference("wiki", List.of("space1", "space2"), "page", Locale.FRENCH);
+
+    @InjectMockComponents
+    private XWikiEventDataCodec codec;
+
+    private byte[] encode(RemoteEventData remoteEvent) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            assertTrue(this.codec.encode(remoteEvent, output));
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private RemoteEventData decode(byte[] bytes) throws IOException
+    {
+        return this.codec.decode(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    private Serializable context()
+    {
+        HashMap<String, Serializable> context = new HashMap<>();
+        context.put(AbstractXWikiEventConverter.CONTEXT_WIKI, "wiki");
+        context.put(AbstractXWikiEventConverter.CONTEXT_USER, null);
+
+        return context;
+    }
+
+    @Test
+    void documentEvent() throws Exception
+    {
+        HashMap<String, Serializable> source = new HashMap<>();
+        source.put(AbstractXWikiEventConverter.DOC_NAME, DOCUMENT_REFERENCE);
+        source.put(AbstractXWikiEventConverter.DOC_VERSION, "2.1");
+        source.put(AbstractXWikiEventConverter.DOC_LANGUAGE, "fr");
+        RemoteEventData remoteEvent =
+            new RemoteEventData(new DocumentUpdatedEvent(DOCUMENT_REFERENCE), source, context());
+
+        byte[] bytes = encode(remoteEvent);
+        RemoteEventData decoded = decode(bytes);
+
+        assertEquals(remoteEvent.getEvent(), decoded.getEvent());
+        assertEquals(DOCUMENT_REFERENCE, ((DocumentUpdatedEvent) decoded.getEvent()).getDocumentReference());
+        assertEquals(source, decoded.getSource());
+        assertEquals(context(), decoded.getData());
+
+        // Make sure it's actually more compact than Java serialization
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(serialized)) {
+            output.writeObject(remoteEvent);
+        }
+        assertTrue(bytes.length < serialized.size() / 2);
+    }
+
+    @Test
+    void documentVersionRangeDeletedEvent() throws Exception
+    {
+        RemoteEventData remoteEvent = new RemoteEventData(
+            new DocumentVersionRangeDeletedEvent(DOCUMENT_REFERENCE, "1.1", "3.1"), null, context());
+
+        DocumentVersionRangeDeletedEvent event =
+            (DocumentVersionRangeDeletedEvent) decode(encode(remoteEvent)).getEvent();
+
+        assertEquals(DOCUMENT_REFERENCE, event.getDocumentReference());
+        assertEquals("1.1", event.getFrom());
+        assertEquals("3.1", event.getTo());
+    }
+
+    @Test
+    void wikiAndActionEvents() throws Exception
+    {
+        RemoteEventData remoteEvent = new RemoteEventData(new WikiDeletedEvent("wiki"), "wiki", null);
+
+        RemoteEventData decoded = decode(encode(remoteEvent));
+
+        assertEquals("wiki", ((WikiDeletedEvent) decoded.getEvent()).getWikiId());
+        assertEquals("wiki", decoded.getSource());
+
+        remoteEvent = new RemoteEventData(new ActionExecutedEvent("upload"), null, null);
+
+        assertEquals(remoteEvent.getEvent(), decode(encode(remoteEvent)).getEvent());
+    }
+
+    @Test
+    void unsupportedEvents() throws Exception
+    {
+        DataOutputStream output = new DataOutputStream(new ByteArrayOutputStream());
+
+        assertFalse(this.codec.encode(
+            new RemoteEventData(new DocumentUpdatedEvent(new RegexEventFilter(".*")), null, null), output));
+        assertFalse(this.codec.encode(new RemoteEventData(new DocumentUpdatedEvent(), 42, null), output));
+        assertFalse(this.codec.encode(new RemoteEventData("event", null, null), output));
+        assertEquals(0, output.size());
+    }
+}
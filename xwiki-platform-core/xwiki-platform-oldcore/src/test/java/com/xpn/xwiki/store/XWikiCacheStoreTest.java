@@ -19,8 +19,23 @@
  */
 package com.xpn.xwiki.store;
 
+import java.util.ArrayList;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.xwiki.cache.Cache;
 import org.xwiki.cache.CacheManager;
 import org.xwiki.model.internal.reference.UidStringEntityReferenceSerializer;
@@ -29,6 +44,7 @@
 import org.xwiki.observation.remote.RemoteObservationManagerContext;
 import org.xwiki.test.annotation.ComponentList;
 
+import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.test.MockitoOldcore;
@@ -36,13 +52,19 @@
 import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
 
 import static com.xpn.xwiki.test.mockito.OldcoreMatchers.isCacheConfiguration;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -64,6 +86,14 @@
 
     private Cache<Boolean> existCache;
 
+    private Cache<XWikiDocument> staleCache;
+
+    private XWikiStoreInterface blockingStore;
+
+    private CountDownLatch loading;
+
+    private CountDownLatch loaded;
+
     @BeforeEach
     void beforeEach() throws Exception
     {
@@ -71,6 +101,9 @@ void beforeEach() throws Exception
         this.oldcore.getMocker().registerMockComponent(ObservationManager.class);
 
         CacheManager cacheManager = this.oldcore.getMocker().registerMockComponent(CacheManager.class);
+        staleCache = mock(Cache.class);
+        when(cacheManager.<XWikiDocument>createNewCache(isCacheConfiguration("xwiki.store.stalepagecache")))
+            .thenReturn(staleCache);
         cache = mock(Cache.class);
         when(cacheManager.<XWikiDocument>createNewCache(isCacheConfiguration("xwiki.store.pagecache"))).thenReturn(
             cache);
@@ -142,4 +175,342 @@ void saveXWikiDocumentFailing() throws XWikiException
         verify(this.cache).remove("4:wiki5:space4:page0:");
         verify(this.existCache).remove("4:wiki5:space4:page0:");
     }
+
+    private void initializeBlockingStore() throws XWikiException
+    {
+        this.loading = new CountDownLatch(1);
+        this.loaded = new CountDownLatch(1);
+        this.blockingStore = mock(XWikiStoreInterface.class);
+        when(this.blockingStore.loadXWikiDoc(any(), any())).thenAnswer(invocation -> {
+            this.loading.countDown();
+            this.loaded.await();
+
+            XWikiDocument document = invocation.getArgument(0);
+            document.setNew(false);
+
+            return document;
+        });
+    }
+
+    private Thread load(XWikiCacheStore store, DocumentReference reference, AtomicReference<XWikiDocument> result)
+    {
+        XWikiContext xcontext = this.oldcore.getXWikiContext();
+        Thread thread = new Thread(() -> {
+            try {
+                result.set(store.loadXWikiDoc(new XWikiDocument(reference), xcontext));
+            } catch (XWikiException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+
+        return thread;
+    }
+
+    @Test
+    void loadXWikiDocConcurrently() throws Exception
+    {
+        this.oldcore.getXWikiContext().setWikiId("wiki");
+        initializeBlockingStore();
+        XWikiCacheStore store = new XWikiCacheStore(this.blockingStore, this.oldcore.getXWikiContext());
+        DocumentReference reference = new DocumentReference("wiki", "space", "page");
+
+        AtomicReference<XWikiDocument> firstResult = new AtomicReference<>();
+        Thread first = load(store, reference, firstResult);
+        this.loading.await();
+
+        AtomicReference<XWikiDocument> secondResult = new AtomicReference<>();
+        Thread second = load(store, reference, secondResult);
+        // Wait for the second thread to wait for the load of the first one
+        while (second.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(10);
+        }
+
+        this.loaded.countDown();
+        first.join();
+        second.join();
+
+        assertFalse(firstResult.get().isNew());
+        assertSame(firstResult.get(), secondResult.get());
+        verify(this.blockingStore).loadXWikiDoc(any(), any());
+        verify(this.cache).set("4:wiki5:space4:page0:", firstResult.get());
+        assertEquals(1, store.getMissCount());
+        assertEquals(1, store.getCoalescedCount());
+        assertEquals(0, store.getHitCount());
+    }
+
+    @Test
+    void loadXWikiDocWhenConcurrentLoadTimesOut() throws Exception
+    {
+        this.oldcore.getMockXWikiCfg().setProperty("xwiki.store.cache.loadtimeout", 100L);
+        this.oldcore.getXWikiContext().setWikiId("wiki");
+        initializeBlockingStore();
+        XWikiCacheStore store = new XWikiCacheStore(this.blockingStore, this.oldcore.getXWikiContext());
+        DocumentReference reference = new DocumentReference("wiki", "space", "page");
+
+        AtomicReference<XWikiDocument> firstResult = new AtomicReference<>();
+        Thread first = load(store, reference, firstResult);
+        this.loading.await();
+
+        // Only the first load is blocked
+        XWikiDocument directDocument = new XWikiDocument(reference);
+        doReturn(directDocument).when(this.blockingStore).loadXWikiDoc(any(), any());
+
+        // Stop waiting for the blocked load and load the document directly, without caching it
+        assertSame(directDocument, store.loadXWikiDoc(new XWikiDocument(reference), this.oldcore.getXWikiContext()));
+        verify(this.cache, never()).set(any(), any());
+
+        this.loaded.countDown();
+        first.join();
+
+        assertNotSame(directDocument, firstResult.get());
+        verify(this.cache).set("4:wiki5:space4:page0:", firstResult.get());
+        assertEquals(2, store.getMissCount());
+        assertEquals(0, store.getCoalescedCount());
+    }
+
+    @Test
+    void loadXWikiDocReentrant() throws Exception
+    {
+        // Make sure the test doesn't end because the load times out
+        this.oldcore.getMockXWikiCfg().setProperty("xwiki.store.cache.loadtimeout", 3600000L);
+        XWikiContext xcontext = this.oldcore.getXWikiContext();
+        xcontext.setWikiId("wiki");
+        DocumentReference reference = new DocumentReference("wiki", "space", "page");
+
+        XWikiStoreInterface reentrantStore = mock(XWikiStoreInterface.class);
+        XWikiCacheStore store = new XWikiCacheStore(reentrantStore, xcontext);
+        AtomicBoolean reentered = new AtomicBoolean();
+        AtomicReference<XWikiDocument> reentrantResult = new AtomicReference<>();
+        when(reentrantStore.loadXWikiDoc(any(), any())).thenAnswer(invocation -> {
+            // Loading the document requires loading the document itself (e.g. to resolve the class it defines)
+            if (reentered.compareAndSet(false, true)) {
+                reentrantResult.set(store.loadXWikiDoc(new XWikiDocument(reference), xcontext));
+            }
+
+            XWikiDocument document = invocation.getArgument(0);
+            document.setNew(false);
+
+            return document;
+        });
+
+        XWikiDocument document = assertTimeoutPreemptively(Duration.ofSeconds(10),
+            () -> store.loadXWikiDoc(new XWikiDocument(reference), xcontext));
+
+        assertFalse(document.isNew());
+        assertNotSame(document, reentrantResult.get());
+        verify(reentrantStore, times(2)).loadXWikiDoc(any(), any());
+        // Only the outer load is cached
+        verify(this.cache).set("4:wiki5:space4:page0:", document);
+        verify(this.cache).set(any(), any());
+    }
+
+    @Test
+    void loadXWikiDocWhileRevalidating() throws Exception
+    {
+        this.oldcore.getMockXWikiCfg().setProperty("xwiki.store.cache.stalewhilerevalidate", true);
+        this.oldcore.getXWikiContext().setWikiId("wiki");
+        initializeBlockingStore();
+        XWikiCacheStore store = new XWikiCacheStore(this.blockingStore, this.oldcore.getXWikiContext());
+        DocumentReference reference = new DocumentReference("wiki", "space", "page");
+
+        // Remote invalidation of a cached document
+        XWikiDocument previousDocument = new XWikiDocument(reference);
+        when(this.cache.get("4:wiki5:space4:page0:")).thenReturn(previousDocument, (XWikiDocument) null);
+        store.invalidate(previousDocument);
+        verify(this.cache).remove("4:wiki5:space4:page0:");
+        verify(this.staleCache).set("4:wiki5:space4:page0:", previousDocument);
+        when(this.staleCache.get("4:wiki5:space4:page0:")).thenReturn(previousDocument);
+
+        AtomicReference<XWikiDocument> reloadResult = new AtomicReference<>();
+        Thread reload = load(store, reference, reloadResult);
+        this.loading.await();
+
+        // The previous version is returned while the document is being reloaded
+        assertSame(previousDocument,
+            store.loadXWikiDoc(new XWikiDocument(reference), this.oldcore.getXWikiContext()));
+        assertEquals(1, store.getStaleCount());
+
+        this.loaded.countDown();
+        reload.join();
+
+        assertFalse(reloadResult.get().isNew());
+        verify(this.cache).set("4:wiki5:space4:page0:", reloadResult.get());
+        verify(this.staleCache).remove("4:wiki5:space4:page0:");
+        verify(this.blockingStore).loadXWikiDoc(any(), any());
+    }
+
+    @Test
+    void loadXWikiDocs() throws Exception
+    {
+        XWikiStoreInterface bulkStore = mock(XWikiStoreInterface.class);
+        when(bulkStore.loadXWikiDocs(any(), any())).thenAnswer(invocation -> {
+            List<XWikiDocument> documents = new ArrayList<>();
+            for (DocumentReference reference : invocation.<Collection<DocumentReference>>getArgument(0)) {
+                XWikiDocument document = new XWikiDocument(reference);
+                document.setNew(reference.getName().equals("missing"));
+                documents.add(document);
+            }
+
+            return documents;
+        });
+        XWikiCacheStore store = new XWikiCacheStore(bulkStore, this.oldcore.getXWikiContext());
+
+        DocumentReference cachedReference = new DocumentReference("wiki", "space", "cached");
+        XWikiDocument cachedDocument = new XWikiDocument(cachedReference);
+        when(this.cache.get("4:wiki5:space6:cached0:")).thenReturn(cachedDocument);
+        DocumentReference notExistingReference = new DocumentReference("wiki", "space", "nopage");
+        when(this.existCache.get("4:wiki5:space6:nopage0:")).thenReturn(Boolean.FALSE);
+        DocumentReference pageReference = new DocumentReference("otherwiki", "space", "page");
+        DocumentReference missingReference = new DocumentReference("wiki", "space", "missing");
+
+        List<XWikiDocument> documents = store.loadXWikiDocs(
+            Arrays.asList(cachedReference, notExistingReference, pageReference, missingReference, pageReference),
+            this.oldcore.getXWikiContext());
+
+        assertEquals(5, documents.size());
+        assertSame(cachedDocument, documents.get(0));
+        assertTrue(documents.get(1).isNew());
+        assertEquals(notExistingReference, documents.get(1).getDocumentReference());
+        assertFalse(documents.get(2).isNew());
+        assertEquals(pageReference, documents.get(2).getDocumentReference());
+        assertTrue(documents.get(3).isNew());
+        assertEquals(missingReference, documents.get(3).getDocumentReference());
+        assertSame(documents.get(2), documents.get(4));
+
+        // Only the documents which are not in the cache are loaded, all at once
+        ArgumentCaptor<Collection<DocumentReference>> referencesCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(bulkStore).loadXWikiDocs(referencesCaptor.capture(), any());
+        assertEquals(Arrays.asList(pageReference, missingReference), new ArrayList<>(referencesCaptor.getValue()));
+        verify(bulkStore, never()).loadXWikiDoc(any(), any());
+
+        verify(this.cache).set("9:otherwiki5:space4:page0:", documents.get(2));
+        verify(this.existCache).set("9:otherwiki5:space4:page0:", Boolean.TRUE);
+        verify(this.existCache).set("4:wiki5:space7:missing0:", Boolean.FALSE);
+
+        assertEquals(2, store.getHitCount());
+        assertEquals(2, store.getMissCount());
+    }
+
+    private XWikiStoreInterface mockBulkStore() throws XWikiException
+    {
+        XWikiStoreInterface bulkStore = mock(XWikiStoreInterface.class);
+        when(bulkStore.loadXWikiDocs(any(), any())).thenAnswer(invocation -> {
+            List<XWikiDocument> documents = new ArrayList<>();
+            for (DocumentReference reference : invocation.<Collection<DocumentReference>>getArgument(0)) {
+                XWikiDocument document = new XWikiDocument(reference);
+                document.setNew(false);
+                documents.add(document);
+            }
+
+            return documents;
+        });
+        when(bulkStore.loadXWikiDoc(any(), any())).thenAnswer(invocation -> {
+            XWikiDocument document = invocation.getArgument(0);
+            document.setNew(false);
+
+            return document;
+        });
+
+        return bulkStore;
+    }
+
+    @Test
+    void loadXWikiDocsOverlapping() throws Exception
+    {
+        // Make sure the test doesn't end because the loads time out
+        this.oldcore.getMockXWikiCfg().setProperty("xwiki.store.cache.loadtimeout", 3600000L);
+        XWikiContext xcontext = this.oldcore.getXWikiContext();
+        xcontext.setWikiId("wiki");
+        XWikiStoreInterface bulkStore = mockBulkStore();
+        XWikiCacheStore store = new XWikiCacheStore(bulkStore, xcontext);
+
+        DocumentReference referenceA = new DocumentReference("wiki", "space", "A");
+        DocumentReference referenceB = new DocumentReference("wiki", "space", "B");
+
+        // Make sure each thread registered the load of its first document before looking at its second document, so
+        // that each thread finds its second document being loaded by the other thread
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        ThreadLocal<AtomicInteger> cacheAccesses = ThreadLocal.withInitial(AtomicInteger::new);
+        when(this.cache.get(any())).thenAnswer(invocation -> {
+            if (cacheAccesses.get().incrementAndGet() == 2) {
+                barrier.await(10, TimeUnit.SECONDS);
+            }
+
+            return null;
+        });
+
+        AtomicReference<List<XWikiDocument>> firstResult = new AtomicReference<>();
+        AtomicReference<List<XWikiDocument>> secondResult = new AtomicReference<>();
+        List<Thread> threads = Arrays.asList(new Thread(() -> {
+            try {
+                firstResult.set(store.loadXWikiDocs(Arrays.asList(referenceA, referenceB), xcontext));
+            } catch (XWikiException e) {
+                throw new RuntimeException(e);
+            }
+        }), new Thread(() -> {
+            try {
+                secondResult.set(store.loadXWikiDocs(Arrays.asList(referenceB, referenceA), xcontext));
+            } catch (XWikiException e) {
+                throw new RuntimeException(e);
+            }
+        }));
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join(10000);
+            assertFalse(thread.isAlive(), "The overlapping bulk loads are waiting for each other");
+        }
+
+        // Each thread loaded its first document and got the second one from the other thread
+        assertSame(firstResult.get().get(0), secondResult.get().get(1));
+        assertSame(firstResult.get().get(1), secondResult.get().get(0));
+        assertEquals(referenceA, firstResult.get().get(0).getDocumentReference());
+        assertEquals(referenceB, secondResult.get().get(0).getDocumentReference());
+        ArgumentCaptor<Collection<DocumentReference>> referencesCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(bulkStore, times(2)).loadXWikiDocs(referencesCaptor.capture(), any());
+        assertEquals(Set.of(List.of(referenceA), List.of(referenceB)), referencesCaptor.getAllValues().stream()
+            .map(references -> new ArrayList<>(references)).collect(Collectors.toSet()));
+        verify(bulkStore, never()).loadXWikiDoc(any(), any());
+        assertEquals(2, store.getCoalescedCount());
+    }
+
+    @Test
+    void loadXWikiDocsReentrant() throws Exception
+    {
+        // Make sure the test doesn't end because the load times out
+        this.oldcore.getMockXWikiCfg().setProperty("xwiki.store.cache.loadtimeout", 3600000L);
+        XWikiContext xcontext = this.oldcore.getXWikiContext();
+        xcontext.setWikiId("wiki");
+        XWikiStoreInterface bulkStore = mockBulkStore();
+        XWikiCacheStore store = new XWikiCacheStore(bulkStore, xcontext);
+
+        DocumentReference classReference = new DocumentReference("wiki", "space", "MyClass");
+        DocumentReference pageReference = new DocumentReference("wiki", "space", "page");
+
+        // The class defined in a document is needed to load the objects of the documents loaded with it
+        AtomicReference<XWikiDocument> classResult = new AtomicReference<>();
+        List<XWikiDocument> loadedDocuments = new ArrayList<>();
+        when(bulkStore.loadXWikiDocs(any(), any())).thenAnswer(invocation -> {
+            classResult.set(store.loadXWikiDoc(new XWikiDocument(classReference), xcontext));
+
+            for (DocumentReference reference : invocation.<Collection<DocumentReference>>getArgument(0)) {
+                XWikiDocument document = new XWikiDocument(reference);
+                document.setNew(false);
+                loadedDocuments.add(document);
+            }
+
+            return loadedDocuments;
+        });
+
+        List<XWikiDocument> documents = assertTimeoutPreemptively(Duration.ofSeconds(10),
+            () -> store.loadXWikiDocs(Arrays.asList(classReference, pageReference), xcontext));
+
+        assertEquals(loadedDocuments, documents);
+        // The class was loaded directly from the underlying store instead of waiting for the bulk load
+        assertFalse(classResult.get().isNew());
+        assertNotSame(documents.get(0), classResult.get());
+        verify(bulkStore).loadXWikiDoc(any(), any());
+        verify(this.cache).set("4:wiki5:space7:MyClass0:", documents.get(0));
+        verify(this.cache).set("4:wiki5:space4:page0:", documents.get(1));
+    }
 }
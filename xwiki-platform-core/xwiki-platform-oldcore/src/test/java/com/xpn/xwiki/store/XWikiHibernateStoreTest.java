@@ -22,9 +22,12 @@
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 import javax.inject.Named;
 import javax.inject.Provider;
@@ -63,6 +66,7 @@
 import com.xpn.xwiki.XWiki;
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiAttachment;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.internal.store.hibernate.HibernateStore;
 import com.xpn.xwiki.objects.BaseObject;
@@ -72,6 +76,7 @@
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -80,6 +85,7 @@
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -492,4 +498,84 @@ void loadBacklinksFromSubwiki() throws Exception
         verify(this.hibernateStore).beginTransaction();
         verify(this.hibernateStore).endTransaction(false);
     }
+
+    @Test
+    void loadXWikiDocs() throws Exception
+    {
+        when(this.hibernateStore.beginTransaction()).thenReturn(true);
+
+        DocumentReference existingReference = new DocumentReference("wiki", "Space", "Existing");
+        DocumentReference missingReference = new DocumentReference("wiki", "Space", "Missing");
+        DocumentReference otherWikiReference = new DocumentReference("otherwiki", "Space", "Existing");
+
+        XWikiDocument existingDocument = new XWikiDocument(existingReference);
+        existingDocument.setElements(XWikiDocument.HAS_ATTACHMENTS);
+        XWikiDocument otherWikiDocument = new XWikiDocument(otherWikiReference);
+        otherWikiDocument.setElements(0);
+
+        Query<XWikiDocument> documentQuery = mock(Query.class);
+        when(this.session.createQuery("from XWikiDocument as doc where doc.id in (:ids)", XWikiDocument.class))
+            .thenReturn(documentQuery);
+        // One query per wiki
+        when(documentQuery.list()).thenReturn(Arrays.asList(existingDocument), Arrays.asList(otherWikiDocument));
+
+        XWikiAttachment attachment = new XWikiAttachment(null, "file.txt");
+        attachment.setDocId(existingDocument.getId());
+        Query<XWikiAttachment> attachmentQuery = mock(Query.class);
+        when(this.session.createQuery("from XWikiAttachment as attach where attach.docId in (:docids)",
+            XWikiAttachment.class)).thenReturn(attachmentQuery);
+        when(attachmentQuery.list()).thenReturn(Arrays.asList(attachment));
+
+        List<XWikiDocument> documents = this.store.loadXWikiDocs(
+            Arrays.asList(existingReference, missingReference, otherWikiReference, existingReference), this.xcontext);
+
+        assertEquals(4, documents.size());
+        assertSame(existingDocument, documents.get(0));
+        assertFalse(existingDocument.isNew());
+        assertSame(attachment, existingDocument.getAttachment("file.txt"));
+        assertTrue(documents.get(1).isNew());
+        assertEquals(missingReference, documents.get(1).getDocumentReference());
+        assertSame(otherWikiDocument, documents.get(2));
+        assertFalse(otherWikiDocument.isNew());
+        assertSame(existingDocument, documents.get(3));
+
+        // The documents of each wiki are loaded with a single query
+        verify(documentQuery).setParameterList("ids",
+            new HashSet<>(Arrays.asList(existingDocument.getId(), new XWikiDocument(missingReference).getId())));
+        verify(documentQuery).setParameterList("ids", Set.of(otherWikiDocument.getId()));
+        verify(attachmentQuery).setParameterList("docids", Set.of(existingDocument.getId()));
+        verify(this.xcontext).setWikiId("wiki");
+        verify(this.xcontext).setWikiId("otherwiki");
+        verify(this.hibernateStore, times(2)).beginTransaction();
+    }
+
+    @Test
+    void loadXWikiDocsByBatches() throws Exception
+    {
+        when(this.hibernateStore.beginTransaction()).thenReturn(true);
+
+        Query<XWikiDocument> documentQuery = mock(Query.class);
+        when(this.session.createQuery("from XWikiDocument as doc where doc.id in (:ids)", XWikiDocument.class))
+            .thenReturn(documentQuery);
+
+        List<DocumentReference> references = new ArrayList<>();
+        for (int i = 0; i < 600; ++i) {
+            references.add(new DocumentReference("wiki", "Space", "Page" + i));
+        }
+
+        List<XWikiDocument> documents = this.store.loadXWikiDocs(references, this.xcontext);
+
+        assertEquals(600, documents.size());
+        for (int i = 0; i < 600; ++i) {
+            assertEquals(references.get(i), documents.get(i).getDocumentReference());
+            assertTrue(documents.get(i).isNew());
+        }
+
+        // The size of the IN clauses is limited
+        ArgumentCaptor<Collection> idsCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(documentQuery, times(2)).setParameterList(eq("ids"), idsCaptor.capture());
+        assertEquals(500, idsCaptor.getAllValues().get(0).size());
+        assertEquals(100, idsCaptor.getAllValues().get(1).size());
+        verify(this.hibernateStore, times(2)).beginTransaction();
+    }
 }
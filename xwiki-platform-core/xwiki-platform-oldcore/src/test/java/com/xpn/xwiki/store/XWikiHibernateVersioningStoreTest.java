@@ -0,0 +1,179 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.store;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.suigeneris.jrcs.rcs.Version;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.test.annotation.AllComponents;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.doc.XWikiDocumentArchive;
+import com.xpn.xwiki.doc.rcs.XWikiRCSNodeInfo;
+import com.xpn.xwiki.internal.store.hibernate.HibernateStore;
+import com.xpn.xwiki.test.MockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.InjectMockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link XWikiHibernateVersioningStore}.
+ *
+ * @version $Id$
+ */
+@OldcoreTest
+@AllComponents
+class XWikiHibernateVersioningStoreTest
+{
+    private static final int VERSIONS = 30;
+
+    @InjectMockitoOldcore
+    private MockitoOldcore oldcore;
+
+    @InjectMockComponents
+    private XWikiHibernateVersioningStore store;
+
+    @MockComponent
+    private HibernateStore hibernateStore;
+
+    private Session session = mock(Session.class, RETURNS_DEEP_STUBS);
+
+    private Query<XWikiRCSNodeInfo> query = mock(Query.class);
+
+    private XWikiContext context;
+
+    private XWikiDocument document;
+
+    private List<XWikiRCSNodeInfo> nodes;
+
+    @BeforeEach
+    void setUp() throws Exception
+    {
+        this.context = this.oldcore.getXWikiContext();
+
+        when(this.hibernateStore.getCurrentSession()).thenReturn(this.session);
+        when(this.hibernateStore.beginTransaction()).thenReturn(true);
+        when(this.session.createQuery(any(CriteriaQuery.class))).thenReturn(this.query);
+
+        // Build a history in which only the most recent version is stored entirely
+        this.document = new XWikiDocument(new DocumentReference("wiki", "Space", "Page"));
+        XWikiDocumentArchive archive =
+            new XWikiDocumentArchive(this.document.getDocumentReference().getWikiReference(), this.document.getId());
+        for (int i = 1; i <= VERSIONS; ++i) {
+            this.document.setContent("content " + i);
+            archive.updateArchive(this.document, "XWiki.author", new Date(), "comment " + i, null, this.context);
+        }
+        this.nodes = new ArrayList<>(archive.getNodes());
+        this.nodes.sort((node1, node2) -> node1.getVersion().compareVersions(node2.getVersion()));
+    }
+
+    private List<XWikiRCSNodeInfo> nodes(int from, int to)
+    {
+        return new ArrayList<>(this.nodes.subList(from, to));
+    }
+
+    @Test
+    void loadXWikiDocReadsPagesInOneTransaction() throws Exception
+    {
+        when(this.query.getResultList()).thenReturn(nodes(4, 24), nodes(24, VERSIONS));
+
+        XWikiDocument revision = this.store.loadXWikiDoc(this.document, "5.1", this.context);
+
+        assertEquals("content 5", revision.getContent());
+        assertEquals(new Version(5, 1), revision.getRCSVersion());
+        assertFalse(revision.isMostRecent());
+
+        // Both pages are read in the same transaction
+        verify(this.hibernateStore).beginTransaction();
+        verify(this.query, times(2)).getResultList();
+
+        // The second page starts after the last version of the first page instead of using an offset
+        CriteriaBuilder builder = this.session.getCriteriaBuilder();
+        verify(builder).greaterThan(Mockito.<Path<Integer>>any(), eq(24));
+        verify(builder).greaterThan(Mockito.<Path<Integer>>any(), eq(1));
+        verify(this.query, never()).setFirstResult(anyInt());
+    }
+
+    @Test
+    void loadXWikiDocMostRecent() throws Exception
+    {
+        when(this.query.getResultList()).thenReturn(nodes(VERSIONS - 1, VERSIONS));
+
+        XWikiDocument revision = this.store.loadXWikiDoc(this.document, VERSIONS + ".1", this.context);
+
+        assertEquals("content " + VERSIONS, revision.getContent());
+        assertTrue(revision.isMostRecent());
+        verify(this.query).getResultList();
+    }
+
+    @Test
+    void loadXWikiDocWithUnknownVersion() throws Exception
+    {
+        // The first version returned is more recent than the requested one
+        when(this.query.getResultList()).thenReturn(nodes(5, 25));
+
+        assertThrows(XWikiException.class, () -> this.store.loadXWikiDoc(this.document, "5.1", this.context));
+        verify(this.query).getResultList();
+    }
+
+    @Test
+    void getXWikiDocRevisionInfo() throws Exception
+    {
+        when(this.query.getResultList()).thenReturn(nodes(4, 5), Collections.emptyList());
+
+        assertSame(this.nodes.get(4), this.store.getXWikiDocRevisionInfo(this.document, new Version(5, 1),
+            this.context));
+        assertNull(this.store.getXWikiDocRevisionInfo(this.document, new Version(42, 1), this.context));
+
+        verify(this.query, times(2)).setMaxResults(1);
+    }
+}
@@ -47,6 +47,7 @@
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.suigeneris.jrcs.rcs.Version;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 
 import com.xpn.xwiki.criteria.impl.Period;
@@ -342,4 +343,43 @@ void testRCSNodeInfoQueryWithAllRange()
         verify(this.queryNodeInfo, never()).setFirstResult(anyInt());
         verify(this.queryNodeInfo, never()).setMaxResults(anyInt());
     }
+
+    @Test
+    void testRCSNodeInfoFromVersionQuery()
+    {
+        VersioningStoreQueryFactory.getRCSNodeInfoFromVersionQuery(this.session, 42L, new Version(2, 3), true, 10);
+
+        verify(this.criteriaQueryNodeInfo).where(this.predicatesCaptor.capture());
+        List<Predicate> predicates = Arrays.asList(this.predicatesCaptor.getValue());
+        assertEquals(3, predicates.size());
+        ComparisonPredicate idPredicate = (ComparisonPredicate) predicates.get(0);
+        assertEquals("mocked id.docId", idPredicate.getLeftHandOperand().toString());
+        verify(this.builder).greaterThan(Mockito.<Path<Integer>>any(), Mockito.eq(2));
+        verify(this.builder).greaterThanOrEqualTo(Mockito.<Path<Integer>>any(), Mockito.eq(3));
+
+        verify(this.criteriaQueryNodeInfo).orderBy(this.orderCaptor.capture());
+        List<Order> orders = Arrays.asList(this.orderCaptor.getValue());
+        assertEquals(2, orders.size());
+        assertEquals("mocked id.version1", orders.get(0).getExpression().toString());
+        assertTrue(orders.get(0).isAscending());
+        assertEquals("mocked id.version2", orders.get(1).getExpression().toString());
+        assertTrue(orders.get(1).isAscending());
+
+        verify(this.queryNodeInfo, never()).setFirstResult(anyInt());
+        verify(this.queryNodeInfo).setMaxResults(10);
+    }
+
+    @Test
+    void testRCSNodeInfoAfterVersionQuery()
+    {
+        VersioningStoreQueryFactory.getRCSNodeInfoFromVersionQuery(this.session, 42L, new Version(2, 3), false, 10);
+
+        // The next page starts strictly after the last version of the previous page
+        verify(this.builder).greaterThan(Mockito.<Path<Integer>>any(), Mockito.eq(2));
+        verify(this.builder).greaterThan(Mockito.<Path<Integer>>any(), Mockito.eq(3));
+        verify(this.builder, never()).greaterThanOrEqualTo(Mockito.<Path<Integer>>any(), anyInt());
+
+        verify(this.queryNodeInfo, never()).setFirstResult(anyInt());
+        verify(this.queryNodeInfo).setMaxResults(10);
+    }
 }
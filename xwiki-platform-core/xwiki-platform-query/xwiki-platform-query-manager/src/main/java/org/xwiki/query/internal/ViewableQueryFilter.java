@@ -19,8 +19,10 @@
  */
 package org.xwiki.query.internal;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -58,18 +60,35 @@ public String filterStatement(String statement, String language)
     @Override
     public List filterResults(List results)
     {
-        List<Object> filteredResults = new LinkedList<>();
+        List<EntityReference> entityReferences = new ArrayList<>(results.size());
         for (Object result : results) {
-            EntityReference entityReference = null;
-            if (result instanceof EntityReference) {
-                entityReference = (EntityReference) result;
-            } else if (result instanceof Object[] && ((Object[]) result)[0] instanceof EntityReference) {
-                entityReference = (EntityReference) ((Object[]) result)[0];
+            EntityReference entityReference = getEntityReference(result);
+            if (entityReference != null) {
+                entityReferences.add(entityReference);
             }
-            if (entityReference != null && this.authorization.hasAccess(Right.VIEW, entityReference)) {
+        }
+
+        // Check all the results at once, since they usually share most of their ancestors (e.g. the children of a
+        // tree node).
+        Map<EntityReference, Boolean> accesses = this.authorization.hasAccessToEach(Right.VIEW, entityReferences);
+
+        List<Object> filteredResults = new LinkedList<>();
+        for (Object result : results) {
+            EntityReference entityReference = getEntityReference(result);
+            if (entityReference != null && Boolean.TRUE.equals(accesses.get(entityReference))) {
                 filteredResults.add(result);
             }
         }
         return filteredResults;
     }
+
+    private EntityReference getEntityReference(Object result)
+    {
+        if (result instanceof EntityReference) {
+            return (EntityReference) result;
+        } else if (result instanceof Object[] && ((Object[]) result)[0] instanceof EntityReference) {
+            return (EntityReference) ((Object[]) result)[0];
+        }
+        return null;
+    }
 }
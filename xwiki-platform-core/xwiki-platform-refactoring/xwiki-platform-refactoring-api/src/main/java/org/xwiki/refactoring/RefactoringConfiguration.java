@@ -20,6 +20,7 @@
 package org.xwiki.refactoring;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * Provides the configurations for the refactoring module.
@@ -35,4 +36,26 @@
      * permanently
      */
     boolean isRecycleBinSkippingActivated();
+
+    /**
+     * @return the number of threads to use to parse and update the documents linking to a renamed or deleted
+     *     document, 1 to update them one by one in the refactoring job thread
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    default int getBackLinksUpdateThreads()
+    {
+        return 1;
+    }
+
+    /**
+     * @return the number of threads to use to process the documents of a space in parallel when copying, moving or
+     *     deleting it, 1 to process them one by one in the refactoring job thread
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    default int getSpaceOperationThreads()
+    {
+        return 1;
+    }
 }
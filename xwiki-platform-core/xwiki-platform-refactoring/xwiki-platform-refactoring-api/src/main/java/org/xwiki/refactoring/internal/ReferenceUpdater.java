@@ -19,6 +19,8 @@
  */
 package org.xwiki.refactoring.internal;
 
+import java.util.Collection;
+
 import org.xwiki.component.annotation.Role;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
@@ -39,4 +41,20 @@
      */
     void update(DocumentReference documentReference, EntityReference oldTargetReference,
         EntityReference newTargetReference);
+
+    /**
+     * Update the references in several documents.
+     *
+     * @param documentReferences the references of the documents in which to update the references
+     * @param oldTargetReference the previous reference of the renamed entity
+     * @param newTargetReference the new reference of the renamed entity
+     * @since 16.7.0RC1
+     */
+    default void update(Collection<DocumentReference> documentReferences, EntityReference oldTargetReference,
+        EntityReference newTargetReference)
+    {
+        for (DocumentReference documentReference : documentReferences) {
+            update(documentReference, oldTargetReference, newTargetReference);
+        }
+    }
 }
@@ -177,7 +177,7 @@ && isSpaceHomeReference(new DocumentReference(destination))) {
 
     protected void process(final SpaceReference source, final SpaceReference destination)
     {
-        visitDocuments(source, new Visitor<DocumentReference>()
+        visitDocumentsInParallel(source, new Visitor<DocumentReference>()
         {
             @Override
             public void visit(DocumentReference oldChildReference)
@@ -276,7 +276,9 @@ protected boolean copyOrMove(DocumentReference oldReference, DocumentReference n
         }
     }
 
-    private boolean confirmOverwrite(EntityReference source, EntityReference destination)
+    // Synchronized because the documents of a space can be processed by several threads and we don't want to ask
+    // several questions at the same time.
+    private synchronized boolean confirmOverwrite(EntityReference source, EntityReference destination)
     {
         if (this.overwriteAll == null) {
             OverwriteQuestion question = new OverwriteQuestion(source, destination);
@@ -19,15 +19,30 @@
  */
 package org.xwiki.refactoring.internal.job;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.inject.Inject;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextException;
+import org.xwiki.context.ExecutionContextManager;
 import org.xwiki.job.AbstractJob;
 import org.xwiki.job.GroupedJob;
+import org.xwiki.job.JobContext;
 import org.xwiki.job.JobGroupPath;
 import org.xwiki.job.Request;
+import org.xwiki.logging.LogQueue;
+import org.xwiki.logging.event.LoggerListener;
 import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
@@ -35,6 +50,7 @@
 import org.xwiki.model.reference.EntityReferenceTree;
 import org.xwiki.model.reference.EntityReferenceTreeNode;
 import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.refactoring.RefactoringConfiguration;
 import org.xwiki.refactoring.internal.ModelBridge;
 import org.xwiki.refactoring.job.EntityJobStatus;
 import org.xwiki.refactoring.job.EntityRequest;
@@ -73,6 +89,11 @@
 
     private static final String PREFERENCES_DOCUMENT_NAME = "WebPreferences";
 
+    /**
+     * The maximum number of sub trees which are processed but not yet reported, per worker thread.
+     */
+    private static final int MAX_PENDING_NODES_PER_THREAD = 4;
+
     /**
      * The component used to access the XWiki model and to perform low level operations on it.
      */
@@ -103,6 +124,18 @@
     @Inject
     private EntityReferenceProvider defaultEntityReferenceProvider;
 
+    @Inject
+    private RefactoringConfiguration refactoringConfiguration;
+
+    @Inject
+    private ExecutionContextManager executionContextManager;
+
+    @Inject
+    private Execution execution;
+
+    @Inject
+    private JobContext jobContext;
+
     @Override
     public JobGroupPath getGroupPath()
     {
@@ -272,6 +305,130 @@ protected void visitDocuments(SpaceReference spaceReference, Visitor<DocumentRef
         visitDocumentNodes(getDocumentReferenceTree(spaceReference), visitor);
     }
 
+    /**
+     * Same as {@link #visitDocuments(SpaceReference, Visitor)} but the children of the space are visited in parallel
+     * when the configuration allows it. Each child sub tree is still visited sequentially by a single worker thread and
+     * the space preferences document is visited by the job thread once all the other documents have been visited. The
+     * logs produced by the worker threads are reported in the job log in the order of the children.
+     *
+     * @param spaceReference the space whose documents to visit
+     * @param visitor the visitor, which must be thread safe
+     * @since 16.7.0RC1
+     */
+    protected void visitDocumentsInParallel(SpaceReference spaceReference, Visitor<DocumentReference> visitor)
+    {
+        int threads = this.refactoringConfiguration.getSpaceOperationThreads();
+        if (threads <= 1) {
+            visitDocuments(spaceReference, visitor);
+        } else {
+            EntityReferenceTreeNode node = getDocumentReferenceTree(spaceReference);
+            if (node != null) {
+                visitDocumentAncestorInParallel(node, visitor, threads);
+            }
+        }
+    }
+
+    /**
+     * Give a chance to the job to propagate some state of the job thread to the worker threads used to visit the
+     * documents in parallel. This method is called from the job thread.
+     *
+     * @param task the task to execute in a worker thread
+     * @return the task to execute in the worker thread
+     * @since 16.7.0RC1
+     */
+    protected Runnable wrapWorkerTask(Runnable task)
+    {
+        return task;
+    }
+
+    private void visitDocumentAncestorInParallel(EntityReferenceTreeNode node, Visitor<DocumentReference> visitor,
+        int threads)
+    {
+        Collection<EntityReferenceTreeNode> children = node.getChildren();
+        this.progressManager.pushLevelProgress(children.size(), this);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+            new BasicThreadFactory.Builder().namingPattern("XWiki refactoring worker thread %d").daemon(true).build());
+        try {
+            // Visit the space preferences document at the end as otherwise we may loose the space access rights.
+            EntityReferenceTreeNode spacePreferencesNode = null;
+            Deque<Future<LogQueue>> futures = new ArrayDeque<>();
+            int maxPending = threads * MAX_PENDING_NODES_PER_THREAD;
+            boolean interrupted = false;
+            for (Iterator<EntityReferenceTreeNode> it = children.iterator(); it.hasNext() && !interrupted;) {
+                EntityReferenceTreeNode child = it.next();
+                if (isSpacePreferencesReference(child.getReference())) {
+                    spacePreferencesNode = child;
+                } else {
+                    if (futures.size() >= maxPending) {
+                        interrupted = !reportWorkerStep(futures.poll());
+                    }
+                    Runnable task = wrapWorkerTask(() -> visitDocumentNodes(child, visitor));
+                    futures.add(executor.submit(() -> runWorkerTask(task)));
+                }
+            }
+            while (!futures.isEmpty() && !interrupted) {
+                interrupted = !reportWorkerStep(futures.poll());
+            }
+
+            if (spacePreferencesNode != null && !interrupted) {
+                visitDocumentAncestorStep(spacePreferencesNode, visitor);
+            }
+        } finally {
+            executor.shutdownNow();
+            this.progressManager.popLevelProgress(this);
+        }
+    }
+
+    /**
+     * @return {@code false} if the job thread was interrupted while waiting for the worker
+     */
+    private boolean reportWorkerStep(Future<LogQueue> future)
+    {
+        this.progressManager.startStep(this);
+        try {
+            // Replay the logs of the worker in the job thread so that they end up in the job log
+            future.get().log(this.logger);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.status.cancel();
+            this.logger.warn("The job has been interrupted while waiting for the documents to be processed.");
+
+            return false;
+        } catch (ExecutionException e) {
+            this.logger.error("Failed to process the documents in a worker thread.", e);
+        } finally {
+            this.progressManager.endStep(this);
+        }
+
+        return true;
+    }
+
+    private LogQueue runWorkerTask(Runnable task) throws ExecutionContextException
+    {
+        LogQueue logQueue = new LogQueue();
+
+        this.executionContextManager.initialize(new ExecutionContext());
+        try {
+            // Isolate the log so that it can be reported in the job log
+            this.loggerManager.pushLogListener(new LoggerListener(UUID.randomUUID().toString(), logQueue));
+            // Make the job listeners work the same way as in the job thread
+            this.jobContext.pushCurrentJob(this);
+            try {
+                setContextUser();
+
+                task.run();
+            } finally {
+                this.jobContext.popCurrentJob();
+                this.loggerManager.popLogListener();
+            }
+        } finally {
+            this.execution.removeContext();
+        }
+
+        return logQueue;
+    }
+
     private EntityReferenceTreeNode getDocumentReferenceTree(SpaceReference spaceReference)
     {
         return new EntityReferenceTree(this.modelBridge.getDocumentReferences(spaceReference)).get(spaceReference);
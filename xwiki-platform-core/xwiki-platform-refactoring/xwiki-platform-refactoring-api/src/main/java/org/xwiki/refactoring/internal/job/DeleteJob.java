@@ -116,9 +116,18 @@ private void process(DocumentReference documentReference) throws Exception
         }
     }
 
+    @Override
+    protected Runnable wrapWorkerTask(Runnable task)
+    {
+        // Make sure the documents deleted by the worker threads are part of the same batch
+        String batchId = this.batchOperationExecutor.getCurrentBatchId();
+
+        return () -> this.batchOperationExecutor.execute(task::run, batchId);
+    }
+
     private void process(SpaceReference spaceReference)
     {
-        visitDocuments(spaceReference, new Visitor<DocumentReference>()
+        visitDocumentsInParallel(spaceReference, new Visitor<DocumentReference>()
         {
             @Override
             public void visit(DocumentReference documentReference)
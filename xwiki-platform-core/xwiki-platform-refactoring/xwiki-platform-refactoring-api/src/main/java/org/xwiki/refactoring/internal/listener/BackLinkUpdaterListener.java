@@ -19,8 +19,10 @@
  */
 package org.xwiki.refactoring.internal.listener;
 
+import java.util.List;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -35,6 +37,7 @@
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.observation.event.AbstractLocalEventListener;
 import org.xwiki.observation.event.Event;
+import org.xwiki.refactoring.RefactoringConfiguration;
 import org.xwiki.refactoring.RefactoringException;
 import org.xwiki.refactoring.event.DocumentRenamedEvent;
 import org.xwiki.refactoring.internal.ModelBridge;
@@ -80,6 +83,9 @@ public class BackLinkUpdaterListener extends AbstractLocalEventListener
     @Inject
     private JobContext jobContext;
 
+    @Inject
+    private RefactoringConfiguration configuration;
+
     /**
      * Default constructor.
      */
@@ -143,6 +149,15 @@ private void updateBackLinks(DocumentReference source, DocumentReference target,
         // document to load and parse) since we have the information in the store
         Set<DocumentReference> backlinkDocumentReferences = this.modelBridge.getBackLinkedDocuments(source);
 
+        if (this.configuration.getBackLinksUpdateThreads() > 1) {
+            // Let the updater parse and update the documents in parallel
+            List<DocumentReference> editableDocumentReferences =
+                backlinkDocumentReferences.stream().filter(canEdit).collect(Collectors.toList());
+            this.updater.update(editableDocumentReferences, source, target);
+
+            return;
+        }
+
         this.progressManager.pushLevelProgress(backlinkDocumentReferences.size(), this);
 
         try {
@@ -21,6 +21,7 @@
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -60,6 +61,7 @@
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -257,6 +259,35 @@ void deleteSpace() throws Exception
         assertEquals("Skipping [wiki:Space.Bob] because it doesn't exist.", this.logCapture.getMessage(1));
     }
 
+    @Test
+    void deleteSpaceInParallel() throws Exception
+    {
+        when(this.configuration.getSpaceOperationThreads()).thenReturn(2);
+        when(this.batchOperationExecutor.getCurrentBatchId()).thenReturn("batch");
+        doAnswer(it -> {
+            it.<BatchOperation<?>>getArgument(0).execute();
+            return null;
+        }).when(this.batchOperationExecutor).execute(any(BatchOperation.class), eq("batch"));
+
+        SpaceReference spaceReference = new SpaceReference("Space", new WikiReference("wiki"));
+        DocumentReference aliceReference = new DocumentReference("wiki", "Space", "Alice");
+        DocumentReference bobReference = new DocumentReference("wiki", Arrays.asList("Space", "Bob"), "WebHome");
+        DocumentReference preferencesReference = new DocumentReference("wiki", "Space", "WebPreferences");
+        when(this.modelBridge.getDocumentReferences(spaceReference)).thenReturn(
+            Arrays.asList(preferencesReference, aliceReference, bobReference));
+
+        run(createRequest(spaceReference));
+
+        // We only verify that the code tries to delete the documents, from the worker threads for the children
+        assertEquals(3, this.logCapture.size());
+        assertEquals(new HashSet<>(Arrays.asList("Skipping [wiki:Space.Alice] because it doesn't exist.",
+            "Skipping [wiki:Space.Bob.WebHome] because it doesn't exist.")),
+            new HashSet<>(Arrays.asList(this.logCapture.getMessage(0), this.logCapture.getMessage(1))));
+        // The space preferences are deleted last
+        assertEquals("Skipping [wiki:Space.WebPreferences] because it doesn't exist.", this.logCapture.getMessage(2));
+        verify(this.batchOperationExecutor, times(2)).execute(any(BatchOperation.class), eq("batch"));
+    }
+
     @Test
     void deleteUnsupportedEntity() throws Exception
     {
@@ -69,6 +69,20 @@ public boolean isRecycleBinSkippingActivated()
         return defaultPropertyAccess(IS_RECYCLE_BIN_SKIPPING_ACTIVATED_PROPERTY, false);
     }
 
+    @Override
+    public int getBackLinksUpdateThreads()
+    {
+        // Only configurable at the farm level since it's about the resources of the instance
+        return this.xwikiPropertiesSource.getProperty(PREFIX + "backLinksUpdateThreads", 1);
+    }
+
+    @Override
+    public int getSpaceOperationThreads()
+    {
+        // Only configurable at the farm level since it's about the resources of the instance
+        return this.xwikiPropertiesSource.getProperty(PREFIX + "spaceOperationThreads", 1);
+    }
+
     /**
      * Look for the property hierarchically.
      *
@@ -19,19 +19,34 @@
  */
 package org.xwiki.refactoring.internal;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextException;
+import org.xwiki.context.ExecutionContextManager;
 import org.xwiki.job.Job;
 import org.xwiki.job.JobContext;
 import org.xwiki.job.event.status.JobProgressManager;
@@ -39,6 +54,7 @@
 import org.xwiki.model.reference.AttachmentReference;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
+import org.xwiki.refactoring.RefactoringConfiguration;
 import org.xwiki.refactoring.ReferenceRenamer;
 import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.parser.ContentParser;
@@ -65,6 +81,11 @@
 @Singleton
 public class DefaultReferenceUpdater implements ReferenceUpdater
 {
+    /**
+     * The maximum number of documents which are updated in memory but not yet saved, per worker thread.
+     */
+    private static final int MAX_PENDING_DOCUMENTS_PER_THREAD = 4;
+
     @Inject
     private Provider<XWikiContext> xcontextProvider;
 
@@ -86,6 +107,15 @@ public class DefaultReferenceUpdater implements ReferenceUpdater
     @Inject
     private Logger logger;
 
+    @Inject
+    private RefactoringConfiguration configuration;
+
+    @Inject
+    private ExecutionContextManager executionContextManager;
+
+    @Inject
+    private Execution execution;
+
     /**
      * Used to get a {@link BlockRenderer} dynamically.
      */
@@ -99,6 +129,58 @@ public class DefaultReferenceUpdater implements ReferenceUpdater
         boolean call(XDOM xdom, DocumentReference currentDocumentReference, boolean relative);
     }
 
+    private static final class RenamedDocument
+    {
+        private final XWikiDocument document;
+
+        private final boolean modified;
+
+        private final boolean relative;
+
+        RenamedDocument(XWikiDocument document, boolean modified, boolean relative)
+        {
+            this.document = document;
+            this.modified = modified;
+            this.relative = relative;
+        }
+    }
+
+    /**
+     * The part of the job context which needs to be reproduced in the worker threads: the user (which ends up being the
+     * author of the saved documents), the wiki from which the job was started and the documents used to find the
+     * author of the current script.
+     */
+    private static final class WorkerContext
+    {
+        private static final String SDOC = "sdoc";
+
+        private final DocumentReference userReference;
+
+        private final String originalWikiId;
+
+        private final XWikiDocument doc;
+
+        private final XWikiDocument sdoc;
+
+        WorkerContext(XWikiContext xcontext)
+        {
+            this.userReference = xcontext.getUserReference();
+            this.originalWikiId = xcontext.getOriginalWikiId();
+            this.doc = xcontext.getDoc();
+            this.sdoc = (XWikiDocument) xcontext.get(SDOC);
+        }
+
+        void apply(XWikiContext xcontext)
+        {
+            xcontext.setUserReference(this.userReference);
+            xcontext.setOriginalWikiId(this.originalWikiId);
+            xcontext.setDoc(this.doc);
+            if (this.sdoc != null) {
+                xcontext.put(SDOC, this.sdoc);
+            }
+        }
+    }
+
     private boolean isVerbose()
     {
         Job job = this.jobcontext.getCurrentJob();
@@ -206,6 +288,18 @@ private void info(String format, Object... arguments)
 
     private void renameLinks(XWikiDocument document, EntityReference oldTarget, EntityReference newTarget,
         XWikiContext xcontext, boolean relative, RenameLambda renameLambda) throws XWikiException
+    {
+        saveRenamedLinks(document, renameLinks(document, xcontext, relative, renameLambda), oldTarget, newTarget,
+            relative);
+    }
+
+    /**
+     * Update the links of the passed document in memory, without saving it.
+     *
+     * @return {@code true} if the document was modified
+     */
+    private boolean renameLinks(XWikiDocument document, XWikiContext xcontext, boolean relative,
+        RenameLambda renameLambda)
     {
         DocumentReference currentDocumentReference = document.getDocumentReference();
 
@@ -217,7 +311,7 @@ private void renameLinks(XWikiDocument document, EntityReference oldTarget, Enti
                 "We can't rename the links from [{}] because there is no renderer available for its syntax [{}].",
                 currentDocumentReference, document.getSyntax());
 
-            return;
+            return false;
         }
 
         // Load the renderer
@@ -229,7 +323,7 @@ private void renameLinks(XWikiDocument document, EntityReference oldTarget, Enti
                 "We can't rename the links from [{}] because the renderer for syntax [{}] cannot be loaded.",
                 currentDocumentReference, document.getSyntax(), e);
 
-            return;
+            return false;
         }
 
         // Document content
@@ -244,6 +338,14 @@ private void renameLinks(XWikiDocument document, EntityReference oldTarget, Enti
             }
         }
 
+        return modified;
+    }
+
+    private void saveRenamedLinks(XWikiDocument document, boolean modified, EntityReference oldTarget,
+        EntityReference newTarget, boolean relative) throws XWikiException
+    {
+        DocumentReference currentDocumentReference = document.getDocumentReference();
+
         if (modified) {
             if (relative) {
                 saveDocumentPreservingContentAuthor(document, "Updated the relative links.", true);
@@ -267,15 +369,27 @@ private void renameLinks(XWikiDocument document, EntityReference oldTarget, Enti
     private void renameLinks(DocumentReference documentReference, DocumentReference oldLinkTarget,
         DocumentReference newLinkTarget, boolean relative)
     {
-        internalRenameLinks(documentReference, oldLinkTarget, newLinkTarget, relative, (xdom, currentDocumentReference,
-            r) -> this.renamer.renameReferences(xdom, currentDocumentReference, oldLinkTarget, newLinkTarget, r));
+        internalRenameLinks(documentReference, oldLinkTarget, newLinkTarget, relative,
+            getRenameLambda(oldLinkTarget, newLinkTarget));
     }
 
     private void renameLinks(DocumentReference documentReference, AttachmentReference oldLinkTarget,
         AttachmentReference newLinkTarget, boolean relative)
     {
-        internalRenameLinks(documentReference, oldLinkTarget, newLinkTarget, relative, (xdom, currentDocumentReference,
-            r) -> this.renamer.renameReferences(xdom, currentDocumentReference, oldLinkTarget, newLinkTarget, r));
+        internalRenameLinks(documentReference, oldLinkTarget, newLinkTarget, relative,
+            getRenameLambda(oldLinkTarget, newLinkTarget));
+    }
+
+    private RenameLambda getRenameLambda(DocumentReference oldLinkTarget, DocumentReference newLinkTarget)
+    {
+        return (xdom, currentDocumentReference, r) -> this.renamer.renameReferences(xdom, currentDocumentReference,
+            oldLinkTarget, newLinkTarget, r);
+    }
+
+    private RenameLambda getRenameLambda(AttachmentReference oldLinkTarget, AttachmentReference newLinkTarget)
+    {
+        return (xdom, currentDocumentReference, r) -> this.renamer.renameReferences(xdom, currentDocumentReference,
+            oldLinkTarget, newLinkTarget, r);
     }
 
     private void internalRenameLinks(DocumentReference documentReference, EntityReference oldLinkTarget,
@@ -350,4 +464,147 @@ public void update(DocumentReference documentReference, EntityReference oldTarge
                 toDocumentReference(newTargetReference), relative);
         }
     }
+
+    @Override
+    public void update(Collection<DocumentReference> documentReferences, EntityReference oldTargetReference,
+        EntityReference newTargetReference)
+    {
+        int threads = this.configuration.getBackLinksUpdateThreads();
+
+        // Old and new target must be of same type
+        if (threads <= 1 || documentReferences.size() <= 1
+            || oldTargetReference.getType() != newTargetReference.getType()) {
+            ReferenceUpdater.super.update(documentReferences, oldTargetReference, newTargetReference);
+
+            return;
+        }
+
+        // Only support documents and attachments targets
+        RenameLambda renameLambda;
+        if (oldTargetReference.getType() == EntityType.ATTACHMENT) {
+            renameLambda = getRenameLambda(toAttachmentReference(oldTargetReference),
+                toAttachmentReference(newTargetReference));
+        } else if (oldTargetReference.getType() == EntityType.DOCUMENT) {
+            renameLambda = getRenameLambda(toDocumentReference(oldTargetReference),
+                toDocumentReference(newTargetReference));
+        } else {
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+            new BasicThreadFactory.Builder().namingPattern("XWiki back-links update thread %d").daemon(true).build());
+
+        this.progressManager.pushLevelProgress(documentReferences.size(), this);
+
+        try {
+            updateInParallel(documentReferences, oldTargetReference, newTargetReference, renameLambda, executor,
+                threads);
+        } finally {
+            executor.shutdownNow();
+
+            this.progressManager.popLevelProgress(this);
+        }
+    }
+
+    /**
+     * Parse and update the documents in the worker threads, but save them from the current thread, in the order of
+     * the passed collection. Only a limited number of parsed documents are kept in memory at the same time.
+     */
+    private void updateInParallel(Collection<DocumentReference> documentReferences, EntityReference oldTargetReference,
+        EntityReference newTargetReference, RenameLambda renameLambda, ExecutorService executor, int threads)
+    {
+        XWikiContext xcontext = this.xcontextProvider.get();
+        // Taken before starting the workers since the wiki of the context changes while saving the documents
+        WorkerContext workerContext = new WorkerContext(xcontext);
+
+        Iterator<DocumentReference> iterator = documentReferences.iterator();
+        Deque<Future<List<RenamedDocument>>> futures = new ArrayDeque<>();
+        int maxPending = threads * MAX_PENDING_DOCUMENTS_PER_THREAD;
+
+        while (iterator.hasNext() || !futures.isEmpty()) {
+            while (iterator.hasNext() && futures.size() < maxPending) {
+                DocumentReference documentReference = iterator.next();
+                futures.add(executor.submit(() -> renameLinksInWorker(documentReference, newTargetReference,
+                    workerContext, renameLambda)));
+            }
+
+            this.progressManager.startStep(this);
+            try {
+                for (RenamedDocument renamedDocument : futures.poll().get()) {
+                    saveRenamedDocument(renamedDocument, oldTargetReference, newTargetReference, xcontext);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                this.logger.warn("The update of the links that target [{}] has been interrupted.", oldTargetReference);
+
+                return;
+            } catch (ExecutionException e) {
+                this.logger.error("Failed to rename the links that target [{}].", oldTargetReference, e);
+            } finally {
+                this.progressManager.endStep(this);
+            }
+        }
+    }
+
+    private void saveRenamedDocument(RenamedDocument renamedDocument, EntityReference oldTargetReference,
+        EntityReference newTargetReference, XWikiContext xcontext)
+    {
+        String previousWikiId = xcontext.getWikiId();
+        try {
+            xcontext.setWikiId(renamedDocument.document.getDocumentReference().getWikiReference().getName());
+            saveRenamedLinks(renamedDocument.document, renamedDocument.modified, oldTargetReference,
+                newTargetReference, renamedDocument.relative);
+        } catch (XWikiException e) {
+            this.logger.error("Failed to rename the links that target [{}] from [{}].", oldTargetReference,
+                renamedDocument.document.getDocumentReferenceWithLocale(), e);
+        } finally {
+            xcontext.setWikiId(previousWikiId);
+        }
+    }
+
+    private List<RenamedDocument> renameLinksInWorker(DocumentReference documentReference,
+        EntityReference newTargetReference, WorkerContext workerContext, RenameLambda renameLambda)
+    {
+        try {
+            this.executionContextManager.initialize(new ExecutionContext());
+        } catch (ExecutionContextException e) {
+            this.logger.error("Failed to initialize the back-links update thread.", e);
+
+            return Collections.emptyList();
+        }
+
+        try {
+            XWikiContext xcontext = this.xcontextProvider.get();
+            workerContext.apply(xcontext);
+            xcontext.setWikiId(documentReference.getWikiReference().getName());
+
+            // If the current document is the moved entity the links should be serialized relative to it
+            boolean relative = newTargetReference.equals(documentReference);
+
+            // The document is modified outside of the thread which saves it so work on a copy to not expose the
+            // changes to the other threads through the document cache
+            XWikiDocument document = xcontext.getWiki().getDocument(documentReference, xcontext).clone();
+            List<RenamedDocument> renamedDocuments = new ArrayList<>();
+            renamedDocuments.add(new RenamedDocument(document,
+                renameLinks(document, xcontext, relative, renameLambda), relative));
+
+            // Update the translations.
+            if (documentReference.getLocale() == null) {
+                for (Locale locale : document.getTranslationLocales(xcontext)) {
+                    XWikiDocument translation = document.getTranslatedDocument(locale, xcontext).clone();
+                    renamedDocuments.add(new RenamedDocument(translation,
+                        renameLinks(translation, xcontext, relative, renameLambda), relative));
+                }
+            }
+
+            return renamedDocuments;
+        } catch (XWikiException e) {
+            this.logger.error("Failed to load the document [{}] to rename its links.", documentReference, e);
+
+            return Collections.emptyList();
+        } finally {
+            this.execution.removeContext();
+        }
+    }
 }
@@ -19,6 +19,7 @@
  */
 package org.xwiki.refactoring.internal;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -33,6 +34,7 @@
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.xwiki.bridge.DocumentAccessBridge;
 import org.xwiki.component.manager.ComponentManager;
@@ -50,6 +52,7 @@
 import org.xwiki.model.reference.ObjectReference;
 import org.xwiki.model.reference.PageReferenceResolver;
 import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.refactoring.RefactoringConfiguration;
 import org.xwiki.rendering.block.Block;
 import org.xwiki.rendering.block.ImageBlock;
 import org.xwiki.rendering.block.LinkBlock;
@@ -93,6 +96,7 @@
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -163,6 +167,9 @@
     @MockComponent
     private JobProgressManager progressManager;
 
+    @MockComponent
+    private RefactoringConfiguration configuration;
+
     @InjectMockComponents
     private DefaultReferenceUpdater updater;
 
@@ -401,6 +408,72 @@ void update() throws Exception
         verifyDocumentSave(document, "Renamed back-links.", false, false);
     }
 
+    @Test
+    void updateSeveralDocumentsInParallel() throws Exception
+    {
+        when(this.configuration.getBackLinksUpdateThreads()).thenReturn(2);
+
+        // The context of the job which needs to be reproduced in the worker threads
+        DocumentReference userReference = new DocumentReference("wiki", "XWiki", "User");
+        XWikiDocument currentDocument = mock(XWikiDocument.class);
+        XWikiDocument secureDocument = mock(XWikiDocument.class);
+        when(this.xcontext.getUserReference()).thenReturn(userReference);
+        when(this.xcontext.getOriginalWikiId()).thenReturn("mainwiki");
+        when(this.xcontext.getDoc()).thenReturn(currentDocument);
+        when(this.xcontext.get("sdoc")).thenReturn(secureDocument);
+
+        DocumentReference oldLinkTarget = new DocumentReference("wiki", "A", "B");
+        DocumentReference newLinkTarget = new DocumentReference("wiki", "X", "Y");
+        when(this.defaultReferenceDocumentReferenceResolver.resolve(oldLinkTarget)).thenReturn(oldLinkTarget);
+
+        List<DocumentReference> documentReferences = new ArrayList<>();
+        List<XWikiDocument> documents = new ArrayList<>();
+        List<LinkBlock> linkBlocks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            DocumentReference documentReference = new DocumentReference("wiki", "Space", "Page" + i);
+            // The cached document must not be modified by the worker threads
+            XWikiDocument cachedDocument = mock(XWikiDocument.class);
+            XWikiDocument document = mock(XWikiDocument.class);
+            when(this.xcontext.getWiki().getDocument(documentReference, this.xcontext)).thenReturn(cachedDocument);
+            when(cachedDocument.clone()).thenReturn(document);
+            when(document.getDocumentReference()).thenReturn(documentReference);
+            when(document.getDocumentReferenceWithLocale()).thenReturn(documentReference);
+            when(document.getSyntax()).thenReturn(Syntax.XWIKI_2_1);
+
+            ResourceReference linkReference = new ResourceReference("A.B", ResourceType.DOCUMENT);
+            LinkBlock linkBlock = new LinkBlock(Collections.emptyList(), linkReference, false);
+            when(document.getXDOM()).thenReturn(new XDOM(Collections.singletonList(linkBlock)));
+            when(this.resourceReferenceResolver.resolve(linkReference, null, documentReference))
+                .thenReturn(oldLinkTarget);
+            when(this.compactEntityReferenceSerializer.serialize(newLinkTarget, documentReference))
+                .thenReturn("X.Y");
+
+            documentReferences.add(documentReference);
+            documents.add(document);
+            linkBlocks.add(linkBlock);
+        }
+
+        this.updater.update(documentReferences, oldLinkTarget, newLinkTarget);
+
+        // The documents are saved in the order of the passed collection
+        InOrder saveOrder = inOrder(this.xcontext.getWiki());
+        for (int i = 0; i < documents.size(); i++) {
+            assertEquals("X.Y", linkBlocks.get(i).getReference().getReference());
+            verifyDocumentSave(documents.get(i), "Renamed back-links.", false, false);
+            saveOrder.verify(this.xcontext.getWiki()).saveDocument(documents.get(i), "Renamed back-links.", false,
+                this.xcontext);
+            assertEquals(documentReferences.get(i),
+                this.logCapture.getLogEvent(this.logIndex - 1).getArgumentArray()[0]);
+        }
+        verify(this.progressManager, times(10)).startStep(this.updater);
+
+        // The context of the job is propagated to the worker threads
+        verify(this.xcontext, times(10)).setUserReference(userReference);
+        verify(this.xcontext, times(10)).setOriginalWikiId("mainwiki");
+        verify(this.xcontext, times(10)).setDoc(currentDocument);
+        verify(this.xcontext, times(10)).put("sdoc", secureDocument);
+    }
+
     @Test
     void renameImage() throws Exception
     {
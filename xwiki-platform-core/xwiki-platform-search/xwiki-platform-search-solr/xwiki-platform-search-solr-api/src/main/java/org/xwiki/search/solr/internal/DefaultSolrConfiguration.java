@@ -124,6 +124,50 @@ public class DefaultSolrConfiguration implements SolrConfiguration
      */
     public static final int SOLR_INDEXER_QUEUE_CAPACITY_DEFAULT = 100000;
 
+    /**
+     * The name of the configuration property containing the number of extraction threads.
+     * 
+     * @since 16.7.0RC1
+     */
+    public static final String SOLR_INDEXER_WORKERS_PROPERTY = "solr.indexer.workers";
+
+    /**
+     * The default number of extraction threads.
+     * 
+     * @since 16.7.0RC1
+     */
+    public static final int SOLR_INDEXER_WORKERS_DEFAULT = 1;
+
+    /**
+     * The name of the configuration property containing the maximum time an interactive modification should wait
+     * before being committed.
+     * 
+     * @since 16.7.0RC1
+     */
+    public static final String SOLR_INDEXER_INTERACTIVE_MAXLAG_PROPERTY = "solr.indexer.interactiveMaxLag";
+
+    /**
+     * The default maximum time (in milliseconds) an interactive modification should wait before being committed.
+     * 
+     * @since 16.7.0RC1
+     */
+    public static final long SOLR_INDEXER_INTERACTIVE_MAXLAG_DEFAULT = 5000;
+
+    /**
+     * The name of the configuration property containing the maximum size (in bytes) of the attachment text cache.
+     * 
+     * @since 16.7.0RC1
+     */
+    public static final String SOLR_INDEXER_ATTACHMENT_TEXT_CACHE_MAXSIZE_PROPERTY =
+        "solr.indexer.attachmentTextCache.maxSize";
+
+    /**
+     * The default maximum size (in bytes) of the attachment text cache.
+     * 
+     * @since 16.7.0RC1
+     */
+    public static final long SOLR_INDEXER_ATTACHMENT_TEXT_CACHE_MAXSIZE_DEFAULT = 100L * 1024 * 1024;
+
     /**
      * The name of the configuration property indicating if a synchronization should be run at startup.
      */
@@ -134,6 +178,20 @@ public class DefaultSolrConfiguration implements SolrConfiguration
      */
     public static final boolean SOLR_SYNCHRONIZE_AT_STARTUP_DEFAULT = true;
 
+    /**
+     * The name of the configuration property indicating if the synchronization at startup should be incremental.
+     * 
+     * @since 16.7.0RC1
+     */
+    public static final String SOLR_SYNCHRONIZE_AT_STARTUP_INCREMENTAL = "solr.synchronizeAtStartupIncremental";
+
+    /**
+     * Indicate if the synchronization at startup should be incremental by default.
+     * 
+     * @since 16.7.0RC1
+     */
+    public static final boolean SOLR_SYNCHRONIZE_AT_STARTUP_INCREMENTAL_DEFAULT = false;
+
     /**
      * The name of the configuration property indicating which synchronization mode should be used at startup.
      */
@@ -200,12 +258,39 @@ public int getIndexerQueueCapacity()
             SOLR_INDEXER_QUEUE_CAPACITY_DEFAULT);
     }
 
+    @Override
+    public int getIndexerWorkers()
+    {
+        return this.configuration.getProperty(SOLR_INDEXER_WORKERS_PROPERTY, SOLR_INDEXER_WORKERS_DEFAULT);
+    }
+
+    @Override
+    public long getIndexerInteractiveMaxLag()
+    {
+        return this.configuration.getProperty(SOLR_INDEXER_INTERACTIVE_MAXLAG_PROPERTY,
+            SOLR_INDEXER_INTERACTIVE_MAXLAG_DEFAULT);
+    }
+
+    @Override
+    public long getAttachmentTextCacheMaxSize()
+    {
+        return this.configuration.getProperty(SOLR_INDEXER_ATTACHMENT_TEXT_CACHE_MAXSIZE_PROPERTY,
+            SOLR_INDEXER_ATTACHMENT_TEXT_CACHE_MAXSIZE_DEFAULT);
+    }
+
     @Override
     public boolean synchronizeAtStartup()
     {
         return this.configuration.getProperty(SOLR_SYNCHRONIZE_AT_STARTUP, SOLR_SYNCHRONIZE_AT_STARTUP_DEFAULT);
     }
 
+    @Override
+    public boolean synchronizeAtStartupIncrementally()
+    {
+        return this.configuration.getProperty(SOLR_SYNCHRONIZE_AT_STARTUP_INCREMENTAL,
+            SOLR_SYNCHRONIZE_AT_STARTUP_INCREMENTAL_DEFAULT);
+    }
+
     @Override
     public String getHomeDirectory()
     {
@@ -19,9 +19,25 @@
  */
 package org.xwiki.search.solr.internal;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
@@ -44,6 +60,7 @@
 import org.xwiki.context.ExecutionContextManager;
 import org.xwiki.job.JobException;
 import org.xwiki.job.JobExecutor;
+import org.xwiki.management.JMXBeanRegistration;
 import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.search.solr.internal.api.IndexingUserConfig;
@@ -51,6 +68,7 @@
 import org.xwiki.search.solr.internal.api.SolrIndexer;
 import org.xwiki.search.solr.internal.api.SolrIndexerException;
 import org.xwiki.search.solr.internal.api.SolrInstance;
+import org.xwiki.search.solr.internal.jmx.JMXSolrIndexer;
 import org.xwiki.search.solr.internal.job.IndexerJob;
 import org.xwiki.search.solr.internal.job.IndexerRequest;
 import org.xwiki.search.solr.internal.metadata.LengthSolrInputDocument;
@@ -65,8 +83,17 @@
  * Default implementation of {@link SolrIndexer}.
  * <p>
  * This implementation does not directly process the given leaf-references, but adds them to a processing queue, in the
- * order they were received. The {@link Runnable} part of this implementation is the one that sequentially reads and
- * processes the queue.
+ * order they were received. The resolved references are then dispatched to a configurable number of extraction workers,
+ * partitioned by document so that all the operations targeting the same document are processed in the order they were
+ * received. The extracted Solr documents are finally sent to the {@link Runnable} part of this implementation, which
+ * sequentially reads the commit queue and sends batches to the Solr server.
+ * <p>
+ * Recursive indexing operations (full reindex, wiki copy, etc.) go through a bulk lane which is only processed when
+ * there is no other (interactive) operation waiting, so that a modification made by a user does not wait behind a big
+ * reindex before becoming searchable. A bulk entry targeting an entity which received a more recent interactive
+ * operation (directly or through the deletion of one of its ancestors) is skipped since it would not bring anything
+ * more recent. Both lanes are bounded. Interactive entries are
+ * also committed early when they waited more than {@link SolrConfiguration#getIndexerInteractiveMaxLag()}.
  * 
  * @version $Id$
  * @since 5.1M2
@@ -87,7 +114,8 @@ public class DefaultSolrIndexer implements SolrIndexer, Initializable, Disposabl
     private static class IndexQueueEntry
     {
         /**
-         * The reference of the entity to index.
+         * The reference of the entity to index, or the reference of the document in which the entries matching
+         * {@link #deleteQuery} are located (if they are all located in the same document).
          */
         public EntityReference reference;
 
@@ -96,11 +124,58 @@ public class DefaultSolrIndexer implements SolrIndexer, Initializable, Disposabl
          */
         public String deleteQuery;
 
+        /**
+         * The root of the entities deleted by {@link #deleteQuery}, {@code null} for the whole farm.
+         */
+        public EntityReference deleteScope;
+
         /**
          * The indexing operation to perform.
          */
         public IndexOperation operation;
 
+        /**
+         * {@code true} if the entry goes through the bulk lane.
+         */
+        public boolean bulk;
+
+        /**
+         * The date (in milliseconds) when the operation was queued.
+         */
+        public long queued;
+
+        /**
+         * The order in which the operation was queued.
+         */
+        public long sequence;
+
+        /**
+         * The Solr document extracted by the extraction worker for an {@link IndexOperation#INDEX} operation.
+         */
+        public LengthSolrInputDocument solrDocument;
+
+        /**
+         * The Solr identifier resolved by the extraction worker for an {@link IndexOperation#DELETE} operation.
+         */
+        public String deleteId;
+
+        /**
+         * The number of extraction workers (or lanes of extraction workers for {@link IndexOperation#FLUSH} entries)
+         * which did not reach this entry yet, for entries which are sent to all the workers.
+         */
+        public AtomicInteger pendingWorkers;
+
+        /**
+         * Released when the last extraction worker sent this entry to the commit queue, for entries which are sent to
+         * all the workers.
+         */
+        public CountDownLatch forwarded;
+
+        /**
+         * Completed once the entries queued before are sent to the index, for {@link IndexOperation#FLUSH} entries.
+         */
+        public CompletableFuture<Void> flushed;
+
         /**
          * @param indexReference the reference of the entity to index.
          * @param operation the indexing operation to perform.
@@ -121,6 +196,21 @@ public IndexQueueEntry(String deleteQuery, IndexOperation operation)
             this.operation = operation;
         }
 
+        /**
+         * @param resolveEntry the resolved entry from which this entry was produced
+         * @return this entry
+         */
+        public IndexQueueEntry from(ResolveQueueEntry resolveEntry)
+        {
+            this.bulk = resolveEntry.bulk;
+            this.queued = resolveEntry.queued;
+            this.sequence = resolveEntry.sequence;
+            this.pendingWorkers = resolveEntry.pendingWorkers;
+            this.flushed = resolveEntry.flushed;
+
+            return this;
+        }
+
         @Override
         public String toString()
         {
@@ -131,7 +221,10 @@ public String toString()
                     str = "INDEX " + this.reference;
                     break;
                 case DELETE:
-                    str = "DELETE " + this.deleteQuery;
+                    str = "DELETE " + (this.deleteQuery != null ? this.deleteQuery : this.reference);
+                    break;
+                case FLUSH:
+                    str = "FLUSH";
                     break;
                 case STOP:
                     str = "STOP";
@@ -167,6 +260,32 @@ public String toString()
          */
         public IndexOperation operation;
 
+        /**
+         * {@code true} if the entry goes through the bulk lane.
+         */
+        public boolean bulk;
+
+        /**
+         * The date (in milliseconds) when the operation was queued.
+         */
+        public long queued;
+
+        /**
+         * The order in which the operation was queued.
+         */
+        public long sequence;
+
+        /**
+         * The number of lanes of extraction workers which did not reach this entry yet, for
+         * {@link IndexOperation#FLUSH} entries.
+         */
+        public AtomicInteger pendingWorkers;
+
+        /**
+         * Completed once the entries queued before are sent to the index, for {@link IndexOperation#FLUSH} entries.
+         */
+        public CompletableFuture<Void> flushed;
+
         /**
          * @param reference the reference of the entity to index.
          * @param recurse also apply operation to reference children.
@@ -177,16 +296,174 @@ public ResolveQueueEntry(EntityReference reference, boolean recurse, IndexOperat
             this.reference = reference;
             this.recurse = recurse;
             this.operation = operation;
+            // Deleting is cheap, and processing deletes in the same lane as interactive indexing keeps their order
+            this.bulk = recurse && operation == IndexOperation.INDEX;
+            this.queued = System.currentTimeMillis();
         }
     }
 
     /**
-     * Extract children references from passed references and dispatch them to the index queue.
+     * A queue made of an interactive lane and a bulk lane, the bulk lane being only consumed when the interactive lane
+     * is empty. Both lanes are bounded.
+     * 
+     * @param <E> the type of entries
+     * @version $Id$
+     */
+    private static final class LaneQueue<E>
+    {
+        private final Deque<E> interactive = new ArrayDeque<>();
+
+        private final Deque<E> bulk = new ArrayDeque<>();
+
+        private final int capacity;
+
+        /**
+         * Protects both lanes so that the number of available entries is always consistent with their content.
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Condition notEmpty = this.lock.newCondition();
+
+        private final Condition interactiveNotFull = this.lock.newCondition();
+
+        private final Condition bulkNotFull = this.lock.newCondition();
+
+        /**
+         * The entry returned to the consumer once the queue is stopped.
+         */
+        private E stopEntry;
+
+        /**
+         * @param capacity the maximum number of entries in each lane
+         */
+        LaneQueue(int capacity)
+        {
+            this.capacity = capacity;
+        }
+
+        /**
+         * @param entry the entry to add, waiting for space in the lane if necessary, the entry is ignored if the queue
+         *            is stopped
+         * @param bulkEntry {@code true} to add the entry to the bulk lane
+         * @throws InterruptedException when interrupted while waiting for space in the lane
+         */
+        void put(E entry, boolean bulkEntry) throws InterruptedException
+        {
+            Deque<E> lane = bulkEntry ? this.bulk : this.interactive;
+            Condition notFull = bulkEntry ? this.bulkNotFull : this.interactiveNotFull;
+
+            this.lock.lockInterruptibly();
+            try {
+                while (lane.size() >= this.capacity && this.stopEntry == null) {
+                    notFull.await();
+                }
+
+                // Nobody would consume the entry once the queue is stopped
+                if (this.stopEntry == null) {
+                    lane.add(entry);
+                    this.notEmpty.signal();
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        /**
+         * @return the first entry of the interactive lane, or of the bulk lane if the interactive lane is empty, or the
+         *         stop entry if the queue is stopped
+         * @throws InterruptedException when interrupted while waiting for an entry
+         */
+        E take() throws InterruptedException
+        {
+            this.lock.lockInterruptibly();
+            try {
+                while (true) {
+                    if (this.stopEntry != null) {
+                        return this.stopEntry;
+                    }
+
+                    E entry = this.interactive.poll();
+                    if (entry != null) {
+                        this.interactiveNotFull.signal();
+                        return entry;
+                    }
+
+                    entry = this.bulk.poll();
+                    if (entry != null) {
+                        this.bulkNotFull.signal();
+                        return entry;
+                    }
+
+                    this.notEmpty.await();
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        /**
+         * Remove all the entries from both lanes and make the consumer receive the passed entry, without blocking.
+         * 
+         * @param stop the entry to return to the consumer from now on
+         */
+        void stop(E stop)
+        {
+            this.lock.lock();
+            try {
+                this.stopEntry = stop;
+                this.interactive.clear();
+                this.bulk.clear();
+
+                // Release the consumer and the producers waiting for space
+                this.notEmpty.signalAll();
+                this.interactiveNotFull.signalAll();
+                this.bulkNotFull.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        int size()
+        {
+            this.lock.lock();
+            try {
+                return this.interactive.size() + this.bulk.size();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        int size(boolean bulkLane)
+        {
+            this.lock.lock();
+            try {
+                return bulkLane ? this.bulk.size() : this.interactive.size();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Extract children references from passed references and dispatch them to the extraction queues.
      * 
      * @version $Id$
      */
     private final class Resolver extends AbstractXWikiRunnable
     {
+        /**
+         * The lane of the resolve queue handled by this resolver.
+         */
+        private final BlockingQueue<ResolveQueueEntry> queue;
+
+        /**
+         * @param queue the lane of the resolve queue handled by this resolver
+         */
+        Resolver(BlockingQueue<ResolveQueueEntry> queue)
+        {
+            this.queue = queue;
+        }
+
         @Override
         public void runInternal()
         {
@@ -195,21 +472,23 @@ public void runInternal()
             while (!Thread.interrupted()) {
                 ResolveQueueEntry queueEntry;
                 try {
-                    queueEntry = resolveQueue.take();
+                    queueEntry = this.queue.take();
                 } catch (InterruptedException e) {
                     logger.warn("The SOLR resolve thread has been interrupted", e);
                     queueEntry = RESOLVE_QUEUE_ENTRY_STOP;
                 }
 
                 if (queueEntry == RESOLVE_QUEUE_ENTRY_STOP) {
-                    // Stop the index thread: clear the queue and send the stop signal without blocking.
-                    indexQueue.clear();
-                    indexQueue.offer(INDEX_QUEUE_ENTRY_STOP);
+                    // Stop the extraction threads: clear the queues and send the stop signal without blocking.
+                    stopExtractors();
                     break;
                 }
 
                 try {
-                    if (queueEntry.operation == IndexOperation.INDEX) {
+                    if (queueEntry.operation == IndexOperation.FLUSH) {
+                        dispatchFlush(new IndexQueueEntry((EntityReference) null, queueEntry.operation)
+                            .from(queueEntry));
+                    } else if (queueEntry.operation == IndexOperation.INDEX) {
                         Iterable<EntityReference> references;
                         if (queueEntry.recurse) {
                             references = solrRefereceResolver.getReferences(queueEntry.reference);
@@ -218,19 +497,26 @@ public void runInternal()
                         }
 
                         for (EntityReference reference : references) {
-                            indexQueue.put(new IndexQueueEntry(reference, queueEntry.operation));
+                            dispatch(new IndexQueueEntry(reference, queueEntry.operation).from(queueEntry));
                         }
                     } else {
                         if (queueEntry.recurse) {
-                            indexQueue.put(new IndexQueueEntry(solrRefereceResolver.getQuery(queueEntry.reference),
-                                queueEntry.operation));
+                            dispatchDeleteQuery(queueEntry);
                         } else if (queueEntry.reference != null) {
-                            indexQueue.put(new IndexQueueEntry(queueEntry.reference, queueEntry.operation));
+                            dispatch(new IndexQueueEntry(queueEntry.reference, queueEntry.operation)
+                                .from(queueEntry));
                         }
                     }
                 } catch (Throwable e) {
                     logger.warn("Failed to apply operation [{}] on root reference [{}]", queueEntry.operation,
                         queueEntry.reference, e);
+                } finally {
+                    if (queueEntry.bulk) {
+                        pendingBulkEntries.decrementAndGet();
+                    }
+
+                    // Replaced by the dispatched entries
+                    pendingCount.decrementAndGet();
                 }
             }
 
@@ -238,6 +524,156 @@ public void runInternal()
         }
     }
 
+    /**
+     * Extract the Solr documents from the entries of one partition of the index queue and send them to the commit
+     * queue.
+     * 
+     * @version $Id$
+     */
+    private final class Extractor implements Runnable
+    {
+        /**
+         * The partition of the index queue handled by this worker.
+         */
+        private final LaneQueue<IndexQueueEntry> queue;
+
+        /**
+         * The sequence of the last interactive operation processed for each entity, while bulk entries are pending.
+         */
+        private final Map<EntityReference, Long> interactiveSequences = new HashMap<>();
+
+        /**
+         * The sequence of the last interactive delete query processed for each scope ({@code null} for the whole
+         * farm), while bulk entries are pending. The scopes are stored without parameters, unless they target a
+         * specific locale.
+         */
+        private final Map<EntityReference, Long> interactiveDeletes = new HashMap<>();
+
+        /**
+         * @param queue the partition of the index queue handled by this worker
+         */
+        Extractor(LaneQueue<IndexQueueEntry> queue)
+        {
+            this.queue = queue;
+        }
+
+        @Override
+        public void run()
+        {
+            logger.debug("Start SOLR extraction thread");
+
+            while (!Thread.interrupted()) {
+                IndexQueueEntry queueEntry;
+                try {
+                    queueEntry = this.queue.take();
+                } catch (InterruptedException e) {
+                    logger.warn("The SOLR extraction thread has been interrupted", e);
+                    queueEntry = INDEX_QUEUE_ENTRY_STOP;
+                }
+
+                if (queueEntry == INDEX_QUEUE_ENTRY_STOP || !process(queueEntry)) {
+                    break;
+                }
+            }
+
+            // The last extraction worker to stop is in charge of stopping the commit thread. Clear the queue and send
+            // the stop signal without blocking.
+            if (runningExtractors.decrementAndGet() == 0) {
+                commitQueue.clear();
+                commitQueue.offer(INDEX_QUEUE_ENTRY_STOP);
+            }
+
+            logger.debug("Stop SOLR extraction thread");
+        }
+
+        /**
+         * @param queueEntry the entry to process
+         * @return {@code true} to wait for another entry, {@code false} to stop the extraction thread
+         */
+        private boolean process(IndexQueueEntry queueEntry)
+        {
+            if (queueEntry.operation == IndexOperation.FLUSH) {
+                return forwardFlush(queueEntry);
+            }
+
+            if (queueEntry.bulk) {
+                try {
+                    // An interactive operation queued after this bulk entry was already applied to the same entity
+                    if (isOvertaken(queueEntry)) {
+                        logger.debug("Skipping entry [{}] overtaken by a more recent operation", queueEntry);
+                        pendingCount.decrementAndGet();
+
+                        return true;
+                    }
+
+                    return extract(queueEntry);
+                } finally {
+                    pendingBulkEntries.decrementAndGet();
+                }
+            }
+
+            if (pendingBulkEntries.get() > 0) {
+                if (queueEntry.deleteQuery != null) {
+                    this.interactiveDeletes.put(getDeleteScopeKey(queueEntry.deleteScope), queueEntry.sequence);
+                } else if (queueEntry.reference != null) {
+                    this.interactiveSequences.put(queueEntry.reference, queueEntry.sequence);
+                }
+            } else if (!this.interactiveSequences.isEmpty() || !this.interactiveDeletes.isEmpty()) {
+                // No bulk entry could be overtaken anymore
+                this.interactiveSequences.clear();
+                this.interactiveDeletes.clear();
+            }
+
+            return extract(queueEntry);
+        }
+
+        /**
+         * @param scope the root of the entities deleted by a delete query
+         * @return the key under which the delete query is remembered, the deletion of a document without locale
+         *         also applies to its translations
+         */
+        private EntityReference getDeleteScopeKey(EntityReference scope)
+        {
+            return scope != null && scope.getParameters().isEmpty() ? scope.removeParameters(true) : scope;
+        }
+
+        /**
+         * @param queueEntry a bulk entry
+         * @return {@code true} if an interactive operation queued after the passed entry was already applied to the
+         *         entity it targets or to one of its ancestors
+         */
+        private boolean isOvertaken(IndexQueueEntry queueEntry)
+        {
+            if (isMoreRecent(this.interactiveSequences.get(queueEntry.reference), queueEntry)) {
+                return true;
+            }
+
+            if (!this.interactiveDeletes.isEmpty()) {
+                // Delete queries targeting a specific locale
+                if (isMoreRecent(this.interactiveDeletes.get(queueEntry.reference), queueEntry)) {
+                    return true;
+                }
+
+                for (EntityReference scope = queueEntry.reference.removeParameters(true); scope != null;
+                    scope = scope.getParent()) {
+                    if (isMoreRecent(this.interactiveDeletes.get(scope), queueEntry)) {
+                        return true;
+                    }
+                }
+
+                // Delete queries targeting the whole farm
+                return isMoreRecent(this.interactiveDeletes.get(null), queueEntry);
+            }
+
+            return false;
+        }
+
+        private boolean isMoreRecent(Long interactiveSequence, IndexQueueEntry queueEntry)
+        {
+            return interactiveSequence != null && interactiveSequence > queueEntry.sequence;
+        }
+    }
+
     /**
      * Stop resolver thread.
      */
@@ -250,6 +686,11 @@ public void runInternal()
     private static final IndexQueueEntry INDEX_QUEUE_ENTRY_STOP =
         new IndexQueueEntry((String) null, IndexOperation.STOP);
 
+    /**
+     * The name of the indexer MBean.
+     */
+    private static final String MBEAN_NAME = "name=solrindexer";
+
     /**
      * Logging framework.
      */
@@ -301,49 +742,167 @@ public void runInternal()
     @Inject
     private Provider<XWikiContext> xWikiContextProvider;
 
+    @Inject
+    private JMXBeanRegistration jmxRegistration;
+
     /**
-     * The queue of index operation to perform.
+     * The partitions of the queue of index operations to perform, one for each extraction worker.
      */
-    private BlockingQueue<IndexQueueEntry> indexQueue;
+    private List<LaneQueue<IndexQueueEntry>> indexQueues;
+
+    /**
+     * The queue of extracted entries to send to the Solr server.
+     */
+    private BlockingQueue<IndexQueueEntry> commitQueue;
 
     /**
      * The queue of resolve references and add them to the index queue.
      */
     private BlockingQueue<ResolveQueueEntry> resolveQueue;
 
+    /**
+     * The queue of bulk references to resolve and add them to the bulk lane of the index queue.
+     */
+    private BlockingQueue<ResolveQueueEntry> bulkResolveQueue;
+
     /**
      * Thread in which the indexUpdater will be executed.
      */
     private Thread indexThread;
 
+    /**
+     * Threads in which the Solr documents are extracted.
+     */
+    private List<Thread> extractThreads;
+
     /**
      * Thread in which the provided references children will be resolved.
      */
     private Thread resolveThread;
 
+    /**
+     * Thread in which the children of the bulk references will be resolved.
+     */
+    private Thread bulkResolveThread;
+
+    /**
+     * The number of extraction workers which are still running.
+     */
+    private final AtomicInteger runningExtractors = new AtomicInteger();
+
+    /**
+     * Used to order the operations, whatever their lane.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * The number of bulk entries waiting to be resolved or extracted.
+     */
+    private final AtomicInteger pendingBulkEntries = new AtomicInteger();
+
+    /**
+     * The number of entries which are not yet committed (or dropped), whatever the stage they reached. Unlike the size
+     * of the queues, it also covers the entries taken by a thread and not yet passed to the next stage.
+     */
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
     /**
      * Indicate of the component has been disposed.
      */
-    private boolean disposed;
+    private volatile boolean disposed;
 
     /**
      * The size of the not yet sent batch.
      */
     private volatile int batchSize;
 
+    /**
+     * The date when the oldest interactive entry of the not yet sent batch was queued, 0 if there is none.
+     */
+    private long batchInteractiveQueued;
+
+    /**
+     * The date when the oldest bulk entry of the not yet sent batch was queued, 0 if there is none.
+     */
+    private long batchBulkQueued;
+
+    /**
+     * The time (in milliseconds) between the queuing and the commit of the oldest interactive entry of the last
+     * commit.
+     */
+    private volatile long interactiveLag;
+
+    /**
+     * The time (in milliseconds) between the queuing and the commit of the oldest bulk entry of the last commit.
+     */
+    private volatile long bulkLag;
+
+    /**
+     * The number of entries dispatched to the extraction workers.
+     */
+    private final LongAdder resolvedCount = new LongAdder();
+
+    /**
+     * The number of entries processed by the extraction workers.
+     */
+    private final LongAdder extractedCount = new LongAdder();
+
+    /**
+     * The total time spent by the extraction workers, in nanoseconds.
+     */
+    private final LongAdder extractionTime = new LongAdder();
+
+    /**
+     * The number of entries sent to the Solr server.
+     */
+    private final LongAdder sentCount = new LongAdder();
+
+    /**
+     * The number of commits sent to the Solr server.
+     */
+    private final LongAdder commitCount = new LongAdder();
+
     @Override
     public void initialize() throws InitializationException
     {
-        // Initialize the queues before starting the threads.
+        int workers = Math.max(1, this.configuration.getIndexerWorkers());
+
+        // Initialize the queues before starting the threads. The configured capacity is shared between the partitions.
         this.resolveQueue = new LinkedBlockingQueue<>();
-        this.indexQueue = new LinkedBlockingQueue<>(this.configuration.getIndexerQueueCapacity());
+        this.bulkResolveQueue = new LinkedBlockingQueue<>();
+        int capacity = Math.max(2, this.configuration.getIndexerQueueCapacity() / workers);
+        this.indexQueues = new ArrayList<>(workers);
+        for (int i = 0; i < workers; ++i) {
+            this.indexQueues.add(new LaneQueue<>(capacity));
+        }
+        // Extracted documents are kept in memory until they are sent so we don't want too many of them waiting.
+        this.commitQueue =
+            new LinkedBlockingQueue<>(Math.max(2, this.configuration.getIndexerBatchSize() * workers));
 
-        // Launch the resolve thread
-        this.resolveThread = new Thread(new Resolver());
+        // Launch the resolve threads
+        this.resolveThread = new Thread(new Resolver(this.resolveQueue));
         this.resolveThread.setName("XWiki Solr resolve thread");
         this.resolveThread.setDaemon(true);
         this.resolveThread.start();
         this.resolveThread.setPriority(Thread.NORM_PRIORITY - 1);
+        // The bulk resolver is often blocked waiting for space in the bulk lane, so it needs its own thread
+        this.bulkResolveThread = new Thread(new Resolver(this.bulkResolveQueue));
+        this.bulkResolveThread.setName("XWiki Solr bulk resolve thread");
+        this.bulkResolveThread.setDaemon(true);
+        this.bulkResolveThread.start();
+        this.bulkResolveThread.setPriority(Thread.NORM_PRIORITY - 1);
+
+        // Launch the extraction threads
+        this.runningExtractors.set(workers);
+        this.extractThreads = new ArrayList<>(workers);
+        for (int i = 0; i < workers; ++i) {
+            Thread extractThread = new Thread(new Extractor(this.indexQueues.get(i)));
+            extractThread.setName("XWiki Solr extraction thread " + i);
+            extractThread.setDaemon(true);
+            extractThread.start();
+            extractThread.setPriority(Thread.NORM_PRIORITY - 1);
+            this.extractThreads.add(extractThread);
+        }
 
         // Launch the index thread
         this.indexThread = new Thread(this);
@@ -351,6 +910,8 @@ public void initialize() throws InitializationException
         this.indexThread.setDaemon(true);
         this.indexThread.start();
         this.indexThread.setPriority(Thread.NORM_PRIORITY - 1);
+
+        this.jmxRegistration.registerMBean(new JMXSolrIndexer(this), MBEAN_NAME);
     }
 
     @Override
@@ -359,17 +920,224 @@ public void dispose() throws ComponentLifecycleException
         // Mark the component as disposed
         this.disposed = true;
 
-        // Stop the resolve thread. Clear the queue and send the stop signal without blocking. We know that the resolve
-        // queue will remain empty after the clear call because we set the disposed flag above.
+        this.jmxRegistration.unregisterMBean(MBEAN_NAME);
+
+        // Stop the resolve threads. Clear the queues and send the stop signal without blocking. We know that the
+        // resolve queues will remain empty after the clear call because we set the disposed flag above.
         this.resolveQueue.clear();
         this.resolveQueue.offer(RESOLVE_QUEUE_ENTRY_STOP);
+        this.bulkResolveQueue.clear();
+        this.bulkResolveQueue.offer(RESOLVE_QUEUE_ENTRY_STOP);
+
+        // Stop the extraction threads. Clear the queues and send the stop signal without blocking. The resolve threads
+        // waiting for space in the queues are released and the entries they add afterwards are ignored. The last
+        // extraction thread to stop takes care of stopping the index thread.
+        stopExtractors();
+    }
+
+    /**
+     * Clear the index queues and send the stop signal to all the extraction workers without blocking.
+     */
+    private void stopExtractors()
+    {
+        for (LaneQueue<IndexQueueEntry> indexQueue : this.indexQueues) {
+            indexQueue.stop(INDEX_QUEUE_ENTRY_STOP);
+        }
+    }
+
+    /**
+     * Send the passed entry to the extraction worker in charge of the entity it targets.
+     * 
+     * @param queueEntry the entry to dispatch
+     * @throws InterruptedException when interrupted while waiting for space in the queue
+     */
+    private void dispatch(IndexQueueEntry queueEntry) throws InterruptedException
+    {
+        // Counted once even when sent to all the extraction workers since only the last one forwards it
+        this.pendingCount.incrementAndGet();
+
+        if (queueEntry.reference == null) {
+            // A space or wiki delete query might impact the entities of any partition so it's sent to all the
+            // extraction workers and only committed once all of them forwarded the entries they received before it.
+            queueEntry.pendingWorkers = new AtomicInteger(this.indexQueues.size());
+            queueEntry.forwarded = new CountDownLatch(1);
+            for (LaneQueue<IndexQueueEntry> indexQueue : this.indexQueues) {
+                indexQueue.put(queueEntry, queueEntry.bulk);
+            }
+        } else {
+            if (queueEntry.bulk) {
+                this.pendingBulkEntries.incrementAndGet();
+            }
+            getIndexQueue(queueEntry.reference).put(queueEntry, queueEntry.bulk);
+        }
+
+        this.resolvedCount.increment();
+    }
+
+    /**
+     * Send the delete query matching the passed entry to the extraction workers.
+     * 
+     * @param queueEntry the recursive delete to dispatch
+     * @throws SolrIndexerException when failing to resolve the query
+     * @throws InterruptedException when interrupted while waiting for space in the queue
+     */
+    private void dispatchDeleteQuery(ResolveQueueEntry queueEntry) throws SolrIndexerException, InterruptedException
+    {
+        IndexQueueEntry deleteEntry =
+            new IndexQueueEntry(this.solrRefereceResolver.getQuery(queueEntry.reference), queueEntry.operation)
+                .from(queueEntry);
+        deleteEntry.deleteScope = queueEntry.reference;
+
+        // A query limited to a document (and its translations, attachments, objects, etc.) only impacts the
+        // partition in charge of this document, so there is no need to stop all the extraction workers
+        if (queueEntry.reference != null && queueEntry.reference.extractReference(EntityType.DOCUMENT) != null) {
+            deleteEntry.reference = queueEntry.reference;
+        }
+
+        dispatch(deleteEntry);
+    }
+
+    /**
+     * Send the passed marker to the lane it belongs to in all the extraction workers.
+     * 
+     * @param queueEntry the marker to dispatch
+     * @throws InterruptedException when interrupted while waiting for space in the queue
+     */
+    private void dispatchFlush(IndexQueueEntry queueEntry) throws InterruptedException
+    {
+        for (LaneQueue<IndexQueueEntry> indexQueue : this.indexQueues) {
+            indexQueue.put(queueEntry, queueEntry.bulk);
+        }
+    }
+
+    /**
+     * @param reference the reference of the entity to index or delete
+     * @return the partition of the index queue in charge of the passed entity, all the entities located in the same
+     *         document (whatever its locale) are handled by the same partition
+     */
+    private LaneQueue<IndexQueueEntry> getIndexQueue(EntityReference reference)
+    {
+        if (this.indexQueues.size() == 1) {
+            return this.indexQueues.get(0);
+        }
+
+        EntityReference documentReference = reference.extractReference(EntityType.DOCUMENT);
+        int hash = documentReference != null
+            ? Objects.hash(documentReference.getName(), documentReference.getParent()) : reference.hashCode();
+
+        return this.indexQueues.get(Math.floorMod(hash, this.indexQueues.size()));
+    }
+
+    /**
+     * Prepare the passed entry and send it to the commit queue.
+     * 
+     * @param queueEntry the entry to process
+     * @return {@code true} to wait for another entry, {@code false} to stop the extraction thread
+     */
+    private boolean extract(IndexQueueEntry queueEntry)
+    {
+        if (queueEntry.pendingWorkers != null) {
+            return forward(queueEntry);
+        }
+
+        long start = System.nanoTime();
+        boolean forwarded = false;
+        try {
+            ExecutionContext executionContext = new ExecutionContext();
+            this.ecim.initialize(executionContext);
+            XWikiContext xcontext = (XWikiContext) executionContext.getProperty(XWikiContext.EXECUTIONCONTEXT_KEY);
+            xcontext.setUserReference(indexingUserConfig.getIndexingUserReference());
+
+            if (IndexOperation.INDEX.equals(queueEntry.operation)) {
+                queueEntry.solrDocument = getSolrDocument(queueEntry.reference);
+                if (queueEntry.solrDocument != null) {
+                    this.commitQueue.put(queueEntry);
+                    forwarded = true;
+                }
+            } else if (IndexOperation.DELETE.equals(queueEntry.operation)) {
+                if (queueEntry.deleteQuery == null) {
+                    queueEntry.deleteId = this.solrRefereceResolver.getId(queueEntry.reference);
+                }
+                this.commitQueue.put(queueEntry);
+                forwarded = true;
+            }
+        } catch (InterruptedException e) {
+            this.logger.warn("The SOLR extraction thread has been interrupted while processing entry [{}]",
+                queueEntry, e);
+            Thread.currentThread().interrupt();
+
+            return false;
+        } catch (Throwable e) {
+            this.logger.error("Failed to process entry [{}]", queueEntry, e);
+        } finally {
+            this.execution.removeContext();
+
+            if (!forwarded) {
+                // Nothing will be sent to Solr for this entry
+                this.pendingCount.decrementAndGet();
+            }
+
+            this.extractedCount.increment();
+            this.extractionTime.add(System.nanoTime() - start);
+        }
+
+        return true;
+    }
+
+    /**
+     * Wait for all the extraction workers to reach the passed entry before sending it to the commit queue.
+     * 
+     * @param queueEntry the entry shared by all the extraction workers
+     * @return {@code true} to wait for another entry, {@code false} to stop the extraction thread
+     */
+    private boolean forward(IndexQueueEntry queueEntry)
+    {
+        try {
+            if (queueEntry.pendingWorkers.decrementAndGet() == 0) {
+                this.commitQueue.put(queueEntry);
+                queueEntry.forwarded.countDown();
+            } else {
+                // Make sure to not wait forever for a worker which has been stopped
+                while (!queueEntry.forwarded.await(1, TimeUnit.SECONDS)) {
+                    if (this.disposed) {
+                        return false;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            this.logger.warn("The SOLR extraction thread has been interrupted while processing entry [{}]",
+                queueEntry, e);
+            Thread.currentThread().interrupt();
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Send the passed marker to the commit queue once all the lanes of all the extraction workers reached it. Unlike
+     * {@link #forward(IndexQueueEntry)}, the extraction workers don't wait for each other.
+     * 
+     * @param queueEntry the marker shared by all the lanes of the extraction workers
+     * @return {@code true} to wait for another entry, {@code false} to stop the extraction thread
+     */
+    private boolean forwardFlush(IndexQueueEntry queueEntry)
+    {
+        // The last lane to reach the marker sends it after all the entries forwarded by the others before it
+        if (queueEntry.pendingWorkers.decrementAndGet() == 0) {
+            try {
+                this.commitQueue.put(queueEntry);
+            } catch (InterruptedException e) {
+                this.logger.warn("The SOLR extraction thread has been interrupted while processing entry [{}]",
+                    queueEntry, e);
+                Thread.currentThread().interrupt();
 
-        // Stop the index thread. Clear the queue and send the stop signal without blocking. There should be enough
-        // space in the index queue before the special stop entry is added as long the the index queue capacity is
-        // greater than 1. In the worse case, the clear call will unblock the resolve thread (which was waiting because
-        // the index queue was full) and just one entry will be added to the queue before the special stop entry.
-        this.indexQueue.clear();
-        this.indexQueue.offer(INDEX_QUEUE_ENTRY_STOP);
+                return false;
+            }
+        }
+
+        return true;
     }
 
     @Override
@@ -381,7 +1149,7 @@ public void run()
             // Block until there is at least one entry in the queue
             IndexQueueEntry queueEntry = null;
             try {
-                queueEntry = this.indexQueue.take();
+                queueEntry = this.commitQueue.take();
             } catch (InterruptedException e) {
                 this.logger.warn("The SOLR index thread has been interrupted", e);
 
@@ -399,8 +1167,8 @@ public void run()
     }
 
     /**
-     * Process a batch of operations that were just read from the index operations queue. This method also commits the
-     * batch when it finishes to process it.
+     * Process a batch of operations that were just read from the commit queue. This method also commits the batch
+     * when it finishes to process it.
      * 
      * @param queueEntry the batch to process
      * @return {@code true} to wait for another batch, {@code false} to stop the indexing thread
@@ -409,7 +1177,7 @@ private boolean processBatch(IndexQueueEntry queueEntry)
     {
         int length = 0;
 
-        for (IndexQueueEntry batchEntry = queueEntry; batchEntry != null; batchEntry = this.indexQueue.poll()) {
+        for (IndexQueueEntry batchEntry = queueEntry; batchEntry != null; batchEntry = this.commitQueue.poll()) {
             if (batchEntry == INDEX_QUEUE_ENTRY_STOP) {
                 // Discard the current batch and stop the indexing thread.
                 return false;
@@ -417,38 +1185,45 @@ private boolean processBatch(IndexQueueEntry queueEntry)
 
             IndexOperation operation = batchEntry.operation;
 
+            if (IndexOperation.FLUSH.equals(operation)) {
+                // The entries sent before the marker must be committed before notifying
+                if (this.batchSize > 0) {
+                    commit();
+                    length = 0;
+                }
+
+                batchEntry.flushed.complete(null);
+
+                continue;
+            }
+
             // For the current contiguous operations queue, group the changes
             try {
-                ExecutionContext executionContext = new ExecutionContext();
-                this.ecim.initialize(executionContext);
-                XWikiContext xcontext = (XWikiContext) executionContext.getProperty(XWikiContext.EXECUTIONCONTEXT_KEY);
-                xcontext.setUserReference(indexingUserConfig.getIndexingUserReference());
-
                 if (IndexOperation.INDEX.equals(operation)) {
-                    LengthSolrInputDocument solrDocument = getSolrDocument(batchEntry.reference);
-                    if (solrDocument != null) {
-                        solrInstance.add(solrDocument);
-                        length += solrDocument.getLength();
-                        ++this.batchSize;
-                    }
+                    solrInstance.add(batchEntry.solrDocument);
+                    length += batchEntry.solrDocument.getLength();
+                    ++this.batchSize;
                 } else if (IndexOperation.DELETE.equals(operation)) {
-                    if (batchEntry.reference == null) {
+                    if (batchEntry.deleteQuery != null) {
                         solrInstance.deleteByQuery(batchEntry.deleteQuery);
                     } else {
-                        solrInstance.delete(this.solrRefereceResolver.getId(batchEntry.reference));
+                        solrInstance.delete(batchEntry.deleteId);
                     }
 
                     ++this.batchSize;
                 }
+
+                addToBatch(batchEntry);
+                this.sentCount.increment();
             } catch (Throwable e) {
                 this.logger.error("Failed to process entry [{}]", batchEntry, e);
-            } finally {
-                this.execution.removeContext();
+
+                this.pendingCount.decrementAndGet();
             }
 
             // Commit the index changes so that they become available to queries. This is a costly operation and that is
-            // the reason why we perform it at the end of the batch.
-            if (shouldCommit(length, this.batchSize)) {
+            // the reason why we perform it at the end of the batch, unless interactive changes waited for too long.
+            if (shouldCommit(length, this.batchSize) || isInteractiveLagExceeded()) {
                 commit();
                 length = 0;
             }
@@ -462,6 +1237,31 @@ private boolean processBatch(IndexQueueEntry queueEntry)
         return true;
     }
 
+    /**
+     * Remember the oldest entries of each lane in the current batch.
+     * 
+     * @param batchEntry the entry added to the batch
+     */
+    private void addToBatch(IndexQueueEntry batchEntry)
+    {
+        if (batchEntry.bulk) {
+            if (this.batchBulkQueued == 0) {
+                this.batchBulkQueued = batchEntry.queued;
+            }
+        } else if (this.batchInteractiveQueued == 0) {
+            this.batchInteractiveQueued = batchEntry.queued;
+        }
+    }
+
+    /**
+     * @return {@code true} if the current batch contains an interactive entry which waited too long
+     */
+    private boolean isInteractiveLagExceeded()
+    {
+        return this.batchInteractiveQueued > 0 && System.currentTimeMillis()
+            - this.batchInteractiveQueued >= this.configuration.getIndexerInteractiveMaxLag();
+    }
+
     /**
      * Commit.
      */
@@ -480,7 +1280,19 @@ private void commit()
             }
         }
 
+        this.pendingCount.addAndGet(-this.batchSize);
         this.batchSize = 0;
+        this.commitCount.increment();
+
+        long now = System.currentTimeMillis();
+        if (this.batchInteractiveQueued > 0) {
+            this.interactiveLag = now - this.batchInteractiveQueued;
+            this.batchInteractiveQueued = 0;
+        }
+        if (this.batchBulkQueued > 0) {
+            this.bulkLag = now - this.batchBulkQueued;
+            this.batchBulkQueued = 0;
+        }
     }
 
     /**
@@ -571,21 +1383,163 @@ public void delete(EntityReference reference, boolean recurse)
      * @param operation the operation to assign to the given references
      */
     private void addToQueue(EntityReference reference, boolean recurse, IndexOperation operation)
+    {
+        addToQueue(new ResolveQueueEntry(reference, recurse, operation));
+    }
+
+    /**
+     * @param queueEntry the entry to add to the resolve queue of its lane
+     */
+    private void addToQueue(ResolveQueueEntry queueEntry)
     {
         if (!this.disposed) {
-            // Don't block because the capacity of the resolver queue is not limited.
+            // Don't block because the capacity of the resolver queues is not limited.
             try {
-                this.resolveQueue.put(new ResolveQueueEntry(reference, recurse, operation));
+                this.pendingCount.incrementAndGet();
+                if (queueEntry.bulk) {
+                    // Counted before getting a sequence so that the more recent interactive entries are remembered
+                    this.pendingBulkEntries.incrementAndGet();
+                }
+                queueEntry.sequence = this.sequence.incrementAndGet();
+                (queueEntry.bulk ? this.bulkResolveQueue : this.resolveQueue).put(queueEntry);
             } catch (InterruptedException e) {
-                this.logger.error("Failed to add reference [{}] to Solr indexing queue", reference, e);
+                this.logger.error("Failed to add reference [{}] to Solr indexing queue", queueEntry.reference, e);
             }
         }
     }
 
+    @Override
+    public CompletableFuture<Void> flush()
+    {
+        CompletableFuture<Void> flushed = new CompletableFuture<>();
+
+        // The entries queued before might be in any lane of any extraction worker, so the marker goes through both
+        // resolvers and is only sent to the index once all the lanes of all the extraction workers reached it.
+        AtomicInteger pendingWorkers = new AtomicInteger(this.indexQueues.size() * 2);
+        for (boolean bulk : new boolean[] {false, true}) {
+            ResolveQueueEntry queueEntry = new ResolveQueueEntry(null, false, IndexOperation.FLUSH);
+            queueEntry.bulk = bulk;
+            queueEntry.pendingWorkers = pendingWorkers;
+            queueEntry.flushed = flushed;
+            addToQueue(queueEntry);
+        }
+
+        return flushed;
+    }
+
     @Override
     public int getQueueSize()
     {
-        return this.indexQueue.size() + this.resolveQueue.size() + this.batchSize;
+        return getIndexQueueSize() + getResolveQueueSize() + this.commitQueue.size() + this.batchSize;
+    }
+
+    @Override
+    public int getPendingCount()
+    {
+        return this.pendingCount.get();
+    }
+
+    /**
+     * @return the number of entries waiting to be resolved
+     * @since 16.7.0RC1
+     */
+    public int getResolveQueueSize()
+    {
+        return this.resolveQueue.size() + this.bulkResolveQueue.size();
+    }
+
+    /**
+     * @return the number of entries waiting to be processed by the extraction workers
+     * @since 16.7.0RC1
+     */
+    public int getIndexQueueSize()
+    {
+        return this.indexQueues.stream().mapToInt(LaneQueue::size).sum();
+    }
+
+    /**
+     * @return the number of entries waiting to be processed by each extraction worker
+     * @since 16.7.0RC1
+     */
+    public List<Integer> getIndexQueueSizes()
+    {
+        return this.indexQueues.stream().map(LaneQueue::size).collect(Collectors.toList());
+    }
+
+    /**
+     * @param bulk {@code true} for the bulk lane, {@code false} for the interactive lane
+     * @return the number of entries of the passed lane waiting to be resolved or processed by the extraction workers
+     * @since 16.7.0RC1
+     */
+    public int getLaneQueueSize(boolean bulk)
+    {
+        return (bulk ? this.bulkResolveQueue : this.resolveQueue).size()
+            + this.indexQueues.stream().mapToInt(queue -> queue.size(bulk)).sum();
+    }
+
+    /**
+     * @param bulk {@code true} for the bulk lane, {@code false} for the interactive lane
+     * @return the time (in milliseconds) between the queuing and the commit of the oldest entry of the passed lane
+     *         during the last commit which contained entries of this lane
+     * @since 16.7.0RC1
+     */
+    public long getLaneLag(boolean bulk)
+    {
+        return bulk ? this.bulkLag : this.interactiveLag;
+    }
+
+    /**
+     * @return the number of extracted entries waiting to be sent to the Solr server
+     * @since 16.7.0RC1
+     */
+    public int getCommitQueueSize()
+    {
+        return this.commitQueue.size();
+    }
+
+    /**
+     * @return the number of entries dispatched to the extraction workers since the indexer was started
+     * @since 16.7.0RC1
+     */
+    public long getResolvedCount()
+    {
+        return this.resolvedCount.sum();
+    }
+
+    /**
+     * @return the number of entries processed by the extraction workers since the indexer was started
+     * @since 16.7.0RC1
+     */
+    public long getExtractedCount()
+    {
+        return this.extractedCount.sum();
+    }
+
+    /**
+     * @return the total time spent by the extraction workers since the indexer was started, in nanoseconds
+     * @since 16.7.0RC1
+     */
+    public long getExtractionTime()
+    {
+        return this.extractionTime.sum();
+    }
+
+    /**
+     * @return the number of entries sent to the Solr server since the indexer was started
+     * @since 16.7.0RC1
+     */
+    public long getSentCount()
+    {
+        return this.sentCount.sum();
+    }
+
+    /**
+     * @return the number of commits sent to the Solr server since the indexer was started
+     * @since 16.7.0RC1
+     */
+    public long getCommitCount()
+    {
+        return this.commitCount.sum();
     }
 
     @Override
@@ -62,6 +62,7 @@
 import org.xwiki.search.solr.SolrCoreInitializer;
 import org.xwiki.search.solr.SolrException;
 import org.xwiki.search.solr.internal.api.SolrConfiguration;
+import org.xwiki.search.solr.internal.job.IndexerWatermarks;
 
 /**
  * Embedded Solr server running in the same JVM.
@@ -95,6 +96,9 @@ public class EmbeddedSolr extends AbstractSolr implements Disposable, Initializa
     @Inject
     private Environment environment;
 
+    @Inject
+    private IndexerWatermarks watermarks;
+
     private CoreContainer container;
 
     private Path solrHomePath;
@@ -409,6 +413,9 @@ private void createSearchCore() throws IOException
 
         // Indicate the path of the data
         createCacheCore(this.solrSearchCorePath, toSolrCoreName(SolrClientInstance.CORE_NAME));
+
+        // The new search core is empty so the incremental synchronization cannot rely on the previous watermarks
+        this.watermarks.clear();
     }
 
     private void createCacheCore(Path corePath, String solrCoreName) throws IOException
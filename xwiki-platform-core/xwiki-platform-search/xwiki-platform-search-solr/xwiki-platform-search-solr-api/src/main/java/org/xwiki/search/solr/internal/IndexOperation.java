@@ -39,6 +39,13 @@
 
     // General operations
 
+    /**
+     * Notify once all the operations queued before are sent to the index.
+     *
+     * @since 16.7.0RC1
+     */
+    FLUSH,
+
     /**
      * Stop indexing thread.
      */
@@ -98,6 +98,25 @@
      */
     int getIndexerQueueCapacity();
 
+    /**
+     * @return the number of threads used to extract the metadata of the entities to index
+     * @since 16.7.0RC1
+     */
+    int getIndexerWorkers();
+
+    /**
+     * @return the maximum time (in milliseconds) an interactive modification should wait before being committed
+     * @since 16.7.0RC1
+     */
+    long getIndexerInteractiveMaxLag();
+
+    /**
+     * @return the maximum size (in bytes) of the disk cache holding the text extracted from the attachments content, 0
+     *         to disable the cache
+     * @since 16.7.0RC1
+     */
+    long getAttachmentTextCacheMaxSize();
+
     /**
      * @return true if a full synchronization job between the database and SOLR index should be run when XWiki starts
      * @since 6.1M2
@@ -121,4 +140,11 @@
      * @since 12.5RC1
      */
     SynchronizeAtStartupMode synchronizeAtStartupMode();
+
+    /**
+     * @return true if the synchronization at startup should only check the documents modified or deleted since the
+     *         last synchronization (when known), instead of comparing the whole database with the Solr index
+     * @since 16.7.0RC1
+     */
+    boolean synchronizeAtStartupIncrementally();
 }
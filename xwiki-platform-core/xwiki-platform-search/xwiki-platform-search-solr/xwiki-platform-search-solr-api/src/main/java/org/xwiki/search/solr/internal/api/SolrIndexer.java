@@ -19,6 +19,8 @@
  */
 package org.xwiki.search.solr.internal.api;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.xwiki.component.annotation.Role;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.search.solr.internal.job.IndexerJob;
@@ -60,6 +62,24 @@
      */
     int getQueueSize();
 
+    /**
+     * @return the number of entities added to the queue which are not yet sent to the index, including the ones being
+     *         processed by the indexer threads (which are not part of any queue)
+     * @since 16.7.0RC1
+     */
+    default int getPendingCount()
+    {
+        return getQueueSize();
+    }
+
+    /**
+     * Wait for the operations added to the queue so far, without waiting for the ones added after this call.
+     * 
+     * @return a future completed once all the operations added to the queue before this call are sent to the index
+     * @since 16.7.0RC1
+     */
+    CompletableFuture<Void> flush();
+
     /**
      * Start an indexing with specific criteria.
      * 
@@ -0,0 +1,80 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.jmx;
+
+import org.xwiki.search.solr.internal.metadata.AttachmentTextCache;
+
+/**
+ * Expose the statistics of the {@link AttachmentTextCache} as JMX MBean.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+public class JMXAttachmentTextCache implements JMXAttachmentTextCacheMBean
+{
+    private final AttachmentTextCache cache;
+
+    /**
+     * @param cache the cache to expose
+     */
+    public JMXAttachmentTextCache(AttachmentTextCache cache)
+    {
+        this.cache = cache;
+    }
+
+    @Override
+    public int getEntryCount()
+    {
+        return this.cache.getEntryCount();
+    }
+
+    @Override
+    public long getSize()
+    {
+        return this.cache.getSize();
+    }
+
+    @Override
+    public long getHits()
+    {
+        return this.cache.getHits();
+    }
+
+    @Override
+    public long getMisses()
+    {
+        return this.cache.getMisses();
+    }
+
+    @Override
+    public double getHitRate()
+    {
+        long hits = this.cache.getHits();
+        long total = hits + this.cache.getMisses();
+
+        return total > 0 ? (double) hits / total : 0;
+    }
+
+    @Override
+    public long getEvictions()
+    {
+        return this.cache.getEvictions();
+    }
+}
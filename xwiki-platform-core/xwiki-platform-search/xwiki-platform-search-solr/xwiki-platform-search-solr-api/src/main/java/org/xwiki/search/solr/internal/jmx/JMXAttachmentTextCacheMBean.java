@@ -0,0 +1,59 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.jmx;
+
+/**
+ * Interface of the {@link JMXAttachmentTextCache} MBean.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+public interface JMXAttachmentTextCacheMBean
+{
+    /**
+     * @return the number of entries in the cache
+     */
+    int getEntryCount();
+
+    /**
+     * @return the size (in bytes) of the cache on the disk
+     */
+    long getSize();
+
+    /**
+     * @return the number of times the text of an attachment was found in the cache
+     */
+    long getHits();
+
+    /**
+     * @return the number of times the text of an attachment had to be extracted
+     */
+    long getMisses();
+
+    /**
+     * @return the ratio of the attachment text lookups which were found in the cache, between 0 and 1
+     */
+    double getHitRate();
+
+    /**
+     * @return the number of entries removed from the cache to respect its maximum size
+     */
+    long getEvictions();
+}
@@ -0,0 +1,131 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.jmx;
+
+import java.util.List;
+
+import org.xwiki.search.solr.internal.DefaultSolrIndexer;
+
+/**
+ * Expose the state of the {@link DefaultSolrIndexer} pipeline as JMX MBean.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+public class JMXSolrIndexer implements JMXSolrIndexerMBean
+{
+    private static final double NANOSECONDS_PER_MILLISECOND = 1000000D;
+
+    private final DefaultSolrIndexer indexer;
+
+    /**
+     * @param indexer the indexer to expose
+     */
+    public JMXSolrIndexer(DefaultSolrIndexer indexer)
+    {
+        this.indexer = indexer;
+    }
+
+    @Override
+    public int getQueueSize()
+    {
+        return this.indexer.getQueueSize();
+    }
+
+    @Override
+    public int getResolveQueueSize()
+    {
+        return this.indexer.getResolveQueueSize();
+    }
+
+    @Override
+    public int getIndexQueueSize()
+    {
+        return this.indexer.getIndexQueueSize();
+    }
+
+    @Override
+    public List<Integer> getIndexQueueSizes()
+    {
+        return this.indexer.getIndexQueueSizes();
+    }
+
+    @Override
+    public int getInteractiveQueueSize()
+    {
+        return this.indexer.getLaneQueueSize(false);
+    }
+
+    @Override
+    public int getBulkQueueSize()
+    {
+        return this.indexer.getLaneQueueSize(true);
+    }
+
+    @Override
+    public long getInteractiveLag()
+    {
+        return this.indexer.getLaneLag(false);
+    }
+
+    @Override
+    public long getBulkLag()
+    {
+        return this.indexer.getLaneLag(true);
+    }
+
+    @Override
+    public int getCommitQueueSize()
+    {
+        return this.indexer.getCommitQueueSize();
+    }
+
+    @Override
+    public long getResolvedCount()
+    {
+        return this.indexer.getResolvedCount();
+    }
+
+    @Override
+    public long getExtractedCount()
+    {
+        return this.indexer.getExtractedCount();
+    }
+
+    @Override
+    public double getAverageExtractionTime()
+    {
+        long count = this.indexer.getExtractedCount();
+
+        return count > 0 ? this.indexer.getExtractionTime() / NANOSECONDS_PER_MILLISECOND / count : 0;
+    }
+
+    @Override
+    public long getSentCount()
+    {
+        return this.indexer.getSentCount();
+    }
+
+    @Override
+    public long getCommitCount()
+    {
+        return this.indexer.getCommitCount();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.jmx;
+
+import java.util.List;
+
+/**
+ * Interface of the {@link JMXSolrIndexer} MBean.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+public interface JMXSolrIndexerMBean
+{
+    /**
+     * @return the total number of entries waiting to be indexed or deleted
+     */
+    int getQueueSize();
+
+    /**
+     * @return the number of entries waiting to be resolved
+     */
+    int getResolveQueueSize();
+
+    /**
+     * @return the number of entries waiting to be processed by the extraction workers
+     */
+    int getIndexQueueSize();
+
+    /**
+     * @return the number of entries waiting to be processed, for each extraction worker
+     */
+    List<Integer> getIndexQueueSizes();
+
+    /**
+     * @return the number of interactive entries waiting to be resolved or processed by the extraction workers
+     */
+    int getInteractiveQueueSize();
+
+    /**
+     * @return the number of bulk entries (full reindex, etc.) waiting to be resolved or processed by the extraction
+     *         workers
+     */
+    int getBulkQueueSize();
+
+    /**
+     * @return the time between the queuing and the commit of the oldest interactive entry of the last commit, in
+     *         milliseconds
+     */
+    long getInteractiveLag();
+
+    /**
+     * @return the time between the queuing and the commit of the oldest bulk entry of the last commit, in milliseconds
+     */
+    long getBulkLag();
+
+    /**
+     * @return the number of extracted entries waiting to be sent to the Solr server
+     */
+    int getCommitQueueSize();
+
+    /**
+     * @return the number of entries dispatched to the extraction workers since the indexer was started
+     */
+    long getResolvedCount();
+
+    /**
+     * @return the number of entries processed by the extraction workers since the indexer was started
+     */
+    long getExtractedCount();
+
+    /**
+     * @return the average time spent by an extraction worker on an entry, in milliseconds
+     */
+    double getAverageExtractionTime();
+
+    /**
+     * @return the number of entries sent to the Solr server since the indexer was started
+     */
+    long getSentCount();
+
+    /**
+     * @return the number of commits sent to the Solr server since the indexer was started
+     */
+    long getCommitCount();
+}
@@ -0,0 +1,177 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.job;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.lang3.LocaleUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.annotation.InstantiationStrategy;
+import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceResolver;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.search.solr.internal.job.DiffDocumentIterator.Action;
+
+/**
+ * Iterates the documents of a wiki which were modified or deleted since a given date, using range queries on the
+ * (indexed) dates of the documents and of the recycle bin, instead of comparing the whole database with the Solr
+ * index. The modified documents are returned with the {@link Action#UPDATE} action and the deleted documents which
+ * don't exist anymore with the {@link Action#DELETE} action.
+ * <p>
+ * Documents deleted without going through the recycle bin and documents saved with a date older than the given one
+ * (import, restore, etc.) are not found by this iterator. {@link IndexerJob} falls back on the comparison of the whole
+ * wiki when the number of documents in the database and in the Solr index don't match after using it.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+@Component
+@InstantiationStrategy(ComponentInstantiationStrategy.PER_LOOKUP)
+@Named("changed")
+public class ChangedDocumentIterator extends AbstractDocumentIterator<Action>
+{
+    private static final String MODIFIED_WHERE = " from XWikiDocument doc where doc.date >= :since";
+
+    private static final String DELETED_WHERE = " from XWikiDeletedDocument ddoc where ddoc.date >= :since"
+        + " and not exists (select doc.id from XWikiDocument doc where doc.fullName = ddoc.fullName"
+        // Oracle stores the empty string as null
+        + " and (doc.language = ddoc.language or (doc.language is null and ddoc.language is null)))";
+
+    private static final String SINCE = "since";
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    @Named("explicit")
+    private EntityReferenceResolver<String> explicitEntityReferenceResolver;
+
+    private Date since;
+
+    /**
+     * {@code false} while iterating the modified documents, {@code true} while iterating the deleted documents.
+     */
+    private boolean deleted;
+
+    private boolean finished;
+
+    private int offset;
+
+    private int index;
+
+    private List<Object[]> results = Collections.emptyList();
+
+    /**
+     * @param since the date from which to look for modifications
+     */
+    public void setSince(Date since)
+    {
+        this.since = since;
+    }
+
+    private String getWiki()
+    {
+        return this.rootReference.extractReference(EntityType.WIKI).getName();
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        while (!this.finished && this.index >= this.results.size()) {
+            fetchNextResults();
+        }
+
+        return !this.finished;
+    }
+
+    @Override
+    public Pair<DocumentReference, Action> next()
+    {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        Object[] result = this.results.get(this.index++);
+        String fullName = (String) result[0];
+        String locale = (String) result[1];
+        DocumentReference documentReference = new DocumentReference(this.explicitEntityReferenceResolver
+            .resolve(fullName, EntityType.DOCUMENT, new WikiReference(getWiki())));
+        if (!StringUtils.isEmpty(locale)) {
+            documentReference = new DocumentReference(documentReference, LocaleUtils.toLocale(locale));
+        }
+
+        return new ImmutablePair<>(documentReference, this.deleted ? Action.DELETE : Action.UPDATE);
+    }
+
+    private void fetchNextResults()
+    {
+        try {
+            String statement = this.deleted
+                ? "select ddoc.fullName, ddoc.language" + DELETED_WHERE + " order by ddoc.id"
+                : "select doc.fullName, doc.language" + MODIFIED_WHERE + " order by doc.id";
+            this.results = this.queryManager.createQuery(statement, Query.HQL).setWiki(getWiki())
+                .bindValue(SINCE, this.since).setOffset(this.offset).setLimit(LIMIT).execute();
+            this.offset += LIMIT;
+            this.index = 0;
+
+            if (this.results.isEmpty()) {
+                if (this.deleted) {
+                    this.finished = true;
+                } else {
+                    // Switch to the deleted documents
+                    this.deleted = true;
+                    this.offset = 0;
+                }
+            }
+        } catch (QueryException e) {
+            throw new IllegalStateException("Failed to query the documents modified since " + this.since, e);
+        }
+    }
+
+    @Override
+    public long size()
+    {
+        try {
+            long size = 0;
+            for (String where : new String[] {MODIFIED_WHERE, DELETED_WHERE}) {
+                size += this.queryManager.createQuery("select count(*)" + where, Query.HQL).setWiki(getWiki())
+                    .bindValue(SINCE, this.since).<Long>execute().get(0);
+            }
+
+            return size;
+        } catch (QueryException e) {
+            throw new IllegalStateException("Failed to count the documents modified since " + this.since, e);
+        }
+    }
+}
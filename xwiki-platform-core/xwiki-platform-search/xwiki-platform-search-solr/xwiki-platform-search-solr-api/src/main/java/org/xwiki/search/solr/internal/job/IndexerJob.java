@@ -19,10 +19,19 @@
  */
 package org.xwiki.search.solr.internal.job;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Provider;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.xwiki.component.annotation.Component;
@@ -32,11 +41,15 @@
 import org.xwiki.job.DefaultJobStatus;
 import org.xwiki.job.GroupedJob;
 import org.xwiki.job.JobGroupPath;
+import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.WikiReference;
 import org.xwiki.search.solr.internal.api.SolrIndexer;
 import org.xwiki.search.solr.internal.job.DiffDocumentIterator.Action;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+import org.xwiki.wiki.manager.WikiManagerException;
 
 /**
  * Provide progress information and store logging of an advanced indexing.
@@ -59,6 +72,12 @@ public class IndexerJob extends AbstractJob<IndexerRequest, DefaultJobStatus<Ind
      */
     private static final JobGroupPath GROUP = new JobGroupPath(Arrays.asList("solr", "indexer"));
 
+    /**
+     * Taken out of the new watermarks to cover the modifications saved during the synchronization and the clock
+     * differences between the database and the servers.
+     */
+    private static final long WATERMARK_MARGIN = TimeUnit.MINUTES.toMillis(1);
+
     /**
      * Used to send documents to index or delete to/from Solr index.
      */
@@ -73,6 +92,24 @@ public class IndexerJob extends AbstractJob<IndexerRequest, DefaultJobStatus<Ind
     @Named("solr")
     private transient DocumentIterator<String> solrIterator;
 
+    @Inject
+    @Named("database")
+    private transient Provider<DocumentIterator<String>> databaseIteratorProvider;
+
+    @Inject
+    @Named("solr")
+    private transient Provider<DocumentIterator<String>> solrIteratorProvider;
+
+    @Inject
+    @Named("changed")
+    private transient Provider<DocumentIterator<Action>> changedIteratorProvider;
+
+    @Inject
+    private transient IndexerWatermarks watermarks;
+
+    @Inject
+    private transient WikiDescriptorManager wikiDescriptorManager;
+
     @Inject
     private EntityReferenceSerializer<String> entityReferenceSerializer;
 
@@ -99,19 +136,161 @@ protected void runInternal() throws Exception
             EntityReference rootReference = getRequest().getRootReference();
             this.logger.info("Index documents in [{}].", rootReference);
             this.indexer.index(rootReference, true);
+        } else if (getRequest().isIncremental() && (getRequest().getRootReference() == null
+            || getRequest().getRootReference().getType() == EntityType.WIKI)) {
+            updateSolrIndexIncrementally();
         } else {
-            updateSolrIndex();
+            DiffDocumentIterator<String> iterator =
+                new DiffDocumentIterator<>(this.solrIterator, this.databaseIterator);
+            iterator.setRootReference(getRequest().getRootReference());
+            updateSolrIndex(iterator);
         }
     }
 
     /**
-     * Update the Solr index to match the current state of the database.
+     * Update the Solr index with the documents modified or deleted since the last synchronization of each wiki, and
+     * fall back on the comparison of the whole wiki with the Solr index when it was never synchronized.
+     */
+    private void updateSolrIndexIncrementally() throws WikiManagerException
+    {
+        List<String> wikis = getRequest().getRootReference() != null
+            ? Collections.singletonList(getRequest().getRootReference().getName())
+            : new ArrayList<>(this.wikiDescriptorManager.getAllIds());
+        Date watermark = new Date(System.currentTimeMillis() - WATERMARK_MARGIN);
+
+        this.progressManager.pushLevelProgress(wikis.size() + 2, this);
+
+        try {
+            List<WikiReference> incrementalWikis = new ArrayList<>();
+            for (String wiki : wikis) {
+                this.progressManager.startStep(this);
+                WikiReference wikiReference = new WikiReference(wiki);
+                if (updateSolrIndexIncrementally(wikiReference)) {
+                    incrementalWikis.add(wikiReference);
+                }
+                this.progressManager.endStep(this);
+            }
+
+            // Only move the watermarks once the queued documents are actually indexed, otherwise a restart in between
+            // would lose them. Don't wait for the documents queued by others in the meantime, the index queue might
+            // never be empty.
+            this.progressManager.startStep(this);
+            boolean indexed = waitForIndexQueue(this.indexer.flush(), getRequest().getIndexQueueTimeout());
+            this.progressManager.endStep(this);
+
+            this.progressManager.startStep(this);
+            if (indexed && updateInconsistentWikis(incrementalWikis)) {
+                indexed = waitForIndexQueue(this.indexer.flush(), getRequest().getIndexQueueTimeout());
+            }
+            if (indexed) {
+                for (String wiki : wikis) {
+                    this.watermarks.set(wiki, watermark);
+                }
+            }
+            this.progressManager.endStep(this);
+        } finally {
+            this.progressManager.popLevelProgress(this);
+        }
+    }
+
+    /**
+     * @param wikiReference the wiki to synchronize
+     * @return {@code true} if only the documents modified or deleted since the watermark of the wiki were synchronized,
+     *         {@code false} if the whole wiki was compared with the Solr index
      */
-    private void updateSolrIndex()
+    private boolean updateSolrIndexIncrementally(WikiReference wikiReference)
     {
-        DiffDocumentIterator<String> iterator = new DiffDocumentIterator<>(this.solrIterator, this.databaseIterator);
-        iterator.setRootReference(getRequest().getRootReference());
+        Date since = this.watermarks.get(wikiReference.getName());
+
+        DocumentIterator<Action> iterator;
+        if (since != null) {
+            this.logger.info("Synchronize the Solr index with the documents of wiki [{}] modified since [{}].",
+                wikiReference.getName(), since);
+
+            iterator = this.changedIteratorProvider.get();
+            ((ChangedDocumentIterator) iterator).setSince(since);
+        } else {
+            iterator = new DiffDocumentIterator<>(this.solrIteratorProvider.get(),
+                this.databaseIteratorProvider.get());
+        }
+        iterator.setRootReference(wikiReference);
+
+        updateSolrIndex(iterator);
+
+        return since != null;
+    }
 
+    /**
+     * The documents saved with a date older than the watermark (import, restore, etc.) and the documents deleted
+     * without going through the recycle bin are not found by the incremental synchronization, so compare the whole
+     * wiki with the Solr index when the number of documents doesn't match once the incremental synchronization is
+     * indexed.
+     * 
+     * @param wikiReferences the wikis which were synchronized incrementally
+     * @return {@code true} if at least one of the wikis had to be compared with the Solr index
+     */
+    private boolean updateInconsistentWikis(List<WikiReference> wikiReferences)
+    {
+        boolean updated = false;
+
+        for (WikiReference wikiReference : wikiReferences) {
+            DocumentIterator<String> databaseDocuments = this.databaseIteratorProvider.get();
+            databaseDocuments.setRootReference(wikiReference);
+            DocumentIterator<String> solrDocuments = this.solrIteratorProvider.get();
+            solrDocuments.setRootReference(wikiReference);
+
+            long databaseSize = databaseDocuments.size();
+            long solrSize = solrDocuments.size();
+            // The documents missing from the database are not removed from the Solr index if not requested
+            if (getRequest().isRemoveMissing() ? databaseSize != solrSize : databaseSize > solrSize) {
+                this.logger.info("The wiki [{}] has [{}] documents but [{}] are indexed after the incremental"
+                    + " synchronization, comparing the whole wiki with the Solr index.", wikiReference.getName(),
+                    databaseSize, solrSize);
+
+                DiffDocumentIterator<String> iterator = new DiffDocumentIterator<>(this.solrIteratorProvider.get(),
+                    this.databaseIteratorProvider.get());
+                iterator.setRootReference(wikiReference);
+                updateSolrIndex(iterator);
+
+                updated = true;
+            }
+        }
+
+        return updated;
+    }
+
+    /**
+     * @param flushed completed once the documents queued by this job are indexed
+     * @param timeout the maximum time to wait, in milliseconds
+     * @return {@code true} if all the documents queued by this job have been indexed, {@code false} if the timeout
+     *         expired or the thread was interrupted
+     */
+    private boolean waitForIndexQueue(Future<Void> flushed, long timeout)
+    {
+        try {
+            flushed.get(timeout, TimeUnit.MILLISECONDS);
+
+            return true;
+        } catch (TimeoutException | ExecutionException e) {
+            this.logger.warn("The documents queued by the synchronization were not indexed in less than [{}] ms, the"
+                + " watermarks of the incremental synchronization are not updated.", timeout);
+
+            return false;
+        } catch (InterruptedException e) {
+            this.logger.warn("Interrupted while waiting for the documents queued by the synchronization to be"
+                + " indexed.");
+
+            Thread.currentThread().interrupt();
+
+            return false;
+        }
+    }
+
+    /**
+     * Update the Solr index to match the current state of the database.
+     */
+    private void updateSolrIndex(DocumentIterator<Action> iterator)
+    {
         this.progressManager.pushLevelProgress(2, this);
 
         try {
@@ -131,7 +310,7 @@ private void updateSolrIndex()
         }
     }
 
-    private void updateSolrIndex(int progressSize, DiffDocumentIterator<String> iterator)
+    private void updateSolrIndex(int progressSize, DocumentIterator<Action> iterator)
     {
         this.progressManager.pushLevelProgress(progressSize, this);
 
@@ -19,6 +19,8 @@
  */
 package org.xwiki.search.solr.internal.job;
 
+import java.util.concurrent.TimeUnit;
+
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.xwiki.job.AbstractRequest;
@@ -53,6 +55,16 @@ public class IndexerRequest extends AbstractRequest
      */
     private boolean removeMissing = true;
 
+    /**
+     * @see #isIncremental()
+     */
+    private boolean incremental;
+
+    /**
+     * @see #getIndexQueueTimeout()
+     */
+    private long indexQueueTimeout = TimeUnit.HOURS.toMillis(1);
+
     /**
      * The default constructor.
      */
@@ -118,6 +130,49 @@ public void setRemoveMissing(boolean removeMissing)
         this.removeMissing = removeMissing;
     }
 
+    /**
+     * @return if true only the documents modified or deleted since the last incremental synchronization of the wiki
+     *         are checked (the whole wiki is checked if it was never synchronized), if false the whole database is
+     *         compared with the Solr index
+     * @since 16.7.0RC1
+     */
+    public boolean isIncremental()
+    {
+        return this.incremental;
+    }
+
+    /**
+     * @param incremental if true only the documents modified or deleted since the last incremental synchronization of
+     *            the wiki are checked (the whole wiki is checked if it was never synchronized), if false the whole
+     *            database is compared with the Solr index
+     * @since 16.7.0RC1
+     */
+    public void setIncremental(boolean incremental)
+    {
+        this.incremental = incremental;
+    }
+
+    /**
+     * @return the maximum time (in milliseconds) to wait for the documents queued by an incremental synchronization to
+     *         be indexed before giving up moving the watermarks (in which case the next incremental synchronization
+     *         starts again from the previous watermarks)
+     * @since 16.7.0RC1
+     */
+    public long getIndexQueueTimeout()
+    {
+        return this.indexQueueTimeout;
+    }
+
+    /**
+     * @param indexQueueTimeout the maximum time (in milliseconds) to wait for the documents queued by an incremental
+     *            synchronization to be indexed before giving up moving the watermarks
+     * @since 16.7.0RC1
+     */
+    public void setIndexQueueTimeout(long indexQueueTimeout)
+    {
+        this.indexQueueTimeout = indexQueueTimeout;
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -135,6 +190,8 @@ public boolean equals(Object o)
             .appendSuper(super.equals(o))
             .append(overwrite, that.overwrite)
             .append(removeMissing, that.removeMissing)
+            .append(incremental, that.incremental)
+            .append(indexQueueTimeout, that.indexQueueTimeout)
             .append(rootReference, that.rootReference)
             .isEquals();
     }
@@ -147,6 +204,8 @@ public int hashCode()
             .append(rootReference)
             .append(overwrite)
             .append(removeMissing)
+            .append(incremental)
+            .append(indexQueueTimeout)
             .toHashCode();
     }
 }
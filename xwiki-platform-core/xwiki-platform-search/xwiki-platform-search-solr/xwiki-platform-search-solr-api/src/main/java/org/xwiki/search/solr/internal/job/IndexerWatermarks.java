@@ -0,0 +1,106 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.job;
+
+import java.io.File;
+import java.util.Date;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.environment.Environment;
+
+import com.xpn.xwiki.internal.file.PropertiesFile;
+
+/**
+ * Store, for each wiki, the date before which all the modifications are known to be indexed. It's used by the
+ * incremental synchronization to only look at the documents modified or deleted since then.
+ * <p>
+ * The watermarks are stored in the permanent directory. Removing the file is safe: it only means that the next
+ * incremental synchronization of each wiki will compare the whole database with the Solr index. They are cleared
+ * whenever the search core is created or emptied since they describe the content of the index.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+@Component(roles = IndexerWatermarks.class)
+@Singleton
+public class IndexerWatermarks
+{
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private Logger logger;
+
+    private PropertiesFile watermarks;
+
+    private PropertiesFile getWatermarks()
+    {
+        if (this.watermarks == null) {
+            File file = new File(this.environment.getPermanentDirectory(), "cache/solr/indexer-watermarks.properties");
+            this.watermarks = new PropertiesFile(file, "Solr indexer watermarks");
+        }
+
+        return this.watermarks;
+    }
+
+    /**
+     * @param wiki the identifier of the wiki
+     * @return the date before which all the modifications of the wiki are known to be indexed, or {@code null} if
+     *         unknown
+     */
+    public synchronized Date get(String wiki)
+    {
+        String value = getWatermarks().get(wiki);
+
+        if (value != null) {
+            try {
+                return new Date(Long.parseLong(value));
+            } catch (NumberFormatException e) {
+                // Fall back on the comparison of the whole wiki
+                this.logger.warn("Invalid Solr indexer watermark [{}] for wiki [{}]", value, wiki);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param wiki the identifier of the wiki
+     * @param date the date before which all the modifications of the wiki are known to be indexed, {@code null} to
+     *            forget it
+     */
+    public synchronized void set(String wiki, Date date)
+    {
+        getWatermarks().set(wiki, date != null ? String.valueOf(date.getTime()) : null);
+    }
+
+    /**
+     * Forget the watermarks of all the wikis, for example because the Solr index was emptied and the next
+     * synchronization of each wiki needs to compare the whole database with the Solr index.
+     */
+    public synchronized void clear()
+    {
+        getWatermarks().clear();
+    }
+}
@@ -127,6 +127,9 @@ public abstract class AbstractSolrMetadataExtractor implements SolrMetadataExtra
     @Inject
     protected GeneralMailConfiguration generalMailConfiguration;
 
+    @Inject
+    protected AttachmentTextCache attachmentTextCache;
+
     private int shortTextLimit = -1;
 
     /**
@@ -525,16 +528,34 @@ protected void addFieldValueOnce(SolrInputDocument solrDocument, String fieldNam
     protected String getContentAsText(XWikiAttachment attachment)
     {
         try {
+            XWikiContext xcontext = this.xcontextProvider.get();
+
+            // Don't parse again the attachments which did not change
+            String cacheKey = this.attachmentTextCache.getKey(attachment, xcontext);
+            if (cacheKey != null) {
+                String text = this.attachmentTextCache.get(cacheKey);
+                if (text != null) {
+                    return text;
+                }
+            }
+
             Metadata metadata = new Metadata();
             metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, attachment.getFilename());
 
-            InputStream in = attachment.getContentInputStream(this.xcontextProvider.get());
+            InputStream in = attachment.getContentInputStream(xcontext);
 
+            String text;
             try {
-                return TikaUtils.parseToString(in, metadata);
+                text = TikaUtils.parseToString(in, metadata);
             } finally {
                 in.close();
             }
+
+            if (cacheKey != null && text != null) {
+                this.attachmentTextCache.set(cacheKey, text);
+            }
+
+            return text;
         } catch (Exception e) {
             this.logger.error("Failed to retrieve the content of attachment [{}]", attachment.getReference(), e);
             return null;
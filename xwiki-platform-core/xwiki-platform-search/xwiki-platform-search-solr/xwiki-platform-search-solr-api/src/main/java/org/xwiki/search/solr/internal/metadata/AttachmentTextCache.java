@@ -0,0 +1,324 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.metadata;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.environment.Environment;
+import org.xwiki.management.JMXBeanRegistration;
+import org.xwiki.search.solr.internal.api.SolrConfiguration;
+import org.xwiki.search.solr.internal.jmx.JMXAttachmentTextCache;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiAttachment;
+
+/**
+ * A disk cache of the text extracted from the attachments content, so that the attachments which did not change are
+ * not parsed again each time their document is indexed. The entries are identified by a hash of the attachment name
+ * and content (so that several copies of the same file share the same entry) and the least recently used entries are
+ * removed when the cache exceeds the configured size.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+@Component(roles = AttachmentTextCache.class)
+@Singleton
+public class AttachmentTextCache implements Initializable, Disposable
+{
+    private static final String MBEAN_NAME = "name=solrattachmenttextcache";
+
+    private static final String FILE_EXTENSION = ".txt.gz";
+
+    private static final String TEMPORARY_FILE_EXTENSION = ".tmp";
+
+    @Inject
+    private SolrConfiguration configuration;
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private JMXBeanRegistration jmxRegistration;
+
+    @Inject
+    private Logger logger;
+
+    private File directory;
+
+    /**
+     * The size of the cached entries, from the least recently used to the most recently used.
+     */
+    private final Map<String, Long> entries = new LinkedHashMap<>(16, 0.75F, true);
+
+    private long size;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.directory = new File(this.environment.getPermanentDirectory(), "cache/solr/attachments");
+
+        if (isEnabled()) {
+            loadEntries();
+        }
+
+        this.jmxRegistration.registerMBean(new JMXAttachmentTextCache(this), MBEAN_NAME);
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.jmxRegistration.unregisterMBean(MBEAN_NAME);
+    }
+
+    private boolean isEnabled()
+    {
+        return this.configuration.getAttachmentTextCacheMaxSize() > 0;
+    }
+
+    private void loadEntries()
+    {
+        // Remove the temporary files left behind by a crash while writing an entry
+        File[] temporaryFiles = this.directory.listFiles((dir, name) -> name.endsWith(TEMPORARY_FILE_EXTENSION));
+        if (temporaryFiles != null) {
+            for (File temporaryFile : temporaryFiles) {
+                FileUtils.deleteQuietly(temporaryFile);
+            }
+        }
+
+        File[] files = this.directory.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+        if (files != null) {
+            // Restore the least recently used order from the last modified date of the files
+            Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+
+            synchronized (this.entries) {
+                for (File file : files) {
+                    long length = file.length();
+                    this.entries.put(file.getName().substring(0, file.getName().length() - FILE_EXTENSION.length()),
+                        length);
+                    this.size += length;
+                }
+
+                evict();
+            }
+        }
+    }
+
+    /**
+     * @param attachment the attachment
+     * @param xcontext the XWiki context
+     * @return the key of the attachment content in the cache, or {@code null} if the cache is disabled
+     * @throws XWikiException when failing to access the attachment content
+     * @throws IOException when failing to read the attachment content
+     */
+    public String getKey(XWikiAttachment attachment, XWikiContext xcontext) throws XWikiException, IOException
+    {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        // The name of the file is taken into account when parsing the content
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        digest.update(attachment.getFilename().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        try (InputStream stream = attachment.getContentInputStream(xcontext)) {
+            DigestUtils.updateDigest(digest, stream);
+        }
+
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    /**
+     * @param key the key of the attachment content, as returned by {@link #getKey(XWikiAttachment, XWikiContext)}
+     * @return the cached text, or {@code null} if the cache does not contain any text for the passed key
+     */
+    public String get(String key)
+    {
+        synchronized (this.entries) {
+            if (this.entries.get(key) == null) {
+                this.misses.incrementAndGet();
+
+                return null;
+            }
+        }
+
+        File file = getFile(key);
+        try (InputStream stream = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+            String text = IOUtils.toString(stream, StandardCharsets.UTF_8);
+
+            // Remember that the entry was recently used, in case the cache is reloaded
+            file.setLastModified(System.currentTimeMillis());
+            this.hits.incrementAndGet();
+
+            return text;
+        } catch (IOException e) {
+            this.logger.warn("Failed to read the cached attachment text from [{}]: {}", file, e.getMessage());
+
+            remove(key);
+            this.misses.incrementAndGet();
+
+            return null;
+        }
+    }
+
+    /**
+     * @param key the key of the attachment content, as returned by {@link #getKey(XWikiAttachment, XWikiContext)}
+     * @param text the text extracted from the attachment content
+     */
+    public void set(String key, String text)
+    {
+        File file = getFile(key);
+        try {
+            // Write the entry in a temporary file first to not expose partial entries to other threads
+            File temporaryFile = File.createTempFile(key, TEMPORARY_FILE_EXTENSION, this.directory);
+            try (OutputStream stream = new GZIPOutputStream(Files.newOutputStream(temporaryFile.toPath()))) {
+                stream.write(text.getBytes(StandardCharsets.UTF_8));
+            }
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            this.logger.warn("Failed to cache the attachment text in [{}]: {}", file, e.getMessage());
+
+            return;
+        }
+
+        synchronized (this.entries) {
+            Long previousLength = this.entries.put(key, file.length());
+            if (previousLength != null) {
+                this.size -= previousLength;
+            }
+            this.size += file.length();
+
+            evict();
+        }
+    }
+
+    private void remove(String key)
+    {
+        synchronized (this.entries) {
+            Long length = this.entries.remove(key);
+            if (length != null) {
+                this.size -= length;
+            }
+        }
+
+        FileUtils.deleteQuietly(getFile(key));
+    }
+
+    private void evict()
+    {
+        long maxSize = this.configuration.getAttachmentTextCacheMaxSize();
+        for (Iterator<Map.Entry<String, Long>> it = this.entries.entrySet().iterator();
+            it.hasNext() && this.size > maxSize;) {
+            Map.Entry<String, Long> entry = it.next();
+            it.remove();
+            this.size -= entry.getValue();
+            FileUtils.deleteQuietly(getFile(entry.getKey()));
+            this.evictions.incrementAndGet();
+        }
+    }
+
+    private File getFile(String key)
+    {
+        if (!this.directory.exists()) {
+            this.directory.mkdirs();
+        }
+
+        return new File(this.directory, key + FILE_EXTENSION);
+    }
+
+    /**
+     * @return the number of entries in the cache
+     */
+    public int getEntryCount()
+    {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    /**
+     * @return the size (in bytes) of the cache on the disk
+     */
+    public long getSize()
+    {
+        synchronized (this.entries) {
+            return this.size;
+        }
+    }
+
+    /**
+     * @return the number of times the text of an attachment was found in the cache
+     */
+    public long getHits()
+    {
+        return this.hits.get();
+    }
+
+    /**
+     * @return the number of times the text of an attachment had to be extracted
+     */
+    public long getMisses()
+    {
+        return this.misses.get();
+    }
+
+    /**
+     * @return the number of entries removed from the cache to respect its maximum size
+     */
+    public long getEvictions()
+    {
+        return this.evictions.get();
+    }
+}
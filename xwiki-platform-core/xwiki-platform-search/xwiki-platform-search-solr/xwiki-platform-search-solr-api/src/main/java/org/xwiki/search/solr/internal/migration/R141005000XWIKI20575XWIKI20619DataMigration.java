@@ -38,6 +38,7 @@
 import org.xwiki.search.solr.internal.SolrClientInstance;
 import org.xwiki.search.solr.internal.SolrSchemaUtils;
 import org.xwiki.search.solr.internal.api.SolrInstance;
+import org.xwiki.search.solr.internal.job.IndexerWatermarks;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.store.migration.DataMigrationException;
@@ -76,6 +77,9 @@ public class R141005000XWIKI20575XWIKI20619DataMigration implements HibernateDat
     @Inject
     private Execution execution;
 
+    @Inject
+    private IndexerWatermarks watermarks;
+
     @Inject
     private SolrSchemaUtils solrSchemaUtils;
 
@@ -126,6 +130,9 @@ public void migrate() throws DataMigrationException
 
             this.solrInstance.deleteByQuery("*:*");
             this.solrInstance.commit();
+
+            // Make sure the next incremental synchronization compares the whole database with the emptied index
+            this.watermarks.clear();
         } catch (SolrServerException | IOException | SolrException e) {
             throw new DataMigrationException("Error while performing Solr query to empty the search core", e);
         }
@@ -30,6 +30,7 @@
 import org.xwiki.context.Execution;
 import org.xwiki.context.ExecutionContext;
 import org.xwiki.search.solr.internal.api.SolrInstance;
+import org.xwiki.search.solr.internal.job.IndexerWatermarks;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.store.migration.DataMigrationException;
@@ -62,6 +63,9 @@ public class R141015000XWIKI20371XWIKI21208DataMigration implements HibernateDat
     @Inject
     private Execution execution;
 
+    @Inject
+    private IndexerWatermarks watermarks;
+
     /**
      * @return XWikiContext to access the store
      */
@@ -97,6 +101,9 @@ public void migrate() throws DataMigrationException
         try {
             this.solrInstance.deleteByQuery("*:*");
             this.solrInstance.commit();
+
+            // Make sure the next incremental synchronization compares the whole database with the emptied index
+            this.watermarks.clear();
         } catch (SolrServerException | IOException e) {
             throw new DataMigrationException("Error while performing Solr query to empty the search core", e);
         }
@@ -85,6 +85,24 @@ public void getIndexerQueueCapacity()
 
     }
 
+    @Test
+    public void getIndexerWorkers()
+    {
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_INDEXER_WORKERS_PROPERTY,
+            DefaultSolrConfiguration.SOLR_INDEXER_WORKERS_DEFAULT)).thenReturn(4);
+
+        assertEquals(4, this.configuration.getIndexerWorkers());
+    }
+
+    @Test
+    public void getIndexerInteractiveMaxLag()
+    {
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_INDEXER_INTERACTIVE_MAXLAG_PROPERTY,
+            DefaultSolrConfiguration.SOLR_INDEXER_INTERACTIVE_MAXLAG_DEFAULT)).thenReturn(1000L);
+
+        assertEquals(1000L, this.configuration.getIndexerInteractiveMaxLag());
+    }
+
     @Test
     public void synchronizeAtStartup()
     {
@@ -0,0 +1,454 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.xwiki.bridge.internal.DocumentContextExecutor;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.job.JobExecutor;
+import org.xwiki.management.JMXBeanRegistration;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.search.solr.internal.api.IndexingUserConfig;
+import org.xwiki.search.solr.internal.api.SolrConfiguration;
+import org.xwiki.search.solr.internal.api.SolrInstance;
+import org.xwiki.search.solr.internal.metadata.LengthSolrInputDocument;
+import org.xwiki.search.solr.internal.metadata.SolrMetadataExtractor;
+import org.xwiki.search.solr.internal.reference.SolrReferenceResolver;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DefaultSolrIndexer}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class DefaultSolrIndexerTest
+{
+    private static final long TIMEOUT = 5000;
+
+    @InjectMockComponents
+    private DefaultSolrIndexer indexer;
+
+    @MockComponent
+    private SolrConfiguration configuration;
+
+    @MockComponent
+    private SolrInstance solrInstance;
+
+    @MockComponent
+    private SolrReferenceResolver resolver;
+
+    @MockComponent
+    @Named("document")
+    private SolrMetadataExtractor extractor;
+
+    @MockComponent
+    private IndexingUserConfig indexingUserConfig;
+
+    @MockComponent
+    private Execution execution;
+
+    @MockComponent
+    private ExecutionContextManager ecm;
+
+    @MockComponent
+    private JobExecutor jobs;
+
+    @MockComponent
+    private DocumentContextExecutor documentContextExecutor;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    @MockComponent
+    private JMXBeanRegistration jmxRegistration;
+
+    private final XWikiContext xcontext = mock(XWikiContext.class);
+
+    private final Map<EntityReference, LengthSolrInputDocument> solrDocuments = new ConcurrentHashMap<>();
+
+    private final Map<EntityReference, CountDownLatch> blockers = new ConcurrentHashMap<>();
+
+    private final Map<EntityReference, String> extractionThreads = new ConcurrentHashMap<>();
+
+    @BeforeComponent
+    void beforeComponent() throws Exception
+    {
+        when(this.configuration.getIndexerWorkers()).thenReturn(2);
+        when(this.configuration.getIndexerQueueCapacity()).thenReturn(100);
+        when(this.configuration.getIndexerBatchSize()).thenReturn(50);
+        when(this.configuration.getIndexerBatchMaxLengh()).thenReturn(100000);
+        when(this.configuration.getIndexerInteractiveMaxLag()).thenReturn(10000L);
+
+        doAnswer(invocation -> {
+            ExecutionContext executionContext = invocation.getArgument(0);
+            executionContext.setProperty(XWikiContext.EXECUTIONCONTEXT_KEY, this.xcontext);
+            return null;
+        }).when(this.ecm).initialize(any());
+        when(this.xcontextProvider.get()).thenReturn(this.xcontext);
+        when(this.xcontext.getWiki()).thenReturn(mock(XWiki.class));
+        when(this.documentContextExecutor.call(any(), any()))
+            .thenAnswer(invocation -> invocation.<Callable<?>>getArgument(0).call());
+
+        when(this.extractor.getSolrDocument(any())).thenAnswer(invocation -> extract(invocation.getArgument(0)));
+        when(this.resolver.getId(any())).thenAnswer(invocation -> String.valueOf(invocation.<Object>getArgument(0)));
+    }
+
+    @AfterEach
+    void afterEach() throws Exception
+    {
+        this.indexer.dispose();
+    }
+
+    private LengthSolrInputDocument extract(EntityReference reference) throws InterruptedException
+    {
+        this.extractionThreads.put(reference, Thread.currentThread().getName());
+
+        CountDownLatch blocker = this.blockers.get(reference);
+        if (blocker != null) {
+            blocker.await();
+        }
+
+        return solrDocument(reference);
+    }
+
+    private LengthSolrInputDocument solrDocument(EntityReference reference)
+    {
+        return this.solrDocuments.computeIfAbsent(reference, key -> new LengthSolrInputDocument());
+    }
+
+    private void waitFor(BooleanSupplier condition) throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + TIMEOUT;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < end, "Timeout");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Block the extraction worker in charge of the passed document (and all its locales).
+     */
+    private CountDownLatch block(DocumentReference reference) throws InterruptedException
+    {
+        CountDownLatch blocker = new CountDownLatch(1);
+        this.blockers.put(reference, blocker);
+
+        this.indexer.index(reference, false);
+        verify(this.extractor, timeout(TIMEOUT)).getSolrDocument(reference);
+
+        return blocker;
+    }
+
+    @Test
+    void indexAndDeleteInPartitions() throws Exception
+    {
+        List<DocumentReference> references = new ArrayList<>();
+        for (int i = 0; i < 20; ++i) {
+            DocumentReference reference = new DocumentReference("wiki", "Space", "Page" + i);
+            references.add(reference);
+
+            this.indexer.index(reference, false);
+            this.indexer.index(new DocumentReference(reference, Locale.FRENCH), false);
+            this.indexer.delete(reference, false);
+        }
+
+        verify(this.solrInstance, timeout(TIMEOUT).times(40)).add(any(SolrInputDocument.class));
+        verify(this.solrInstance, timeout(TIMEOUT).times(20)).delete(any(String.class));
+
+        for (DocumentReference reference : references) {
+            // The operations targeting the same document are applied in the order they were received
+            InOrder inOrder = inOrder(this.solrInstance);
+            inOrder.verify(this.solrInstance).add(same(solrDocument(reference)));
+            inOrder.verify(this.solrInstance).delete(reference.toString());
+
+            // All the locales of a document are handled by the same worker
+            assertEquals(this.extractionThreads.get(reference),
+                this.extractionThreads.get(new DocumentReference(reference, Locale.FRENCH)));
+        }
+
+        // The documents were dispatched to both workers
+        assertEquals(2, new HashSet<>(this.extractionThreads.values()).size());
+    }
+
+    @Test
+    void deleteByQueryWaitsForAllWorkers() throws Exception
+    {
+        WikiReference wikiReference = new WikiReference("wiki");
+        when(this.resolver.getQuery(wikiReference)).thenReturn("wiki:wiki");
+
+        DocumentReference blocked = new DocumentReference("wiki", "Space", "Blocked");
+        CountDownLatch blocker = new CountDownLatch(1);
+        this.blockers.put(blocked, blocker);
+
+        this.indexer.index(blocked, false);
+        verify(this.extractor, timeout(TIMEOUT)).getSolrDocument(blocked);
+
+        this.indexer.delete(wikiReference, true);
+        DocumentReference next = new DocumentReference("wiki", "Space", "Next");
+        this.indexer.index(next, false);
+
+        // The delete query is not sent while one of the workers did not forward the entries it received before it,
+        // and the worker which reached it first waits for the other one before processing the next entries
+        verify(this.solrInstance, after(500).never()).deleteByQuery(any());
+        verify(this.solrInstance, never()).add(any(SolrInputDocument.class));
+
+        blocker.countDown();
+
+        verify(this.solrInstance, timeout(TIMEOUT)).add(same(solrDocument(next)));
+        InOrder inOrder = inOrder(this.solrInstance);
+        inOrder.verify(this.solrInstance).add(same(solrDocument(blocked)));
+        inOrder.verify(this.solrInstance).deleteByQuery("wiki:wiki");
+        inOrder.verify(this.solrInstance).add(same(solrDocument(next)));
+    }
+
+    @Test
+    void documentDeleteQueryDoesNotWaitForOtherWorkers() throws Exception
+    {
+        DocumentReference blocked = new DocumentReference("wiki", "Space", "Blocked");
+        CountDownLatch blocker = block(blocked);
+
+        // Find a document handled by the worker which is not blocked
+        for (int i = 0; i < 10; ++i) {
+            this.indexer.index(new DocumentReference("wiki", "Space", "Page" + i), false);
+        }
+        waitFor(() -> this.extractionThreads.size() > 1);
+        EntityReference other = this.extractionThreads.keySet().stream().filter(reference -> !reference.equals(blocked))
+            .findFirst().get();
+        when(this.resolver.getQuery(other)).thenReturn("document:other");
+
+        this.indexer.delete(other, true);
+
+        // Only the worker in charge of the document receives the delete query
+        verify(this.solrInstance, timeout(TIMEOUT)).deleteByQuery("document:other");
+        verify(this.solrInstance, never()).add(same(solrDocument(blocked)));
+
+        blocker.countDown();
+    }
+
+    @Test
+    void interactiveEntriesOvertakeBulkEntries() throws Exception
+    {
+        // All the locales of a document are handled by the same worker
+        DocumentReference blocked = new DocumentReference("wiki", "Space", "Blocked");
+        DocumentReference french = new DocumentReference(blocked, Locale.FRENCH);
+        DocumentReference german = new DocumentReference(blocked, Locale.GERMAN);
+        DocumentReference italian = new DocumentReference(blocked, Locale.ITALIAN);
+        WikiReference wikiReference = new WikiReference("wiki");
+        when(this.resolver.getReferences(wikiReference)).thenReturn(Arrays.<EntityReference>asList(french, german));
+
+        CountDownLatch blocker = block(blocked);
+
+        this.indexer.index(wikiReference, true);
+        waitFor(() -> this.indexer.getLaneQueueSize(true) == 2 && this.indexer.getResolveQueueSize() == 0);
+        this.indexer.index(italian, false);
+        waitFor(() -> this.indexer.getLaneQueueSize(false) == 1);
+
+        blocker.countDown();
+
+        verify(this.solrInstance, timeout(TIMEOUT)).add(same(solrDocument(german)));
+        InOrder inOrder = inOrder(this.solrInstance);
+        inOrder.verify(this.solrInstance).add(same(solrDocument(blocked)));
+        inOrder.verify(this.solrInstance).add(same(solrDocument(italian)));
+        inOrder.verify(this.solrInstance).add(same(solrDocument(french)));
+        inOrder.verify(this.solrInstance).add(same(solrDocument(german)));
+    }
+
+    @Test
+    void bulkEntryOvertakenByInteractiveDeleteIsSkipped() throws Exception
+    {
+        DocumentReference blocked = new DocumentReference("wiki", "Space", "Blocked");
+        DocumentReference french = new DocumentReference(blocked, Locale.FRENCH);
+        DocumentReference german = new DocumentReference(blocked, Locale.GERMAN);
+        WikiReference wikiReference = new WikiReference("wiki");
+        when(this.resolver.getReferences(wikiReference)).thenReturn(Arrays.<EntityReference>asList(french, german));
+
+        CountDownLatch blocker = block(blocked);
+
+        this.indexer.index(wikiReference, true);
+        waitFor(() -> this.indexer.getLaneQueueSize(true) == 2 && this.indexer.getResolveQueueSize() == 0);
+        // The French translation is deleted while the bulk entry indexing it is still waiting
+        this.indexer.delete(french, false);
+        waitFor(() -> this.indexer.getLaneQueueSize(false) == 1);
+
+        blocker.countDown();
+
+        verify(this.solrInstance, timeout(TIMEOUT)).add(same(solrDocument(german)));
+        verify(this.solrInstance).delete(french.toString());
+        // The stale bulk entry must not index again the deleted translation
+        verify(this.extractor, never()).getSolrDocument(french);
+        verify(this.solrInstance, never()).add(same(solrDocument(french)));
+    }
+
+    @Test
+    void flushWaitsForPreviousEntries() throws Exception
+    {
+        DocumentReference blocked = new DocumentReference("wiki", "Space", "Blocked");
+        DocumentReference bulk = new DocumentReference("wiki", "Space", "Bulk");
+        when(this.resolver.getReferences(bulk)).thenReturn(Arrays.<EntityReference>asList(bulk));
+
+        CountDownLatch blocker = block(blocked);
+        this.indexer.index(bulk, true);
+
+        CompletableFuture<Void> flushed = this.indexer.flush();
+
+        assertThrows(TimeoutException.class, () -> flushed.get(200, TimeUnit.MILLISECONDS));
+
+        blocker.countDown();
+
+        flushed.get(TIMEOUT, TimeUnit.MILLISECONDS);
+        // The entries queued before the flush are committed before it completes
+        InOrder inOrder = inOrder(this.solrInstance);
+        inOrder.verify(this.solrInstance).add(same(solrDocument(blocked)));
+        inOrder.verify(this.solrInstance).commit();
+        verify(this.solrInstance).add(same(solrDocument(bulk)));
+    }
+
+    @Test
+    void bulkEntryOvertakenByInteractiveRecursiveDeleteIsSkipped() throws Exception
+    {
+        DocumentReference blocked = new DocumentReference("wiki", "Space", "Blocked");
+        DocumentReference french = new DocumentReference(blocked, Locale.FRENCH);
+        DocumentReference german = new DocumentReference(blocked, Locale.GERMAN);
+        WikiReference wikiReference = new WikiReference("wiki");
+        when(this.resolver.getReferences(wikiReference)).thenReturn(Arrays.<EntityReference>asList(french, german));
+        when(this.resolver.getQuery(blocked.getLastSpaceReference())).thenReturn("space:Space");
+
+        CountDownLatch blocker = block(blocked);
+
+        this.indexer.index(wikiReference, true);
+        waitFor(() -> this.indexer.getLaneQueueSize(true) == 2 && this.indexer.getResolveQueueSize() == 0);
+        // The whole space is deleted while the bulk entries indexing its documents are still waiting
+        this.indexer.delete(blocked.getLastSpaceReference(), true);
+        waitFor(() -> this.indexer.getLaneQueueSize(false) == 1 && this.indexer.getResolveQueueSize() == 0);
+
+        blocker.countDown();
+
+        verify(this.solrInstance, timeout(TIMEOUT)).deleteByQuery("space:Space");
+        // The stale bulk entries must not index again the deleted translations
+        verify(this.solrInstance, after(500).never()).add(same(solrDocument(french)));
+        verify(this.solrInstance, never()).add(same(solrDocument(german)));
+        verify(this.extractor, never()).getSolrDocument(french);
+        verify(this.extractor, never()).getSolrDocument(german);
+    }
+
+    @Test
+    void interactiveLaneIsBounded() throws Exception
+    {
+        DocumentReference blocked = new DocumentReference("wiki", "Space", "Blocked");
+
+        CountDownLatch blocker = block(blocked);
+
+        // The configured capacity (100) is shared between the 2 workers
+        List<DocumentReference> references = new ArrayList<>();
+        for (int i = 0; i < 60; ++i) {
+            DocumentReference reference = new DocumentReference(blocked, new Locale("l" + i));
+            references.add(reference);
+            this.indexer.index(reference, false);
+        }
+
+        waitFor(() -> this.indexer.getIndexQueueSize() == 50);
+        // The entries which don't fit wait in the resolve queue
+        verify(this.extractor, after(200).times(1)).getSolrDocument(any());
+        assertEquals(50, this.indexer.getIndexQueueSize());
+
+        blocker.countDown();
+
+        verify(this.solrInstance, timeout(TIMEOUT).times(61)).add(any(SolrInputDocument.class));
+        InOrder inOrder = inOrder(this.solrInstance);
+        for (DocumentReference reference : references) {
+            inOrder.verify(this.solrInstance).add(same(solrDocument(reference)));
+        }
+    }
+
+    @Test
+    void interactiveEntriesAreCommittedWhenMaxLagIsExceeded() throws Exception
+    {
+        when(this.configuration.getIndexerInteractiveMaxLag()).thenReturn(0L);
+
+        DocumentReference first = new DocumentReference("wiki", "Space", "First");
+        DocumentReference second = new DocumentReference("wiki", "Space", "Second");
+
+        // Block the sending of the first entry so that the second one ends up in the same batch
+        CountDownLatch sendBlocker = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sendBlocker.await();
+            return null;
+        }).when(this.solrInstance).add(same(solrDocument(first)));
+        this.indexer.index(first, false);
+        verify(this.solrInstance, timeout(TIMEOUT)).add(same(solrDocument(first)));
+        this.indexer.index(second, false);
+        waitFor(() -> this.indexer.getCommitQueueSize() == 1);
+
+        sendBlocker.countDown();
+
+        verify(this.solrInstance, timeout(TIMEOUT).times(2)).commit();
+        // Each entry is committed right away instead of waiting for the end of the batch
+        InOrder inOrder = inOrder(this.solrInstance);
+        inOrder.verify(this.solrInstance).add(same(solrDocument(first)));
+        inOrder.verify(this.solrInstance).commit();
+        inOrder.verify(this.solrInstance).add(same(solrDocument(second)));
+        inOrder.verify(this.solrInstance).commit();
+    }
+}
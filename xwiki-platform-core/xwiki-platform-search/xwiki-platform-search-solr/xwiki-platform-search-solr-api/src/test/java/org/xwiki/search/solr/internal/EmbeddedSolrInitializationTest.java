@@ -22,6 +22,7 @@
 import java.io.File;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Date;
 import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -40,6 +41,7 @@
 import org.xwiki.environment.Environment;
 import org.xwiki.search.solr.Solr;
 import org.xwiki.search.solr.internal.api.SolrConfiguration;
+import org.xwiki.search.solr.internal.job.IndexerWatermarks;
 import org.xwiki.test.annotation.AfterComponent;
 import org.xwiki.test.annotation.AllComponents;
 import org.xwiki.test.junit5.XWikiTempDir;
@@ -50,6 +52,7 @@
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -196,9 +199,16 @@ void testInitializationWhenInvalid() throws Exception
 
         assertEquals(modifiedContent, FileUtils.readFileToString(solrconfigFile, StandardCharsets.UTF_8));
 
+        // Simulate a previous incremental synchronization
+        IndexerWatermarks watermarks = this.componentManager.getInstance(IndexerWatermarks.class);
+        watermarks.set("wiki", new Date(42));
+
         getInstanceAndAssertHomeDirectory(solrHomeDirectory.toString());
 
         assertNotEquals(modifiedContent, FileUtils.readFileToString(solrconfigFile, StandardCharsets.UTF_8));
+
+        // The recreated search core is empty
+        assertNull(watermarks.get("wiki"));
     }
 
     @Test
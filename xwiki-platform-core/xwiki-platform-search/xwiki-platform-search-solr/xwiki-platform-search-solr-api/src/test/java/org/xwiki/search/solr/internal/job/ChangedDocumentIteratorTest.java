@@ -0,0 +1,136 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.job;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import javax.inject.Named;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceResolver;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.search.solr.internal.job.DiffDocumentIterator.Action;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ChangedDocumentIterator}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class ChangedDocumentIteratorTest
+{
+    private static final WikiReference WIKI_REFERENCE = new WikiReference("chess");
+
+    @MockComponent
+    @Named("explicit")
+    private EntityReferenceResolver<String> explicitEntityReferenceResolver;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @InjectMockComponents
+    private ChangedDocumentIterator iterator;
+
+    private Query mockQuery(List<Object[]> firstPage) throws Exception
+    {
+        Query emptyPage = mock(Query.class, RETURNS_SELF);
+        when(emptyPage.execute()).thenReturn(Collections.emptyList());
+
+        Query page = mock(Query.class, RETURNS_SELF);
+        when(page.execute()).thenReturn(firstPage);
+
+        Query query = mock(Query.class, RETURNS_SELF);
+        when(query.setOffset(0)).thenReturn(page);
+        when(query.setOffset(100)).thenReturn(emptyPage);
+
+        return query;
+    }
+
+    private DocumentReference mockReference(String fullName, String space, String name)
+    {
+        DocumentReference documentReference = new DocumentReference(WIKI_REFERENCE.getName(), space, name);
+        when(this.explicitEntityReferenceResolver.resolve(fullName, EntityType.DOCUMENT, WIKI_REFERENCE))
+            .thenReturn(documentReference);
+
+        return documentReference;
+    }
+
+    @Test
+    void iterateModifiedAndDeletedDocuments() throws Exception
+    {
+        Date since = new Date(42);
+
+        Query modifiedQuery = mockQuery(
+            Arrays.asList(new Object[] {"Main.WebHome", ""}, new Object[] {"Main.Welcome", "fr"}));
+        Query deletedQuery = mockQuery(Collections.singletonList(new Object[] {"Main.Deleted", null}));
+        when(this.queryManager.createQuery(startsWith("select doc.fullName, doc.language from XWikiDocument doc"),
+            eq(Query.HQL))).thenReturn(modifiedQuery);
+        when(this.queryManager.createQuery(
+            startsWith("select ddoc.fullName, ddoc.language from XWikiDeletedDocument ddoc"), eq(Query.HQL)))
+                .thenReturn(deletedQuery);
+
+        Query countQuery = mock(Query.class, RETURNS_SELF);
+        when(countQuery.execute()).thenReturn(Collections.singletonList(2L), Collections.singletonList(1L));
+        when(this.queryManager.createQuery(startsWith("select count(*)"), any())).thenReturn(countQuery);
+
+        DocumentReference webHome = mockReference("Main.WebHome", "Main", "WebHome");
+        DocumentReference welcome = mockReference("Main.Welcome", "Main", "Welcome");
+        DocumentReference deleted = mockReference("Main.Deleted", "Main", "Deleted");
+
+        this.iterator.setRootReference(WIKI_REFERENCE);
+        this.iterator.setSince(since);
+
+        assertEquals(3L, this.iterator.size());
+
+        List<Pair<DocumentReference, Action>> actualResults = new ArrayList<>();
+        while (this.iterator.hasNext()) {
+            actualResults.add(this.iterator.next());
+        }
+
+        List<Pair<DocumentReference, Action>> expectedResults = new ArrayList<>();
+        expectedResults.add(new ImmutablePair<>(webHome, Action.UPDATE));
+        expectedResults.add(new ImmutablePair<>(new DocumentReference(welcome, Locale.FRENCH), Action.UPDATE));
+        expectedResults.add(new ImmutablePair<>(deleted, Action.DELETE));
+
+        assertEquals(expectedResults, actualResults);
+    }
+}
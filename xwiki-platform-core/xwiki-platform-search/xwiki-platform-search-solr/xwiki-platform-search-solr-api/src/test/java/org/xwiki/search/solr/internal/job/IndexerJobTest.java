@@ -0,0 +1,220 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.job;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.search.solr.internal.api.SolrIndexer;
+import org.xwiki.search.solr.internal.job.DiffDocumentIterator.Action;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the incremental synchronization of {@link IndexerJob}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class IndexerJobTest
+{
+    private static final WikiReference WIKI_REFERENCE = new WikiReference("wiki");
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @InjectMockComponents
+    private IndexerJob job;
+
+    @MockComponent
+    private SolrIndexer indexer;
+
+    @MockComponent
+    private IndexerWatermarks watermarks;
+
+    @MockComponent
+    private WikiDescriptorManager wikiDescriptorManager;
+
+    @MockComponent
+    @Named("changed")
+    private Provider<DocumentIterator<Action>> changedIteratorProvider;
+
+    @MockComponent
+    @Named("database")
+    private Provider<DocumentIterator<String>> databaseIteratorProvider;
+
+    @MockComponent
+    @Named("solr")
+    private Provider<DocumentIterator<String>> solrIteratorProvider;
+
+    @BeforeEach
+    void beforeEach()
+    {
+        when(this.indexer.flush()).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * @return the Solr iterator returned for each wiki
+     */
+    private DocumentIterator<String> mockWikiIterators(long databaseSize, long solrSize)
+    {
+        DocumentIterator<String> databaseIterator = mock(DocumentIterator.class);
+        DocumentIterator<String> solrIterator = mock(DocumentIterator.class);
+        when(databaseIterator.size()).thenReturn(databaseSize);
+        when(solrIterator.size()).thenReturn(solrSize);
+        when(this.databaseIteratorProvider.get()).thenReturn(databaseIterator);
+        when(this.solrIteratorProvider.get()).thenReturn(solrIterator);
+
+        return solrIterator;
+    }
+
+    private void runIncremental(long indexQueueTimeout) throws Exception
+    {
+        when(this.wikiDescriptorManager.getAllIds()).thenReturn(Collections.singletonList(WIKI_REFERENCE.getName()));
+
+        IndexerRequest request = new IndexerRequest();
+        request.setIncremental(true);
+        request.setIndexQueueTimeout(indexQueueTimeout);
+        request.setVerbose(false);
+
+        this.job.initialize(request);
+        this.job.run();
+    }
+
+    @Test
+    void synchronizeFromWatermark() throws Exception
+    {
+        when(this.watermarks.get(WIKI_REFERENCE.getName())).thenReturn(new Date(42));
+
+        ChangedDocumentIterator iterator = mock(ChangedDocumentIterator.class);
+        when(this.changedIteratorProvider.get()).thenReturn(iterator);
+        DocumentReference modified = new DocumentReference(WIKI_REFERENCE.getName(), "Space", "Modified");
+        DocumentReference deleted = new DocumentReference(WIKI_REFERENCE.getName(), "Space", "Deleted");
+        when(iterator.size()).thenReturn(2L);
+        when(iterator.hasNext()).thenReturn(true, true, false);
+        when(iterator.next()).thenReturn(new ImmutablePair<>(modified, Action.UPDATE),
+            new ImmutablePair<>(deleted, Action.DELETE));
+
+        // Documents queued by others are still waiting to be indexed
+        when(this.indexer.getPendingCount()).thenReturn(10);
+
+        // The index is consistent with the database after the incremental synchronization
+        mockWikiIterators(10, 10);
+
+        long before = System.currentTimeMillis();
+
+        runIncremental(1000);
+
+        verify(iterator).setSince(new Date(42));
+        verify(iterator).setRootReference(WIKI_REFERENCE);
+        // Only the documents queued by the job are waited for
+        InOrder inOrder = inOrder(this.indexer);
+        inOrder.verify(this.indexer).index(modified, true);
+        inOrder.verify(this.indexer).delete(deleted, true);
+        inOrder.verify(this.indexer).flush();
+
+        // The watermark is moved to the start of the synchronization, minus a margin
+        ArgumentCaptor<Date> watermark = ArgumentCaptor.forClass(Date.class);
+        verify(this.watermarks).set(eq(WIKI_REFERENCE.getName()), watermark.capture());
+        assertTrue(watermark.getValue().getTime() <= before);
+        assertTrue(watermark.getValue().getTime() >= before - 120000);
+    }
+
+    @Test
+    void synchronizeWholeWikiWhenIncrementalSynchronizationIsInconsistent() throws Exception
+    {
+        when(this.watermarks.get(WIKI_REFERENCE.getName())).thenReturn(new Date(42));
+        ChangedDocumentIterator iterator = mock(ChangedDocumentIterator.class);
+        when(this.changedIteratorProvider.get()).thenReturn(iterator);
+
+        // A document was deleted without going through the recycle bin
+        DocumentIterator<String> solrIterator = mockWikiIterators(10, 11);
+        DocumentReference deleted = new DocumentReference(WIKI_REFERENCE.getName(), "Space", "Deleted");
+        when(solrIterator.hasNext()).thenReturn(true, false);
+        when(solrIterator.next()).thenReturn(new ImmutablePair<>(deleted, "1.1"));
+
+        runIncremental(1000);
+
+        verify(this.indexer).delete(deleted, true);
+        // The job waits for the whole wiki comparison before moving the watermark
+        verify(this.indexer, times(2)).flush();
+        verify(this.watermarks).set(eq(WIKI_REFERENCE.getName()), any(Date.class));
+    }
+
+    @Test
+    void synchronizeWholeWikiWithoutWatermark() throws Exception
+    {
+        DocumentIterator<String> databaseIterator = mock(DocumentIterator.class);
+        DocumentIterator<String> solrIterator = mock(DocumentIterator.class);
+        when(this.databaseIteratorProvider.get()).thenReturn(databaseIterator);
+        when(this.solrIteratorProvider.get()).thenReturn(solrIterator);
+
+        runIncremental(1000);
+
+        verify(this.changedIteratorProvider, never()).get();
+        verify(databaseIterator).setRootReference(WIKI_REFERENCE);
+        verify(solrIterator).setRootReference(WIKI_REFERENCE);
+        verify(this.watermarks).set(eq(WIKI_REFERENCE.getName()), any(Date.class));
+    }
+
+    @Test
+    void watermarkNotMovedWhenIndexQueueIsNotEmptied() throws Exception
+    {
+        when(this.watermarks.get(WIKI_REFERENCE.getName())).thenReturn(new Date(42));
+        when(this.changedIteratorProvider.get()).thenReturn(mock(ChangedDocumentIterator.class));
+
+        // An entry queued by the job is still being processed by the indexer
+        when(this.indexer.flush()).thenReturn(new CompletableFuture<>());
+
+        runIncremental(10);
+
+        verify(this.watermarks, never()).set(anyString(), any());
+        assertEquals("The documents queued by the synchronization were not indexed in less than [10] ms, the"
+            + " watermarks of the incremental synchronization are not updated.", this.logCapture.getMessage(0));
+    }
+}
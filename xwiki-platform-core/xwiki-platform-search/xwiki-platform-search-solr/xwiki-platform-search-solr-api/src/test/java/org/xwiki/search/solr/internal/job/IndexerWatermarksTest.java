@@ -0,0 +1,137 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.job;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.xwiki.environment.Environment;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link IndexerWatermarks}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class IndexerWatermarksTest
+{
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @XWikiTempDir
+    private File permanentDirectory;
+
+    @MockComponent
+    private Environment environment;
+
+    @InjectMockComponents
+    private IndexerWatermarks watermarks;
+
+    private File file;
+
+    @BeforeEach
+    void beforeEach()
+    {
+        when(this.environment.getPermanentDirectory()).thenReturn(this.permanentDirectory);
+
+        this.file = new File(this.permanentDirectory, "cache/solr/indexer-watermarks.properties");
+    }
+
+    @Test
+    void setAndGet() throws Exception
+    {
+        assertNull(this.watermarks.get("wiki"));
+
+        this.watermarks.set("wiki", new Date(42));
+        this.watermarks.set("other", new Date(43));
+
+        assertEquals(new Date(42), this.watermarks.get("wiki"));
+
+        // The watermarks are stored in the permanent directory
+        Properties properties = new Properties();
+        try (InputStream stream = Files.newInputStream(this.file.toPath())) {
+            properties.load(stream);
+        }
+        assertEquals("42", properties.getProperty("wiki"));
+        assertEquals("43", properties.getProperty("other"));
+        assertFalse(new File(this.file.getPath() + ".tmp").exists());
+
+        this.watermarks.set("wiki", null);
+
+        assertNull(this.watermarks.get("wiki"));
+        assertEquals(new Date(43), this.watermarks.get("other"));
+    }
+
+    @Test
+    void clear() throws Exception
+    {
+        FileUtils.write(this.file, "wiki=42\nother=43\n", ISO_8859_1);
+
+        this.watermarks.clear();
+
+        assertNull(this.watermarks.get("wiki"));
+        assertNull(this.watermarks.get("other"));
+
+        Properties properties = new Properties();
+        try (InputStream stream = Files.newInputStream(this.file.toPath())) {
+            properties.load(stream);
+        }
+        assertTrue(properties.isEmpty());
+    }
+
+    @Test
+    void getExistingWatermarks() throws Exception
+    {
+        FileUtils.write(this.file, "wiki=42\n", ISO_8859_1);
+
+        assertEquals(new Date(42), this.watermarks.get("wiki"));
+    }
+
+    @Test
+    void getCorruptedWatermark() throws Exception
+    {
+        FileUtils.write(this.file, "wiki=not a date\nother=43\n", ISO_8859_1);
+
+        assertNull(this.watermarks.get("wiki"));
+        assertEquals("Invalid Solr indexer watermark [not a date] for wiki [wiki]", this.logCapture.getMessage(0));
+
+        assertEquals(new Date(43), this.watermarks.get("other"));
+    }
+}
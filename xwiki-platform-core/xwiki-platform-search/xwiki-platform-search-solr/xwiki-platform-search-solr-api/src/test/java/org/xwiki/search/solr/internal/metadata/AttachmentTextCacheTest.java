@@ -0,0 +1,164 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.metadata;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.environment.Environment;
+import org.xwiki.management.JMXBeanRegistration;
+import org.xwiki.search.solr.internal.api.SolrConfiguration;
+import org.xwiki.test.annotation.ComponentList;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectComponentManager;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiAttachment;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link AttachmentTextCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+@ComponentList(AttachmentTextCache.class)
+class AttachmentTextCacheTest
+{
+    @XWikiTempDir
+    private File permanentDirectory;
+
+    @MockComponent
+    private Environment environment;
+
+    @MockComponent
+    private SolrConfiguration configuration;
+
+    @MockComponent
+    private JMXBeanRegistration jmxRegistration;
+
+    @InjectComponentManager
+    private MockitoComponentManager componentManager;
+
+    private AttachmentTextCache cache;
+
+    private XWikiContext xcontext = mock(XWikiContext.class);
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        when(this.environment.getPermanentDirectory()).thenReturn(this.permanentDirectory);
+        when(this.configuration.getAttachmentTextCacheMaxSize()).thenReturn(1024L);
+
+        this.cache = this.componentManager.getInstance(AttachmentTextCache.class);
+    }
+
+    private XWikiAttachment mockAttachment(String name, String content) throws Exception
+    {
+        XWikiAttachment attachment = mock(XWikiAttachment.class);
+        when(attachment.getFilename()).thenReturn(name);
+        when(attachment.getContentInputStream(this.xcontext))
+            .thenAnswer(invocation -> new ByteArrayInputStream(content.getBytes()));
+
+        return attachment;
+    }
+
+    @Test
+    void getKey() throws Exception
+    {
+        String key = this.cache.getKey(mockAttachment("file.txt", "content"), this.xcontext);
+
+        assertEquals(key, this.cache.getKey(mockAttachment("file.txt", "content"), this.xcontext));
+        assertNotEquals(key, this.cache.getKey(mockAttachment("file.txt", "other content"), this.xcontext));
+        assertNotEquals(key, this.cache.getKey(mockAttachment("file.pdf", "content"), this.xcontext));
+
+        when(this.configuration.getAttachmentTextCacheMaxSize()).thenReturn(0L);
+
+        assertNull(this.cache.getKey(mockAttachment("file.txt", "content"), this.xcontext));
+    }
+
+    @Test
+    void setAndGet()
+    {
+        assertNull(this.cache.get("key"));
+
+        this.cache.set("key", "text");
+
+        assertEquals("text", this.cache.get("key"));
+        assertEquals(1, this.cache.getEntryCount());
+        assertEquals(1, this.cache.getHits());
+        assertEquals(1, this.cache.getMisses());
+        assertEquals(new File(this.permanentDirectory, "cache/solr/attachments/key.txt.gz").length(),
+            this.cache.getSize());
+    }
+
+    @Test
+    void evictLeastRecentlyUsed()
+    {
+        this.cache.set("key1", "text1");
+        this.cache.set("key2", "text2");
+        long entrySize = this.cache.getSize() / 2;
+
+        // Make key2 the least recently used entry
+        this.cache.get("key1");
+
+        when(this.configuration.getAttachmentTextCacheMaxSize()).thenReturn(entrySize * 2);
+
+        this.cache.set("key3", "text3");
+
+        assertEquals(2, this.cache.getEntryCount());
+        assertEquals(1, this.cache.getEvictions());
+        assertEquals("text1", this.cache.get("key1"));
+        assertNull(this.cache.get("key2"));
+        assertEquals("text3", this.cache.get("key3"));
+        assertEquals(entrySize * 2, this.cache.getSize());
+    }
+
+    @Test
+    void loadEntriesRemovesTemporaryFiles() throws Exception
+    {
+        File directory = new File(this.permanentDirectory, "cache/solr/attachments");
+        File entryFile = new File(directory, "key.txt.gz");
+        File temporaryFile = new File(directory, "key123.tmp");
+        FileUtils.write(entryFile, "entry", UTF_8);
+        FileUtils.write(temporaryFile, "partial entry", UTF_8);
+
+        this.cache.initialize();
+
+        assertTrue(entryFile.exists());
+        assertFalse(temporaryFile.exists());
+        assertEquals(1, this.cache.getEntryCount());
+        assertEquals(entryFile.length(), this.cache.getSize());
+    }
+}
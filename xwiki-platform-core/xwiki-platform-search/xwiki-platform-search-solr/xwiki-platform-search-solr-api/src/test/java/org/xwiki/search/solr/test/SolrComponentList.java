@@ -33,6 +33,7 @@
 import org.xwiki.search.solr.internal.DefaultSolrUtils;
 import org.xwiki.search.solr.internal.EmbeddedSolr;
 import org.xwiki.search.solr.internal.SolrSchemaUtils;
+import org.xwiki.search.solr.internal.job.IndexerWatermarks;
 import org.xwiki.test.XWikiPropertiesMemoryConfigurationSource;
 import org.xwiki.test.annotation.ComponentList;
 
@@ -60,7 +61,8 @@
     EnumConverter.class,
     ContextComponentManagerProvider.class,
     XWikiPropertiesMemoryConfigurationSource.class,
-    SolrSchemaUtils.class
+    SolrSchemaUtils.class,
+    IndexerWatermarks.class
 })
 @Inherited
 public @interface SolrComponentList
@@ -22,7 +22,9 @@
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import javax.inject.Inject;
@@ -235,17 +237,26 @@ protected void filterResponse(QueryResponse response, List<DocumentReference> us
         SolrDocumentList results = response.getResults();
         long numResults = results.size();
 
-        results.removeIf(result -> {
-            boolean keep = false;
+        Map<SolrDocument, DocumentReference> resultDocumentReferences = new IdentityHashMap<>(results.size());
+        for (SolrDocument result : results) {
             try {
-                DocumentReference resultDocumentReference = this.solrDocumentReferenceResolver.resolve(result);
-
-                keep = isAllowed(resultDocumentReference, usersToCheck);
+                resultDocumentReferences.put(result, this.solrDocumentReferenceResolver.resolve(result));
             } catch (Exception e) {
                 // Don't take any risk of including a result for which we cannot determine the document reference and
                 // thus cannot determine if the given users have access to it or not.
                 this.logger.warn("Removing bad result: {}", result, e);
             }
+        }
+
+        // Check the rights of each user on all the results at once since results often share the same ancestors.
+        List<Map<DocumentReference, Boolean>> accesses = new ArrayList<>(usersToCheck.size());
+        for (DocumentReference user : usersToCheck) {
+            accesses.add(this.authorization.hasAccessToEach(Right.VIEW, user, resultDocumentReferences.values()));
+        }
+
+        results.removeIf(result -> {
+            DocumentReference resultDocumentReference = resultDocumentReferences.get(result);
+            boolean keep = resultDocumentReference != null && isAllowed(resultDocumentReference, accesses);
 
             // FIXME: We should update maxScore as well when removing the top scored item. How do we do that?
             // Sorting based on score might be a not so expensive option.
@@ -264,10 +275,11 @@ protected void filterResponse(QueryResponse response, List<DocumentReference> us
         results.setNumFound(numFound);
     }
 
-    protected boolean isAllowed(DocumentReference resultDocumentReference, List<DocumentReference> usersToCheck)
+    private boolean isAllowed(DocumentReference resultDocumentReference,
+        List<Map<DocumentReference, Boolean>> accesses)
     {
-        for (DocumentReference user : usersToCheck) {
-            if (!this.authorization.hasAccess(Right.VIEW, user, resultDocumentReference)) {
+        for (Map<DocumentReference, Boolean> userAccesses : accesses) {
+            if (!Boolean.TRUE.equals(userAccesses.get(resultDocumentReference))) {
                 return false;
             }
         }
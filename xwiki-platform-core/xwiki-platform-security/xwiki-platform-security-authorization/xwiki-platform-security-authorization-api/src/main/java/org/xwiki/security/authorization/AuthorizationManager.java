@@ -19,6 +19,9 @@
  */
 package org.xwiki.security.authorization;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 import org.xwiki.component.annotation.Role;
@@ -75,6 +78,31 @@ void checkAccess(Right right, DocumentReference userReference, EntityReference e
      */
     boolean hasAccess(Right right, DocumentReference userReference, EntityReference entityReference);
 
+    /**
+     * Verifies if the user identified by {@code userReference} has the access identified by {@code right} on each of
+     * the entities identified by {@code entityReferences}. The result is the same as calling
+     * {@link #hasAccess(Right, DocumentReference, EntityReference)} for each entity, but implementations are
+     * encouraged to share the work done for entities having common ancestors (e.g. the pages of a space).
+     * This function should be used for interface matters, use {@link #checkAccess} at security checkpoints.
+     *
+     * @param <T> the type of the entity references
+     * @param right the right to check
+     * @param userReference the user to check the right for
+     * @param entityReferences the entities on which to check the right
+     * @return for each entity, in the iteration order of {@code entityReferences}, {@code true} if the user has the
+     *         specified right on the entity, {@code false} otherwise
+     * @since 16.7.0RC1
+     */
+    default <T extends EntityReference> Map<T, Boolean> hasAccessToEach(Right right, DocumentReference userReference,
+        Collection<T> entityReferences)
+    {
+        Map<T, Boolean> result = new LinkedHashMap<>(entityReferences.size());
+        for (T entityReference : entityReferences) {
+            result.put(entityReference, hasAccess(right, userReference, entityReference));
+        }
+        return result;
+    }
+
     /**
      * Register a new custom {@link Right}.
      *
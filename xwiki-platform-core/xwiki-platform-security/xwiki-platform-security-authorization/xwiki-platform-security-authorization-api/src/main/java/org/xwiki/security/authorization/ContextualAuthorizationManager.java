@@ -19,6 +19,10 @@
  */
 package org.xwiki.security.authorization;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.xwiki.component.annotation.Role;
 import org.xwiki.model.reference.EntityReference;
 
@@ -80,4 +84,26 @@
      * @return {@code true} if the user has the specified right on the entity, {@code false} otherwise
      */
     boolean hasAccess(Right right, EntityReference entityReference);
+
+    /**
+     * Verifies if access identified by {@code right} on each of the given entities would be allowed in the current
+     * context. The result is the same as calling {@link #hasAccess(Right, EntityReference)} for each entity, but
+     * implementations are encouraged to share the work done for entities having common ancestors.
+     * This function should be used for interface matters, use {@link #checkAccess} at security checkpoints.
+     *
+     * @param <T> the type of the entity references
+     * @param right the right to check
+     * @param entityReferences the entities on which to check the right
+     * @return for each entity, in the iteration order of {@code entityReferences}, {@code true} if the access is
+     *         allowed, {@code false} otherwise
+     * @since 16.7.0RC1
+     */
+    default <T extends EntityReference> Map<T, Boolean> hasAccessToEach(Right right, Collection<T> entityReferences)
+    {
+        Map<T, Boolean> result = new LinkedHashMap<>(entityReferences.size());
+        for (T entityReference : entityReferences) {
+            result.put(entityReference, hasAccess(right, entityReference));
+        }
+        return result;
+    }
 }
@@ -20,8 +20,13 @@
 package org.xwiki.security.authorization;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -38,6 +43,7 @@
 import org.xwiki.security.UserSecurityReference;
 import org.xwiki.security.authorization.cache.SecurityCache;
 import org.xwiki.security.authorization.cache.SecurityCacheLoader;
+import org.xwiki.security.authorization.cache.SecurityCacheRulesInvalidator;
 import org.xwiki.security.internal.XWikiBridge;
 
 /**
@@ -55,6 +61,12 @@ public class DefaultAuthorizationManager implements AuthorizationManager
      */
     private static final List<Right> DEFAULT_IMPLIED_BY_RIGHTS = Arrays.asList(Right.ADMIN, Right.PROGRAM);
 
+    /**
+     * The maximum number of entities checked by {@link #hasAccessToEach(Right, DocumentReference, Collection)}
+     * without letting the pending invalidations go through.
+     */
+    private static final int BULK_CHUNK_SIZE = 100;
+
     /** Logger. **/
     @Inject
     private Logger logger;
@@ -79,6 +91,10 @@ public class DefaultAuthorizationManager implements AuthorizationManager
     @Inject
     private XWikiBridge xwikiBridge;
 
+    /** Used to settle the entities of a bulk check against the same state of the cache. */
+    @Inject
+    private SecurityCacheRulesInvalidator rulesInvalidator;
+
     /**
      * Check if the user is the super admin.
      *
@@ -118,13 +134,68 @@ public boolean hasAccess(Right right, DocumentReference userReference, EntityRef
         try {
             return hasSecurityAccess(right, userReference, entityReference, false);
         } catch (Exception e) {
-            this.logger.error(String.format("Failed to load rights for user [%s] on [%s].",
-                (userReference == null) ? AuthorizationException.NULL_USER : userReference,
-                (entityReference == null) ? AuthorizationException.NULL_ENTITY : entityReference), e);
+            logFailedAccess(userReference, entityReference, e);
             return false;
         }
     }
 
+    @Override
+    public <T extends EntityReference> Map<T, Boolean> hasAccessToEach(Right right, DocumentReference userReference,
+        Collection<T> entityReferences)
+    {
+        Map<T, Boolean> result = new LinkedHashMap<>(entityReferences.size());
+
+        if (isSuperAdmin(userReference) || right == null || right == Right.ILLEGAL
+            || (!right.isReadOnly() && xwikiBridge.isWikiReadOnly())
+            || (userReference == null && xwikiBridge.needsAuthentication(right))) {
+            // The answer doesn't depend on the entity.
+            for (T entityReference : entityReferences) {
+                result.put(entityReference, hasAccess(right, userReference, entityReference));
+            }
+            return result;
+        }
+
+        UserSecurityReference user = securityReferenceFactory.newUserReference(userReference);
+        // The access settled on an entity having rules is shared by all its descendants not having rules.
+        Map<SecurityReference, SecurityAccess> settledAccesses = new HashMap<>();
+
+        Iterator<T> iterator = entityReferences.iterator();
+        while (iterator.hasNext()) {
+            // Prevent invalidations while a chunk of entities is checked, so that the shared accesses remain valid
+            // and only one lock acquisition is needed (the one taken by the loader is reentrant). The invalidations
+            // are not suspended for the whole collection so that they don't wait behind a very large check.
+            this.rulesInvalidator.suspend();
+            try {
+                for (int i = 0; i < BULK_CHUNK_SIZE && iterator.hasNext(); ++i) {
+                    T entityReference = iterator.next();
+                    boolean access;
+                    try {
+                        access = evaluateSecurityAccess(right, userReference, user, entityReference, false,
+                            settledAccesses);
+                    } catch (Exception e) {
+                        logFailedAccess(userReference, entityReference, e);
+                        access = false;
+                    }
+                    result.put(entityReference, access);
+                }
+            } finally {
+                this.rulesInvalidator.resume();
+            }
+
+            // The rules might be invalidated before the next chunk is checked
+            settledAccesses.clear();
+        }
+
+        return result;
+    }
+
+    private void logFailedAccess(DocumentReference userReference, EntityReference entityReference, Exception e)
+    {
+        this.logger.error(String.format("Failed to load rights for user [%s] on [%s].",
+            (userReference == null) ? AuthorizationException.NULL_USER : userReference,
+            (entityReference == null) ? AuthorizationException.NULL_ENTITY : entityReference), e);
+    }
+
     /**
      * Verifies if the user identified by {@code userReference} has the access identified by {@code right} on the
      * entity identified by {@code entityReference}. Note that some rights may be checked higher in hierarchy of the
@@ -159,17 +230,16 @@ private boolean hasSecurityAccess(Right right, DocumentReference userReference,
             return false;
         }
 
-        return evaluateSecurityAccess(right, userReference, entityReference, check);
+        return evaluateSecurityAccess(right, userReference, securityReferenceFactory.newUserReference(userReference),
+            entityReference, check, null);
     }
 
-    private boolean evaluateSecurityAccess(Right right, DocumentReference userReference,
-        EntityReference entityReference, boolean check)
+    private boolean evaluateSecurityAccess(Right right, DocumentReference userReference, UserSecurityReference user,
+        EntityReference entityReference, boolean check, Map<SecurityReference, SecurityAccess> settledAccesses)
         throws AuthorizationException
     {
-        SecurityAccess securityAccess = getAccess(
-            securityReferenceFactory.newUserReference(userReference),
-            securityReferenceFactory.newEntityReference(entityReference)
-        );
+        SecurityAccess securityAccess =
+            getAccess(user, securityReferenceFactory.newEntityReference(entityReference), settledAccesses);
 
         RuleState access = securityAccess.get(right);
         String info = check ? "security checkpoint" : "access inquiry";
@@ -227,17 +297,23 @@ public void unregister(Right right) throws AuthorizationException
      *
      * @param user The user identity.
      * @param entity The entity.  May be of type DOCUMENT, WIKI, or SPACE.
+     * @param settledAccesses The accesses already settled for the user on entities having rules, shared between the
+     *            entities of a bulk check. May be {@code null}.
      * @return the cached access entry.
      * @exception org.xwiki.security.authorization.AuthorizationException if an error occurs
      */
-    private SecurityAccess getAccess(UserSecurityReference user, SecurityReference entity)
-        throws AuthorizationException
+    private SecurityAccess getAccess(UserSecurityReference user, SecurityReference entity,
+        Map<SecurityReference, SecurityAccess> settledAccesses) throws AuthorizationException
     {
         for (SecurityReference ref = entity; ref != null; ref = ref.getParentSecurityReference()) {
             if (Right.getEnabledRights(ref.getSecurityType()).isEmpty()) {
                 // Skip search on entity types that will obviously have empty/useless list of rules.
                 continue;
             }
+            SecurityAccess settledAccess = settledAccesses != null ? settledAccesses.get(ref) : null;
+            if (settledAccess != null) {
+                return settledAccess;
+            }
             SecurityRuleEntry entry = securityCache.get(ref);
             if (entry == null) {
                 SecurityAccess access = securityCacheLoader.load(user, entity).getAccess();
@@ -248,19 +324,23 @@ private SecurityAccess getAccess(UserSecurityReference user, SecurityReference e
             }
             if (!entry.isEmpty()) {
                 SecurityAccessEntry accessEntry = securityCache.get(user, ref);
+                SecurityAccess access;
                 if (accessEntry == null) {
-                    SecurityAccess access = securityCacheLoader.load(user, entity).getAccess();
+                    access = securityCacheLoader.load(user, entity).getAccess();
 
                     logger.debug("2. Loaded a new entry for user {} on {} into cache: [{}]", user, entity, access);
-
-                    return access;
                 } else {
-                    SecurityAccess access = accessEntry.getAccess();
+                    access = accessEntry.getAccess();
 
                     logger.debug("3. Got entry for user {} on {} from cache: [{}]", user, entity, access);
+                }
 
-                    return access;
+                // The access of the entity is the one of its closest ancestor having rules.
+                if (settledAccesses != null) {
+                    settledAccesses.put(ref, access);
                 }
+
+                return access;
             } 
         }
 
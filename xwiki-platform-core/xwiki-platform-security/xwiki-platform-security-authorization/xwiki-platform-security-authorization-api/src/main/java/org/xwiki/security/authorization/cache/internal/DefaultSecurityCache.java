@@ -153,12 +153,12 @@ public void initialize() throws InitializationException
         /**
          * The cached security entry.
          */
-        private SecurityEntry entry;
+        private volatile SecurityEntry entry;
 
         /**
          * Parents of this cached entry.
          */
-        private Collection<SecurityCacheEntry> parents;
+        private volatile Collection<SecurityCacheEntry> parents;
 
         /**
          * Children of this cached entry.
@@ -168,7 +168,7 @@ public void initialize() throws InitializationException
         /**
          * True if this entry has been removed.
          */
-        private boolean disposed;
+        private volatile boolean disposed;
 
         /**
          * Create a new cache entry for a security rule, linking it to its parent.
@@ -455,7 +455,9 @@ public void dispose()
         {
             if (!disposed) {
                 DefaultSecurityCache.this.cache.remove(getKey());
-                DefaultSecurityCache.this.internalEntries.remove(getKey());
+                synchronized (DefaultSecurityCache.this.internalEntries) {
+                    DefaultSecurityCache.this.internalEntries.remove(getKey());
+                }
                 disposed = true;
 
                 disconnectFromParents();
@@ -491,11 +493,12 @@ private void disposeChildren()
         }
 
         /**
-         * Add a children to this cache entry.
+         * Add a children to this cache entry. Synchronized since children might be added concurrently when the
+         * insertions are not fully serialized.
          * 
          * @param entry the children entry to add.
          */
-        private void addChild(SecurityCacheEntry entry)
+        private synchronized void addChild(SecurityCacheEntry entry)
         {
             if (this.children == null) {
                 // Use a weak set to avoid that upper entries in the hierarchy prevent their children from being
@@ -510,7 +513,7 @@ private void addChild(SecurityCacheEntry entry)
          * 
          * @param entry the children entry to remove.
          */
-        private void removeChild(SecurityCacheEntry entry)
+        private synchronized void removeChild(SecurityCacheEntry entry)
         {
             if (this.children != null) {
                 this.children.remove(entry);
@@ -670,35 +673,139 @@ private SecurityCacheEntry getShadowEntry(SecurityReference userReference, Secur
      */
     private SecurityCacheEntry getInternal(String key)
     {
-        readLock.lock();
+        lockRead();
         try {
             SecurityCacheEntry result = cache.get(key);
             if (result == null) {
                 // Try to get the entry from the internal map which may have, e.g., parents that are no longer in the
                 // cache but still referenced by entries in the cache.
-                // Synchronize to avoid concurrent modification of the map as get() may trigger the eviction of
-                // garbage collected entries. All other operations are done under the write lock.
+                // Synchronize on the map for every access: get() may trigger the eviction of garbage collected
+                // entries, and only the read lock is held here, which doesn't exclude insertions (they run under the
+                // insertion lock, which may only cover the stripe of the inserted entry) nor, when reads are lock
+                // free, removals (they run under the removal lock).
                 synchronized (this.internalEntries) {
                     result = this.internalEntries.get(key);
                 }
 
                 if (result != null) {
                     // Try re-inserting the entry into the cache to give it another chance of being stored directly.
-                    this.cache.set(key, result);
+                    reinsert(key, result);
                 }
             }
 
             if (result != null && result.disposed) {
+                if (isLockFreeRead()) {
+                    // The entry is being removed by another thread, it's the same as if it was already removed.
+                    return null;
+                }
+
                 throw new IllegalCacheStateException(
                     String.format("Entry [%s] has been disposed without being removed from the cache.", result));
             }
 
             return result;
         } finally {
-            readLock.unlock();
+            unlockRead();
+        }
+    }
+
+    /**
+     * Re-insert in the cache an entry found in the internal map.
+     *
+     * @param key the key of the entry
+     * @param entry the entry to re-insert
+     */
+    private void reinsert(String key, SecurityCacheEntry entry)
+    {
+        if (isLockFreeRead()) {
+            // The read lock doesn't exclude removals so the entry might be removed concurrently: re-insert it under the
+            // insertion lock (which excludes removals) and only if it was not removed in the meantime.
+            lockInsertion(entry.getEntry());
+            try {
+                if (!entry.disposed) {
+                    this.cache.set(key, entry);
+                }
+            } finally {
+                unlockInsertion(entry.getEntry());
+            }
+        } else {
+            this.cache.set(key, entry);
         }
     }
 
+    /**
+     * Acquire the lock which protects the reads from the cache against concurrent modifications.
+     *
+     * @since 16.7.0RC1
+     */
+    protected void lockRead()
+    {
+        this.readLock.lock();
+    }
+
+    /**
+     * Release the lock acquired by {@link #lockRead()}.
+     *
+     * @since 16.7.0RC1
+     */
+    protected void unlockRead()
+    {
+        this.readLock.unlock();
+    }
+
+    /**
+     * @return {@code true} if the reads are not protected against concurrent removals, in which case an entry which
+     *         is being removed is handled as a missing entry instead of an inconsistent state of the cache
+     * @since 16.7.0RC1
+     */
+    protected boolean isLockFreeRead()
+    {
+        return false;
+    }
+
+    /**
+     * Acquire the lock which protects the insertion of the passed entry against concurrent modifications.
+     *
+     * @param entry the entry which is going to be inserted
+     * @since 16.7.0RC1
+     */
+    protected void lockInsertion(SecurityEntry entry)
+    {
+        this.writeLock.lock();
+    }
+
+    /**
+     * Release the lock acquired by {@link #lockInsertion(SecurityEntry)}.
+     *
+     * @param entry the entry which has been inserted
+     * @since 16.7.0RC1
+     */
+    protected void unlockInsertion(SecurityEntry entry)
+    {
+        this.writeLock.unlock();
+    }
+
+    /**
+     * Acquire the lock which protects the removal of entries (which cascades to their children, whatever their wiki)
+     * against any concurrent modification.
+     *
+     * @since 16.7.0RC1
+     */
+    protected void lockRemoval()
+    {
+        this.writeLock.lock();
+    }
+
+    /**
+     * Release the lock acquired by {@link #lockRemoval()}.
+     *
+     * @since 16.7.0RC1
+     */
+    protected void unlockRemoval()
+    {
+        this.writeLock.unlock();
+    }
+
     /**
      * @param key the key of the cache slot to check.
      * @param entry the entry to compare to.
@@ -755,13 +862,15 @@ private void addEntry(String key, SecurityCacheEntry entry)
         // layer for access entries, this is not the purpose of the internal entries map. Instead, the size of the
         // cache should be increased if this is desired.
         if (!(entry.getEntry() instanceof SecurityAccessEntry)) {
-            this.internalEntries.put(key, entry);
+            synchronized (this.internalEntries) {
+                this.internalEntries.put(key, entry);
+            }
         }
 
         if (entry.disposed) {
-            // This should never happen as entries cannot be disposed while being added to the cache as both
-            // operations require the write lock. However, if it happens, there is a serious bug in the code so
-            // better fail with an exception.
+            // This should never happen as entries cannot be disposed while being added to the cache as the
+            // insertion lock and the removal lock exclude each other. However, if it happens, there is a serious bug
+            // in the code so better fail with an exception.
             throw new IllegalCacheStateException(
                 String.format("Entry [%s] has been disposed while being added to the cache.", entry));
         }
@@ -802,7 +911,7 @@ private void add(SecurityEntry entry, Collection<GroupSecurityReference> groups)
     {
         String key = getEntryKey(entry);
 
-        writeLock.lock();
+        lockInsertion(entry);
         try {
             if (isAlreadyInserted(key, entry, groups)) {
                 return;
@@ -811,7 +920,7 @@ private void add(SecurityEntry entry, Collection<GroupSecurityReference> groups)
 
             logger.debug("Added rule/shadow entry [{}] into the cache.", key);
         } finally {
-            writeLock.unlock();
+            unlockInsertion(entry);
         }
     }
 
@@ -865,7 +974,7 @@ private void internalAdd(SecurityAccessEntry entry, SecurityReference wiki)
     {
         String key = getEntryKey(entry);
 
-        writeLock.lock();
+        lockInsertion(entry);
         try {
             if (isAlreadyInserted(key, entry)) {
                 return;
@@ -874,7 +983,7 @@ private void internalAdd(SecurityAccessEntry entry, SecurityReference wiki)
 
             logger.debug("Added access entry [{}] into the cache.", key);
         } finally {
-            writeLock.unlock();
+            unlockInsertion(entry);
         }
     }
 
@@ -928,7 +1037,7 @@ public void remove(UserSecurityReference user, SecurityReference entity)
         this.invalidationWriteLock.lock();
 
         try {
-            writeLock.lock();
+            lockRemoval();
             try {
                 SecurityCacheEntry entry = getEntry(user, entity);
                 if (entry != null) {
@@ -938,7 +1047,7 @@ public void remove(UserSecurityReference user, SecurityReference entity)
                     entry.dispose();
                 }
             } finally {
-                writeLock.unlock();
+                unlockRemoval();
             }
         } finally {
             this.invalidationWriteLock.unlock();
@@ -951,7 +1060,7 @@ public void remove(SecurityReference entity)
         this.invalidationWriteLock.lock();
 
         try {
-            writeLock.lock();
+            lockRemoval();
             try {
                 SecurityCacheEntry entry = getEntry(entity);
                 if (entry != null) {
@@ -961,7 +1070,7 @@ public void remove(SecurityReference entity)
                     entry.dispose();
                 }
             } finally {
-                writeLock.unlock();
+                unlockRemoval();
             }
         } finally {
             this.invalidationWriteLock.unlock();
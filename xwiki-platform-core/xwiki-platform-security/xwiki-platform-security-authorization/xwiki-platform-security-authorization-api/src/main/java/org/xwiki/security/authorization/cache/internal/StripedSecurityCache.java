@@ -0,0 +1,148 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.security.authorization.cache.internal;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.security.SecurityReference;
+import org.xwiki.security.authorization.SecurityEntry;
+import org.xwiki.security.authorization.cache.SecurityShadowEntry;
+
+/**
+ * Implementation of the security cache which does not serialize every access on a single lock.
+ * <ul>
+ * <li>Reads never lock: an entry which is being removed concurrently is handled as a missing entry.</li>
+ * <li>Insertions only lock the stripe associated with the wiki of the inserted entry, so that cache fills in different
+ * wikis don't wait for each other.</li>
+ * <li>Removals, which can cascade to entries of any wiki, still exclude all insertions, but never block reads.</li>
+ * </ul>
+ * To use it, register it as the default implementation of {@link org.xwiki.security.authorization.cache.SecurityCache}
+ * (for example, with a higher priority in a {@code components.txt} file).
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+@Component
+@Named(StripedSecurityCache.HINT)
+@Singleton
+public class StripedSecurityCache extends DefaultSecurityCache
+{
+    /**
+     * The hint of this component.
+     */
+    public static final String HINT = "striped";
+
+    /**
+     * The number of stripes. Wikis are distributed among the stripes based on their name.
+     */
+    private static final int STRIPES = 64;
+
+    /**
+     * Fair read-write lock used to exclude insertions (read lock) during removals (write lock).
+     */
+    private final ReadWriteLock removalReadWriteLock = new ReentrantReadWriteLock(true);
+
+    private final Lock insertionLock = this.removalReadWriteLock.readLock();
+
+    private final Lock removalLock = this.removalReadWriteLock.writeLock();
+
+    /**
+     * Locks serializing the insertions of entries located in the same stripe.
+     */
+    private final Lock[] stripes = new Lock[STRIPES];
+
+    /**
+     * Default constructor.
+     */
+    public StripedSecurityCache()
+    {
+        for (int i = 0; i < STRIPES; ++i) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    private Lock getStripe(SecurityEntry entry)
+    {
+        SecurityReference wiki = entry instanceof SecurityShadowEntry ? ((SecurityShadowEntry) entry).getWikiReference()
+            : entry.getReference().getWikiReference();
+
+        return this.stripes[wiki != null ? Math.floorMod(wiki.getName().hashCode(), STRIPES) : 0];
+    }
+
+    @Override
+    protected void lockRead()
+    {
+        // Reads are lock free
+    }
+
+    @Override
+    protected void unlockRead()
+    {
+        // Reads are lock free
+    }
+
+    @Override
+    protected boolean isLockFreeRead()
+    {
+        return true;
+    }
+
+    @Override
+    protected void lockInsertion(SecurityEntry entry)
+    {
+        this.insertionLock.lock();
+        try {
+            getStripe(entry).lock();
+        } catch (RuntimeException e) {
+            this.insertionLock.unlock();
+
+            throw e;
+        }
+    }
+
+    @Override
+    protected void unlockInsertion(SecurityEntry entry)
+    {
+        try {
+            getStripe(entry).unlock();
+        } finally {
+            this.insertionLock.unlock();
+        }
+    }
+
+    @Override
+    protected void lockRemoval()
+    {
+        this.removalLock.lock();
+    }
+
+    @Override
+    protected void unlockRemoval()
+    {
+        this.removalLock.unlock();
+    }
+}
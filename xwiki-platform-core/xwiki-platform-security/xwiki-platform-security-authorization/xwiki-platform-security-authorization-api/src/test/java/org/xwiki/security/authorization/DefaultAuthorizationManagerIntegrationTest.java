@@ -21,9 +21,11 @@
 package org.xwiki.security.authorization;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -86,7 +88,10 @@
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.xwiki.security.authorization.Right.ADMIN;
 import static org.xwiki.security.authorization.Right.COMMENT;
@@ -491,6 +496,64 @@ void inheritancePolicyForGlobalFullWikiAccess() throws Exception
             getDoc("docDenyA", "any space", "wikiAllowA"));
     }
 
+    @Test
+    void hasAccessToEach() throws Exception
+    {
+        initialiseWikiMock("inheritancePolicyForGlobalFullWikiAccess");
+
+        List<EntityReference> entities = Arrays.asList(getXDoc("any document", "any space"),
+            getXDoc("any document", "spaceAllowA"), getXDoc("docDenyA", "spaceAllowA"),
+            getXDoc("docAllowA", "any space"), getDoc("any document", "any space", "wikiNoRules"),
+            getDoc("any document", "spaceAllowA", "wikiNoRules"), getDoc("any document", "any space", "wikiAllowA"),
+            getDoc("docAllowA", "spaceDenyA", "wikiAllowA"), getXSpace("spaceAllowA"), getXWiki());
+
+        Map<EntityReference, Boolean> result =
+            this.authorizationManager.hasAccessToEach(EDIT, getXUser("userA"), entities);
+        assertEquals(entities, new ArrayList<>(result.keySet()));
+        assertEquals(Arrays.asList(false, true, true, true, false, true, true, true, true, false),
+            new ArrayList<>(result.values()));
+
+        // The bulk check must give the same result as individual checks, with or without a warm cache.
+        for (Right right : values()) {
+            Map<EntityReference, Boolean> accesses =
+                this.authorizationManager.hasAccessToEach(right, getXUser("userA"), entities);
+            for (EntityReference entity : entities) {
+                assertEquals(this.authorizationManager.hasAccess(right, getXUser("userA"), entity),
+                    accesses.get(entity), String.format("[%s] on [%s]", right, getEntityReadableName(entity)));
+            }
+        }
+
+        // Entity independent answers
+        assertEquals(Collections.singletonMap(getXWiki(), true),
+            this.authorizationManager.hasAccessToEach(PROGRAM, SUPERADMIN, Collections.singletonList(getXWiki())));
+        assertEquals(Collections.singletonMap(getXWiki(), false), this.authorizationManager
+            .hasAccessToEach(ILLEGAL, getXUser("userA"), Collections.singletonList(getXWiki())));
+    }
+
+    @Test
+    void hasAccessToEachSuspendsInvalidationPerChunk() throws Exception
+    {
+        initialiseWikiMock("inheritancePolicyForGlobalFullWikiAccess");
+
+        List<EntityReference> entities = new ArrayList<>();
+        for (int i = 0; i < 250; ++i) {
+            entities.add(getXDoc("document" + i, "spaceAllowA"));
+        }
+
+        // Warm up the cache so that the loader doesn't suspend the invalidation itself
+        this.authorizationManager.hasAccessToEach(EDIT, getXUser("userA"), entities);
+        clearInvocations(this.securityCacheRulesInvalidator);
+
+        Map<EntityReference, Boolean> result =
+            this.authorizationManager.hasAccessToEach(EDIT, getXUser("userA"), entities);
+        assertEquals(entities, new ArrayList<>(result.keySet()));
+        assertTrue(result.values().stream().allMatch(Boolean::booleanValue));
+
+        // The invalidation is not suspended for the whole collection but for each chunk of entities
+        verify(this.securityCacheRulesInvalidator, times(3)).suspend();
+        verify(this.securityCacheRulesInvalidator, times(3)).resume();
+    }
+
     @Test
     void inheritancePolicyForLocalWikiAccess() throws Exception
     {
@@ -0,0 +1,182 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.security.authorization.cache.internal;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.model.internal.reference.DefaultStringEntityReferenceSerializer;
+import org.xwiki.model.internal.reference.DefaultSymbolScheme;
+import org.xwiki.model.internal.reference.EntityReferenceFactory;
+import org.xwiki.security.AbstractSecurityTestCase;
+import org.xwiki.security.SecurityReference;
+import org.xwiki.security.UserSecurityReference;
+import org.xwiki.security.authorization.SecurityAccess;
+import org.xwiki.security.authorization.SecurityRule;
+import org.xwiki.security.authorization.cache.ConflictingInsertionException;
+import org.xwiki.security.authorization.cache.ParentEntryEvictedException;
+import org.xwiki.security.authorization.internal.AbstractSecurityAccessEntry;
+import org.xwiki.security.authorization.internal.AbstractSecurityRuleEntry;
+import org.xwiki.security.authorization.internal.XWikiSecurityAccess;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.annotation.ComponentList;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link StripedSecurityCache}. Its throughput under concurrent invalidations is measured by the
+ * authorization benchmarks.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+@ComponentList({DefaultStringEntityReferenceSerializer.class, DefaultSymbolScheme.class, EntityReferenceFactory.class})
+class StripedSecurityCacheTest extends AbstractSecurityTestCase
+{
+    private static final SecurityAccess ACCESS = XWikiSecurityAccess.getDefaultAccess();
+
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @InjectMockComponents
+    private StripedSecurityCache stripedCache;
+
+    private static final class RuleEntry extends AbstractSecurityRuleEntry
+    {
+        private final SecurityReference reference;
+
+        RuleEntry(SecurityReference reference)
+        {
+            this.reference = reference;
+        }
+
+        @Override
+        public SecurityReference getReference()
+        {
+            return this.reference;
+        }
+
+        @Override
+        public Collection<SecurityRule> getRules()
+        {
+            return Collections.emptyList();
+        }
+    }
+
+    private static final class AccessEntry extends AbstractSecurityAccessEntry
+    {
+        private final SecurityReference reference;
+
+        private final UserSecurityReference user;
+
+        AccessEntry(SecurityReference reference, UserSecurityReference user)
+        {
+            this.reference = reference;
+            this.user = user;
+        }
+
+        @Override
+        public SecurityReference getReference()
+        {
+            return this.reference;
+        }
+
+        @Override
+        public UserSecurityReference getUserReference()
+        {
+            return this.user;
+        }
+
+        @Override
+        public SecurityAccess getAccess()
+        {
+            return ACCESS;
+        }
+    }
+
+    @BeforeComponent
+    void configureCacheManager() throws Exception
+    {
+        when(this.cacheManager.createNewCache(any(CacheConfiguration.class))).thenAnswer(i -> new TestCache<>());
+    }
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        this.stripedCache.add(new RuleEntry(this.xwikiRef));
+        this.stripedCache.add(new RuleEntry(this.xXWikiSpace));
+        this.stripedCache.add(new RuleEntry(this.xuserRef), Collections.emptyList());
+        for (SecurityReference wiki : List.of(this.wikiRef, this.anotherWikiRef)) {
+            this.stripedCache.add(new RuleEntry(wiki));
+            this.stripedCache.add(new DefaultSecurityShadowEntry(this.xuserRef, wiki), null);
+        }
+        loadDocument(this.stripedCache, this.spaceRef, this.docRef, this.wikiRef);
+        loadDocument(this.stripedCache, this.anotherWikiSpaceRef, this.anotherWikiDocRef, this.anotherWikiRef);
+    }
+
+    private void loadDocument(SecurityCache cache, SecurityReference space, SecurityReference document,
+        SecurityReference wiki) throws ParentEntryEvictedException, ConflictingInsertionException
+    {
+        cache.add(new RuleEntry(space));
+        cache.add(new RuleEntry(document));
+        cache.add(new AccessEntry(document, this.xuserRef), wiki);
+    }
+
+    @Test
+    void removeCascadesToOtherWikis()
+    {
+        assertNotNull(this.stripedCache.get(this.xuserRef, this.docRef));
+        assertNotNull(this.stripedCache.get(this.xuserRef, this.anotherWikiDocRef));
+
+        this.stripedCache.remove(this.spaceRef);
+
+        assertNull(this.stripedCache.get(this.docRef));
+        assertNull(this.stripedCache.get(this.xuserRef, this.docRef));
+        assertNotNull(this.stripedCache.get(this.anotherWikiDocRef));
+        assertNotNull(this.stripedCache.get(this.xuserRef, this.anotherWikiDocRef));
+
+        // Removing the global user removes its shadows and accesses in all wikis
+        this.stripedCache.remove(this.xuserRef);
+
+        assertNull(this.stripedCache.get(this.xuserRef, this.anotherWikiDocRef));
+        assertNotNull(this.stripedCache.get(this.anotherWikiDocRef));
+        assertNull(this.stripedCache.getGroupsFor(this.xuserRef, this.anotherWikiRef));
+    }
+
+    @Test
+    void addWithEvictedParent()
+    {
+        this.stripedCache.remove(this.spaceRef);
+
+        assertThrows(ParentEntryEvictedException.class, () -> this.stripedCache.add(new RuleEntry(this.docRef)));
+    }
+}
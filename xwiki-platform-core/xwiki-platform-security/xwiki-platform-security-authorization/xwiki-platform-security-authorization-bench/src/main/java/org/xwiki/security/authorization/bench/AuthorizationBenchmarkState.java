@@ -0,0 +1,249 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.security.authorization.bench;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.component.annotation.ComponentAnnotationLoader;
+import org.xwiki.component.descriptor.ComponentDescriptor;
+import org.xwiki.component.descriptor.DefaultComponentDescriptor;
+import org.xwiki.model.internal.reference.DefaultStringEntityReferenceSerializer;
+import org.xwiki.model.internal.reference.DefaultSymbolScheme;
+import org.xwiki.model.internal.reference.EntityReferenceFactory;
+import org.xwiki.security.DefaultSecurityReferenceFactory;
+import org.xwiki.security.SecurityReference;
+import org.xwiki.security.SecurityReferenceFactory;
+import org.xwiki.security.authorization.AuthorizationManager;
+import org.xwiki.security.authorization.DefaultAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.security.authorization.SecurityEntryReader;
+import org.xwiki.security.authorization.cache.SecurityCacheRulesInvalidator;
+import org.xwiki.security.authorization.cache.internal.DefaultSecurityCache;
+import org.xwiki.security.authorization.cache.internal.DefaultSecurityCacheLoader;
+import org.xwiki.security.authorization.cache.internal.SecurityCache;
+import org.xwiki.security.authorization.cache.internal.StripedSecurityCache;
+import org.xwiki.security.authorization.internal.DefaultAuthorizationSettler;
+import org.xwiki.security.internal.UserBridge;
+import org.xwiki.security.internal.XWikiBridge;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Shared state of the authorization benchmarks: the real authorization manager, security cache, cache loader and
+ * settler wired on top of a {@link SyntheticWiki}.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+@State(Scope.Benchmark)
+public class AuthorizationBenchmarkState
+{
+    /**
+     * The hint of the security cache implementation to benchmark.
+     */
+    @Param({ "default", StripedSecurityCache.HINT })
+    private String cacheHint;
+
+    /**
+     * The number of groups of the synthetic wiki.
+     */
+    @Param({ "1000", "5000" })
+    private int groupCount;
+
+    /**
+     * The number of levels of nested groups.
+     */
+    @Param({ "4", "16" })
+    private int depth;
+
+    /**
+     * The number of users of the synthetic wiki.
+     */
+    @Param({ "500" })
+    private int userCount;
+
+    /**
+     * The number of spaces of the synthetic wiki.
+     */
+    @Param({ "50" })
+    private int spaceCount;
+
+    /**
+     * The number of pages in each space of the synthetic wiki.
+     */
+    @Param({ "20" })
+    private int pagesPerSpace;
+
+    private MockitoComponentManager componentManager;
+
+    private SyntheticWiki wiki;
+
+    private AuthorizationManager authorizationManager;
+
+    private SecurityCache securityCache;
+
+    private SecurityReferenceFactory securityReferenceFactory;
+
+    /**
+     * Wire the authorization components.
+     *
+     * @throws Exception when failing to initialize the components
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        this.wiki = new SyntheticWiki(this.groupCount, this.depth, this.userCount, this.spaceCount,
+            this.pagesPerSpace);
+
+        this.componentManager = new MockitoComponentManager();
+        this.componentManager.registerComponent(XWikiBridge.class, this.wiki);
+        this.componentManager.registerComponent(UserBridge.class, this.wiki);
+        this.componentManager.registerComponent(SecurityEntryReader.class, this.wiki);
+
+        CacheManager cacheManager = this.componentManager.registerMockComponent(CacheManager.class);
+        when(cacheManager.createNewCache(any(CacheConfiguration.class))).thenAnswer(invocation -> new MapCache<>());
+
+        this.componentManager.registerComponent(DefaultSymbolScheme.class);
+        this.componentManager.registerComponent(DefaultStringEntityReferenceSerializer.class);
+        this.componentManager.registerComponent(EntityReferenceFactory.class);
+        this.componentManager.registerComponent(DefaultSecurityReferenceFactory.class);
+        registerSecurityCache();
+        this.componentManager.registerComponent(DefaultSecurityCacheLoader.class);
+        this.componentManager.registerComponent(DefaultAuthorizationSettler.class);
+        this.componentManager.registerComponent(DefaultAuthorizationManager.class);
+
+        this.securityCache = (SecurityCache) this.componentManager
+            .getInstance(org.xwiki.security.authorization.cache.SecurityCache.class);
+        this.componentManager.registerComponent(SecurityCacheRulesInvalidator.class,
+            new SecurityCacheRulesInvalidator()
+            {
+                @Override
+                public void suspend()
+                {
+                    AuthorizationBenchmarkState.this.securityCache.suspendInvalidation();
+                }
+
+                @Override
+                public void resume()
+                {
+                    AuthorizationBenchmarkState.this.securityCache.resumeInvalidation();
+                }
+            });
+
+        this.securityReferenceFactory = this.componentManager.getInstance(SecurityReferenceFactory.class);
+        this.wiki.initialize(this.securityReferenceFactory);
+        this.authorizationManager = this.componentManager.getInstance(AuthorizationManager.class);
+    }
+
+    /**
+     * Register the security cache to benchmark as the default security cache.
+     */
+    private void registerSecurityCache() throws Exception
+    {
+        Class<? extends DefaultSecurityCache> cacheClass =
+            StripedSecurityCache.HINT.equals(this.cacheHint) ? StripedSecurityCache.class : DefaultSecurityCache.class;
+        for (ComponentDescriptor<?> descriptor : new ComponentAnnotationLoader().getComponentsDescriptors(cacheClass)) {
+            ((DefaultComponentDescriptor<?>) descriptor).setRoleHint("default");
+            this.componentManager.registerComponent(descriptor);
+        }
+    }
+
+    /**
+     * Release the components.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        this.componentManager.dispose();
+    }
+
+    /**
+     * Remove all the entries from the security cache, by invalidating the main wiki on which everything depends.
+     */
+    public void clearCache()
+    {
+        this.securityCache.remove(
+            this.securityReferenceFactory.newEntityReference(this.wiki.getMainWikiReference()));
+    }
+
+    /**
+     * Check an access of a random user on a random document.
+     *
+     * @param right the right to check
+     * @return the result of the check
+     */
+    public boolean hasRandomAccess(Right right)
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return this.authorizationManager.hasAccess(right, pick(this.wiki.getUsers(), random),
+            pick(this.wiki.getDocuments(), random));
+    }
+
+    /**
+     * Invalidate a random group, as done when the members of a group are modified.
+     */
+    public void invalidateRandomGroup()
+    {
+        this.securityCache.remove(this.securityReferenceFactory
+            .newGroupReference(pick(this.wiki.getGroups(), ThreadLocalRandom.current())));
+    }
+
+    /**
+     * Invalidate a random space, as done when the rights of a space are modified.
+     */
+    public void invalidateRandomSpace()
+    {
+        SecurityReference space = this.securityReferenceFactory
+            .newEntityReference(pick(this.wiki.getSpaces(), ThreadLocalRandom.current()));
+        this.securityCache.remove(space);
+    }
+
+    /**
+     * @return the authorization manager to benchmark
+     */
+    public AuthorizationManager getAuthorizationManager()
+    {
+        return this.authorizationManager;
+    }
+
+    /**
+     * @return the synthetic wiki
+     */
+    public SyntheticWiki getWiki()
+    {
+        return this.wiki;
+    }
+
+    private static <T> T pick(List<T> list, ThreadLocalRandom random)
+    {
+        return list.get(random.nextInt(list.size()));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.security.authorization.bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.security.authorization.Right;
+
+/**
+ * Measure the throughput of access checks while the security cache is continuously invalidated, as it happens during
+ * an import or a bulk modification of groups and rights. Both the readers and the invalidating thread are measured,
+ * which shows how much each one is slowed down by the other.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class InvalidationStormBenchmark
+{
+    private static final String GROUP = "storm";
+
+    private static final int SPACE_INVALIDATION_RATIO = 10;
+
+    /**
+     * @param state the benchmark state
+     * @return the result of the check
+     */
+    @Benchmark
+    @Group(GROUP)
+    @GroupThreads(6)
+    public boolean read(AuthorizationBenchmarkState state)
+    {
+        return state.hasRandomAccess(Right.EDIT);
+    }
+
+    /**
+     * Invalidate a group most of the times and a space sometimes.
+     *
+     * @param state the benchmark state
+     */
+    @Benchmark
+    @Group(GROUP)
+    @GroupThreads(1)
+    public void invalidate(AuthorizationBenchmarkState state)
+    {
+        if (ThreadLocalRandom.current().nextInt(SPACE_INVALIDATION_RATIO) == 0) {
+            state.invalidateRandomSpace();
+        } else {
+            state.invalidateRandomGroup();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.security.authorization.bench;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.DisposableCacheValue;
+import org.xwiki.cache.event.CacheEntryListener;
+
+/**
+ * Unbounded {@link Cache} backed by a {@link ConcurrentHashMap}, so that benchmarks measure the security cache itself
+ * and not the eviction policy of a cache implementation. As the real cache implementations, disposable values are
+ * disposed when they are removed or replaced.
+ *
+ * @param <T> the type of the cached values
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+public class MapCache<T> implements Cache<T>
+{
+    private final Map<String, T> map = new ConcurrentHashMap<>();
+
+    @Override
+    public void set(String key, T value)
+    {
+        T old = this.map.put(key, value);
+        if (old != value) {
+            disposeCacheValue(old);
+        }
+    }
+
+    @Override
+    public T get(String key)
+    {
+        return this.map.get(key);
+    }
+
+    @Override
+    public void remove(String key)
+    {
+        disposeCacheValue(this.map.remove(key));
+    }
+
+    @Override
+    public void removeAll()
+    {
+        this.map.clear();
+    }
+
+    @Override
+    public void addCacheEntryListener(CacheEntryListener<T> listener)
+    {
+        // Events are not needed by the security cache.
+    }
+
+    @Override
+    public void removeCacheEntryListener(CacheEntryListener<T> listener)
+    {
+        // Events are not needed by the security cache.
+    }
+
+    @Override
+    public void dispose()
+    {
+        this.map.clear();
+    }
+
+    /**
+     * @return the number of entries currently in the cache
+     */
+    public int size()
+    {
+        return this.map.size();
+    }
+
+    private void disposeCacheValue(T value)
+    {
+        if (value instanceof DisposableCacheValue) {
+            try {
+                ((DisposableCacheValue) value).dispose();
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to dispose cache value", e);
+            }
+        }
+    }
+}
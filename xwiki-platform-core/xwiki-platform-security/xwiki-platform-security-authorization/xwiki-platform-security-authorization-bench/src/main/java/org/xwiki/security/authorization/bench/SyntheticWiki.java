@@ -0,0 +1,324 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.security.authorization.bench;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.security.GroupSecurityReference;
+import org.xwiki.security.SecurityReference;
+import org.xwiki.security.SecurityReferenceFactory;
+import org.xwiki.security.UserSecurityReference;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.security.authorization.RightSet;
+import org.xwiki.security.authorization.RuleState;
+import org.xwiki.security.authorization.SecurityEntryReader;
+import org.xwiki.security.authorization.SecurityRule;
+import org.xwiki.security.authorization.SecurityRuleEntry;
+import org.xwiki.security.authorization.internal.AbstractSecurityRuleEntry;
+import org.xwiki.security.internal.UserBridge;
+import org.xwiki.security.internal.XWikiBridge;
+
+/**
+ * A synthetic wiki used as storage by the benchmarks, playing the role of the bridges to oldcore.
+ * <p>
+ * Groups are organized in {@code groupCount / depth} chains of {@code depth} nested groups, each group being also
+ * member of the group at the same level in the previous chain, which produces a deep group graph with diamond shaped
+ * memberships (the worst case for the loader). Each user is member of a few groups at the deepest level. Rights are
+ * granted to the top level groups on the wiki and on the spaces and some pages deny rights to the deepest groups, so
+ * that settling an access requires the whole group graph of the user.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+public class SyntheticWiki implements XWikiBridge, UserBridge, SecurityEntryReader
+{
+    private static final String WIKI = "xwiki";
+
+    private static final String USERS_SPACE = "XWiki";
+
+    private static final int MEMBERSHIPS_PER_USER = 3;
+
+    private static final int DENYING_PAGE_MODULO = 10;
+
+    /**
+     * Spread the memberships of the users over the group chains using two co-prime strides.
+     */
+    private static final int USER_STRIDE = 7;
+
+    private static final int MEMBERSHIP_STRIDE = 13;
+
+    private final WikiReference wikiReference = new WikiReference(WIKI);
+
+    private final int depth;
+
+    private final int chains;
+
+    private final List<DocumentReference> groups = new ArrayList<>();
+
+    private final List<DocumentReference> users = new ArrayList<>();
+
+    private final List<SpaceReference> spaces = new ArrayList<>();
+
+    private final List<DocumentReference> documents = new ArrayList<>();
+
+    private final Map<DocumentReference, List<DocumentReference>> memberships = new HashMap<>();
+
+    private final Map<EntityReference, List<SecurityRule>> rules = new HashMap<>();
+
+    private final Map<DocumentReference, Collection<GroupSecurityReference>> resolvedMemberships = new HashMap<>();
+
+    /**
+     * Rule of the synthetic wiki.
+     */
+    private static final class SyntheticRule implements SecurityRule
+    {
+        private final RightSet rights;
+
+        private final RuleState state;
+
+        private final Collection<GroupSecurityReference> ruleGroups;
+
+        SyntheticRule(RuleState state, Collection<GroupSecurityReference> groups, Right... rights)
+        {
+            this.rights = new RightSet(rights);
+            this.state = state;
+            this.ruleGroups = groups;
+        }
+
+        @Override
+        public boolean match(Right right)
+        {
+            return this.rights.contains(right);
+        }
+
+        @Override
+        public boolean match(GroupSecurityReference group)
+        {
+            return this.ruleGroups.contains(group);
+        }
+
+        @Override
+        public boolean match(UserSecurityReference user)
+        {
+            return false;
+        }
+
+        @Override
+        public RuleState getState()
+        {
+            return this.state;
+        }
+    }
+
+    /**
+     * Rule entry of the synthetic wiki.
+     */
+    private static final class SyntheticRuleEntry extends AbstractSecurityRuleEntry
+    {
+        private final SecurityReference reference;
+
+        private final Collection<SecurityRule> entryRules;
+
+        SyntheticRuleEntry(SecurityReference reference, Collection<SecurityRule> rules)
+        {
+            this.reference = reference;
+            this.entryRules = rules;
+        }
+
+        @Override
+        public SecurityReference getReference()
+        {
+            return this.reference;
+        }
+
+        @Override
+        public Collection<SecurityRule> getRules()
+        {
+            return this.entryRules;
+        }
+    }
+
+    /**
+     * @param groupCount the number of groups to generate
+     * @param depth the number of levels of nested groups
+     * @param userCount the number of users to generate
+     * @param spaceCount the number of spaces to generate
+     * @param pagesPerSpace the number of pages to generate in each space
+     */
+    public SyntheticWiki(int groupCount, int depth, int userCount, int spaceCount, int pagesPerSpace)
+    {
+        this.depth = Math.max(1, depth);
+        this.chains = Math.max(1, groupCount / this.depth);
+
+        for (int i = 0; i < this.chains * this.depth; i++) {
+            DocumentReference group = new DocumentReference(WIKI, USERS_SPACE, "Group" + i);
+            this.groups.add(group);
+            List<DocumentReference> parents = new ArrayList<>(2);
+            if (i % this.depth > 0) {
+                parents.add(this.groups.get(i - 1));
+                if (i - 1 - this.depth >= 0) {
+                    parents.add(this.groups.get(i - 1 - this.depth));
+                }
+            }
+            this.memberships.put(group, parents);
+        }
+
+        for (int i = 0; i < userCount; i++) {
+            DocumentReference user = new DocumentReference(WIKI, USERS_SPACE, "User" + i);
+            this.users.add(user);
+            List<DocumentReference> userGroups = new ArrayList<>(MEMBERSHIPS_PER_USER);
+            for (int m = 0; m < MEMBERSHIPS_PER_USER; m++) {
+                userGroups.add(getDeepestGroup(i * USER_STRIDE + m * MEMBERSHIP_STRIDE));
+            }
+            this.memberships.put(user, userGroups);
+        }
+
+        for (int s = 0; s < spaceCount; s++) {
+            SpaceReference space = new SpaceReference(WIKI, "Space" + s);
+            this.spaces.add(space);
+            for (int p = 0; p < pagesPerSpace; p++) {
+                this.documents.add(new DocumentReference("Page" + p, space));
+            }
+        }
+    }
+
+    /**
+     * Generate the rules. This has to be done once the security reference factory is available since the rules
+     * reference the groups through their security references.
+     *
+     * @param factory the factory used to create security references
+     */
+    public void initialize(SecurityReferenceFactory factory)
+    {
+        for (Map.Entry<DocumentReference, List<DocumentReference>> entry : this.memberships.entrySet()) {
+            Collection<GroupSecurityReference> groupReferences = new ArrayList<>(entry.getValue().size());
+            for (DocumentReference group : entry.getValue()) {
+                groupReferences.add(factory.newGroupReference(group));
+            }
+            this.resolvedMemberships.put(entry.getKey(), groupReferences);
+        }
+
+        List<GroupSecurityReference> topGroups = new ArrayList<>(this.chains);
+        for (int c = 0; c < this.chains; c++) {
+            topGroups.add(factory.newGroupReference(this.groups.get(c * this.depth)));
+        }
+        this.rules.put(this.wikiReference, Collections.singletonList(
+            new SyntheticRule(RuleState.ALLOW, topGroups, Right.LOGIN, Right.VIEW, Right.COMMENT)));
+
+        for (int s = 0; s < this.spaces.size(); s++) {
+            this.rules.put(this.spaces.get(s), Collections.singletonList(new SyntheticRule(RuleState.ALLOW,
+                Collections.singletonList(topGroups.get(s % this.chains)), Right.EDIT)));
+        }
+
+        for (int d = 0; d < this.documents.size(); d += DENYING_PAGE_MODULO) {
+            this.rules.put(this.documents.get(d), Collections.singletonList(new SyntheticRule(RuleState.DENY,
+                Collections.singletonList(factory.newGroupReference(getDeepestGroup(d))), Right.VIEW)));
+        }
+    }
+
+    private DocumentReference getDeepestGroup(int seed)
+    {
+        return this.groups.get((seed % this.chains) * this.depth + this.depth - 1);
+    }
+
+    /**
+     * @return the generated groups
+     */
+    public List<DocumentReference> getGroups()
+    {
+        return this.groups;
+    }
+
+    /**
+     * @return the generated users
+     */
+    public List<DocumentReference> getUsers()
+    {
+        return this.users;
+    }
+
+    /**
+     * @return the generated spaces
+     */
+    public List<SpaceReference> getSpaces()
+    {
+        return this.spaces;
+    }
+
+    /**
+     * @return the generated documents
+     */
+    public List<DocumentReference> getDocuments()
+    {
+        return this.documents;
+    }
+
+    // XWikiBridge
+
+    @Override
+    public WikiReference getMainWikiReference()
+    {
+        return this.wikiReference;
+    }
+
+    @Override
+    public boolean isWikiReadOnly()
+    {
+        return false;
+    }
+
+    @Override
+    public boolean needsAuthentication(Right right)
+    {
+        return false;
+    }
+
+    @Override
+    public EntityReference toCompatibleEntityReference(EntityReference reference)
+    {
+        return reference;
+    }
+
+    // UserBridge
+
+    @Override
+    public Collection<GroupSecurityReference> getAllGroupsFor(UserSecurityReference user, WikiReference wiki)
+    {
+        return this.resolvedMemberships.getOrDefault(user.getOriginalReference(), Collections.emptyList());
+    }
+
+    // SecurityEntryReader
+
+    @Override
+    public SecurityRuleEntry read(SecurityReference entityReference)
+    {
+        return new SyntheticRuleEntry(entityReference,
+            this.rules.getOrDefault(entityReference.getOriginalReference(), Collections.emptyList()));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.security.authorization.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.security.authorization.AuthorizationManager;
+import org.xwiki.security.authorization.Right;
+
+/**
+ * Measure the throughput of access checks answered from the security cache, from several concurrent threads.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WarmHitBenchmark
+{
+    /**
+     * Load in the cache the access of all users on all documents.
+     *
+     * @param state the benchmark state
+     */
+    @Setup(Level.Trial)
+    public void warmUp(AuthorizationBenchmarkState state)
+    {
+        AuthorizationManager authorizationManager = state.getAuthorizationManager();
+        for (DocumentReference user : state.getWiki().getUsers()) {
+            for (DocumentReference document : state.getWiki().getDocuments()) {
+                authorizationManager.hasAccess(Right.VIEW, user, document);
+            }
+        }
+    }
+
+    /**
+     * @param state the benchmark state
+     * @return the result of the check
+     */
+    @Benchmark
+    public boolean warmHit(AuthorizationBenchmarkState state)
+    {
+        return state.hasRandomAccess(Right.VIEW);
+    }
+}
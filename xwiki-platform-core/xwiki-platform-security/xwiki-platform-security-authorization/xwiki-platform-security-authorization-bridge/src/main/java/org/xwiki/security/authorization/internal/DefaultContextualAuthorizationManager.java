@@ -19,8 +19,14 @@
  */
 package org.xwiki.security.authorization.internal;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -117,6 +123,32 @@ public boolean hasAccess(Right right, EntityReference entity)
         return hasAccess(right, user, entity);
     }
 
+    @Override
+    public <T extends EntityReference> Map<T, Boolean> hasAccessToEach(Right right, Collection<T> entityReferences)
+    {
+        if (CONTENT_AUTHOR_RIGHTS.contains(right)) {
+            // The user to check depends on the entity.
+            return ContextualAuthorizationManager.super.hasAccessToEach(right, entityReferences);
+        }
+
+        Map<T, Boolean> result = new LinkedHashMap<>(entityReferences.size());
+
+        List<EntityReference> fullReferences = new ArrayList<>(entityReferences.size());
+        for (T entityReference : entityReferences) {
+            fullReferences.add(getFullReference(entityReference));
+        }
+
+        Map<EntityReference, Boolean> accesses = this.authorizationManager.hasAccessToEach(right,
+            this.xcontextProvider.get().getUserReference(), fullReferences);
+
+        Iterator<EntityReference> fullReferencesIterator = fullReferences.iterator();
+        for (T entityReference : entityReferences) {
+            result.put(entityReference, Boolean.TRUE.equals(accesses.get(fullReferencesIterator.next())));
+        }
+
+        return result;
+    }
+
     private boolean hasAccess(Right right, DocumentReference user, EntityReference entity)
     {
         return checkPreAccess(right) && this.authorizationManager.hasAccess(right, user, getFullReference(entity));
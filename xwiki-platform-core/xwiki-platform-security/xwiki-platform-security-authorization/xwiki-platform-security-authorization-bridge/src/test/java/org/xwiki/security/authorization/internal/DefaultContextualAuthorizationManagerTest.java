@@ -19,6 +19,10 @@
  */
 package org.xwiki.security.authorization.internal;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -26,6 +30,7 @@
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.LocalDocumentReference;
 import org.xwiki.model.reference.WikiReference;
 import org.xwiki.rendering.transformation.RenderingContext;
@@ -40,6 +45,7 @@
 import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
 import com.xpn.xwiki.test.reference.ReferenceComponentList;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -104,6 +110,26 @@ void hasAccess()
             eq(new DocumentReference(localReference, this.currentWikiReference)));
     }
 
+    @Test
+    void hasAccessToEach()
+    {
+        LocalDocumentReference allowed = new LocalDocumentReference("space", "allowed");
+        LocalDocumentReference denied = new LocalDocumentReference("space", "denied");
+        DocumentReference allowedReference = new DocumentReference(allowed, this.currentWikiReference);
+        DocumentReference deniedReference = new DocumentReference(denied, this.currentWikiReference);
+        Map<EntityReference, Boolean> accesses = new HashMap<>();
+        accesses.put(allowedReference, true);
+        accesses.put(deniedReference, false);
+        when(this.authorizationManager.hasAccessToEach(same(Right.VIEW), isNull(),
+            eq(Arrays.<EntityReference>asList(allowedReference, deniedReference)))).thenReturn(accesses);
+
+        Map<LocalDocumentReference, Boolean> result =
+            this.contextualAuthorizationManager.hasAccessToEach(Right.VIEW, Arrays.asList(allowed, denied));
+
+        assertEquals(Arrays.asList(allowed, denied), new ArrayList<>(result.keySet()));
+        assertEquals(Arrays.asList(true, false), new ArrayList<>(result.values()));
+    }
+
     @ParameterizedTest
     @MethodSource("contentRightsSource")
     void contentAuthorRightPreAccess(Right right)
@@ -19,6 +19,8 @@
  */
 package com.xpn.xwiki.plugin.skinx;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -28,6 +30,8 @@
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
@@ -47,6 +51,8 @@
 import org.xwiki.security.authorization.AuthorizationManager;
 import org.xwiki.security.authorization.ContextualAuthorizationManager;
 import org.xwiki.security.authorization.Right;
+import org.xwiki.skinx.SkinExtensionConfiguration;
+import org.xwiki.stability.Unstable;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
@@ -54,6 +60,8 @@
 import com.xpn.xwiki.objects.BaseObject;
 import com.xpn.xwiki.objects.classes.BaseClass;
 import com.xpn.xwiki.web.Utils;
+import com.xpn.xwiki.web.sx.SxBundleSource;
+import com.xpn.xwiki.web.sx.SxDocumentSource;
 
 /**
  * Abstract SX plugin for wiki-document-based extensions (Extensions written as object of a XWiki Extension class).
@@ -90,6 +98,7 @@ public abstract class AbstractDocumentSkinExtensionPlugin extends AbstractSkinEx
     private AuthorizationManager authorizationManager;
     private DocumentReferenceResolver<String> stringDocumentReferenceResolver;
     private EntityReferenceResolver<String> currentEntityReferenceResolver;
+    private SkinExtensionConfiguration configuration;
 
     /**
      * XWiki plugin constructor.
@@ -336,6 +345,140 @@ public String endParsing(String content, XWikiContext context)
         return super.endParsing(content, context);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * When enabled in the configuration, the consecutive extensions which don't depend on the request are served as a
+     * single bundle, so that the extensions order is preserved.
+     * </p>
+     *
+     * @see AbstractSkinExtensionPlugin#getLinks(Set, XWikiContext)
+     */
+    @Override
+    protected String getLinks(Set<String> extensions, XWikiContext context)
+    {
+        if (!getConfiguration().isBundleEnabled()) {
+            return super.getLinks(extensions, context);
+        }
+
+        StringBuilder result = new StringBuilder();
+        List<String> bundle = new ArrayList<>();
+        for (String documentName : extensions) {
+            if (canBeBundled(documentName, context)) {
+                bundle.add(documentName);
+                if (bundle.size() == SxBundleSource.MAX_SOURCES) {
+                    appendBundleLink(result, bundle, context);
+                }
+            } else {
+                appendBundleLink(result, bundle, context);
+                result.append(getLink(documentName, context));
+            }
+        }
+        appendBundleLink(result, bundle, context);
+
+        return result.toString();
+    }
+
+    private void appendBundleLink(StringBuilder result, List<String> bundle, XWikiContext context)
+    {
+        String bundleLink = null;
+        if (bundle.size() > 1) {
+            bundleLink = getBundleLink(getBundleURL(bundle, context), bundle, context);
+        }
+
+        if (bundleLink != null) {
+            result.append(bundleLink);
+        } else {
+            for (String documentName : bundle) {
+                result.append(getLink(documentName, context));
+            }
+        }
+
+        bundle.clear();
+    }
+
+    /**
+     * Only the extensions which produce the same content whatever the request can be bundled.
+     *
+     * @param documentName the Skin Extension's document name
+     * @param context the XWiki Context
+     * @return {@code true} if the extension can be served as part of a bundle
+     */
+    private boolean canBeBundled(String documentName, XWikiContext context)
+    {
+        if (!getParametersForResource(documentName, context).isEmpty()) {
+            return false;
+        }
+
+        DocumentReference documentReference = getCurrentDocumentReferenceResolver().resolve(documentName);
+        if (!isAccessible(documentReference, context)) {
+            return false;
+        }
+
+        try {
+            XWikiDocument document = context.getWiki().getDocument(documentReference, context);
+
+            return !document.isNew() && document.getObjects(getExtensionClassName()) != null
+                && SxDocumentSource.isBundleable(document, getExtensionClassName());
+        } catch (XWikiException e) {
+            LOGGER.error("Failed to load document [{}].", documentReference, e);
+
+            return false;
+        }
+    }
+
+    /**
+     * The URL of a bundle contains the version of each of its members so that it changes (and browsers don't use an
+     * outdated version from their cache) whenever one of them is modified.
+     *
+     * @param bundle the names of the Skin Extension documents to aggregate
+     * @param context the XWiki Context
+     * @return the URL to the bundle
+     */
+    private String getBundleURL(List<String> bundle, XWikiContext context)
+    {
+        StringBuilder queryString = new StringBuilder(getLanguageQueryString(context));
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        for (String documentName : bundle) {
+            DocumentReference documentReference = getCurrentDocumentReferenceResolver().resolve(documentName);
+            String serializedReference = getDefaultEntityReferenceSerializer().serialize(documentReference);
+            digest.update(serializedReference.getBytes(StandardCharsets.UTF_8));
+            digest.update(getDocumentVersion(documentReference, context).getBytes(StandardCharsets.UTF_8));
+
+            queryString.append("&bundle=").append(sanitize(serializedReference));
+        }
+        queryString.append("&bundleVersion=").append(Hex.encodeHexString(digest.digest()));
+        // Propagate the minify parameter, if any (bundled extensions have no parameters)
+        queryString.append(parametersAsQueryString(bundle.get(0), context));
+
+        return context.getWiki().getURL(getCurrentDocumentReferenceResolver().resolve(bundle.get(0)), getName(),
+            queryString.toString(), "", context);
+    }
+
+    /**
+     * Return the link to a bundle of extensions of this type.
+     *
+     * @param url the URL to the bundle
+     * @param bundle the names of the aggregated Skin Extension documents
+     * @param context the XWiki Context
+     * @return the XHTML element linking the bundle, or {@code null} if this type of extension can't be bundled (in
+     *         which case each extension is linked separately)
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    protected String getBundleLink(String url, List<String> bundle, XWikiContext context)
+    {
+        return null;
+    }
+
+    private SkinExtensionConfiguration getConfiguration()
+    {
+        if (this.configuration == null) {
+            this.configuration = Utils.getComponent(SkinExtensionConfiguration.class);
+        }
+        return this.configuration;
+    }
+
     /**
      * Creates or updates the XClass used for this type of extension. Usually called on {@link #init(XWikiContext)} and
      * {@link #virtualInit(XWikiContext)}.
@@ -36,6 +36,7 @@
 import org.xwiki.model.reference.DocumentReferenceResolver;
 import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.skinx.internal.async.SkinExtensionAsync;
+import org.xwiki.stability.Unstable;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.api.Api;
@@ -319,7 +320,6 @@ protected void initializeRequestListIfNeeded(XWikiContext context)
      */
     public String getImportString(XWikiContext context)
     {
-        StringBuilder result = new StringBuilder();
         // Using LinkedHashSet to preserve the extensions order.
         Set<String> extensions = new LinkedHashSet<String>();
         // First, we add to the import string the extensions that should always be used.
@@ -340,6 +340,19 @@ public String getImportString(XWikiContext context)
             extensions.add(serializedCurrentDocumentName);
         }
 
+        return getLinks(extensions, context);
+    }
+
+    /**
+     * @param extensions the extensions to link, in the order in which they should be imported
+     * @param context the current request context
+     * @return the XHTML fragment with the import statements of the passed extensions
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    protected String getLinks(Set<String> extensions, XWikiContext context)
+    {
+        StringBuilder result = new StringBuilder();
         for (String documentName : extensions) {
             result.append(getLink(documentName, context));
         }
@@ -19,6 +19,8 @@
  */
 package com.xpn.xwiki.plugin.skinx;
 
+import java.util.List;
+
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.LocalDocumentReference;
 import org.xwiki.xml.XMLUtils;
@@ -84,9 +86,19 @@ public String getLink(String documentName, XWikiContext context)
             return "";
         }
 
-        return "<link rel=\"stylesheet\" type=\"text/css\" href=\"" + XMLUtils.escapeAttributeValue(
-            getDocumentSkinExtensionURL(documentReference, documentName, PLUGIN_NAME,
-                context)) + "\" />\n";
+        return getLink(getDocumentSkinExtensionURL(documentReference, documentName, PLUGIN_NAME, context));
+    }
+
+    @Override
+    protected String getBundleLink(String url, List<String> bundle, XWikiContext context)
+    {
+        return getLink(url);
+    }
+
+    private String getLink(String url)
+    {
+        return "<link rel=\"stylesheet\" type=\"text/css\" href=\"" + XMLUtils.escapeAttributeValue(url)
+            + "\" />\n";
     }
 
     @Override
@@ -19,6 +19,8 @@
  */
 package com.xpn.xwiki.plugin.skinx;
 
+import java.util.List;
+
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.LocalDocumentReference;
 import org.xwiki.xml.XMLUtils;
@@ -88,10 +90,22 @@ public String getLink(String documentName, XWikiContext context)
             return "";
         }
 
+        return getLink(getDocumentSkinExtensionURL(documentReference, documentName, PLUGIN_NAME, context),
+            isDefer(documentName, context));
+    }
+
+    @Override
+    protected String getBundleLink(String url, List<String> bundle, XWikiContext context)
+    {
+        // Bundled extensions have no parameters so they all use the default defer value
+        return getLink(url, isDefer(bundle.get(0), context));
+    }
+
+    private String getLink(String url, boolean defer)
+    {
         StringBuilder result = new StringBuilder("<script src='");
-        result.append(XMLUtils.escapeAttributeValue(
-            getDocumentSkinExtensionURL(documentReference, documentName, PLUGIN_NAME, context)));
-        if (isDefer(documentName, context)) {
+        result.append(XMLUtils.escapeAttributeValue(url));
+        if (defer) {
             result.append("' defer='defer");
         }
         result.append("'></script>\n");
@@ -20,14 +20,24 @@
 package com.xpn.xwiki.web.sx;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.skinx.internal.SxCompressorCache;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.internal.debug.DebugConfiguration;
 import com.xpn.xwiki.web.Utils;
 import com.xpn.xwiki.web.XWikiAction;
@@ -61,11 +71,22 @@ public abstract class AbstractSxAction extends XWikiAction
     /** The response will be sent to the browser as a byte array in this character set. */
     private static final String RESPONSE_CHARACTER_SET = "UTF-8";
 
+    /** What http header parameter is used to identify the version of the returned content. */
+    private static final String ETAG_HEADER = "ETag";
+
+    /** What http header parameter is used by the browser to indicate the version of the content it already has. */
+    private static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+
     /** If the user passes this parameter in the URL, we will look for the script in the jar files. */
     private static final String JAR_RESOURCE_REQUEST_PARAMETER = "resource";
 
+    /** The extension documents to aggregate, when serving a bundle of extensions. */
+    private static final String BUNDLE_REQUEST_PARAMETER = "bundle";
+
     private DebugConfiguration debugConfiguration;
 
+    private SxCompressorCache compressorCache;
+
     /** @return the logging object of the concrete subclass. */
     protected abstract Logger getLogger();
 
@@ -106,8 +127,21 @@ public void renderExtension(SxSource sxSource, Extension sxType, XWikiContext co
             response.setHeader(CACHE_CONTROL_HEADER, "no-cache, no-store, must-revalidate");
         }
 
-        if (getDebugConfiguration().isMinify()) {
-            extensionContent = compress(extensionContent, sxType.getCompressor(), context);
+        SxCompressor compressor = getDebugConfiguration().isMinify() ? sxType.getCompressor() : null;
+
+        // Identify the content before compressing it so that the browser can skip the compression and the transfer
+        // when it already has the latest version
+        String etag = '"' + DigestUtils.sha256Hex(sxType.getContentType() + (compressor != null) + ':'
+            + (compressor != null ? compressor.getCacheKey() : null) + ':' + extensionContent) + '"';
+        response.setHeader(ETAG_HEADER, etag);
+        if (isNotModified(etag, context)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+
+            return;
+        }
+
+        if (compressor != null) {
+            extensionContent = compress(extensionContent, getCompressorCache().wrap(compressor), context);
         }
 
         try {
@@ -118,6 +152,21 @@ public void renderExtension(SxSource sxSource, Extension sxType, XWikiContext co
         }
     }
 
+    private boolean isNotModified(String etag, XWikiContext context)
+    {
+        String ifNoneMatch = context.getRequest().getHeader(IF_NONE_MATCH_HEADER);
+        if (ifNoneMatch != null) {
+            for (String value : StringUtils.split(ifNoneMatch, ',')) {
+                String trimmedValue = StringUtils.removeStart(value.trim(), "W/");
+                if (trimmedValue.equals(etag) || trimmedValue.equals("*")) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
     protected String compress(String source, SxCompressor compressor, XWikiContext context)
     {
         return compressor.compress(source);
@@ -130,6 +179,12 @@ public String render(XWikiContext context) throws XWikiException
 
         if (context.getRequest().getParameter(JAR_RESOURCE_REQUEST_PARAMETER) != null) {
             sxSource = new SxResourceSource(context.getRequest().getParameter(JAR_RESOURCE_REQUEST_PARAMETER));
+        } else if (context.getRequest().getParameterValues(BUNDLE_REQUEST_PARAMETER) != null) {
+            sxSource = getBundleSource(context.getRequest().getParameterValues(BUNDLE_REQUEST_PARAMETER), context);
+            if (sxSource == null) {
+                context.getResponse().setStatus(HttpServletResponse.SC_NOT_FOUND);
+                return "docdoesnotexist";
+            }
         } else {
             if (context.getDoc().isNew()) {
                 context.getResponse().setStatus(HttpServletResponse.SC_NOT_FOUND);
@@ -147,6 +202,51 @@ public String render(XWikiContext context) throws XWikiException
         return null;
     }
 
+    /**
+     * @param documentNames the names of the extension documents to aggregate
+     * @param context the XWiki context
+     * @return the aggregated source, or {@code null} if none of the documents can be served
+     * @throws XWikiException when failing to load an extension document
+     */
+    private SxSource getBundleSource(String[] documentNames, XWikiContext context) throws XWikiException
+    {
+        if (documentNames.length > SxBundleSource.MAX_SOURCES) {
+            getLogger().debug("Bundle of [{}] skin extensions rejected, the maximum is [{}].", documentNames.length,
+                SxBundleSource.MAX_SOURCES);
+
+            return null;
+        }
+
+        DocumentReferenceResolver<String> resolver =
+            Utils.getComponent(DocumentReferenceResolver.TYPE_STRING, "current");
+        ContextualAuthorizationManager authorization = Utils.getComponent(ContextualAuthorizationManager.class);
+
+        List<SxSource> sources = new ArrayList<>(documentNames.length);
+        for (String documentName : documentNames) {
+            DocumentReference documentReference = resolver.resolve(documentName);
+            // The view right of the current document is checked by the action, but not the one of the other members
+            if (authorization.hasAccess(Right.VIEW, documentReference)) {
+                XWikiDocument document = context.getWiki().getDocument(documentReference, context);
+                if (!document.isNew()) {
+                    SxDocumentSource source = new SxDocumentSource(document, context, getExtensionType());
+                    // The bundle is served from the context of its first member, so a parsed extension would be
+                    // executed with the wrong rights. Such extensions are never bundled by the skin extension plugins.
+                    if (source.isBundleable()) {
+                        sources.add(source);
+                    } else {
+                        getLogger().debug("Skin extension [{}] excluded from the bundle because it depends on the"
+                            + " request.", documentReference);
+                    }
+                }
+            } else {
+                getLogger().debug("Skin extension [{}] excluded from the bundle because of lack of view right.",
+                    documentReference);
+            }
+        }
+
+        return sources.isEmpty() ? null : new SxBundleSource(sources);
+    }
+
     protected DebugConfiguration getDebugConfiguration()
     {
         if (this.debugConfiguration == null) {
@@ -156,6 +256,15 @@ protected DebugConfiguration getDebugConfiguration()
         return this.debugConfiguration;
     }
 
+    private SxCompressorCache getCompressorCache()
+    {
+        if (this.compressorCache == null) {
+            this.compressorCache = Utils.getComponent(SxCompressorCache.class);
+        }
+
+        return this.compressorCache;
+    }
+
     /**
      * Get the type of extension, depends on the type of action.
      *
@@ -165,11 +165,19 @@ private String getSourceMap(Compiler compiler) throws IOException
         /**
          * @return the last source map that was created by this compressor
          */
+        @Override
         public String getSourceMap()
         {
             return this.sourceMap;
         }
 
+        @Override
+        public String getCacheKey()
+        {
+            // The source file name is referenced by the source map and the strict mode changes the compressed code
+            return getSourceFileName() + ':' + getConfig().shouldRunJavaScriptInStrictMode();
+        }
+
         private SkinExtensionConfiguration getConfig()
         {
             return Utils.getComponent(SkinExtensionConfiguration.class);
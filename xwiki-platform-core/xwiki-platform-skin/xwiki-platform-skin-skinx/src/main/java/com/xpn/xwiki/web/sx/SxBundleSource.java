@@ -0,0 +1,91 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.web.sx;
+
+import java.util.List;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Aggregates several skin extension sources, so that the extensions pulled by a page can be served (and compressed)
+ * with a single request.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+@Unstable
+public class SxBundleSource implements SxSource
+{
+    /**
+     * The maximum number of sources which can be aggregated in a bundle.
+     */
+    public static final int MAX_SOURCES = 50;
+
+    /** The aggregated sources, in the order in which their content is concatenated. */
+    private final List<SxSource> sources;
+
+    /**
+     * Constructor for this extension source.
+     *
+     * @param sources the aggregated sources, in the order in which their content should be concatenated
+     */
+    public SxBundleSource(List<SxSource> sources)
+    {
+        this.sources = sources;
+    }
+
+    @Override
+    public long getLastModifiedDate()
+    {
+        long lastModifiedDate = 0;
+        for (SxSource source : this.sources) {
+            lastModifiedDate = Math.max(lastModifiedDate, source.getLastModifiedDate());
+        }
+
+        return lastModifiedDate;
+    }
+
+    @Override
+    public String getContent()
+    {
+        StringBuilder resultBuilder = new StringBuilder();
+        for (SxSource source : this.sources) {
+            // The document sources already end each extension with a new line
+            resultBuilder.append(source.getContent());
+        }
+
+        return resultBuilder.toString();
+    }
+
+    @Override
+    public CachePolicy getCachePolicy()
+    {
+        // Use the most restrictive policy of the aggregated sources
+        CachePolicy finalCache = CachePolicy.LONG;
+        for (SxSource source : this.sources) {
+            CachePolicy cache = source.getCachePolicy();
+            if (cache.compareTo(finalCache) > 0) {
+                finalCache = cache;
+            }
+        }
+
+        return finalCache;
+    }
+}
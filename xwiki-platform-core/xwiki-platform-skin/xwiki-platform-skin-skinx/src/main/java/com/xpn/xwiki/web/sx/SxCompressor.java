@@ -19,6 +19,8 @@
  */
 package com.xpn.xwiki.web.sx;
 
+import org.xwiki.stability.Unstable;
+
 /**
  * Extension compressor.
  * 
@@ -34,4 +36,27 @@
      * @return A compressed version of the input source
      */
     String compress(String source);
+
+    /**
+     * @return the source map generated by the last call to {@link #compress(String)}, or {@code null} if the
+     *         compressor doesn't generate source maps
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    default String getSourceMap()
+    {
+        return null;
+    }
+
+    /**
+     * @return an identifier of what, besides the source, impacts the output of {@link #compress(String)} and
+     *         {@link #getSourceMap()} (configuration, name of the source, etc.), or {@code null} if only the source
+     *         matters; used to identify the cached output of the compressor
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    default String getCacheKey()
+    {
+        return null;
+    }
 }
@@ -32,6 +32,7 @@
 import org.xwiki.lesscss.resources.LESSResourceReference;
 import org.xwiki.lesscss.resources.LESSResourceReferenceFactory;
 import org.xwiki.model.reference.ObjectPropertyReference;
+import org.xwiki.stability.Unstable;
 import org.xwiki.velocity.VelocityManager;
 import org.xwiki.velocity.XWikiVelocityException;
 
@@ -83,9 +84,22 @@ public class SxDocumentSource implements SxSource
      * @param extension The Extension type
      */
     public SxDocumentSource(XWikiContext context, Extension extension)
+    {
+        this(context.getDoc(), context, extension);
+    }
+
+    /**
+     * Constructor for this extension source.
+     *
+     * @param document the document containing the extension
+     * @param context The XWikiContext
+     * @param extension The Extension type
+     * @since 16.7.0RC1
+     */
+    public SxDocumentSource(XWikiDocument document, XWikiContext context, Extension extension)
     {
         this.context = context;
-        this.document = context.getDoc();
+        this.document = document;
         this.extension = extension;
     }
 
@@ -167,6 +181,41 @@ public String getContent()
         return resultBuilder.toString();
     }
 
+    /**
+     * @return {@code true} if the extension can be served as part of a {@link SxBundleSource bundle}
+     * @see #isBundleable(XWikiDocument, String)
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    public boolean isBundleable()
+    {
+        return isBundleable(this.document, this.extension.getClassName());
+    }
+
+    /**
+     * @param document the document containing the extension
+     * @param className the name of the class of the extension objects
+     * @return {@code true} if the extension can be served as part of a {@link SxBundleSource bundle}, i.e. if its
+     *         content is the same whatever the request: none of its objects is parsed (which would also execute its
+     *         code with the rights of the document the bundle is served from, instead of its own) or forbids caching
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    public static boolean isBundleable(XWikiDocument document, String className)
+    {
+        List<BaseObject> objects = document.getObjects(className);
+        if (objects != null) {
+            for (BaseObject sxObj : objects) {
+                if (sxObj != null && (sxObj.getIntValue(PARSE_CONTENT_PROPERTY_NAME) == 1
+                    || CachePolicy.FORBID.name().equalsIgnoreCase(sxObj.getStringValue(CACHE_POLICY_PROPERTY_NAME)))) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
     @Override
     public long getLastModifiedDate()
     {
@@ -20,6 +20,7 @@
 package org.xwiki.skinx;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * Configuration options for skin extensions.
@@ -48,4 +49,15 @@
      *         of JavaScript in strict mode for browsers that supports it, {@code false} otherwise
      */
     boolean shouldRunJavaScriptInStrictMode();
+
+    /**
+     * @return {@code true} if the wiki page skin extensions pulled by the same page should be served as a single bundle
+     *         instead of one request per extension, {@code false} otherwise
+     * @since 16.7.0RC1
+     */
+    @Unstable
+    default boolean isBundleEnabled()
+    {
+        return false;
+    }
 }
@@ -47,4 +47,10 @@ public boolean shouldRunJavaScriptInStrictMode()
     {
         return this.xwikiProperties.getProperty("skinx.jsStrictModeEnabled", false);
     }
+
+    @Override
+    public boolean isBundleEnabled()
+    {
+        return this.xwikiProperties.getProperty("skinx.bundleEnabled", false);
+    }
 }
@@ -0,0 +1,154 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.skinx.internal;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+
+import com.xpn.xwiki.web.sx.SxCompressor;
+
+/**
+ * Cache the output of the skin extension compressors, so that the same extension content is not compressed again for
+ * each request (the JavaScript compression, in particular, is very expensive). The entries are identified by a hash of
+ * the content to compress (and of the {@link SxCompressor#getCacheKey() parameters} of the compressor), so a modified
+ * extension naturally gets a new entry and the outdated ones end up evicted.
+ *
+ * @version $Id$
+ * @since 16.7.0RC1
+ */
+@Component(roles = SxCompressorCache.class)
+@Singleton
+public class SxCompressorCache implements Initializable, Disposable
+{
+    private static final String KEY_SEPARATOR = ":";
+
+    @Inject
+    private CacheManager cacheManager;
+
+    private Cache<CompressedContent> cache;
+
+    /**
+     * The output of a compressor.
+     */
+    private static final class CompressedContent
+    {
+        private final String content;
+
+        private final String sourceMap;
+
+        CompressedContent(String content, String sourceMap)
+        {
+            this.content = content;
+            this.sourceMap = sourceMap;
+        }
+    }
+
+    /**
+     * A compressor which reuses the cached output of the wrapped compressor.
+     */
+    private final class CachedSxCompressor implements SxCompressor
+    {
+        private final SxCompressor compressor;
+
+        private String sourceMap;
+
+        CachedSxCompressor(SxCompressor compressor)
+        {
+            this.compressor = compressor;
+        }
+
+        @Override
+        public String compress(String source)
+        {
+            StringBuilder key = new StringBuilder(this.compressor.getClass().getName());
+            key.append(KEY_SEPARATOR);
+            String compressorKey = this.compressor.getCacheKey();
+            if (compressorKey != null) {
+                // The hash has a fixed length so there is no ambiguity even if the compressor key contains the
+                // separator
+                key.append(compressorKey);
+                key.append(KEY_SEPARATOR);
+            }
+            key.append(DigestUtils.sha256Hex(source.getBytes(StandardCharsets.UTF_8)));
+
+            CompressedContent compressedContent = cache.get(key.toString());
+            if (compressedContent == null) {
+                String content = this.compressor.compress(source);
+                compressedContent = new CompressedContent(content, this.compressor.getSourceMap());
+                cache.set(key.toString(), compressedContent);
+            }
+
+            this.sourceMap = compressedContent.sourceMap;
+
+            return compressedContent.content;
+        }
+
+        @Override
+        public String getSourceMap()
+        {
+            return this.sourceMap;
+        }
+
+        @Override
+        public String getCacheKey()
+        {
+            return this.compressor.getCacheKey();
+        }
+    }
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.cache = this.cacheManager.createNewCache(new LRUCacheConfiguration("skinx.compressed", 500));
+        } catch (CacheException e) {
+            throw new InitializationException("Failed to create the skin extensions compression cache.", e);
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.cache.dispose();
+    }
+
+    /**
+     * @param compressor the compressor to wrap
+     * @return a compressor which returns the cached output of the passed compressor when the same content was already
+     *         compressed
+     */
+    public SxCompressor wrap(SxCompressor compressor)
+    {
+        return new CachedSxCompressor(compressor);
+    }
+}
@@ -33,6 +33,7 @@
 import javax.inject.Named;
 import javax.inject.Provider;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
@@ -47,6 +48,7 @@
 import org.xwiki.security.authorization.AuthorizationManager;
 import org.xwiki.security.authorization.ContextualAuthorizationManager;
 import org.xwiki.security.authorization.Right;
+import org.xwiki.skinx.SkinExtensionConfiguration;
 import org.xwiki.skinx.internal.async.SkinExtensionAsync;
 import org.xwiki.test.LogLevel;
 import org.xwiki.test.junit5.LogCaptureExtension;
@@ -124,6 +126,9 @@
     @MockComponent
     private SkinExtensionAsync skinExtensionAsync;
 
+    @MockComponent
+    private SkinExtensionConfiguration skinExtensionConfiguration;
+
     @RegisterExtension
     private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
 
@@ -239,6 +244,47 @@ void endParsingAlwaysUsedExtensions() throws XWikiException, MalformedURLExcepti
         assertEquals(expectedContent, obtainedContent);
     }
 
+    @Test
+    void endParsingBundle() throws XWikiException, MalformedURLException
+    {
+        when(this.skinExtensionConfiguration.isBundleEnabled()).thenReturn(true);
+
+        String content = String.format("<head><!-- %s --></head>", CssSkinExtensionPlugin.class.getCanonicalName());
+
+        SpaceReference spaceReference = new SpaceReference("Space", new WikiReference("xwiki"));
+        when(this.localEntityReferenceSerializer.serialize(spaceReference)).thenReturn("Space");
+        XWiki wiki = this.context.getWiki();
+
+        for (int i = 1; i <= 2; i++) {
+            DocumentReference reference = new DocumentReference("Extension" + i, spaceReference);
+            when(this.currentDocumentReferenceResolver.resolve("extension" + i)).thenReturn(reference);
+            when(this.entityReferenceSerializer.serialize(reference)).thenReturn("extension" + i);
+            when(this.contextualAuthorizationManager.hasAccess(Right.VIEW, reference)).thenReturn(true);
+
+            XWikiDocument extension = mock(XWikiDocument.class);
+            when(wiki.getDocument(reference, this.context)).thenReturn(extension);
+            when(extension.getVersion()).thenReturn(i + ".1");
+            when(extension.getObjects(CssSkinExtensionPlugin.SSX_CLASS_NAME))
+                .thenReturn(new Vector<>(Collections.singletonList(mock(BaseObject.class))));
+
+            this.skinExtensionPlugin.getPulledResources(this.context).add("extension" + i);
+        }
+
+        this.context.setLocale(Locale.ITALY);
+
+        String expectedQueryString = "language=it_IT&bundle=extension1&bundle=extension2&bundleVersion="
+            + DigestUtils.sha256Hex("extension11.1extension22.1");
+        String bundleLink = "https://mybundle";
+        URL bundleLinkUrl = new URL(bundleLink);
+        when(this.urlFactory.createURL("Space", "Extension1", CssSkinExtensionPlugin.PLUGIN_NAME, expectedQueryString,
+            "", "xwiki", this.context)).thenReturn(bundleLinkUrl);
+        when(this.urlFactory.getURL(bundleLinkUrl, this.context)).thenReturn(bundleLink);
+
+        assertEquals(
+            String.format("<head><link rel=\"stylesheet\" type=\"text/css\" href=\"%s\" />\n</head>", bundleLink),
+            this.skinExtensionPlugin.endParsing(content, this.context));
+    }
+
     @Test
     void use() throws XWikiException
     {
@@ -0,0 +1,296 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.web.sx;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Vector;
+
+import javax.inject.Named;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.skinx.internal.SxCompressorCache;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.debug.DebugConfiguration;
+import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.test.MockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.InjectMockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
+import com.xpn.xwiki.web.SsxAction;
+import com.xpn.xwiki.web.XWikiRequest;
+import com.xpn.xwiki.web.XWikiResponse;
+import com.xpn.xwiki.web.sx.SxSource.CachePolicy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link AbstractSxAction}.
+ *
+ * @version $Id$
+ */
+@OldcoreTest
+class AbstractSxActionTest
+{
+    private static final String CONTENT = ".selector { color: red; }";
+
+    @InjectMockitoOldcore
+    private MockitoOldcore oldcore;
+
+    @MockComponent
+    private DebugConfiguration debugConfiguration;
+
+    @MockComponent
+    private SxCompressorCache compressorCache;
+
+    @MockComponent
+    @Named("current")
+    private DocumentReferenceResolver<String> currentResolver;
+
+    @MockComponent
+    private ContextualAuthorizationManager authorization;
+
+    private XWikiContext context;
+
+    private XWikiRequest request = mock(XWikiRequest.class);
+
+    private XWikiResponse response;
+
+    private ServletOutputStream outputStream = mock(ServletOutputStream.class);
+
+    private SxSource source = mock(SxSource.class);
+
+    private Extension extension = mock(Extension.class);
+
+    private SxCompressor compressor = mock(SxCompressor.class);
+
+    private AbstractSxAction action = new SsxAction();
+
+    @BeforeEach
+    void beforeEach() throws IOException
+    {
+        this.context = this.oldcore.getXWikiContext();
+        this.context.setRequest(this.request);
+        setResponse();
+
+        when(this.source.getContent()).thenReturn(CONTENT);
+        when(this.source.getCachePolicy()).thenReturn(CachePolicy.LONG);
+
+        when(this.extension.getContentType()).thenReturn("text/css");
+        when(this.extension.getCompressor()).thenReturn(this.compressor);
+        when(this.compressor.compress(CONTENT)).thenReturn("compressed");
+
+        when(this.debugConfiguration.isMinify()).thenReturn(true);
+        when(this.compressorCache.wrap(any())).then(returnsFirstArg());
+    }
+
+    private void setResponse() throws IOException
+    {
+        this.response = mock(XWikiResponse.class);
+        this.context.setResponse(this.response);
+        when(this.response.getOutputStream()).thenReturn(this.outputStream);
+    }
+
+    private DocumentReference mockExtensionDocument(String name, int parse, String cache) throws Exception
+    {
+        DocumentReference documentReference = new DocumentReference("wiki", "Space", name);
+        when(this.currentResolver.resolve(name)).thenReturn(documentReference);
+        when(this.authorization.hasAccess(Right.VIEW, documentReference)).thenReturn(true);
+
+        BaseObject object = mock(BaseObject.class);
+        when(object.getLargeStringValue("code")).thenReturn("." + name + " {}");
+        when(object.getIntValue("parse")).thenReturn(parse);
+        when(object.getStringValue("cache")).thenReturn(cache);
+
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getObjects("XWiki.StyleSheetExtension"))
+            .thenReturn(new Vector<>(Collections.singletonList(object)));
+        when(document.getDate()).thenReturn(new Date());
+        doReturn(document).when(this.oldcore.getSpyXWiki()).getDocument(documentReference, this.context);
+
+        return documentReference;
+    }
+
+    private String renderBundle(String... documentNames) throws Exception
+    {
+        when(this.debugConfiguration.isMinify()).thenReturn(false);
+        when(this.request.getParameterValues("bundle")).thenReturn(documentNames);
+
+        return this.action.render(this.context);
+    }
+
+    private String renderAndGetETag() throws Exception
+    {
+        this.action.renderExtension(this.source, this.extension, this.context);
+
+        ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+        verify(this.response, times(1)).setHeader(eq("ETag"), etag.capture());
+
+        return etag.getValue();
+    }
+
+    @Test
+    void renderExtension() throws Exception
+    {
+        String etag = renderAndGetETag();
+
+        assertEquals('"', etag.charAt(0));
+        assertEquals('"', etag.charAt(etag.length() - 1));
+        verify(this.compressor).compress(CONTENT);
+        verify(this.outputStream).write("compressed".getBytes("UTF-8"));
+        verify(this.response, never()).setStatus(anyInt());
+    }
+
+    @Test
+    void renderExtensionNotModified() throws Exception
+    {
+        String etag = renderAndGetETag();
+
+        // The browser already has the current version
+        when(this.request.getHeader("If-None-Match")).thenReturn("\"other\", W/" + etag);
+
+        this.action.renderExtension(this.source, this.extension, this.context);
+
+        verify(this.response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(this.response, times(2)).setHeader("ETag", etag);
+        // Neither compressed nor sent again
+        verify(this.compressor, times(1)).compress(CONTENT);
+        verify(this.outputStream, times(1)).write(any(byte[].class));
+    }
+
+    @Test
+    void renderExtensionModified() throws Exception
+    {
+        when(this.request.getHeader("If-None-Match")).thenReturn("\"outdated\"");
+
+        renderAndGetETag();
+
+        verify(this.response, never()).setStatus(anyInt());
+        verify(this.outputStream).write("compressed".getBytes("UTF-8"));
+    }
+
+    @Test
+    void eTagDependsOnCompression() throws Exception
+    {
+        String etag = renderAndGetETag();
+
+        // Different compression parameters (e.g. the strict mode) produce a different content
+        when(this.compressor.getCacheKey()).thenReturn("strict");
+        setResponse();
+        String strictETag = renderAndGetETag();
+        assertNotEquals(etag, strictETag);
+
+        // No compression at all
+        when(this.debugConfiguration.isMinify()).thenReturn(false);
+        setResponse();
+        String notMinifiedETag = renderAndGetETag();
+        assertNotEquals(etag, notMinifiedETag);
+        assertNotEquals(strictETag, notMinifiedETag);
+    }
+
+    @Test
+    void renderBundle() throws Exception
+    {
+        mockExtensionDocument("first", 0, "long");
+        mockExtensionDocument("second", 0, "default");
+
+        assertNull(renderBundle("first", "second"));
+
+        verify(this.outputStream).write(".first {}\n.second {}\n".getBytes("UTF-8"));
+        verify(this.response, never()).setStatus(anyInt());
+    }
+
+    @Test
+    void renderBundleWithoutViewRight() throws Exception
+    {
+        mockExtensionDocument("first", 0, "long");
+        DocumentReference forbidden = mockExtensionDocument("forbidden", 0, "long");
+        when(this.authorization.hasAccess(Right.VIEW, forbidden)).thenReturn(false);
+
+        assertNull(renderBundle("forbidden", "first"));
+
+        verify(this.oldcore.getSpyXWiki(), never()).getDocument(forbidden, this.context);
+        verify(this.outputStream).write(".first {}\n".getBytes("UTF-8"));
+    }
+
+    @Test
+    void renderBundleWithExtensionsDependingOnTheRequest() throws Exception
+    {
+        // The parsed extensions would be executed with the rights of the first member of the bundle
+        mockExtensionDocument("parsed", 1, "long");
+        mockExtensionDocument("first", 0, "long");
+        mockExtensionDocument("notCached", 0, "forbid");
+
+        assertNull(renderBundle("parsed", "first", "notCached"));
+
+        verify(this.outputStream).write(".first {}\n".getBytes("UTF-8"));
+    }
+
+    @Test
+    void renderBundleWithoutServableExtension() throws Exception
+    {
+        mockExtensionDocument("parsed", 1, "long");
+
+        assertEquals("docdoesnotexist", renderBundle("parsed"));
+
+        verify(this.response).setStatus(HttpServletResponse.SC_NOT_FOUND);
+        verify(this.outputStream, never()).write(any(byte[].class));
+    }
+
+    @Test
+    void renderBundleTooLarge() throws Exception
+    {
+        String[] documentNames = new String[SxBundleSource.MAX_SOURCES + 1];
+        for (int i = 0; i < documentNames.length; ++i) {
+            documentNames[i] = "extension" + i;
+            mockExtensionDocument(documentNames[i], 0, "long");
+        }
+
+        assertEquals("docdoesnotexist", renderBundle(documentNames));
+
+        verify(this.response).setStatus(HttpServletResponse.SC_NOT_FOUND);
+        verify(this.currentResolver, never()).resolve(anyString());
+        verify(this.outputStream, never()).write(any(byte[].class));
+    }
+}
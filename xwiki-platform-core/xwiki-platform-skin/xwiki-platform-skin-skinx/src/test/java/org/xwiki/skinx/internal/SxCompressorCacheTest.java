@@ -0,0 +1,117 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.skinx.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.web.sx.SxCompressor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link SxCompressorCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class SxCompressorCacheTest
+{
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @InjectMockComponents
+    private SxCompressorCache compressorCache;
+
+    private final Map<String, Object> entries = new HashMap<>();
+
+    @BeforeComponent
+    void beforeComponent() throws Exception
+    {
+        Cache<Object> cache = mock(Cache.class);
+        when(cache.get(anyString())).then(invocation -> this.entries.get(invocation.getArgument(0)));
+        doAnswer(invocation -> this.entries.put(invocation.getArgument(0), invocation.getArgument(1))).when(cache)
+            .set(anyString(), any());
+        when(this.cacheManager.createNewCache(any())).thenReturn(cache);
+    }
+
+    @Test
+    void compressOnce()
+    {
+        SxCompressor compressor = mock(SxCompressor.class);
+        when(compressor.compress("source")).thenReturn("compressed");
+        when(compressor.getSourceMap()).thenReturn("map");
+
+        SxCompressor cachedCompressor = this.compressorCache.wrap(compressor);
+        assertEquals("compressed", cachedCompressor.compress("source"));
+        assertEquals("map", cachedCompressor.getSourceMap());
+
+        cachedCompressor = this.compressorCache.wrap(compressor);
+        assertEquals("compressed", cachedCompressor.compress("source"));
+        assertEquals("map", cachedCompressor.getSourceMap());
+
+        verify(compressor, times(1)).compress("source");
+    }
+
+    @Test
+    void compressModifiedContent()
+    {
+        SxCompressor compressor = mock(SxCompressor.class);
+        when(compressor.compress("source")).thenReturn("compressed");
+        when(compressor.compress("modified")).thenReturn("compressed modified");
+
+        assertEquals("compressed", this.compressorCache.wrap(compressor).compress("source"));
+        assertEquals("compressed modified", this.compressorCache.wrap(compressor).compress("modified"));
+    }
+
+    @Test
+    void compressWithDifferentCacheKeys()
+    {
+        SxCompressor compressor = mock(SxCompressor.class);
+        when(compressor.getCacheKey()).thenReturn("Space.Page1:false", "Space.Page2:false", "Space.Page1:true",
+            "Space.Page1:false");
+        when(compressor.compress("source")).thenReturn("compressed");
+
+        // Same source but different compression parameters (name in the source map, strict mode, etc.)
+        this.compressorCache.wrap(compressor).compress("source");
+        this.compressorCache.wrap(compressor).compress("source");
+        this.compressorCache.wrap(compressor).compress("source");
+        verify(compressor, times(3)).compress("source");
+
+        // Same source and parameters
+        this.compressorCache.wrap(compressor).compress("source");
+        verify(compressor, times(3)).compress("source");
+    }
+}
@@ -20,7 +20,10 @@
 package org.xwiki.test.page;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jsoup.Jsoup;
@@ -37,12 +40,14 @@
 import org.xwiki.job.event.status.JobProgressManager;
 import org.xwiki.management.JMXBeanRegistration;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.SpaceReference;
 import org.xwiki.query.Query;
 import org.xwiki.rendering.internal.transformation.MutableRenderingContext;
 import org.xwiki.rendering.syntax.Syntax;
 import org.xwiki.rendering.transformation.RenderingContext;
 import org.xwiki.resource.internal.entity.EntityResourceActionLister;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
 import org.xwiki.security.authorization.Right;
 import org.xwiki.test.annotation.AfterComponent;
 import org.xwiki.test.annotation.BeforeComponent;
@@ -285,6 +290,17 @@ void setUpForPageTest() throws Exception
         when(oldcore.getMockRightService().hasAccessLevel(eq("view"), eq("XWiki.XWikiGuest"), any(),
             eq(context))).thenReturn(true);
         when(oldcore.getMockContextualAuthorizationManager().hasAccess(same(Right.VIEW), any())).thenReturn(true);
+        // Make the bulk check consistent with the individual checks stubbed by the tests
+        when(oldcore.getMockContextualAuthorizationManager().hasAccessToEach(any(Right.class), any()))
+            .thenAnswer(invocation -> {
+                ContextualAuthorizationManager authorization = (ContextualAuthorizationManager) invocation.getMock();
+                Right right = invocation.getArgument(0);
+                Map<EntityReference, Boolean> accesses = new LinkedHashMap<>();
+                for (EntityReference reference : invocation.<Collection<EntityReference>>getArgument(1)) {
+                    accesses.put(reference, authorization.hasAccess(right, reference));
+                }
+                return accesses;
+            });
 
         // Set up URL Factory
         URLFactorySetup.setUp(context);